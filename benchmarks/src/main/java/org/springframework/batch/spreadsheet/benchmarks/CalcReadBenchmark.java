@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jopendocument.dom.spreadsheet.Sheet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.spreadsheet.CalcRow;
+import org.springframework.batch.spreadsheet.CalcRowCallback;
+import org.springframework.batch.spreadsheet.CalcStreamingRowCallback;
+import org.springframework.batch.spreadsheet.CalcTemplate;
+import org.springframework.batch.spreadsheet.CalcUtil;
+import org.springframework.batch.spreadsheet.CloseableRowIterator;
+
+/**
+ * Reads synthetic .ods spreadsheets with {@link CalcTemplate}, in each of its read modes.
+ *
+ * @since 10/16/2026
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CalcReadBenchmark {
+
+	@Param({ "1000", "100000", "1000000" })
+	public int rows;
+
+	@Param({ "NARROW", "WIDE", "SPARSE" })
+	public SheetShape shape;
+
+	/**
+	 * <code>dom</code> loads the document with jOpenDocument, <code>streaming</code> parses
+	 * content.xml with StAX, and <code>mapped</code> inflates it out of a memory mapping.
+	 */
+	@Param({ "dom", "streaming", "mapped" })
+	public String mode;
+
+	private CalcTemplate template;
+
+	private int columns;
+
+	private final CalcStreamingRowCallback<Integer> streamingCallback = new CalcStreamingRowCallback<Integer>() {
+		public Integer mapRow(CalcRow row) {
+			int length = 0;
+			for (int column = 0; column < row.getColumnCount(); column++) {
+				String value = row.getString(column);
+				length += value == null ? 0 : value.length();
+			}
+			return Integer.valueOf(length);
+		}
+	};
+
+	private final CalcRowCallback<Integer> domCallback = new CalcRowCallback<Integer>() {
+		public Integer mapRow(Sheet sheet, int row) {
+			int length = 0;
+			for (int column = 0; column < columns; column++) {
+				String value = CalcUtil.getString(sheet, column, row);
+				length += value == null ? 0 : value.length();
+			}
+			return Integer.valueOf(length);
+		}
+	};
+
+	@Setup
+	public void generate() throws IOException {
+		File file = SyntheticWorkbooks.calc(rows, shape);
+		columns = shape.getColumns();
+		template = new CalcTemplate(file, true);
+		template.setMemoryMapped("mapped".equals(mode));
+	}
+
+	/**
+	 * Each operation reads the whole worksheet, so rows per second is the score times the rows.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public List<Integer> onEachRow() {
+		if ("dom".equals(mode)) {
+			return template.onEachRow(0, domCallback);
+		}
+		return template.onEachRow(0, streamingCallback);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Integer firstRow() {
+		CloseableRowIterator<Integer> iterator = "dom".equals(mode) ? template.rowIterator(0, domCallback)
+				: template.rowIterator(0, streamingCallback);
+		try {
+			return iterator.next();
+		} finally {
+			iterator.close();
+		}
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.spreadsheet.CloseableRowIterator;
+import org.springframework.batch.spreadsheet.ExcelRowCallback;
+import org.springframework.batch.spreadsheet.ExcelTemplate;
+
+/**
+ * Reads synthetic .xls workbooks with {@link ExcelTemplate}, in each of its read modes.
+ *
+ * @since 10/16/2026
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ExcelReadBenchmark {
+
+	@Param({ "1000", "65535" })
+	public int rows;
+
+	@Param({ "NARROW", "WIDE", "SPARSE" })
+	public SheetShape shape;
+
+	/**
+	 * <code>workbook</code> builds an HSSFWorkbook, <code>mapped</code> builds it out of a memory
+	 * mapping, and <code>streaming</code> decodes the records, which always come out of a mapping.
+	 */
+	@Param({ "workbook", "mapped", "streaming" })
+	public String mode;
+
+	private ExcelTemplate template;
+
+	/**
+	 * Touches every cell, so that lazily decoded values are paid for.
+	 */
+	private final ExcelRowCallback<Integer> callback = new ExcelRowCallback<Integer>() {
+		public Integer mapRow(Row row) {
+			int length = 0;
+			for (Iterator<Cell> cells = row.cellIterator(); cells.hasNext();) {
+				Cell cell = cells.next();
+				if (cell.getCellType() == Cell.CELL_TYPE_NUMERIC) {
+					length += (int) cell.getNumericCellValue();
+				} else {
+					length += cell.getRichStringCellValue().getString().length();
+				}
+			}
+			return Integer.valueOf(length);
+		}
+	};
+
+	@Setup
+	public void generate() throws IOException {
+		File file = SyntheticWorkbooks.excel(rows, shape);
+		template = new ExcelTemplate(file, true);
+		template.setStreaming("streaming".equals(mode));
+		template.setMemoryMapped("mapped".equals(mode));
+	}
+
+	/**
+	 * Each operation reads the whole worksheet, so rows per second is the score times the rows.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public List<Integer> onEachRow() {
+		return template.onEachRow("Sheet1", callback);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Integer firstRow() {
+		CloseableRowIterator<Integer> iterator = template.rowIterator("Sheet1", callback);
+		try {
+			return iterator.next();
+		} finally {
+			iterator.close();
+		}
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet.benchmarks;
+
+/**
+ * The layouts of the synthetic worksheets. The first column holds a name, the odd columns
+ * numbers, and the other even columns text drawn from a small set of values.
+ *
+ * @since 10/16/2026
+ * @author agent
+ */
+public enum SheetShape {
+
+	/**
+	 * Three columns, like the phonebook files.
+	 */
+	NARROW(3, false),
+
+	/**
+	 * Forty columns, all filled.
+	 */
+	WIDE(40, false),
+
+	/**
+	 * Forty columns, with two cells in three left empty.
+	 */
+	SPARSE(40, true);
+
+	private static final String[] WORDS = { "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel" };
+
+	private final int columns;
+
+	private final boolean holes;
+
+	private SheetShape(int columns, boolean holes) {
+		this.columns = columns;
+		this.holes = holes;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return whether the cell is left empty
+	 */
+	public boolean isHole(int row, int column) {
+		return holes && (row + column) % 3 != 0;
+	}
+
+	public boolean isNumeric(int column) {
+		return column % 2 == 1;
+	}
+
+	public double numberAt(int row, int column) {
+		return row * 0.5 + column;
+	}
+
+	public String textAt(int row, int column) {
+		return column == 0 ? "name-" + row : WORDS[(row + column) % WORDS.length];
+	}
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet.benchmarks;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+
+/**
+ * Writes the .xls and .ods workbooks the benchmarks read, each with a header row followed by the
+ * requested number of rows on a worksheet named <code>Sheet1</code>. Files are kept in the temp
+ * directory, and only written when missing, so that large workbooks are generated once.
+ *
+ * @since 10/16/2026
+ * @author agent
+ */
+public final class SyntheticWorkbooks {
+
+	/**
+	 * The most data rows an .xls worksheet can hold below its header.
+	 */
+	public static final int MAX_EXCEL_ROWS = 65535;
+
+	private static final String OFFICE_NS = "urn:oasis:names:tc:opendocument:xmlns:office:1.0";
+
+	private static final String TABLE_NS = "urn:oasis:names:tc:opendocument:xmlns:table:1.0";
+
+	private static final String TEXT_NS = "urn:oasis:names:tc:opendocument:xmlns:text:1.0";
+
+	private static final String MIMETYPE = "application/vnd.oasis.opendocument.spreadsheet";
+
+	private SyntheticWorkbooks() {
+	}
+
+	/**
+	 * @param rows - number of rows below the header, at most {@link #MAX_EXCEL_ROWS}
+	 * @param shape
+	 * @return the workbook
+	 */
+	public static File excel(int rows, SheetShape shape) throws IOException {
+		if (rows > MAX_EXCEL_ROWS) {
+			throw new IllegalArgumentException("An .xls worksheet holds at most " + MAX_EXCEL_ROWS + " rows below its header");
+		}
+		File file = fileFor(rows, shape, "xls");
+		if (file.exists()) {
+			return file;
+		}
+		HSSFWorkbook wb = new HSSFWorkbook();
+		HSSFSheet sheet = wb.createSheet("Sheet1");
+		HSSFRow header = sheet.createRow(0);
+		for (int column = 0; column < shape.getColumns(); column++) {
+			header.createCell(column).setCellValue("Column " + column);
+		}
+		for (int row = 0; row < rows; row++) {
+			HSSFRow cells = sheet.createRow(row + 1);
+			for (int column = 0; column < shape.getColumns(); column++) {
+				if (shape.isHole(row, column)) {
+					continue;
+				}
+				if (shape.isNumeric(column)) {
+					cells.createCell(column).setCellValue(shape.numberAt(row, column));
+				} else {
+					cells.createCell(column).setCellValue(shape.textAt(row, column));
+				}
+			}
+		}
+		File partial = new File(file.getPath() + ".part");
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(partial));
+		try {
+			wb.write(out);
+		} finally {
+			out.close();
+		}
+		rename(partial, file);
+		return file;
+	}
+
+	/**
+	 * The content.xml is written row by row, so even a million rows need little memory.
+	 * 
+	 * @param rows - number of rows below the header
+	 * @param shape
+	 * @return the spreadsheet
+	 */
+	public static File calc(int rows, SheetShape shape) throws IOException {
+		File file = fileFor(rows, shape, "ods");
+		if (file.exists()) {
+			return file;
+		}
+		File partial = new File(file.getPath() + ".part");
+		ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(partial)));
+		try {
+			// the mimetype must come first, and uncompressed
+			byte[] mimetype = MIMETYPE.getBytes("US-ASCII");
+			ZipEntry entry = new ZipEntry("mimetype");
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(mimetype.length);
+			CRC32 crc = new CRC32();
+			crc.update(mimetype);
+			entry.setCrc(crc.getValue());
+			zip.putNextEntry(entry);
+			zip.write(mimetype);
+			zip.closeEntry();
+
+			zip.putNextEntry(new ZipEntry("META-INF/manifest.xml"));
+			zip.write(("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+					+ "<manifest:manifest xmlns:manifest=\"urn:oasis:names:tc:opendocument:xmlns:manifest:1.0\">\n"
+					+ " <manifest:file-entry manifest:media-type=\"" + MIMETYPE + "\" manifest:full-path=\"/\"/>\n"
+					+ " <manifest:file-entry manifest:media-type=\"text/xml\" manifest:full-path=\"content.xml\"/>\n"
+					+ "</manifest:manifest>\n").getBytes("UTF-8"));
+			zip.closeEntry();
+
+			zip.putNextEntry(new ZipEntry("content.xml"));
+			writeContent(zip, rows, shape);
+			zip.closeEntry();
+		} catch (XMLStreamException e) {
+			throw new IOException("Could not write content.xml: " + e.getMessage());
+		} finally {
+			zip.close();
+		}
+		rename(partial, file);
+		return file;
+	}
+
+	private static void writeContent(OutputStream out, int rows, SheetShape shape) throws XMLStreamException {
+		XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+		xml.writeStartDocument("UTF-8", "1.0");
+		xml.writeStartElement("office", "document-content", OFFICE_NS);
+		xml.writeNamespace("office", OFFICE_NS);
+		xml.writeNamespace("table", TABLE_NS);
+		xml.writeNamespace("text", TEXT_NS);
+		xml.writeAttribute("office", OFFICE_NS, "version", "1.2");
+		xml.writeStartElement("office", "body", OFFICE_NS);
+		xml.writeStartElement("office", "spreadsheet", OFFICE_NS);
+		xml.writeStartElement("table", "table", TABLE_NS);
+		xml.writeAttribute("table", TABLE_NS, "name", "Sheet1");
+		xml.writeEmptyElement("table", "table-column", TABLE_NS);
+		xml.writeAttribute("table", TABLE_NS, "number-columns-repeated", String.valueOf(shape.getColumns()));
+
+		xml.writeStartElement("table", "table-row", TABLE_NS);
+		for (int column = 0; column < shape.getColumns(); column++) {
+			writeCell(xml, "Column " + column);
+		}
+		xml.writeEndElement();
+		for (int row = 0; row < rows; row++) {
+			xml.writeStartElement("table", "table-row", TABLE_NS);
+			for (int column = 0; column < shape.getColumns(); column++) {
+				if (shape.isHole(row, column)) {
+					xml.writeEmptyElement("table", "table-cell", TABLE_NS);
+				} else if (shape.isNumeric(column)) {
+					String value = String.valueOf(shape.numberAt(row, column));
+					xml.writeStartElement("table", "table-cell", TABLE_NS);
+					xml.writeAttribute("office", OFFICE_NS, "value-type", "float");
+					xml.writeAttribute("office", OFFICE_NS, "value", value);
+					xml.writeStartElement("text", "p", TEXT_NS);
+					xml.writeCharacters(value);
+					xml.writeEndElement();
+					xml.writeEndElement();
+				} else {
+					writeCell(xml, shape.textAt(row, column));
+				}
+			}
+			xml.writeEndElement();
+		}
+		xml.writeEndDocument();
+		xml.close();
+	}
+
+	private static void writeCell(XMLStreamWriter xml, String text) throws XMLStreamException {
+		xml.writeStartElement("table", "table-cell", TABLE_NS);
+		xml.writeAttribute("office", OFFICE_NS, "value-type", "string");
+		xml.writeStartElement("text", "p", TEXT_NS);
+		xml.writeCharacters(text);
+		xml.writeEndElement();
+		xml.writeEndElement();
+	}
+
+	private static File fileFor(int rows, SheetShape shape, String extension) {
+		String name = "spreadsheet-benchmark-" + shape.name().toLowerCase() + "-" + rows + "." + extension;
+		return new File(System.getProperty("java.io.tmpdir"), name);
+	}
+
+	private static void rename(File partial, File file) throws IOException {
+		if (!partial.renameTo(file)) {
+			throw new IOException("Could not rename " + partial + " to " + file);
+		}
+	}
+
+}
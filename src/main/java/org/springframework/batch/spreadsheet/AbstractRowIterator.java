@@ -0,0 +1,84 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Base class for the lazy iterators handed out by the templates. Rows are read and mapped one at
+ * a time as the caller asks for them, and the file is released as soon as the last row is read.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ */
+abstract class AbstractRowIterator<T> implements CloseableRowIterator<T> {
+
+	private T next;
+
+	private boolean closed;
+
+	/**
+	 * @return the next mapped row, or <code>null</code> when there are no rows left
+	 * @throws IOException
+	 */
+	protected abstract T readNext() throws IOException;
+
+	/**
+	 * Release the underlying file.
+	 */
+	protected abstract void release();
+
+	public boolean hasNext() {
+		if (next == null && !closed) {
+			try {
+				next = readNext();
+			} catch (IOException e) {
+				close();
+				throw new RuntimeException(e);
+			} catch (RuntimeException e) {
+				close();
+				throw e;
+			}
+			if (next == null) {
+				close();
+			}
+		}
+		return next != null;
+	}
+
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		T item = next;
+		next = null;
+		return item;
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException("Rows cannot be removed from a worksheet");
+	}
+
+	public void close() {
+		if (!closed) {
+			closed = true;
+			release();
+		}
+	}
+
+}
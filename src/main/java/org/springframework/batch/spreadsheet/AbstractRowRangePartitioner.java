@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+/**
+ * Splits one worksheet into consecutive ranges of rows, so that a partitioned step can map a
+ * large worksheet on several threads. Each partition's {@link ExecutionContext} holds a
+ * {@link #START_ROW} (inclusive) and an {@link #END_ROW} (exclusive), meant to be bound to the
+ * <code>startRow</code> and <code>endRow</code> properties of a step-scoped
+ * {@link AbstractSpreadsheetItemReader}.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelRowRangePartitioner
+ * @see CalcRowRangePartitioner
+ */
+public abstract class AbstractRowRangePartitioner implements Partitioner, InitializingBean {
+
+	public static final String START_ROW = "startRow";
+
+	public static final String END_ROW = "endRow";
+
+	private static final String PARTITION_KEY = "partition";
+
+	/**
+	 * The spreadsheet file to split.
+	 */
+	private Resource resource;
+
+	public void afterPropertiesSet() throws Exception {
+		Assert.notNull(resource, "A resource is required");
+	}
+
+	/**
+	 * Work out how many rows the worksheet spans, without mapping them.
+	 * 
+	 * @return one more than the number of the last row
+	 * @throws IOException
+	 */
+	protected abstract int countRows() throws IOException;
+
+	/**
+	 * Create up to <code>gridSize</code> ranges of (nearly) equal size. Small worksheets get fewer
+	 * partitions rather than empty ones.
+	 */
+	public Map<String, ExecutionContext> partition(int gridSize) {
+		int rowCount;
+		try {
+			rowCount = countRows();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		
+		Map<String, ExecutionContext> partitions = new HashMap<String, ExecutionContext>();
+		int rowsPerPartition = Math.max(1, (rowCount + gridSize - 1) / gridSize);
+		int startRow = 0;
+		int i = 0;
+		do {
+			ExecutionContext context = new ExecutionContext();
+			context.putInt(START_ROW, startRow);
+			context.putInt(END_ROW, Math.min(rowCount, startRow + rowsPerPartition));
+			partitions.put(PARTITION_KEY + i++, context);
+			startRow += rowsPerPartition;
+		} while (startRow < rowCount);
+		return partitions;
+	}
+
+	public Resource getResource() {
+		return resource;
+	}
+
+	public void setResource(Resource resource) {
+		this.resource = resource;
+	}
+
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.batch.item.util.ExecutionContextUserSupport;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Base class for restartable readers that hand out one mapped item per worksheet row.
+ * <p>
+ * Besides the item count, the number of the next worksheet row is saved in the
+ * {@link ExecutionContext}. Rows that a callback mapped to <code>null</code> do not count as items,
+ * so on restart the reader jumps straight to the saved row instead of mapping every earlier row
+ * again to find its place.
+ * <p>
+ * The reader can be bounded to a range of rows with {@link #setStartRow(int)} and
+ * {@link #setEndRow(int)}, such as the ranges handed out by a {@link AbstractRowRangePartitioner}.
+ * 
+ * @param <T> - type of the items
+ * @param <R> - type of the raw rows the subclass pulls out of the worksheet
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelItemReader
+ * @see CalcItemReader
+ * @see CalcStreamingItemReader
+ */
+public abstract class AbstractSpreadsheetItemReader<T, R> extends AbstractItemCountingItemStreamItemReader<T> implements ItemStreamReader<T>, InitializingBean {
+
+	private static final String ROW_INDEX = "row.index";
+
+	private final ExecutionContextUserSupport ecSupport = new ExecutionContextUserSupport();
+
+	private boolean saveState = true;
+
+	/**
+	 * The spreadsheet file to read.
+	 */
+	private Resource resource;
+
+	/**
+	 * Option to skip the first row (usually due to a header being there).
+	 */
+	private boolean skipFirstRow;
+
+	/**
+	 * First row to read, inclusive.
+	 */
+	private int startRow = 0;
+
+	/**
+	 * Row to stop at, exclusive.
+	 */
+	private int endRow = Integer.MAX_VALUE;
+
+	/**
+	 * Number of the row after the last one read.
+	 */
+	private int rowIndex;
+
+	/**
+	 * Row index saved by a previous execution, or -1 when starting afresh.
+	 */
+	private int restartRowIndex = -1;
+
+	/**
+	 * A row that was read while looking for a starting point, but not handed out yet.
+	 */
+	private R pending;
+
+	public AbstractSpreadsheetItemReader() {
+		setName(ClassUtils.getShortName(getClass()));
+	}
+
+	public void afterPropertiesSet() throws Exception {
+		Assert.notNull(resource, "A resource is required");
+		Assert.isTrue(startRow <= endRow, "The start row must not be after the end row");
+	}
+
+	/**
+	 * Open the worksheet, positioned before its first row.
+	 * 
+	 * @throws Exception
+	 */
+	protected abstract void openWorksheet() throws Exception;
+
+	/**
+	 * @return the next row of the worksheet, or <code>null</code> when it is exhausted
+	 * @throws Exception
+	 */
+	protected abstract R readRow() throws Exception;
+
+	/**
+	 * @param row
+	 * @return the zero-based number of the row within its worksheet
+	 */
+	protected abstract int getRowNum(R row);
+
+	/**
+	 * Called with the header row when the first row is skipped, before any row is mapped.
+	 * Subclasses hand its column headers to a {@link ColumnHeadersAware} callback.
+	 * 
+	 * @param header
+	 */
+	protected void readHeader(R header) {
+	}
+
+	/**
+	 * Map a row through the callback, handing any runtime exception to the error handler.
+	 * 
+	 * @param row
+	 * @return the item, or <code>null</code> to pass over the row
+	 */
+	protected abstract T mapRow(R row);
+
+	protected abstract void closeWorksheet() throws Exception;
+
+	/**
+	 * Move past the rows before <code>rowNum</code> without mapping them. Subclasses that can
+	 * address rows directly may override this.
+	 * 
+	 * @param rowNum - number of the first row that should be read next
+	 * @throws Exception
+	 */
+	protected void skipToRow(int rowNum) throws Exception {
+		R row;
+		while ((row = nextRow()) != null) {
+			if (getRowNum(row) >= rowNum) {
+				pending = row;
+				return;
+			}
+		}
+	}
+
+	private R nextRow() throws Exception {
+		if (pending != null) {
+			R row = pending;
+			pending = null;
+			return row;
+		}
+		return readRow();
+	}
+
+	protected void doOpen() throws Exception {
+		rowIndex = 0;
+		pending = null;
+		openWorksheet();
+		if (skipFirstRow) {
+			R header = nextRow();
+			if (header != null) {
+				readHeader(header);
+				rowIndex = getRowNum(header) + 1;
+			}
+		}
+		if (startRow > rowIndex) {
+			skipToRow(startRow);
+			rowIndex = startRow;
+		}
+	}
+
+	protected T doRead() throws Exception {
+		R row;
+		while ((row = nextRow()) != null) {
+			int rowNum = getRowNum(row);
+			if (rowNum >= endRow) {
+				pending = row;
+				return null;
+			}
+			rowIndex = rowNum + 1;
+			T item = mapRow(row);
+			if (item != null) {
+				return item;
+			}
+		}
+		return null;
+	}
+
+	protected void doClose() throws Exception {
+		pending = null;
+		closeWorksheet();
+	}
+
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		String key = ecSupport.getKey(ROW_INDEX);
+		restartRowIndex = executionContext.containsKey(key) ? executionContext.getInt(key) : -1;
+		super.open(executionContext);
+	}
+
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		super.update(executionContext);
+		if (saveState) {
+			executionContext.putInt(ecSupport.getKey(ROW_INDEX), rowIndex);
+		}
+	}
+
+	/**
+	 * On restart, skip to the row saved by the previous execution instead of reading
+	 * <code>itemIndex</code> items.
+	 */
+	protected void jumpToItem(int itemIndex) throws Exception {
+		if (restartRowIndex < 0) {
+			super.jumpToItem(itemIndex);
+			return;
+		}
+		if (restartRowIndex > rowIndex) {
+			skipToRow(restartRowIndex);
+			rowIndex = restartRowIndex;
+		}
+	}
+
+	public void setName(String name) {
+		super.setName(name);
+		ecSupport.setName(name);
+	}
+
+	public void setSaveState(boolean saveState) {
+		super.setSaveState(saveState);
+		this.saveState = saveState;
+	}
+
+	public Resource getResource() {
+		return resource;
+	}
+
+	public void setResource(Resource resource) {
+		this.resource = resource;
+	}
+
+	public boolean isSkipFirstRow() {
+		return skipFirstRow;
+	}
+
+	public void setSkipFirstRow(boolean skipFirstRow) {
+		this.skipFirstRow = skipFirstRow;
+	}
+
+	public int getStartRow() {
+		return startRow;
+	}
+
+	/**
+	 * @param startRow - zero-based number of the first row to read
+	 */
+	public void setStartRow(int startRow) {
+		this.startRow = startRow;
+	}
+
+	public int getEndRow() {
+		return endRow;
+	}
+
+	/**
+	 * @param endRow - zero-based number of the row to stop at, which is not read itself
+	 */
+	public void setEndRow(int endRow) {
+		this.endRow = endRow;
+	}
+
+}
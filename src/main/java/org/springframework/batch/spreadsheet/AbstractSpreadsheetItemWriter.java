@@ -0,0 +1,266 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.util.ExecutionContextUserSupport;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Base class for restartable writers that append one row per item to a worksheet, chunk by chunk,
+ * through the same streaming writers as {@link ExcelTemplate#writeRows(String, Iterable, RowWriterCallback)}
+ * and {@link CalcTemplate#writeRows(String, Iterable, RowWriterCallback)}.
+ * <p>
+ * Every time the step saves its state, the rows written so far are pushed to disk and a checkpoint
+ * of the output is saved in the {@link ExecutionContext}, along with the number of items written.
+ * On restart, the output is cut back to the last checkpoint and the writer carries on from there,
+ * so nothing has to be held until the end of the step, and a failed step does not start from zero.
+ * The file is finished on {@link #close()}, and stays readable between executions.
+ * <p>
+ * Rows are written as soon as the items arrive. Within a transaction, as the chunks of a step are
+ * written, the writer first marks where the output stands, and cuts it back to the mark if the
+ * transaction is rolled back, so that the items of a chunk that is retried or scanned for skips do
+ * not end up in the file twice.
+ * 
+ * @param <T> - type of the items
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelItemWriter
+ * @see CalcItemWriter
+ */
+public abstract class AbstractSpreadsheetItemWriter<T> implements ItemWriter<T>, ItemStream, InitializingBean {
+
+	private static final String CHECKPOINT = "checkpoint";
+
+	private static final String WRITTEN = "written";
+
+	private final ExecutionContextUserSupport ecSupport = new ExecutionContextUserSupport();
+
+	private boolean saveState = true;
+
+	/**
+	 * The spreadsheet file to write.
+	 */
+	private Resource resource;
+
+	private String sheetName;
+
+	/**
+	 * Names written in the first row, if any.
+	 */
+	private ColumnHeaders columnHeaders;
+
+	private RowWriterCallback<T> rowWriterCallback;
+
+	private AbstractSpreadsheetWriter writer;
+
+	private int writtenCount;
+
+	/**
+	 * Where the output stood before the first item of the current transaction, if any.
+	 */
+	private long[] mark;
+
+	private int markedCount;
+
+	public AbstractSpreadsheetItemWriter() {
+		ecSupport.setName(ClassUtils.getShortName(getClass()));
+	}
+
+	public void afterPropertiesSet() throws Exception {
+		Assert.notNull(resource, "A resource is required");
+		Assert.notNull(sheetName, "A sheet name is required");
+		Assert.notNull(rowWriterCallback, "A row writer callback is required");
+	}
+
+	/**
+	 * Create a writer that replaces the file.
+	 * 
+	 * @param file
+	 * @param sheetName
+	 * @return a writer that has not started any sheet yet
+	 * @throws IOException
+	 */
+	protected abstract AbstractSpreadsheetWriter createWriter(File file, String sheetName) throws IOException;
+
+	/**
+	 * Create a writer that carries on from where an earlier one left off.
+	 * 
+	 * @param file
+	 * @param sheetName
+	 * @param checkpoint - saved by the earlier writer
+	 * @return a writer positioned after the last row written before the checkpoint
+	 * @throws IOException
+	 */
+	protected abstract AbstractSpreadsheetWriter resumeWriter(File file, String sheetName, long[] checkpoint) throws IOException;
+
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		Assert.state(writer == null, "The writer is already open");
+		String key = ecSupport.getKey(CHECKPOINT);
+		try {
+			File file = resource.getFile();
+			if (executionContext.containsKey(key)) {
+				writer = resumeWriter(file, sheetName, (long[]) executionContext.get(key));
+				writtenCount = executionContext.getInt(ecSupport.getKey(WRITTEN));
+			} else {
+				writer = createWriter(file, sheetName);
+				writer.startSheet(sheetName);
+				if (columnHeaders != null) {
+					writer.writeHeaders(columnHeaders);
+				}
+				writtenCount = 0;
+			}
+		} catch (IOException e) {
+			throw new ItemStreamException("Could not open " + resource + " for writing", e);
+		}
+	}
+
+	public void write(List<? extends T> items) throws Exception {
+		Assert.state(writer != null, "The writer is not open");
+		if (mark == null && TransactionSynchronizationManager.isSynchronizationActive()) {
+			mark = writer.checkpoint();
+			markedCount = writtenCount;
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				public void afterCompletion(int status) {
+					try {
+						if (status == STATUS_ROLLED_BACK) {
+							rewind();
+						}
+					} finally {
+						mark = null;
+					}
+				}
+			});
+		}
+		for (T item : items) {
+			writer.write(item, rowWriterCallback);
+			writtenCount++;
+		}
+	}
+
+	/**
+	 * Drop the rows written since the mark.
+	 */
+	private void rewind() {
+		if (writer == null) {
+			return;
+		}
+		try {
+			writer.rewind(mark);
+			writtenCount = markedCount;
+		} catch (IOException e) {
+			throw new ItemStreamException("Could not drop the rows of a rolled back chunk from " + resource, e);
+		}
+	}
+
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		if (!saveState || writer == null) {
+			return;
+		}
+		try {
+			executionContext.put(ecSupport.getKey(CHECKPOINT), writer.checkpoint());
+			executionContext.putInt(ecSupport.getKey(WRITTEN), writtenCount);
+		} catch (IOException e) {
+			throw new ItemStreamException("Could not save the rows written to " + resource, e);
+		}
+	}
+
+	/**
+	 * Finish the file. A later execution restarted from the last saved state still carries on
+	 * from there.
+	 */
+	public void close() throws ItemStreamException {
+		if (writer == null) {
+			return;
+		}
+		try {
+			writer.close();
+		} catch (IOException e) {
+			throw new ItemStreamException("Could not finish " + resource, e);
+		} finally {
+			writer = null;
+		}
+	}
+
+	/**
+	 * @return the number of items written, including those of earlier executions
+	 */
+	public int getWrittenCount() {
+		return writtenCount;
+	}
+
+	/**
+	 * @param name - prefix of the keys in the {@link ExecutionContext}, which must be unique
+	 *        within a step
+	 */
+	public void setName(String name) {
+		ecSupport.setName(name);
+	}
+
+	public void setSaveState(boolean saveState) {
+		this.saveState = saveState;
+	}
+
+	public Resource getResource() {
+		return resource;
+	}
+
+	public void setResource(Resource resource) {
+		this.resource = resource;
+	}
+
+	public String getSheetName() {
+		return sheetName;
+	}
+
+	public void setSheetName(String sheetName) {
+		this.sheetName = sheetName;
+	}
+
+	public ColumnHeaders getColumnHeaders() {
+		return columnHeaders;
+	}
+
+	/**
+	 * @param columnHeaders - names to write in the first row
+	 */
+	public void setColumnHeaders(ColumnHeaders columnHeaders) {
+		this.columnHeaders = columnHeaders;
+	}
+
+	public RowWriterCallback<T> getRowWriterCallback() {
+		return rowWriterCallback;
+	}
+
+	public void setRowWriterCallback(RowWriterCallback<T> rowWriterCallback) {
+		this.rowWriterCallback = rowWriterCallback;
+	}
+
+}
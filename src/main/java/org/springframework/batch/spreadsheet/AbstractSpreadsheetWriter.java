@@ -0,0 +1,183 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Base class for the writers behind the templates, which stream rows straight into the file
+ * format. Only the row being written is held in memory.
+ * <p>
+ * The file is put together next to the target, and only moved over it once it is complete, so an
+ * existing file is left as it was until the new one replaces it, and is left alone altogether if
+ * writing fails.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ */
+abstract class AbstractSpreadsheetWriter {
+
+	private final RowBuffer row = new RowBuffer();
+
+	/**
+	 * Start a new worksheet. Rows written from now on go into it.
+	 * 
+	 * @param name - name of the worksheet
+	 * @throws IOException
+	 */
+	public abstract void startSheet(String name) throws IOException;
+
+	/**
+	 * Append one row to the current worksheet.
+	 * 
+	 * @param cells - the cells of the row, which the writer must not keep
+	 * @throws IOException
+	 */
+	protected abstract void writeRow(RowBuffer cells) throws IOException;
+
+	/**
+	 * Finish the file, and move it over the target. Nothing can be written afterwards.
+	 * 
+	 * @throws IOException
+	 */
+	public abstract void close() throws IOException;
+
+	/**
+	 * Give up on the file after a failure, releasing it and deleting whatever was written. The
+	 * target is left as it was.
+	 */
+	public abstract void abort();
+
+	/**
+	 * Push everything written so far to disk, and describe how far the file has got. A writer
+	 * created from the checkpoint later, such as when a failed job is restarted, carries on from
+	 * this point, dropping whatever was written after it.
+	 * 
+	 * @return the state of the writer, only meaningful to the same kind of writer
+	 * @throws IOException
+	 */
+	public abstract long[] checkpoint() throws IOException;
+
+	/**
+	 * Drop whatever was written after a checkpoint of this writer, such as the rows of a chunk
+	 * that was rolled back, and carry on from there.
+	 * 
+	 * @param checkpoint - taken by this writer, before any later checkpoint that is still wanted
+	 * @throws IOException
+	 */
+	public abstract void rewind(long[] checkpoint) throws IOException;
+
+	/**
+	 * Write the column headers as a row of their own.
+	 * 
+	 * @param headers
+	 * @throws IOException
+	 */
+	public void writeHeaders(ColumnHeaders headers) throws IOException {
+		row.clear();
+		row.setHeaders(headers);
+		writeRow(row);
+	}
+
+	/**
+	 * Write empty rows, such as in place of the rows missing from a sparse worksheet.
+	 * 
+	 * @param count
+	 * @throws IOException
+	 */
+	public void writeBlankRows(int count) throws IOException {
+		row.clear();
+		for (int i = 0; i < count; i++) {
+			writeRow(row);
+		}
+	}
+
+	/**
+	 * Write one item as a row of the current worksheet.
+	 * 
+	 * @param item
+	 * @param callback - fills in the cells for the item
+	 * @throws IOException
+	 */
+	public <T> void write(T item, RowWriterCallback<T> callback) throws IOException {
+		row.clear();
+		callback.writeRow(item, row);
+		writeRow(row);
+	}
+
+	/**
+	 * Write a whole worksheet, with an optional header row, and finish the file. If anything goes
+	 * wrong, the file is deleted rather than left half written.
+	 * 
+	 * @param name - name of the worksheet
+	 * @param headers - the header row, or <code>null</code> for none
+	 * @param items - one row each
+	 * @param callback - fills in the cells for each item
+	 * @return the number of items written
+	 * @throws IOException
+	 */
+	public <T> int writeSheet(String name, ColumnHeaders headers, Iterable<T> items, RowWriterCallback<T> callback)
+			throws IOException {
+		boolean finished = false;
+		try {
+			startSheet(name);
+			if (headers != null) {
+				writeHeaders(headers);
+			}
+			int count = 0;
+			for (T item : items) {
+				write(item, callback);
+				count++;
+			}
+			close();
+			finished = true;
+			return count;
+		} finally {
+			if (!finished) {
+				abort();
+			}
+		}
+	}
+
+	/**
+	 * @param target - the file to write
+	 * @return where to put the file together before it replaces the target
+	 */
+	static File assemblyFileOf(File target) {
+		return new File(target.getPath() + ".assembly.part");
+	}
+
+	/**
+	 * Move a file that has been put together in full over the target. Where the platform will not
+	 * rename over an existing file, the target is deleted first.
+	 * 
+	 * @param assembled - the complete file
+	 * @param target - the file it replaces
+	 * @throws IOException if the file could not be moved
+	 */
+	static void replace(File assembled, File target) throws IOException {
+		if (!assembled.renameTo(target)) {
+			target.delete();
+			if (!assembled.renameTo(target)) {
+				throw new IOException("Could not move " + assembled + " to " + target);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.poi.hssf.usermodel.HSSFDateUtil;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.SimpleTypeConverter;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * The binding of the columns of a worksheet to the properties of a bean class, shared by the bean
+ * row callbacks.
+ * <p>
+ * The writable properties of a class, their setters and their annotations are introspected once
+ * per class and kept for the life of the application. They are bound to columns once per read,
+ * when the headers come in, so mapping a row is only a walk over an array of bindings, each with
+ * its setter and conversion already chosen. The bindings are handed out rather than kept here, so
+ * that reads of several worksheets at once each map their rows with their own.
+ * <p>
+ * The setters are still invoked through reflection, once per bound cell. Method handles need
+ * Java 7, and generated accessor classes would need a bytecode library this module does not
+ * depend on. The JVM generates an accessor of its own for a setter that is invoked often, so the
+ * cost left is mostly the boxing of the converted value.
+ *
+ * @since 10/16/2026
+ * @author agent
+ */
+final class BeanRowMapping<T> {
+
+	private static final Map<Class<?>, List<BeanProperty>> propertiesByClass = new ConcurrentHashMap<Class<?>, List<BeanProperty>>();
+
+	private static final int STRING = 0;
+
+	private static final int INT = 1;
+
+	private static final int LONG = 2;
+
+	private static final int DOUBLE = 3;
+
+	private static final int FLOAT = 4;
+
+	private static final int SHORT = 5;
+
+	private static final int BYTE = 6;
+
+	private static final int BOOLEAN = 7;
+
+	private static final int BIG_DECIMAL = 8;
+
+	private static final int DATE = 9;
+
+	private static final int OTHER = 10;
+
+	private final Class<T> type;
+
+	private final Constructor<T> constructor;
+
+	private final List<BeanProperty> properties;
+
+	BeanRowMapping(Class<T> type) {
+		this.type = type;
+		this.properties = propertiesOf(type);
+		try {
+			this.constructor = type.getDeclaredConstructor();
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException(type.getName() + " has no default constructor");
+		}
+		ReflectionUtils.makeAccessible(constructor);
+	}
+
+	/**
+	 * @param bindings - the bindings of the worksheet a row belongs to
+	 * @return the same bindings
+	 * @throws IllegalStateException if no property is bound to a column
+	 */
+	Binding[] check(Binding[] bindings) {
+		if (bindings.length == 0) {
+			throw new IllegalStateException("No property of " + type.getName()
+					+ " is bound to a column. Skip the header row, or give the properties a @SpreadsheetColumn index.");
+		}
+		return bindings;
+	}
+
+	T newInstance() {
+		return BeanUtils.instantiateClass(constructor);
+	}
+
+	/**
+	 * Bind the properties to the columns of a worksheet.
+	 * 
+	 * @param headers - the headers of the worksheet, or <code>null</code> to bind column indexes only
+	 * @return the bindings
+	 */
+	Binding[] bind(ColumnHeaders headers) {
+		List<Binding> bound = new ArrayList<Binding>();
+		for (BeanProperty property : properties) {
+			int column = property.index;
+			if (column < 0 && headers != null) {
+				if (property.header != null) {
+					column = headers.indexOf(property.header);
+				} else {
+					column = findColumn(headers, property.name);
+				}
+			}
+			if (column >= 0) {
+				bound.add(new Binding(column, property.setter, property.kind, property.type));
+			}
+		}
+		return bound.toArray(new Binding[bound.size()]);
+	}
+
+	/**
+	 * Match a property name against the headers, ignoring case and spaces.
+	 */
+	private static int findColumn(ColumnHeaders headers, String propertyName) {
+		for (int column = 0; column < headers.getColumnCount(); column++) {
+			String header = headers.getName(column);
+			if (header != null && header.replace(" ", "").equalsIgnoreCase(propertyName)) {
+				return column;
+			}
+		}
+		return -1;
+	}
+
+	private static List<BeanProperty> propertiesOf(Class<?> type) {
+		List<BeanProperty> properties = propertiesByClass.get(type);
+		if (properties == null) {
+			properties = new ArrayList<BeanProperty>();
+			Set<Integer> indexes = new HashSet<Integer>();
+			for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(type)) {
+				Method setter = descriptor.getWriteMethod();
+				if (setter == null) {
+					continue;
+				}
+				SpreadsheetColumn column = setter.getAnnotation(SpreadsheetColumn.class);
+				if (column == null) {
+					Field field = ReflectionUtils.findField(type, descriptor.getName());
+					column = (field == null) ? null : field.getAnnotation(SpreadsheetColumn.class);
+				}
+				if (column != null && column.index() >= 0 && !indexes.add(column.index())) {
+					throw new IllegalArgumentException("Column " + column.index() + " is bound to more than one property of " + type.getName());
+				}
+				ReflectionUtils.makeAccessible(setter);
+				properties.add(new BeanProperty(descriptor.getName(), setter, column));
+			}
+			properties = Collections.unmodifiableList(properties);
+			propertiesByClass.put(type, properties);
+		}
+		return properties;
+	}
+
+	private static int kindOf(Class<?> type) {
+		type = ClassUtils.resolvePrimitiveIfNecessary(type);
+		if (type == String.class) {
+			return STRING;
+		} else if (type == Integer.class) {
+			return INT;
+		} else if (type == Long.class) {
+			return LONG;
+		} else if (type == Double.class) {
+			return DOUBLE;
+		} else if (type == Float.class) {
+			return FLOAT;
+		} else if (type == Short.class) {
+			return SHORT;
+		} else if (type == Byte.class) {
+			return BYTE;
+		} else if (type == Boolean.class) {
+			return BOOLEAN;
+		} else if (type == BigDecimal.class) {
+			return BIG_DECIMAL;
+		} else if (type == Date.class) {
+			return DATE;
+		}
+		return OTHER;
+	}
+
+	/**
+	 * A writable property, as introspected once per class.
+	 */
+	private static class BeanProperty {
+
+		private final String name;
+
+		private final Method setter;
+
+		private final Class<?> type;
+
+		private final int kind;
+
+		private final String header;
+
+		private final int index;
+
+		public BeanProperty(String name, Method setter, SpreadsheetColumn column) {
+			this.name = name;
+			this.setter = setter;
+			this.type = setter.getParameterTypes()[0];
+			this.kind = kindOf(type);
+			this.header = (column == null || column.name().length() == 0) ? null : column.name();
+			this.index = (column == null) ? -1 : column.index();
+		}
+
+	}
+
+	/**
+	 * A property bound to a column, with its conversion chosen up front.
+	 */
+	static final class Binding {
+
+		private final int column;
+
+		private final Method setter;
+
+		private final int kind;
+
+		private final Class<?> type;
+
+		Binding(int column, Method setter, int kind, Class<?> type) {
+			this.column = column;
+			this.setter = setter;
+			this.kind = kind;
+			this.type = type;
+		}
+
+		int getColumn() {
+			return column;
+		}
+
+		/**
+		 * @return whether the property takes a <code>double</code> or <code>float</code>, which a
+		 * parsed number converts to without any loss
+		 */
+		boolean isFloatingPoint() {
+			return kind == DOUBLE || kind == FLOAT;
+		}
+
+		/**
+		 * Convert a cell value and set it on the bean. Empty cells leave the property alone.
+		 * 
+		 * @param bean
+		 * @param value - a String, Double, Boolean or Date, or <code>null</code> for an empty cell
+		 */
+		void apply(Object bean, Object value) {
+			if (value != null) {
+				ReflectionUtils.invokeMethod(setter, bean, convert(value));
+			}
+		}
+
+		private Object convert(Object value) {
+			switch (kind) {
+				case STRING:
+					if (value instanceof Double) {
+						double number = ((Double) value).doubleValue();
+						// whole numbers, such as phone numbers or zip codes, lose the trailing ".0"
+						if (number == Math.rint(number) && !Double.isInfinite(number) && Math.abs(number) < 1e15) {
+							return String.valueOf((long) number);
+						}
+					}
+					return value.toString();
+				case INT:
+					return Integer.valueOf(value instanceof Double ? ((Double) value).intValue() : Integer.parseInt(text(value)));
+				case LONG:
+					return Long.valueOf(value instanceof Double ? ((Double) value).longValue() : Long.parseLong(text(value)));
+				case DOUBLE:
+					return Double.valueOf(value instanceof Double ? ((Double) value).doubleValue() : Double.parseDouble(text(value)));
+				case FLOAT:
+					return Float.valueOf(value instanceof Double ? ((Double) value).floatValue() : Float.parseFloat(text(value)));
+				case SHORT:
+					return Short.valueOf(value instanceof Double ? ((Double) value).shortValue() : Short.parseShort(text(value)));
+				case BYTE:
+					return Byte.valueOf(value instanceof Double ? ((Double) value).byteValue() : Byte.parseByte(text(value)));
+				case BOOLEAN:
+					if (value instanceof Boolean) {
+						return value;
+					}
+					if (value instanceof Double) {
+						return Boolean.valueOf(((Double) value).doubleValue() != 0);
+					}
+					return Boolean.valueOf(text(value));
+				case BIG_DECIMAL:
+					return value instanceof Double ? BigDecimal.valueOf(((Double) value).doubleValue()) : new BigDecimal(text(value));
+				case DATE:
+					if (value instanceof Date) {
+						return value;
+					}
+					if (value instanceof Double) {
+						return HSSFDateUtil.getJavaDate(((Double) value).doubleValue());
+					}
+					return CalcUtil.parseDate(text(value));
+				default:
+					if (type.isInstance(value)) {
+						return value;
+					}
+					// rare enough that a converter per value is affordable, and it is not thread safe
+					return new SimpleTypeConverter().convertIfNecessary(value, type);
+			}
+		}
+
+		private static String text(Object value) {
+			return value.toString().trim();
+		}
+
+		public String toString() {
+			return "column " + column + " -> " + setter.getName();
+		}
+
+	}
+
+}
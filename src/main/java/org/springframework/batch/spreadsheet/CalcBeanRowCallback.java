@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import org.jopendocument.dom.spreadsheet.Sheet;
+
+/**
+ * This callback maps each row of a loaded worksheet onto a new instance of a bean class, the same
+ * way as {@link CalcStreamingBeanRowCallback}, reading the cells with {@link CalcUtil#getAttr}.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see CalcTemplate
+ */
+public class CalcBeanRowCallback<T> implements CalcRowCallback<T>, ColumnHeadersAware,
+		ColumnHeadersBinding<CalcRowCallback<T>> {
+
+	private final BeanRowMapping<T> mapping;
+
+	private volatile BeanRowMapping.Binding[] bindings;
+
+	public CalcBeanRowCallback(Class<T> type) {
+		this(new BeanRowMapping<T>(type), null);
+	}
+
+	private CalcBeanRowCallback(BeanRowMapping<T> mapping, ColumnHeaders columnHeaders) {
+		this.mapping = mapping;
+		this.bindings = mapping.bind(columnHeaders);
+	}
+
+	/**
+	 * Bind this instance to the columns of one worksheet. The templates and item readers do not
+	 * call this, but bind a copy per read through {@link #withColumnHeaders(ColumnHeaders)}.
+	 */
+	public void setColumnHeaders(ColumnHeaders columnHeaders) {
+		this.bindings = mapping.bind(columnHeaders);
+	}
+
+	/**
+	 * @return a callback bound to the columns of one worksheet, sharing the introspected bean class with this one
+	 */
+	public CalcRowCallback<T> withColumnHeaders(ColumnHeaders columnHeaders) {
+		return new CalcBeanRowCallback<T>(mapping, columnHeaders);
+	}
+
+	public T mapRow(Sheet sheet, int row) {
+		BeanRowMapping.Binding[] bindings = mapping.check(this.bindings);
+		T bean = mapping.newInstance();
+		for (BeanRowMapping.Binding binding : bindings) {
+			binding.apply(bean, valueOf(sheet, binding.getColumn(), row));
+		}
+		return bean;
+	}
+
+	private static String valueOf(Sheet sheet, int column, int row) {
+		try {
+			return CalcUtil.getAttr(sheet, column, row);
+		} catch (IndexOutOfBoundsException e) {
+			// a cell with neither a value nor any attribute is empty
+			return null;
+		}
+	}
+
+}
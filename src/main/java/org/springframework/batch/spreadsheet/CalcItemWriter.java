@@ -0,0 +1,44 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Restartable {@link org.springframework.batch.item.ItemWriter} that appends each chunk of items
+ * to a sheet of an OpenOffice Calc file, a row per item, as
+ * {@link CalcTemplate#writeRows(String, Iterable, RowWriterCallback)} does. Until the file is
+ * finished, the rows are kept in a <code>.part</code> file next to it.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see CalcItemReader
+ */
+public class CalcItemWriter<T> extends AbstractSpreadsheetItemWriter<T> {
+
+	protected AbstractSpreadsheetWriter createWriter(File file, String sheetName) throws IOException {
+		return new CalcStreamingWriter(file);
+	}
+
+	protected AbstractSpreadsheetWriter resumeWriter(File file, String sheetName, long[] checkpoint) throws IOException {
+		return new CalcStreamingWriter(file, Collections.singletonList(sheetName), checkpoint);
+	}
+
+}
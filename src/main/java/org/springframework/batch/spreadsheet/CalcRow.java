@@ -0,0 +1,197 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.util.Date;
+
+/**
+ * One row of an Open Office Calc worksheet, decoded straight from the document's content.xml.
+ * Rows are immutable, and carry the raw value of every non-empty cell. Numeric cells also carry
+ * their value as a <code>double</code>, parsed once as the row is read.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see CalcStreamingRowCallback
+ */
+public class CalcRow {
+
+	private static final String[] EMPTY = new String[0];
+
+	/**
+	 * Every whole number up to 2^53 has an exact <code>double</code>.
+	 */
+	private static final double MAX_EXACT_LONG = 9007199254740992.0;
+
+	private final int sheetIndex;
+
+	private final int rowIndex;
+
+	private final String[] values;
+
+	private final String[] valueTypes;
+
+	/**
+	 * The parsed values of the numeric cells, NaN for the other cells, or <code>null</code> if
+	 * the row has no numeric cell.
+	 */
+	private final double[] numbers;
+
+	CalcRow(int sheetIndex, int rowIndex, String[] values, String[] valueTypes, double[] numbers) {
+		this.sheetIndex = sheetIndex;
+		this.rowIndex = rowIndex;
+		this.values = values;
+		this.valueTypes = valueTypes;
+		this.numbers = numbers;
+	}
+
+	static CalcRow empty(int sheetIndex, int rowIndex) {
+		return new CalcRow(sheetIndex, rowIndex, EMPTY, EMPTY, null);
+	}
+
+	/**
+	 * Repeated rows share their cell values, and only differ by index.
+	 */
+	CalcRow atRow(int rowIndex) {
+		return new CalcRow(sheetIndex, rowIndex, values, valueTypes, numbers);
+	}
+
+	/**
+	 * @return the index of the worksheet this row belongs to
+	 */
+	public int getSheetIndex() {
+		return sheetIndex;
+	}
+
+	/**
+	 * @return the index of this row in its worksheet
+	 */
+	public int getRowIndex() {
+		return rowIndex;
+	}
+
+	/**
+	 * @return one more than the index of the last non-empty cell
+	 */
+	public int getColumnCount() {
+		return values.length;
+	}
+
+	/**
+	 * Fetches the value of a cell, with the same conventions as {@link CalcUtil#getAttr}. Numbers,
+	 * dates, times and booleans come back in their raw office:value form, e.g. <code>1234.5</code>
+	 * or <code>2009-11-02</code>.
+	 *
+	 * @param column
+	 * @return the value of the cell, or <code>null</code> if it is empty
+	 */
+	public String getString(int column) {
+		return column < values.length ? values[column] : null;
+	}
+
+	/**
+	 * @param column
+	 * @return the office:value-type of the cell (e.g. <code>float</code>, <code>string</code>), or
+	 * <code>null</code> if it is empty or has no declared type
+	 */
+	public String getValueType(int column) {
+		return column < valueTypes.length ? valueTypes[column] : null;
+	}
+
+	/**
+	 * @param column
+	 * @return whether the cell is empty
+	 */
+	public boolean isEmpty(int column) {
+		return getString(column) == null;
+	}
+
+	/**
+	 * @param column
+	 * @return whether the cell is of a numeric type, and its value was parsed as the row was read
+	 */
+	boolean hasNumber(int column) {
+		return numbers != null && column < numbers.length && !Double.isNaN(numbers[column]);
+	}
+
+	/**
+	 * Fetches the value of a numeric cell, which was parsed as the row was read. The raw
+	 * office:value of any other cell is parsed on each call.
+	 *
+	 * @param column
+	 * @return the value of the cell, or 0 if it is empty
+	 * @throws NumberFormatException if the cell does not hold a number
+	 */
+	public double getDouble(int column) {
+		if (hasNumber(column)) {
+			return numbers[column];
+		}
+		String value = getString(column);
+		return value == null ? 0 : Double.parseDouble(value);
+	}
+
+	/**
+	 * Fetches the value of a numeric cell holding a whole number. Whole numbers a
+	 * <code>double</code> holds exactly come from the value parsed as the row was read, and any
+	 * other value from parsing the raw office:value.
+	 *
+	 * @param column
+	 * @return the value of the cell, or 0 if it is empty
+	 * @throws NumberFormatException if the cell does not hold a whole number
+	 */
+	public long getLong(int column) {
+		if (hasNumber(column)) {
+			double number = numbers[column];
+			if (number == Math.rint(number) && Math.abs(number) <= MAX_EXACT_LONG) {
+				return (long) number;
+			}
+		}
+		String value = getString(column);
+		return value == null ? 0 : CalcUtil.parseLong(value);
+	}
+
+	/**
+	 * Parses the raw office:date-value of a date cell.
+	 *
+	 * @param column
+	 * @return the value of the cell, or <code>null</code> if it is empty
+	 * @throws IllegalArgumentException if the cell does not hold a date
+	 */
+	public Date getDate(int column) {
+		String value = getString(column);
+		return value == null ? null : CalcUtil.parseDate(value);
+	}
+
+	/**
+	 * @param column
+	 * @return the value of a boolean cell, or <code>false</code> if it is empty
+	 */
+	public boolean getBoolean(int column) {
+		return Boolean.parseBoolean(getString(column));
+	}
+
+	public String toString() {
+		StringBuilder builder = new StringBuilder("Row ").append(rowIndex).append(" [");
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+			builder.append(values[i]);
+		}
+		return builder.append("]").toString();
+	}
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.util.List;
+
+/**
+ * This simple interface defines a callback for processing the streamed rows of a worksheet a
+ * chunk at a time, such as to batch up inserts into a database.
+ * <p>
+ * The list is a buffer that the template refills for the next chunk, so it must not be held on
+ * to after the call returns.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see CalcTemplate#onEachChunk(int, int, CalcRowChunkCallback)
+ */
+public interface CalcRowChunkCallback {
+
+	public void processChunk(List<CalcRow> rows);
+
+}
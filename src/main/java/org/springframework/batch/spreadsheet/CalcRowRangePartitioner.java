@@ -0,0 +1,52 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.IOException;
+
+/**
+ * Splits a worksheet of an Open Office Calc file into row ranges. The rows are counted with a
+ * StAX pass over content.xml that neither builds the document nor expands repeated rows, and
+ * the trailing empty rows office suites pad a worksheet with are left out.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see CalcItemReader
+ * @see CalcStreamingItemReader
+ */
+public class CalcRowRangePartitioner extends AbstractRowRangePartitioner {
+
+	private int sheetNum;
+
+	protected int countRows() throws IOException {
+		CalcStreamingRowReader reader = new CalcStreamingRowReader(getResource().getFile(), sheetNum);
+		try {
+			return reader.countRows();
+		} finally {
+			reader.close();
+		}
+	}
+
+	public int getSheetNum() {
+		return sheetNum;
+	}
+
+	public void setSheetNum(int sheetNum) {
+		this.sheetNum = sheetNum;
+	}
+
+}
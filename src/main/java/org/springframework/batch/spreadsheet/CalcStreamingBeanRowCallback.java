@@ -0,0 +1,81 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+/**
+ * This callback maps each streamed row onto a new instance of a bean class, setting its
+ * properties from the columns they are bound to. Properties are bound by {@link SpreadsheetColumn},
+ * or by matching their names against the header row, so the first row should be skipped unless
+ * every property has a column index.
+ * <p>
+ * The raw office values are converted to the property types, and empty cells leave their
+ * properties alone. One instance can be shared by several worksheets and threads,
+ * since every read binds a copy of it to its own headers. Each bound cell still costs one
+ * reflective call to its setter.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see CalcTemplate
+ */
+public class CalcStreamingBeanRowCallback<T> implements CalcStreamingRowCallback<T>, ColumnHeadersAware,
+		ColumnHeadersBinding<CalcStreamingRowCallback<T>> {
+
+	private final BeanRowMapping<T> mapping;
+
+	private volatile BeanRowMapping.Binding[] bindings;
+
+	public CalcStreamingBeanRowCallback(Class<T> type) {
+		this(new BeanRowMapping<T>(type), null);
+	}
+
+	private CalcStreamingBeanRowCallback(BeanRowMapping<T> mapping, ColumnHeaders columnHeaders) {
+		this.mapping = mapping;
+		this.bindings = mapping.bind(columnHeaders);
+	}
+
+	/**
+	 * Bind this instance to the columns of one worksheet. The templates and item readers do not
+	 * call this, but bind a copy per read through {@link #withColumnHeaders(ColumnHeaders)}.
+	 */
+	public void setColumnHeaders(ColumnHeaders columnHeaders) {
+		this.bindings = mapping.bind(columnHeaders);
+	}
+
+	/**
+	 * @return a callback bound to the columns of one worksheet, sharing the introspected bean class with this one
+	 */
+	public CalcStreamingRowCallback<T> withColumnHeaders(ColumnHeaders columnHeaders) {
+		return new CalcStreamingBeanRowCallback<T>(mapping, columnHeaders);
+	}
+
+	public T mapRow(CalcRow row) {
+		BeanRowMapping.Binding[] bindings = mapping.check(this.bindings);
+		T bean = mapping.newInstance();
+		for (BeanRowMapping.Binding binding : bindings) {
+			int column = binding.getColumn();
+			if (binding.isFloatingPoint() && row.hasNumber(column)) {
+				// the number was parsed as the row was read
+				binding.apply(bean, Double.valueOf(row.getDouble(column)));
+			} else {
+				binding.apply(bean, row.getString(column));
+			}
+		}
+		return bean;
+	}
+
+}
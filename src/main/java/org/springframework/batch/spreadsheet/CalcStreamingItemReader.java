@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import org.springframework.util.Assert;
+
+/**
+ * Restartable {@link org.springframework.batch.item.ItemReader} that streams one worksheet of an
+ * Open Office Calc file with a StAX parser, mapping each row through a
+ * {@link CalcStreamingRowCallback}. Only the current row is held in memory.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see CalcTemplate
+ * @see CalcItemReader
+ */
+public class CalcStreamingItemReader<T> extends AbstractSpreadsheetItemReader<T, CalcRow> {
+
+	private int sheetNum;
+
+	private CalcStreamingRowCallback<T> rowCallback;
+
+	/**
+	 * The row callback, as bound to the headers of the worksheet being read.
+	 */
+	private CalcStreamingRowCallback<T> boundCallback;
+
+	private CalcStreamingErrorHandler<T> errorHandler = new DefaultCalcStreamingErrorHandler<T>();
+
+	private ColumnProjection columnProjection;
+
+	private RowFilter rowFilter;
+
+	private CalcStreamingRowReader reader;
+
+	public void afterPropertiesSet() throws Exception {
+		super.afterPropertiesSet();
+		Assert.notNull(rowCallback, "A row callback is required");
+	}
+
+	protected void openWorksheet() throws Exception {
+		reader = new CalcStreamingRowReader(getResource().getFile(), sheetNum);
+		reader.setColumnProjection(columnProjection);
+		reader.setRowFilter(rowFilter, isSkipFirstRow());
+		boundCallback = rowCallback;
+	}
+
+	/**
+	 * The reader passes over the rows before <code>rowNum</code> without decoding their cells.
+	 */
+	protected void skipToRow(int rowNum) throws Exception {
+		reader.setStartRow(rowNum);
+		super.skipToRow(rowNum);
+	}
+
+	protected CalcRow readRow() throws Exception {
+		return reader.read();
+	}
+
+	protected void readHeader(CalcRow header) {
+		boundCallback = CalcTemplate.announceHeaders(rowCallback, header);
+	}
+
+	protected int getRowNum(CalcRow row) {
+		return row.getRowIndex();
+	}
+
+	protected T mapRow(CalcRow row) {
+		try {
+			return boundCallback.mapRow(row);
+		} catch (RuntimeException e) {
+			return errorHandler.handleException(row, e);
+		}
+	}
+
+	protected void closeWorksheet() {
+		if (reader != null) {
+			reader.close();
+			reader = null;
+		}
+	}
+
+	public int getSheetNum() {
+		return sheetNum;
+	}
+
+	public void setSheetNum(int sheetNum) {
+		this.sheetNum = sheetNum;
+	}
+
+	public CalcStreamingRowCallback<T> getRowCallback() {
+		return rowCallback;
+	}
+
+	public void setRowCallback(CalcStreamingRowCallback<T> rowCallback) {
+		this.rowCallback = rowCallback;
+	}
+
+	public CalcStreamingErrorHandler<T> getErrorHandler() {
+		return errorHandler;
+	}
+
+	public void setErrorHandler(CalcStreamingErrorHandler<T> errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	public ColumnProjection getColumnProjection() {
+		return columnProjection;
+	}
+
+	/**
+	 * Only decode the cells of some columns.
+	 * 
+	 * @see CalcTemplate#setColumnProjection(ColumnProjection)
+	 */
+	public void setColumnProjection(ColumnProjection columnProjection) {
+		this.columnProjection = columnProjection;
+	}
+
+	public RowFilter getRowFilter() {
+		return rowFilter;
+	}
+
+	/**
+	 * Only map the rows whose key column passes a filter.
+	 * 
+	 * @see CalcTemplate#setRowFilter(RowFilter)
+	 */
+	public void setRowFilter(RowFilter rowFilter) {
+		this.rowFilter = rowFilter;
+	}
+
+}
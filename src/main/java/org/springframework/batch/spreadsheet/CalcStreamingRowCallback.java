@@ -0,0 +1,39 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+/**
+ * This simple interface defines a callback for processing one row of a spreadsheet that is
+ * streamed, rather than loaded into memory as a whole.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see CalcTemplate
+ * @see CalcRowCallback
+ */
+public interface CalcStreamingRowCallback<T> {
+
+	/**
+	 * This method is used to map a row of data. The row only lives as long as it takes to map it,
+	 * so there is no access to the rest of the worksheet.
+	 *
+	 * @param row - the specific Calc row being processed
+	 * @return a mapped object based on the <code>row</code>, or <code>null</code>
+	 */
+	public T mapRow(CalcRow row);
+
+}
@@ -0,0 +1,689 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * This reader pulls the rows of one or more worksheets straight out of the content.xml entry of
+ * an OpenDocument spreadsheet, using a StAX parser. Nothing but the current row is ever held in
+ * memory. When several worksheets are read in the same pass, their rows come out one worksheet
+ * after the other, and {@link CalcRow#getSheetIndex()} tells them apart.
+ * <p>
+ * <code>table:number-rows-repeated</code> and <code>table:number-columns-repeated</code> are
+ * expanded on the fly. Empty rows are handed out when there is data further down the worksheet,
+ * but the trailing run of empty rows that office suites pad a worksheet with is dropped.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see CalcTemplate
+ */
+class CalcStreamingRowReader {
+
+	static final String OFFICE_NS = "urn:oasis:names:tc:opendocument:xmlns:office:1.0";
+
+	static final String TABLE_NS = "urn:oasis:names:tc:opendocument:xmlns:table:1.0";
+
+	static final String TEXT_NS = "urn:oasis:names:tc:opendocument:xmlns:text:1.0";
+
+	private static final String[] VALUE_TYPES = { "float", "string", "date", "time", "boolean", "percentage", "currency" };
+
+	/**
+	 * The archive, or <code>null</code> when content.xml is read out of a mapping of the file.
+	 */
+	private final ZipFile zip;
+
+	private final InputStream content;
+
+	private final XMLStreamReader xml;
+
+	private final Set<Integer> sheetNums;
+
+	private final int lastSheetNum;
+
+	private int tableIndex = -1;
+
+	private boolean finished;
+
+	/**
+	 * Index of the next row to be decoded in the current worksheet.
+	 */
+	private int rowIndex;
+
+	/**
+	 * Empty rows are held back until a row with content shows up after them.
+	 */
+	private int deferredEmptyStart;
+
+	private int deferredEmptyCount;
+
+	private int emptyStart;
+
+	private int emptyCount;
+
+	private CalcRow repeatedRow;
+
+	private int repeatedStart;
+
+	private int repeatedCount;
+
+	/**
+	 * Scratch buffers for decoding the cells of one row.
+	 */
+	private String[] values = new String[16];
+
+	private String[] valueTypes = new String[16];
+
+	/**
+	 * The parsed values of the numeric cells of the row, and NaN for every other cell.
+	 */
+	private double[] numbers = emptyNumbers(16);
+
+	/**
+	 * The value type last seen in each column, with the attribute that holds values of that type.
+	 * Columns rarely change type from one row to the next, so a cell whose type matches the cached one
+	 * is decoded without looking the type up again.
+	 */
+	private String[] columnTypes = new String[16];
+
+	private String[] columnValueAttributes = new String[16];
+
+	private boolean[] columnNumeric = new boolean[16];
+
+	private final StringBuilder text = new StringBuilder();
+
+	private ColumnProjection projection;
+
+	/**
+	 * Flags of the columns to decode in the current worksheet, or <code>null</code> to decode them all.
+	 */
+	private boolean[] columns;
+
+	private RowFilter rowFilter;
+
+	private boolean exemptFirstRow;
+
+	/**
+	 * Index of the first row to hand out, apart from an exempt header.
+	 */
+	private int startRow;
+
+	public CalcStreamingRowReader(File file, int sheetNum) throws IOException {
+		this(file, Collections.singleton(sheetNum));
+	}
+
+	public CalcStreamingRowReader(File file, int sheetNum, boolean memoryMapped) throws IOException {
+		this(file, Collections.singleton(sheetNum), memoryMapped);
+	}
+
+	public CalcStreamingRowReader(File file, Set<Integer> sheetNums) throws IOException {
+		this(file, sheetNums, false);
+	}
+
+	/**
+	 * @param file
+	 * @param sheetNums - indexes of the worksheets to read
+	 * @param memoryMapped - whether to find content.xml through the central directory of a
+	 * mapping of the file, rather than through {@link ZipFile}
+	 * @throws IOException
+	 */
+	public CalcStreamingRowReader(File file, Set<Integer> sheetNums, boolean memoryMapped) throws IOException {
+		this.sheetNums = sheetNums;
+		this.lastSheetNum = Collections.max(sheetNums);
+		this.zip = memoryMapped ? null : new ZipFile(file);
+		try {
+			if (memoryMapped) {
+				this.content = new MappedZipFile(file).openEntry("content.xml");
+			} else {
+				ZipEntry entry = zip.getEntry("content.xml");
+				if (entry == null) {
+					throw new IOException("No content.xml found in " + file);
+				}
+				this.content = zip.getInputStream(entry);
+			}
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+			this.xml = factory.createXMLStreamReader(content);
+		} catch (XMLStreamException e) {
+			close();
+			throw wrap(e);
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Only decode the cells of some columns. Must be set before the first row is read.
+	 * 
+	 * @param projection - the columns to decode, or <code>null</code> for all of them
+	 */
+	void setColumnProjection(ColumnProjection projection) {
+		this.projection = projection;
+	}
+
+	/**
+	 * Only hand out the rows that pass a filter. Must be set before the first row is read.
+	 *
+	 * @param rowFilter - the filter, or <code>null</code> to hand out every row
+	 * @param exemptFirstRow - whether the first row is handed out regardless, such as a header
+	 */
+	void setRowFilter(RowFilter rowFilter, boolean exemptFirstRow) {
+		this.rowFilter = rowFilter;
+		this.exemptFirstRow = exemptFirstRow;
+	}
+
+	/**
+	 * Pass over the rows before <code>startRow</code> without decoding them. The first row, when
+	 * exempt from the row filter, is still handed out as the header. May be called again between
+	 * reads to move further down the worksheet.
+	 *
+	 * @param startRow - index of the first row to hand out
+	 */
+	void setStartRow(int startRow) {
+		this.startRow = startRow;
+	}
+
+	/**
+	 * @return the next row of the worksheet, or <code>null</code> when it is exhausted
+	 * @throws IOException
+	 */
+	public CalcRow read() throws IOException {
+		try {
+			while (true) {
+				if (emptyCount > 0) {
+					emptyCount--;
+					int index = emptyStart++;
+					if (isHandedOut(index)) {
+						return CalcRow.empty(tableIndex, index);
+					}
+					continue;
+				}
+				if (repeatedCount > 0) {
+					repeatedCount--;
+					int index = repeatedStart++;
+					if (isHandedOut(index)) {
+						return repeatedRow.atRow(index);
+					}
+					continue;
+				}
+				if (finished || !nextRowElement()) {
+					finished = true;
+					return null;
+				}
+				int repeat = intAttribute(TABLE_NS, "number-rows-repeated");
+				if (rowIndex + repeat <= startRow && !isHeader(rowIndex)) {
+					// the whole element lies before the start row, so none of its cells are decoded
+					skipElement();
+					rowIndex += repeat;
+					if (deferredEmptyCount > 0 && isHeader(deferredEmptyStart)) {
+						// an empty header still goes out, so that it is the row skipped as such
+						emptyStart = deferredEmptyStart;
+						emptyCount = 1;
+					}
+					deferredEmptyCount = 0;
+				} else {
+					decodeRow();
+				}
+			}
+		} catch (XMLStreamException e) {
+			throw wrap(e);
+		}
+	}
+
+	private boolean isHeader(int index) {
+		return exemptFirstRow && index == 0;
+	}
+
+	private boolean isHandedOut(int index) {
+		return index >= startRow || isHeader(index);
+	}
+
+	/**
+	 * Count the rows of the requested worksheet, the same way {@link #read()} hands them out,
+	 * but without building any rows or expanding repeated ones. This consumes the reader.
+	 * 
+	 * @return one more than the index of the last row with content, or 0 for an empty worksheet
+	 * @throws IOException
+	 */
+	public int countRows() throws IOException {
+		int count = 0;
+		try {
+			while (nextRowElement()) {
+				int repeat = intAttribute(TABLE_NS, "number-rows-repeated");
+				if (rowHasContent()) {
+					count = rowIndex + repeat;
+				}
+				rowIndex += repeat;
+			}
+		} catch (XMLStreamException e) {
+			throw wrap(e);
+		}
+		finished = true;
+		return count;
+	}
+
+	public void close() {
+		try {
+			if (xml != null) {
+				xml.close();
+			}
+		} catch (XMLStreamException e) {
+			// nothing left to release
+		}
+		try {
+			if (content != null) {
+				content.close();
+			}
+			if (zip != null) {
+				zip.close();
+			}
+		} catch (IOException e) {
+			// nothing left to release
+		}
+	}
+
+	/**
+	 * Advance to the next <code>table:table-row</code> of the requested worksheets.
+	 *
+	 * @return <code>false</code> once the end of the last requested worksheet is reached
+	 */
+	private boolean nextRowElement() throws XMLStreamException {
+		while (xml.hasNext()) {
+			int event = xml.next();
+			if (event == XMLStreamConstants.START_ELEMENT && TABLE_NS.equals(xml.getNamespaceURI())) {
+				String name = xml.getLocalName();
+				if ("table".equals(name)) {
+					tableIndex++;
+					rowIndex = 0;
+					deferredEmptyCount = 0;
+					columns = (projection == null || projection.isByName()) ? null : projection.toMask(null);
+					if (!sheetNums.contains(tableIndex)) {
+						skipElement();
+					}
+				} else if ("table-row".equals(name)) {
+					return true;
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT && TABLE_NS.equals(xml.getNamespaceURI())
+					&& "table".equals(xml.getLocalName()) && tableIndex == lastSheetNum) {
+				return false;
+			}
+		}
+		if (tableIndex < lastSheetNum) {
+			throw new IllegalArgumentException("Could not find sheet " + lastSheetNum + ", there are only " + (tableIndex + 1));
+		}
+		return false;
+	}
+
+	/**
+	 * Decode the <code>table:table-row</code> the parser is positioned on, and queue up the rows it
+	 * stands for.
+	 */
+	private void decodeRow() throws XMLStreamException {
+		int repeat = intAttribute(TABLE_NS, "number-rows-repeated");
+		int keyColumn = (rowFilter == null || isHeader(rowIndex)) ? -1 : rowFilter.getKeyColumn();
+		boolean keySeen = false;
+		boolean rejected = false;
+		boolean numeric = false;
+		int columnCount = 0;
+		int column = 0;
+		while (xml.hasNext()) {
+			int event = xml.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				if (!rejected && TABLE_NS.equals(xml.getNamespaceURI())
+						&& ("table-cell".equals(xml.getLocalName()) || "covered-table-cell".equals(xml.getLocalName()))) {
+					int columnsRepeated = intAttribute(TABLE_NS, "number-columns-repeated");
+					boolean key = keyColumn >= column && keyColumn < column + columnsRepeated;
+					if (!key && !isProjected(column, columnsRepeated)) {
+						skipElement();
+						column += columnsRepeated;
+						continue;
+					}
+					String valueType = columnType(column, xml.getAttributeValue(OFFICE_NS, "value-type"));
+					String value = decodeCell(valueType == null ? "string-value" : columnValueAttributes[column]);
+					if (key) {
+						keySeen = true;
+						// once the row is turned down, the rest of its cells are skipped unread
+						rejected = !rowFilter.accept(value);
+					}
+					if (value != null && !rejected) {
+						ensureCapacity(column + columnsRepeated);
+						// numbers are parsed once here, instead of on every call to getDouble()
+						double number = (valueType != null && columnNumeric[column]) ? parseNumber(value) : Double.NaN;
+						numeric |= !Double.isNaN(number);
+						for (int i = 0; i < columnsRepeated; i++) {
+							if (isProjected(column + i, 1)) {
+								values[column + i] = value;
+								valueTypes[column + i] = valueType;
+								numbers[column + i] = number;
+								columnCount = column + i + 1;
+							}
+						}
+					}
+					column += columnsRepeated;
+				} else {
+					skipElement();
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				break;
+			}
+		}
+
+		if (keyColumn >= 0 && !keySeen) {
+			rejected = !rowFilter.accept(null);
+		}
+
+		if (rejected) {
+			for (int i = 0; i < columnCount; i++) {
+				values[i] = null;
+				valueTypes[i] = null;
+				numbers[i] = Double.NaN;
+			}
+			// the rows before this one are no longer trailing, so they can go out
+			emptyStart = deferredEmptyStart;
+			emptyCount = deferredEmptyCount;
+			deferredEmptyCount = 0;
+		} else if (columnCount == 0) {
+			if (deferredEmptyCount == 0) {
+				deferredEmptyStart = rowIndex;
+			}
+			deferredEmptyCount += repeat;
+		} else {
+			String[] rowValues = new String[columnCount];
+			String[] rowTypes = new String[columnCount];
+			System.arraycopy(values, 0, rowValues, 0, columnCount);
+			System.arraycopy(valueTypes, 0, rowTypes, 0, columnCount);
+			double[] rowNumbers = null;
+			if (numeric) {
+				rowNumbers = new double[columnCount];
+				System.arraycopy(numbers, 0, rowNumbers, 0, columnCount);
+			}
+			for (int i = 0; i < columnCount; i++) {
+				values[i] = null;
+				valueTypes[i] = null;
+				numbers[i] = Double.NaN;
+			}
+			if (projection != null && columns == null) {
+				columns = projection.toMask(rowValues);
+			}
+			emptyStart = deferredEmptyStart;
+			emptyCount = deferredEmptyCount;
+			deferredEmptyCount = 0;
+			repeatedRow = new CalcRow(tableIndex, rowIndex, rowValues, rowTypes, rowNumbers);
+			repeatedStart = rowIndex;
+			repeatedCount = repeat;
+		}
+		rowIndex += repeat;
+	}
+
+	/**
+	 * Walk the cells of the <code>table:table-row</code> the parser is positioned on, only to find
+	 * out whether any of them has a value.
+	 */
+	private boolean rowHasContent() throws XMLStreamException {
+		boolean content = false;
+		while (xml.hasNext()) {
+			int event = xml.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				if (!content && TABLE_NS.equals(xml.getNamespaceURI())
+						&& ("table-cell".equals(xml.getLocalName()) || "covered-table-cell".equals(xml.getLocalName()))) {
+					content = decodeCell(valueAttribute(xml.getAttributeValue(OFFICE_NS, "value-type"))) != null;
+				} else {
+					skipElement();
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				break;
+			}
+		}
+		return content;
+	}
+
+	/**
+	 * Decode the cell the parser is positioned on, following the same rules as {@link CalcUtil#getAttr}:
+	 * the typed office value if there is one, otherwise the text of the cell.
+	 *
+	 * @param valueAttribute - the office attribute holding the typed value of the cell
+	 * @return the value of the cell, or <code>null</code> if it is empty
+	 */
+	private String decodeCell(String valueAttribute) throws XMLStreamException {
+		String value = xml.getAttributeValue(OFFICE_NS, valueAttribute);
+		if (value != null && value.length() > 0) {
+			// the displayed text of a typed cell is never used, so it is not even looked at
+			skipElement();
+			return value;
+		}
+		String fallback = firstValueAttribute();
+
+		text.setLength(0);
+		boolean firstParagraph = true;
+		int depth = 1;
+		while (depth > 0 && xml.hasNext()) {
+			int event = xml.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+				String ns = xml.getNamespaceURI();
+				String name = xml.getLocalName();
+				if (OFFICE_NS.equals(ns) && "annotation".equals(name)) {
+					skipElement();
+					depth--;
+				} else if (TEXT_NS.equals(ns)) {
+					if ("p".equals(name)) {
+						if (!firstParagraph) {
+							text.append('\n');
+						}
+						firstParagraph = false;
+					} else if ("s".equals(name)) {
+						int spaces = intAttribute(TEXT_NS, "c");
+						for (int i = 0; i < spaces; i++) {
+							text.append(' ');
+						}
+					} else if ("tab".equals(name)) {
+						text.append('\t');
+					} else if ("line-break".equals(name)) {
+						text.append('\n');
+					}
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			} else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+				if (value == null) {
+					text.append(xml.getTextCharacters(), xml.getTextStart(), xml.getTextLength());
+				}
+			}
+		}
+
+		if (value == null && text.length() > 0) {
+			value = text.toString();
+		}
+		if (value == null) {
+			value = fallback;
+		}
+		return (value == null || value.length() == 0) ? null : value;
+	}
+
+	/**
+	 * Every cell of a row keeps its value type, so the few distinct types share one instance each,
+	 * instead of every cell keeping the string the parser created for it.
+	 */
+	private static String canonicalType(String valueType) {
+		if (valueType == null) {
+			return null;
+		}
+		for (String type : VALUE_TYPES) {
+			if (type.equals(valueType)) {
+				return type;
+			}
+		}
+		return valueType;
+	}
+
+	/**
+	 * Look up the value type of a cell in the cache of its column, and only resolve it when the column
+	 * held a different type before.
+	 *
+	 * @param column - the column of the cell
+	 * @param valueType - the <code>office:value-type</code> of the cell, possibly <code>null</code>
+	 * @return the shared instance of the value type
+	 */
+	private String columnType(int column, String valueType) {
+		if (valueType == null) {
+			return null;
+		}
+		if (column >= columnTypes.length) {
+			int capacity = Math.max(column + 1, columnTypes.length * 2);
+			String[] grownTypes = new String[capacity];
+			String[] grownAttributes = new String[capacity];
+			boolean[] grownNumeric = new boolean[capacity];
+			System.arraycopy(columnTypes, 0, grownTypes, 0, columnTypes.length);
+			System.arraycopy(columnValueAttributes, 0, grownAttributes, 0, columnValueAttributes.length);
+			System.arraycopy(columnNumeric, 0, grownNumeric, 0, columnNumeric.length);
+			columnTypes = grownTypes;
+			columnValueAttributes = grownAttributes;
+			columnNumeric = grownNumeric;
+		}
+		String cached = columnTypes[column];
+		if (cached != null && cached.equals(valueType)) {
+			return cached;
+		}
+		String type = canonicalType(valueType);
+		columnTypes[column] = type;
+		columnValueAttributes[column] = valueAttribute(type);
+		columnNumeric[column] = isNumeric(type);
+		return type;
+	}
+
+	/**
+	 * @return whether cells of the given type hold a number in their <code>office:value</code>
+	 */
+	static boolean isNumeric(String valueType) {
+		return "float".equals(valueType) || "percentage".equals(valueType) || "currency".equals(valueType);
+	}
+
+	/**
+	 * @return the number, or NaN if the value is not one, so that the row falls back to parsing the text
+	 */
+	private static double parseNumber(String value) {
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			return Double.NaN;
+		}
+	}
+
+	private static double[] emptyNumbers(int size) {
+		double[] empty = new double[size];
+		Arrays.fill(empty, Double.NaN);
+		return empty;
+	}
+
+	/**
+	 * @return the name of the office attribute holding values of the given type
+	 */
+	private static String valueAttribute(String valueType) {
+		if (valueType == null || "string".equals(valueType)) {
+			return "string-value";
+		}
+		if ("date".equals(valueType)) {
+			return "date-value";
+		}
+		if ("time".equals(valueType)) {
+			return "time-value";
+		}
+		if ("boolean".equals(valueType)) {
+			return "boolean-value";
+		}
+		return "value";
+	}
+
+	private String firstValueAttribute() {
+		for (int i = 0; i < xml.getAttributeCount(); i++) {
+			if (OFFICE_NS.equals(xml.getAttributeNamespace(i)) && xml.getAttributeLocalName(i).endsWith("value")) {
+				return xml.getAttributeValue(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return whether any of the <code>count</code> columns from <code>column</code> on is to be decoded
+	 */
+	private boolean isProjected(int column, int count) {
+		if (columns == null) {
+			return true;
+		}
+		for (int i = column; i < column + count && i < columns.length; i++) {
+			if (columns[i]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int intAttribute(String ns, String name) {
+		String value = xml.getAttributeValue(ns, name);
+		return value == null ? 1 : Integer.parseInt(value);
+	}
+
+	/**
+	 * Skip over the element the parser is positioned on, including everything inside it.
+	 */
+	private void skipElement() throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0 && xml.hasNext()) {
+			int event = xml.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	private void ensureCapacity(int size) {
+		if (size > values.length) {
+			int capacity = Math.max(size, values.length * 2);
+			String[] grownValues = new String[capacity];
+			String[] grownTypes = new String[capacity];
+			double[] grownNumbers = emptyNumbers(capacity);
+			System.arraycopy(values, 0, grownValues, 0, values.length);
+			System.arraycopy(valueTypes, 0, grownTypes, 0, valueTypes.length);
+			System.arraycopy(numbers, 0, grownNumbers, 0, numbers.length);
+			values = grownValues;
+			valueTypes = grownTypes;
+			numbers = grownNumbers;
+		}
+	}
+
+	private static IOException wrap(XMLStreamException e) {
+		IOException exception = new IOException("Could not parse content.xml: " + e.getMessage());
+		exception.initCause(e);
+		return exception;
+	}
+
+}
@@ -0,0 +1,540 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes an .ods file one row at a time, through an {@link XMLStreamWriter}, so that memory use
+ * does not depend on the number of rows. The rows go to a <code>.part</code> file next to the
+ * target first, because each table has to declare its columns before its first row, and the width
+ * of a sheet is only known once its last row is written. The archive is put together on close,
+ * copying the rows into content.xml behind the declarations.
+ * <p>
+ * A writer resumed from a {@link #checkpoint()} cuts the <code>.part</code> file back and appends
+ * to it. If the archive was already put together in between, the rows are first copied back out
+ * of it.
+ * <p>
+ * Runs of empty cells and empty rows are written with <code>table:number-columns-repeated</code>
+ * and <code>table:number-rows-repeated</code>, and trailing ones are left out.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see CalcTemplate#writeRows(String, Iterable, RowWriterCallback)
+ */
+class CalcStreamingWriter extends AbstractSpreadsheetWriter {
+
+	private static final String MIMETYPE = "application/vnd.oasis.opendocument.spreadsheet";
+
+	private static final String MANIFEST_NS = "urn:oasis:names:tc:opendocument:xmlns:manifest:1.0";
+
+	private final File file;
+
+	private final File rowsFile;
+
+	private final FileOutputStream rowsOut;
+
+	private final XMLStreamWriter xml;
+
+	private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+
+	private final List<String> sheetNames = new ArrayList<String>();
+
+	/**
+	 * Where the rows of each sheet end in the temporary file.
+	 */
+	private final List<Long> sheetEnds = new ArrayList<Long>();
+
+	private final List<Integer> sheetWidths = new ArrayList<Integer>();
+
+	private int width;
+
+	private int blankRows;
+
+	private boolean closed;
+
+	/**
+	 * @param file - the file to write, which is replaced if it exists
+	 * @throws IOException
+	 */
+	public CalcStreamingWriter(File file) throws IOException {
+		this(file, null, null);
+	}
+
+	/**
+	 * @param file - the file to write
+	 * @param sheetNames - names of the sheets started before the checkpoint
+	 * @param checkpoint - where an earlier writer of the file got to, or <code>null</code> to
+	 *        replace the file
+	 * @throws IOException if the rows written before the checkpoint cannot be found
+	 * @see #checkpoint()
+	 */
+	public CalcStreamingWriter(File file, List<String> sheetNames, long[] checkpoint) throws IOException {
+		this(file, new File(file.getPath() + ".part"), sheetNames, checkpoint);
+	}
+
+	/**
+	 * A writer of some of the sheets of a file, whose rows are put together with those of other
+	 * writers by {@link #writeArchive(File, List)}.
+	 * 
+	 * @param file - the file the sheets are meant for
+	 * @param rowsFile - where to keep the rows until then
+	 * @throws IOException
+	 */
+	CalcStreamingWriter(File file, File rowsFile) throws IOException {
+		this(file, rowsFile, null, null);
+	}
+
+	private CalcStreamingWriter(File file, File rowsFile, List<String> sheetNames, long[] checkpoint) throws IOException {
+		this.file = file;
+		this.rowsFile = rowsFile;
+		if (checkpoint != null) {
+			restore(sheetNames, checkpoint);
+		}
+		this.rowsOut = new FileOutputStream(rowsFile, checkpoint != null);
+		try {
+			this.xml = XMLOutputFactory.newInstance().createXMLStreamWriter(new BufferedOutputStream(rowsOut, 64 * 1024), "UTF-8");
+		} catch (XMLStreamException e) {
+			abort();
+			throw wrap(e);
+		}
+	}
+
+	public void startSheet(String name) throws IOException {
+		if (!sheetNames.isEmpty()) {
+			finishSheet();
+		}
+		sheetNames.add(name);
+		width = 0;
+		blankRows = 0;
+	}
+
+	protected void writeRow(RowBuffer cells) throws IOException {
+		if (sheetNames.isEmpty()) {
+			throw new IllegalStateException("No worksheet has been started");
+		}
+		int columnCount = cells.getColumnCount();
+		if (columnCount == 0) {
+			blankRows++;
+			return;
+		}
+		try {
+			if (blankRows > 0) {
+				xml.writeStartElement("table", "table-row", CalcStreamingRowReader.TABLE_NS);
+				repeated("number-rows-repeated", blankRows);
+				xml.writeEmptyElement("table", "table-cell", CalcStreamingRowReader.TABLE_NS);
+				xml.writeEndElement();
+				blankRows = 0;
+			}
+			xml.writeStartElement("table", "table-row", CalcStreamingRowReader.TABLE_NS);
+			int blankCells = 0;
+			for (int column = 0; column < columnCount; column++) {
+				if (cells.getType(column) == RowBuffer.BLANK) {
+					blankCells++;
+					continue;
+				}
+				if (blankCells > 0) {
+					xml.writeEmptyElement("table", "table-cell", CalcStreamingRowReader.TABLE_NS);
+					repeated("number-columns-repeated", blankCells);
+					blankCells = 0;
+				}
+				writeCell(cells, column);
+			}
+			xml.writeEndElement();
+		} catch (XMLStreamException e) {
+			throw wrap(e);
+		}
+		width = Math.max(width, columnCount);
+	}
+
+	private void writeCell(RowBuffer cells, int column) throws XMLStreamException {
+		String type;
+		String attribute;
+		String value;
+		switch (cells.getType(column)) {
+			case RowBuffer.STRING:
+				xml.writeStartElement("table", "table-cell", CalcStreamingRowReader.TABLE_NS);
+				xml.writeAttribute("office", CalcStreamingRowReader.OFFICE_NS, "value-type", "string");
+				// every line of the text is a paragraph of its own
+				String text = cells.getString(column);
+				int start = 0;
+				while (start <= text.length()) {
+					int end = text.indexOf('\n', start);
+					if (end < 0) {
+						end = text.length();
+					}
+					xml.writeStartElement("text", "p", CalcStreamingRowReader.TEXT_NS);
+					xml.writeCharacters(text.substring(start, end));
+					xml.writeEndElement();
+					start = end + 1;
+				}
+				xml.writeEndElement();
+				return;
+			case RowBuffer.NUMBER:
+				type = "float";
+				attribute = "value";
+				value = formatNumber(cells.getNumber(column));
+				break;
+			case RowBuffer.BOOLEAN:
+				type = "boolean";
+				attribute = "boolean-value";
+				value = String.valueOf(cells.getBoolean(column));
+				break;
+			default:
+				type = "date";
+				attribute = "date-value";
+				value = dateFormat.format(cells.getDate(column));
+				if (value.endsWith("T00:00:00")) {
+					value = value.substring(0, value.indexOf('T'));
+				}
+		}
+		xml.writeEmptyElement("table", "table-cell", CalcStreamingRowReader.TABLE_NS);
+		xml.writeAttribute("office", CalcStreamingRowReader.OFFICE_NS, "value-type", type);
+		xml.writeAttribute("office", CalcStreamingRowReader.OFFICE_NS, attribute, value);
+	}
+
+	/**
+	 * Whole numbers are written without a fraction, as office suites do themselves.
+	 */
+	static String formatNumber(double value) {
+		if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			return String.valueOf((long) value);
+		}
+		return String.valueOf(value);
+	}
+
+	private void repeated(String attribute, int count) throws XMLStreamException {
+		if (count > 1) {
+			xml.writeAttribute("table", CalcStreamingRowReader.TABLE_NS, attribute, String.valueOf(count));
+		}
+	}
+
+	/**
+	 * Note where the rows of the current sheet end. Trailing empty rows are dropped.
+	 */
+	private void finishSheet() throws IOException {
+		try {
+			xml.flush();
+		} catch (XMLStreamException e) {
+			throw wrap(e);
+		}
+		sheetEnds.add(rowsOut.getChannel().position());
+		sheetWidths.add(width);
+	}
+
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		if (sheetNames.isEmpty()) {
+			startSheet("Sheet1");
+		}
+		try {
+			finish();
+			writeArchive(file, Collections.singletonList(this));
+		} finally {
+			closed = true;
+			rowsFile.delete();
+		}
+	}
+
+	/**
+	 * Note where the last sheet ends, and release the rows file. No more rows can be written.
+	 */
+	void finish() throws IOException {
+		if (!sheetNames.isEmpty()) {
+			finishSheet();
+		}
+		try {
+			xml.close();
+		} catch (XMLStreamException e) {
+			throw wrap(e);
+		}
+		rowsOut.close();
+	}
+
+	/**
+	 * Delete the rows file, once the archive has been written.
+	 */
+	void deleteRows() {
+		closed = true;
+		rowsFile.delete();
+	}
+
+	/**
+	 * Put an .ods file together from the sheets of finished writers, in order.
+	 * 
+	 * @param file - the file to write, which is only replaced once the archive is complete
+	 * @param writers - writers that have been {@link #finish() finished}
+	 * @throws IOException
+	 */
+	static void writeArchive(File file, List<CalcStreamingWriter> writers) throws IOException {
+		File assemblyFile = assemblyFileOf(file);
+		ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(assemblyFile), 64 * 1024));
+		boolean assembled = false;
+		try {
+			// the mimetype comes first and uncompressed, so the type of the file can be told from its first bytes
+			byte[] mimetype = MIMETYPE.getBytes("US-ASCII");
+			ZipEntry entry = new ZipEntry("mimetype");
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(mimetype.length);
+			CRC32 crc = new CRC32();
+			crc.update(mimetype);
+			entry.setCrc(crc.getValue());
+			zip.putNextEntry(entry);
+			zip.write(mimetype);
+			zip.closeEntry();
+
+			zip.putNextEntry(new ZipEntry("META-INF/manifest.xml"));
+			Writer manifest = new OutputStreamWriter(zip, "UTF-8");
+			manifest.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+			manifest.write("<manifest:manifest xmlns:manifest=\"" + MANIFEST_NS + "\">");
+			manifest.write("<manifest:file-entry manifest:media-type=\"" + MIMETYPE + "\" manifest:full-path=\"/\"/>");
+			manifest.write("<manifest:file-entry manifest:media-type=\"text/xml\" manifest:full-path=\"content.xml\"/>");
+			manifest.write("</manifest:manifest>");
+			manifest.flush();
+			zip.closeEntry();
+
+			zip.putNextEntry(new ZipEntry("content.xml"));
+			Writer content = new OutputStreamWriter(zip, "UTF-8");
+			content.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+			content.write("<office:document-content xmlns:office=\"" + CalcStreamingRowReader.OFFICE_NS + "\" xmlns:table=\""
+					+ CalcStreamingRowReader.TABLE_NS + "\" xmlns:text=\"" + CalcStreamingRowReader.TEXT_NS
+					+ "\" office:version=\"1.2\"><office:body><office:spreadsheet>");
+			for (CalcStreamingWriter writer : writers) {
+				writer.writeTables(content, zip);
+			}
+			content.write("</office:spreadsheet></office:body></office:document-content>");
+			content.flush();
+			zip.closeEntry();
+			zip.close();
+			assembled = true;
+		} finally {
+			if (!assembled) {
+				try {
+					zip.close();
+				} finally {
+					assemblyFile.delete();
+				}
+			}
+		}
+		replace(assemblyFile, file);
+	}
+
+	/**
+	 * Put the tables around the rows written by this writer.
+	 */
+	private void writeTables(Writer content, OutputStream zip) throws IOException {
+		InputStream rows = new FileInputStream(rowsFile);
+		try {
+			byte[] copy = new byte[64 * 1024];
+			long position = 0;
+			for (int i = 0; i < sheetNames.size(); i++) {
+				content.write("<table:table table:name=\"" + escape(sheetNames.get(i)) + "\">");
+				content.write("<table:table-column table:number-columns-repeated=\"" + Math.max(sheetWidths.get(i), 1) + "\"/>");
+				content.flush();
+				long end = sheetEnds.get(i);
+				while (position < end) {
+					int read = rows.read(copy, 0, (int) Math.min(copy.length, end - position));
+					if (read < 0) {
+						throw new IOException("Rows of " + file + " were cut short");
+					}
+					zip.write(copy, 0, read);
+					position += read;
+				}
+				content.write("</table:table>");
+			}
+		} finally {
+			rows.close();
+		}
+	}
+
+	public long[] checkpoint() throws IOException {
+		if (closed) {
+			throw new IllegalStateException("The writer of " + file + " is closed");
+		}
+		try {
+			xml.flush();
+		} catch (XMLStreamException e) {
+			throw wrap(e);
+		}
+		long[] checkpoint = new long[4 + sheetEnds.size() * 2];
+		checkpoint[0] = rowsOut.getChannel().position();
+		checkpoint[1] = sheetNames.size();
+		checkpoint[2] = width;
+		checkpoint[3] = blankRows;
+		for (int i = 0; i < sheetEnds.size(); i++) {
+			checkpoint[4 + i * 2] = sheetEnds.get(i);
+			checkpoint[5 + i * 2] = sheetWidths.get(i);
+		}
+		return checkpoint;
+	}
+
+	public void rewind(long[] checkpoint) throws IOException {
+		if (closed) {
+			throw new IllegalStateException("The writer of " + file + " is closed");
+		}
+		int started = (int) checkpoint[1];
+		if (started > sheetNames.size() || checkpoint.length != 4 + Math.max(started - 1, 0) * 2) {
+			throw new IllegalArgumentException("Checkpoint does not match the sheets of " + file);
+		}
+		try {
+			xml.flush();
+		} catch (XMLStreamException e) {
+			throw wrap(e);
+		}
+		rowsOut.getChannel().truncate(checkpoint[0]);
+		while (sheetNames.size() > started) {
+			sheetNames.remove(sheetNames.size() - 1);
+		}
+		while (sheetEnds.size() > Math.max(started - 1, 0)) {
+			sheetEnds.remove(sheetEnds.size() - 1);
+			sheetWidths.remove(sheetWidths.size() - 1);
+		}
+		width = (int) checkpoint[2];
+		blankRows = (int) checkpoint[3];
+	}
+
+	/**
+	 * Cut the rows back to a checkpoint, and pick up the sheet being written at the time.
+	 */
+	private void restore(List<String> names, long[] checkpoint) throws IOException {
+		long end = checkpoint[0];
+		int started = (int) checkpoint[1];
+		if (names.size() != started || checkpoint.length != 4 + Math.max(started - 1, 0) * 2) {
+			throw new IllegalArgumentException("Checkpoint does not match the sheets of " + file);
+		}
+		sheetNames.addAll(names);
+		width = (int) checkpoint[2];
+		blankRows = (int) checkpoint[3];
+		for (int i = 4; i < checkpoint.length; i += 2) {
+			sheetEnds.add(checkpoint[i]);
+			sheetWidths.add((int) checkpoint[i + 1]);
+		}
+		if (!rowsFile.exists() && file.exists()) {
+			recoverRows(end);
+		}
+		if (rowsFile.length() < end) {
+			throw new IOException("The rows of " + file + " are shorter than they were at the checkpoint");
+		}
+		RandomAccessFile rows = new RandomAccessFile(rowsFile, "rw");
+		try {
+			rows.setLength(end);
+		} finally {
+			rows.close();
+		}
+	}
+
+	/**
+	 * Copy the rows of a finished archive back into the <code>.part</code> file. They are the
+	 * bytes that follow the column declaration of each table.
+	 */
+	private void recoverRows(long end) throws IOException {
+		ZipFile zip = new ZipFile(file);
+		try {
+			ZipEntry entry = zip.getEntry("content.xml");
+			if (entry == null) {
+				throw new IOException("No content.xml found in " + file);
+			}
+			InputStream content = new BufferedInputStream(zip.getInputStream(entry), 64 * 1024);
+			OutputStream rows = new BufferedOutputStream(new FileOutputStream(rowsFile), 64 * 1024);
+			try {
+				long copied = 0;
+				for (int sheet = 0; copied < end; sheet++) {
+					skipPast(content, "<table:table-column ");
+					skipPast(content, "/>");
+					long sheetEnd = sheet < sheetEnds.size() ? Math.min(sheetEnds.get(sheet), end) : end;
+					for (; copied < sheetEnd; copied++) {
+						int b = content.read();
+						if (b < 0) {
+							throw new IOException("The rows of " + file + " are shorter than they were at the checkpoint");
+						}
+						rows.write(b);
+					}
+				}
+			} finally {
+				rows.close();
+				content.close();
+			}
+		} finally {
+			zip.close();
+		}
+	}
+
+	private void skipPast(InputStream content, String marker) throws IOException {
+		int matched = 0;
+		while (matched < marker.length()) {
+			int b = content.read();
+			if (b < 0) {
+				throw new IOException("The rows of " + file + " are shorter than they were at the checkpoint");
+			}
+			if (b == marker.charAt(matched)) {
+				matched++;
+			} else {
+				matched = (b == marker.charAt(0)) ? 1 : 0;
+			}
+		}
+	}
+
+	private IOException wrap(XMLStreamException e) {
+		IOException exception = new IOException("Could not write the rows of " + file + ": " + e.getMessage());
+		exception.initCause(e);
+		return exception;
+	}
+
+	private static String escape(String text) {
+		return text.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
+	}
+
+	/**
+	 * Release and delete the rows file, such as after an item could not be written. The target is
+	 * left as it was.
+	 */
+	public void abort() {
+		closed = true;
+		try {
+			rowsOut.close();
+		} catch (IOException e) {
+			// the file is deleted anyway
+		}
+		rowsFile.delete();
+	}
+
+}
@@ -19,11 +19,21 @@ package org.springframework.batch.spreadsheet;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 import org.apache.log4j.Logger;
 import org.jopendocument.dom.spreadsheet.Sheet;
 import org.jopendocument.dom.spreadsheet.SpreadSheet;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 
 /**
  * This utility class provides easy access to processing Open Office Calc worksheets. Code using this
@@ -47,6 +57,41 @@ public class CalcTemplate {
 	 */
 	private boolean skipFirstRowDefault;
 
+	/**
+	 * Columns to decode when streaming. Standard policy is all of them.
+	 */
+	private ColumnProjection columnProjection;
+
+	/**
+	 * Option to read content.xml through a memory mapping when streaming.
+	 */
+	private boolean memoryMapped;
+
+	/**
+	 * Test that streamed rows must pass before they are mapped. Standard policy is to map every row.
+	 */
+	private RowFilter rowFilter;
+
+	/**
+	 * Strategy for processing several worksheets at once. Standard policy is one after the other.
+	 */
+	private TaskExecutor taskExecutor = new SyncTaskExecutor();
+
+	/**
+	 * Parsed documents to share between reads. Standard policy is to load the file every time.
+	 */
+	private WorkbookCache workbookCache;
+
+	/**
+	 * Strategy for collecting mapped rows. Standard policy is an ArrayList on the heap.
+	 */
+	private ResultListFactory resultListFactory = new DefaultResultListFactory();
+
+	/**
+	 * Receives timings and counts of each read. Standard policy is to observe nothing.
+	 */
+	private TemplateObserver observer;
+
 	/**
 	 * Standard policy is to NOT skip the first row of a worksheet.
 	 */
@@ -87,47 +132,959 @@ public class CalcTemplate {
 		return onEachRow(sheetNum, calcCallback, skipFirstRowDefault, errorHandler);
 	}
 	
+	/**
+	 * Process each row of the worksheet.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param calcCallback - callback defining how to process a row of data
+	 * @param skipFirstRow - override default setting of whether or not to skip the first row
+	 * @param errorHandler - custom error handler
+	 * @return list of T objects
+	 */
+	public <T> List<T> onEachRow(int sheetNum, CalcRowCallback<T> calcCallback, boolean skipFirstRow, CalcTemplateErrorHandler<T> errorHandler) {
+		return onEachRow(sheetNum, calcCallback, skipFirstRow, errorHandler, RowRange.all());
+	}
+	
+	/**
+	 * Process a range of rows of the worksheet using the default error handler.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param calcCallback - callback defining how to process a row of data
+	 * @param rowRange - the rows to process
+	 * @return list of T objects
+	 */
+	public <T> List<T> onEachRow(int sheetNum, CalcRowCallback<T> calcCallback, RowRange rowRange) {
+		return onEachRow(sheetNum, calcCallback, skipFirstRowDefault, new DefaultCalcTemplateErrorHandler<T>(), rowRange);
+	}
+	
 	/**
 	 * This is the work horse for row-level worksheet processing.
 	 * <p>
 	 * 1) Read data from file.<br/>
 	 * 2) Find specific worksheet.<br/>
 	 * 3) Create an empty List.<br/>
-	 * 4) Iterate over the worksheet, building up the list.<br/>
+	 * 4) Iterate over the range of the worksheet, building up the list.<br/>
 	 * 5) Return the list.
+	 * <p>
+	 * The whole document is still loaded, so only the mapping is saved. Streaming callbacks
+	 * make the range skip the parsing as well.
 	 * 
 	 * @param <T> - type of the object to be returned
 	 * @param sheetNum - integer index into the row of the spreadsheet
 	 * @param calcCallback - callback defining how to process a row of data
 	 * @param skipFirstRow - override default setting of whether or not to skip the first row
 	 * @param errorHandler - custom error handler
+	 * @param rowRange - the rows to process
 	 * @return list of T objects
 	 */
-	public <T> List<T> onEachRow(int sheetNum, CalcRowCallback<T> calcCallback, boolean skipFirstRow, CalcTemplateErrorHandler<T> errorHandler) {
+	public <T> List<T> onEachRow(int sheetNum, CalcRowCallback<T> calcCallback, boolean skipFirstRow, CalcTemplateErrorHandler<T> errorHandler,
+			RowRange rowRange) {
+		SheetObservation observation = SheetObservation.start(observer, file, String.valueOf(sheetNum));
+		List<T> results = resultListFactory.newResultList();
+		boolean completed = false;
 		try {
-			SpreadSheet spreadsheet = SpreadSheet.createFromFile(file);
-			Sheet sheet = spreadsheet.getSheet(sheetNum);
-			
-			List<T> results = new ArrayList<T>();
+			SpreadSheet spreadsheet = loadSpreadSheet();
+			synchronized (spreadsheet) {
+				Sheet sheet = spreadsheet.getSheet(sheetNum);
+				
+				int firstRow;
+				if (skipFirstRow) {
+					logger.debug("Skipping first row...");
+					calcCallback = announceHeaders(calcCallback, sheet);
+					firstRow = Math.max(1, rowRange.getStartRow());
+				} else {
+					logger.debug("Skipping nuthin'!");
+					firstRow = rowRange.getStartRow();
+				}
+				int lastRow = Math.min(sheet.getRowCount(), rowRange.getEndRow());
+				for (int row = firstRow; row < lastRow && row - firstRow < rowRange.getLimit(); row++) {
+					processRow(calcCallback, results, sheet, row, errorHandler, observation);
+				}
+
+				completed = true;
+				return results;
+			}
 			
+		} catch (IOException e) {
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		} finally {
+			if (observation != null) {
+				observation.finish(results.size());
+			}
+			if (!completed) {
+				ResultLists.discard(results);
+			}
+		}
+	}
+	
+	/**
+	 * Stream each row of the worksheet using the default error handler.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param calcCallback - callback defining how to process a streamed row of data
+	 * @return list of T objects
+	 */
+	public <T> List<T> onEachRow(int sheetNum, CalcStreamingRowCallback<T> calcCallback) {
+		return onEachRow(sheetNum, calcCallback, skipFirstRowDefault, new DefaultCalcStreamingErrorHandler<T>());
+	}
+	
+	/**
+	 * Stream each row of the worksheet, using an alternate error handling strategy.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param calcCallback - callback defining how to process a streamed row of data
+	 * @param errorHandler - custom error handler
+	 * @return list of T objects
+	 */
+	public <T> List<T> onEachRow(int sheetNum, CalcStreamingRowCallback<T> calcCallback, CalcStreamingErrorHandler<T> errorHandler) {
+		return onEachRow(sheetNum, calcCallback, skipFirstRowDefault, errorHandler);
+	}
+	
+	/**
+	 * Stream each row of the worksheet.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param calcCallback - callback defining how to process a streamed row of data
+	 * @param skipFirstRow - override default setting of whether or not to skip the first row
+	 * @param errorHandler - custom error handler
+	 * @return list of T objects
+	 */
+	public <T> List<T> onEachRow(int sheetNum, CalcStreamingRowCallback<T> calcCallback, boolean skipFirstRow, CalcStreamingErrorHandler<T> errorHandler) {
+		return onEachRow(sheetNum, calcCallback, skipFirstRow, errorHandler, RowRange.all());
+	}
+	
+	/**
+	 * Stream a range of rows of the worksheet using the default error handler.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param calcCallback - callback defining how to process a streamed row of data
+	 * @param rowRange - the rows to process
+	 * @return list of T objects
+	 */
+	public <T> List<T> onEachRow(int sheetNum, CalcStreamingRowCallback<T> calcCallback, RowRange rowRange) {
+		return onEachRow(sheetNum, calcCallback, skipFirstRowDefault, new DefaultCalcStreamingErrorHandler<T>(), rowRange);
+	}
+	
+	/**
+	 * This is the streaming counterpart of the DOM-based work horse. Instead of loading the whole
+	 * document, content.xml is pulled straight out of the file, and each row is decoded, mapped and
+	 * dropped before the next one is read. The rows before the range are skipped without decoding
+	 * their cells, and parsing stops as soon as the range runs out.
+	 * <p>
+	 * 1) Open a streaming reader on the specific worksheet, positioned at the start of the range.<br/>
+	 * 2) Create an empty List.<br/>
+	 * 3) Pull rows from the reader, building up the list, until the range runs out.<br/>
+	 * 4) Return the list.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param calcCallback - callback defining how to process a streamed row of data
+	 * @param skipFirstRow - override default setting of whether or not to skip the first row
+	 * @param errorHandler - custom error handler
+	 * @param rowRange - the rows to process
+	 * @return list of T objects
+	 */
+	public <T> List<T> onEachRow(int sheetNum, CalcStreamingRowCallback<T> calcCallback, boolean skipFirstRow, CalcStreamingErrorHandler<T> errorHandler,
+			RowRange rowRange) {
+		SheetObservation observation = SheetObservation.start(observer, file, String.valueOf(sheetNum));
+		List<T> results = resultListFactory.newResultList();
+		boolean completed = false;
+		try {
+			CalcStreamingRowReader reader = openReader(sheetNum, skipFirstRow);
+			reader.setStartRow(rowRange.getStartRow());
+			try {
+				if (skipFirstRow) {
+					logger.debug("Skipping first row...");
+					calcCallback = announceHeaders(calcCallback, reader.read());
+				}
+				int count = 0;
+				CalcRow row;
+				while (count < rowRange.getLimit() && (row = reader.read()) != null && !rowRange.isPastEnd(row.getRowIndex())) {
+					processRow(calcCallback, results, row, errorHandler, observation);
+					count++;
+				}
+				
+				completed = true;
+				return results;
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			if (observation != null) {
+				observation.finish(results.size());
+			}
+			if (!completed) {
+				ResultLists.discard(results);
+			}
+		}
+	}
+	
+	/**
+	 * Hand the streamed rows of the worksheet to a callback in chunks.
+	 * 
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param chunkSize - maximum number of rows per chunk
+	 * @param chunkCallback - callback defining how to process a chunk of rows
+	 * @return the number of rows processed
+	 */
+	public int onEachChunk(int sheetNum, int chunkSize, CalcRowChunkCallback chunkCallback) {
+		return onEachChunk(sheetNum, chunkSize, chunkCallback, skipFirstRowDefault);
+	}
+	
+	/**
+	 * Hand the streamed rows of the worksheet to a callback in chunks of <code>chunkSize</code>
+	 * rows, the last one possibly smaller. Each chunk is delivered as soon as it fills, so no more
+	 * than one chunk of rows is held at a time. Exceptions thrown by the callback are not handled,
+	 * since they concern a whole chunk rather than a row.
+	 * 
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param chunkSize - maximum number of rows per chunk
+	 * @param chunkCallback - callback defining how to process a chunk of rows
+	 * @param skipFirstRow - override default setting of whether or not to skip the first row
+	 * @return the number of rows processed
+	 */
+	public int onEachChunk(int sheetNum, int chunkSize, CalcRowChunkCallback chunkCallback, boolean skipFirstRow) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be at least 1, but was " + chunkSize);
+		}
+		try {
+			CalcStreamingRowReader reader = openReader(sheetNum, skipFirstRow);
+			try {
+				List<CalcRow> chunk = new ArrayList<CalcRow>(chunkSize);
+				int count = 0;
+				
+				if (skipFirstRow) {
+					logger.debug("Skipping first row...");
+					announceHeaders(chunkCallback, reader.read());
+				}
+				CalcRow row;
+				while ((row = reader.read()) != null) {
+					chunk.add(row);
+					count++;
+					if (chunk.size() == chunkSize) {
+						chunkCallback.processChunk(chunk);
+						chunk.clear();
+					}
+				}
+				if (!chunk.isEmpty()) {
+					chunkCallback.processChunk(chunk);
+				}
+				
+				return count;
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	/**
+	 * Lazily map each row of the worksheet using the default error handler.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param calcCallback - callback defining how to process a row of data
+	 * @return iterator over the T objects
+	 */
+	public <T> CloseableRowIterator<T> rowIterator(int sheetNum, CalcRowCallback<T> calcCallback) {
+		return rowIterator(sheetNum, calcCallback, skipFirstRowDefault, new DefaultCalcTemplateErrorHandler<T>());
+	}
+	
+	/**
+	 * Lazily map each row of the worksheet. The document is loaded up front, but rows are only
+	 * mapped as the caller asks for them, and the results are never collected into a list.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param calcCallback - callback defining how to process a row of data
+	 * @param skipFirstRow - override default setting of whether or not to skip the first row
+	 * @param errorHandler - custom error handler
+	 * @return iterator over the T objects
+	 */
+	public <T> CloseableRowIterator<T> rowIterator(int sheetNum, final CalcRowCallback<T> calcCallback, boolean skipFirstRow,
+			final CalcTemplateErrorHandler<T> errorHandler) {
+		final SheetObservation observation = SheetObservation.start(observer, file, String.valueOf(sheetNum));
+		boolean opened = false;
+		try {
+			final SpreadSheet spreadsheet = loadSpreadSheet();
+			final Sheet sheet;
+			final CalcRowCallback<T> rowCallback;
+			synchronized (spreadsheet) {
+				sheet = spreadsheet.getSheet(sheetNum);
+				rowCallback = skipFirstRow ? announceHeaders(calcCallback, sheet) : calcCallback;
+			}
+			final int firstRow = skipFirstRow ? 1 : 0;
+			CloseableRowIterator<T> iterator = new AbstractRowIterator<T>() {
+				private int row = firstRow;
+				private int results;
+				protected T readNext() {
+					// a cached document may be shared, so it is only held for one row at a time
+					synchronized (spreadsheet) {
+						while (row < sheet.getRowCount()) {
+							T rowResult = mapRow(rowCallback, sheet, row++, errorHandler, observation);
+							if (rowResult != null) {
+								results++;
+								return rowResult;
+							}
+						}
+						return null;
+					}
+				}
+				protected void release() {
+					// the file was closed as soon as the document was loaded
+					if (observation != null) {
+						observation.finish(results);
+					}
+				}
+			};
+			opened = true;
+			return iterator;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			// once the iterator is handed out, closing it finishes the observation
+			if (!opened && observation != null) {
+				observation.finish(0);
+			}
+		}
+	}
+	
+	/**
+	 * Lazily stream each row of the worksheet using the default error handler.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param calcCallback - callback defining how to process a streamed row of data
+	 * @return iterator over the T objects, which must be closed if not read to the end
+	 */
+	public <T> CloseableRowIterator<T> rowIterator(int sheetNum, CalcStreamingRowCallback<T> calcCallback) {
+		return rowIterator(sheetNum, calcCallback, skipFirstRowDefault, new DefaultCalcStreamingErrorHandler<T>());
+	}
+	
+	/**
+	 * Lazily stream each row of the worksheet. Each call to <code>next()</code> parses just enough
+	 * of content.xml to map one more row, and rows mapped to <code>null</code> are passed over.
+	 * The file stays open until the iterator is exhausted or closed.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param calcCallback - callback defining how to process a streamed row of data
+	 * @param skipFirstRow - override default setting of whether or not to skip the first row
+	 * @param errorHandler - custom error handler
+	 * @return iterator over the T objects, which must be closed if not read to the end
+	 */
+	public <T> CloseableRowIterator<T> rowIterator(int sheetNum, final CalcStreamingRowCallback<T> calcCallback, boolean skipFirstRow,
+			final CalcStreamingErrorHandler<T> errorHandler) {
+		final SheetObservation observation = SheetObservation.start(observer, file, String.valueOf(sheetNum));
+		boolean opened = false;
+		try {
+			final CalcStreamingRowReader reader = openReader(sheetNum, skipFirstRow);
+			CalcStreamingRowCallback<T> callback = calcCallback;
 			if (skipFirstRow) {
-				logger.debug("Skipping first row...");
-				for (int row=1; row < sheet.getRowCount(); row++) {
-					processRow(calcCallback, results, sheet, row, errorHandler);
+				try {
+					callback = announceHeaders(calcCallback, reader.read());
+				} catch (IOException e) {
+					reader.close();
+					throw e;
 				}
-			} else {
-				logger.debug("Skipping nuthin'!");
-				for (int row=0; row < sheet.getRowCount(); row++) {
-					processRow(calcCallback, results, sheet, row, errorHandler);
+			}
+			final CalcStreamingRowCallback<T> rowCallback = callback;
+			CloseableRowIterator<T> iterator = new AbstractRowIterator<T>() {
+				private int results;
+				protected T readNext() throws IOException {
+					CalcRow row;
+					while ((row = reader.read()) != null) {
+						T rowResult = mapRow(rowCallback, row, errorHandler, observation);
+						if (rowResult != null) {
+							results++;
+							return rowResult;
+						}
+					}
+					return null;
+				}
+				protected void release() {
+					reader.close();
+					if (observation != null) {
+						observation.finish(results);
+					}
 				}
+			};
+			opened = true;
+			return iterator;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			// once the iterator is handed out, closing it finishes the observation
+			if (!opened && observation != null) {
+				observation.finish(0);
 			}
-
+		}
+	}
+	
+	/**
+	 * Stream each row of the worksheet using the default error handler, mapping rows in parallel.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param calcCallback - callback defining how to process a streamed row of data
+	 * @param executor - runs the callback, such as a thread pool
+	 * @return list of T objects, in row order
+	 */
+	public <T> List<T> onEachRow(int sheetNum, CalcStreamingRowCallback<T> calcCallback, Executor executor) {
+		return onEachRow(sheetNum, calcCallback, skipFirstRowDefault, new DefaultCalcStreamingErrorHandler<T>(), executor);
+	}
+	
+	/**
+	 * Stream each row of the worksheet, handing the callback to an executor. The file is still
+	 * parsed on the calling thread, but the rows are mapped concurrently, so the callback (and
+	 * error handler) must be thread safe. A bounded number of rows are in flight at once, and the
+	 * results come back in row order.
+	 * <p>
+	 * There is no such variant for {@link CalcRowCallback}, because looking cells up in the
+	 * jOpenDocument model can modify the document, which is not safe from several threads.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param calcCallback - callback defining how to process a streamed row of data
+	 * @param skipFirstRow - override default setting of whether or not to skip the first row
+	 * @param errorHandler - invoked on the worker thread, with the row that failed
+	 * @param executor - runs the callback, such as a thread pool
+	 * @return list of T objects, in row order
+	 */
+	public <T> List<T> onEachRow(int sheetNum, final CalcStreamingRowCallback<T> calcCallback, boolean skipFirstRow,
+			final CalcStreamingErrorHandler<T> errorHandler, Executor executor) {
+		final SheetObservation observation = SheetObservation.start(observer, file, String.valueOf(sheetNum));
+		List<T> results = resultListFactory.newResultList();
+		boolean completed = false;
+		try {
+			CalcStreamingRowReader reader = openReader(sheetNum, skipFirstRow);
+			TaskSupport.OrderedWindow<T> window = new TaskSupport.OrderedWindow<T>(executor, results);
+			try {
+				if (skipFirstRow) {
+					logger.debug("Skipping first row...");
+				}
+				final CalcStreamingRowCallback<T> rowCallback = skipFirstRow ? announceHeaders(calcCallback, reader.read()) : calcCallback;
+				CalcRow row;
+				while ((row = reader.read()) != null) {
+					final CalcRow current = row;
+					window.submit(new Callable<T>() {
+						public T call() {
+							return mapRow(rowCallback, current, errorHandler, observation);
+						}
+					});
+				}
+				window.finish();
+				completed = true;
+				return results;
+			} finally {
+				window.cancel();
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			if (observation != null) {
+				observation.finish(results.size());
+			}
+			if (!completed) {
+				ResultLists.discard(results);
+			}
+		}
+	}
+	
+	/**
+	 * Process each row of several worksheets, loading the file only once, using the default
+	 * error handler.
+	 * 
+	 * @param calcCallbacks - callback defining how to process a row of data, keyed by sheet index
+	 * @return list of objects for each worksheet, keyed by sheet index
+	 */
+	public Map<Integer, List<?>> onEachSheet(Map<Integer, ? extends CalcRowCallback<?>> calcCallbacks) {
+		return onEachSheet(calcCallbacks, skipFirstRowDefault);
+	}
+	
+	/**
+	 * This is the work horse for processing several worksheets of the same file. The document is
+	 * loaded once, and the worksheets are mapped one after another while holding it, since
+	 * jOpenDocument is not thread safe. To map worksheets in parallel, stream them with
+	 * {@link #onEachSheet(int[], CalcStreamingRowCallback)} and an asynchronous task executor.
+	 * 
+	 * @param calcCallbacks - callback defining how to process a row of data, keyed by sheet index
+	 * @param skipFirstRow - whether or not to skip the first row of every worksheet
+	 * @return list of objects for each worksheet, keyed by sheet index
+	 */
+	public Map<Integer, List<?>> onEachSheet(Map<Integer, ? extends CalcRowCallback<?>> calcCallbacks, boolean skipFirstRow) {
+		Map<Integer, SheetJob<?>> jobs = new LinkedHashMap<Integer, SheetJob<?>>();
+		boolean completed = false;
+		try {
+			SpreadSheet spreadsheet = loadSpreadSheet();
+			
+			synchronized (spreadsheet) {
+				for (Map.Entry<Integer, ? extends CalcRowCallback<?>> entry : calcCallbacks.entrySet()) {
+					Sheet sheet = spreadsheet.getSheet(entry.getKey());
+					SheetJob<?> job = newSheetJob(entry.getKey(), entry.getValue());
+					jobs.put(entry.getKey(), job);
+					if (skipFirstRow) {
+						job.header(sheet);
+					}
+					for (int row = skipFirstRow ? 1 : 0; row < sheet.getRowCount(); row++) {
+						job.process(sheet, row);
+					}
+				}
+			}
+			
+			Map<Integer, List<?>> results = new LinkedHashMap<Integer, List<?>>();
+			for (Map.Entry<Integer, SheetJob<?>> entry : jobs.entrySet()) {
+				results.put(entry.getKey(), entry.getValue().results);
+			}
+			completed = true;
 			return results;
 			
 		} catch (IOException e) {
-			e.printStackTrace();
 			throw new RuntimeException(e);
+		} finally {
+			for (SheetJob<?> job : jobs.values()) {
+				job.finish(completed);
+			}
+		}
+	}
+	
+	/**
+	 * Stream each row of several worksheets in a single pass over the file, using the default
+	 * error handler. {@link CalcRow#getSheetIndex()} tells the callback which worksheet a row
+	 * belongs to.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param sheetNums - indexes of the worksheets to process
+	 * @param calcCallback - callback defining how to process a streamed row of data
+	 * @return list of T objects for each worksheet, keyed by sheet index
+	 */
+	public <T> Map<Integer, List<T>> onEachSheet(int[] sheetNums, CalcStreamingRowCallback<T> calcCallback) {
+		return onEachSheet(sheetNums, calcCallback, skipFirstRowDefault, new DefaultCalcStreamingErrorHandler<T>());
+	}
+	
+	/**
+	 * Stream each row of several worksheets in a single pass over the file. With an asynchronous
+	 * task executor, each worksheet is streamed by a reader of its own instead, all of them in
+	 * parallel, so the callback and the error handler must then be thread safe.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param sheetNums - indexes of the worksheets to process
+	 * @param calcCallback - callback defining how to process a streamed row of data
+	 * @param skipFirstRow - whether or not to skip the first row of every worksheet
+	 * @param errorHandler - custom error handler
+	 * @return list of T objects for each worksheet, keyed by sheet index
+	 */
+	public <T> Map<Integer, List<T>> onEachSheet(int[] sheetNums, final CalcStreamingRowCallback<T> calcCallback, final boolean skipFirstRow,
+			final CalcStreamingErrorHandler<T> errorHandler) {
+		Map<Integer, List<T>> results = new LinkedHashMap<Integer, List<T>>();
+		Map<Integer, SheetObservation> observations = new HashMap<Integer, SheetObservation>();
+		Set<Integer> sheets = new LinkedHashSet<Integer>();
+		for (int sheetNum : sheetNums) {
+			sheets.add(sheetNum);
+			results.put(sheetNum, resultListFactory.<T>newResultList());
+			observations.put(sheetNum, SheetObservation.start(observer, file, String.valueOf(sheetNum)));
+		}
+		boolean completed = false;
+		try {
+			if (sheets.size() > 1 && !(taskExecutor instanceof SyncTaskExecutor)) {
+				List<Runnable> tasks = new ArrayList<Runnable>();
+				for (final int sheetNum : sheets) {
+					final List<T> sheetResults = results.get(sheetNum);
+					final SheetObservation observation = observations.get(sheetNum);
+					tasks.add(new Runnable() {
+						public void run() {
+							try {
+								CalcStreamingRowReader reader = openReader(sheetNum, skipFirstRow);
+								try {
+									CalcRow row = skipFirstRow ? reader.read() : null;
+									CalcStreamingRowCallback<T> rowCallback = announceHeaders(calcCallback, row);
+									while ((row = reader.read()) != null) {
+										processRow(rowCallback, sheetResults, row, errorHandler, observation);
+									}
+								} finally {
+									reader.close();
+								}
+							} catch (IOException e) {
+								throw new RuntimeException(e);
+							}
+						}
+					});
+				}
+				TaskSupport.runAll(taskExecutor, tasks);
+			} else {
+				try {
+					CalcStreamingRowReader reader = openReader(sheets, skipFirstRow);
+					try {
+						int previousSheet = -1;
+						// the worksheets come one after another, so only the current one needs its own callback
+						CalcStreamingRowCallback<T> rowCallback = calcCallback;
+						CalcRow row;
+						while ((row = reader.read()) != null) {
+							boolean firstRow = row.getSheetIndex() != previousSheet;
+							previousSheet = row.getSheetIndex();
+							if (firstRow && skipFirstRow) {
+								rowCallback = announceHeaders(calcCallback, row);
+							} else {
+								SheetObservation observation = observer == null ? null : observations.get(row.getSheetIndex());
+								processRow(rowCallback, results.get(row.getSheetIndex()), row, errorHandler, observation);
+							}
+						}
+					} finally {
+						reader.close();
+					}
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			completed = true;
+		} finally {
+			for (Map.Entry<Integer, List<T>> entry : results.entrySet()) {
+				SheetObservation observation = observations.get(entry.getKey());
+				if (observation != null) {
+					observation.finish(entry.getValue().size());
+				}
+				if (!completed) {
+					ResultLists.discard(entry.getValue());
+				}
+			}
+		}
+		return results;
+	}
+	
+	/**
+	 * Read the column headers from the first row of the worksheet, streaming only that row.
+	 * 
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @return the column headers, empty if the worksheet has no rows
+	 */
+	public ColumnHeaders readColumnHeaders(int sheetNum) {
+		return findColumnHeaders(sheetNum, null);
+	}
+	
+	/**
+	 * Find the header row of a worksheet that does not start with it, such as one with a title
+	 * above the table, by looking for a known column name. Rows are streamed only as far as the
+	 * header row.
+	 * 
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param headerName - name of one of the columns, or <code>null</code> to take the first row
+	 * @return the column headers
+	 * @throws IllegalArgumentException if no row holds the column name
+	 */
+	public ColumnHeaders findColumnHeaders(int sheetNum, String headerName) {
+		try {
+			CalcStreamingRowReader reader = new CalcStreamingRowReader(file, sheetNum, memoryMapped);
+			try {
+				CalcRow row;
+				while ((row = reader.read()) != null) {
+					ColumnHeaders headers = columnHeadersOf(row);
+					if (headerName == null || headers.contains(headerName)) {
+						return headers;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		if (headerName == null) {
+			return ColumnHeaders.of();
+		}
+		throw new IllegalArgumentException("Could not find a header row with column '" + headerName + "' in sheet " + sheetNum);
+	}
+	
+	/**
+	 * Index the values of every cell of the worksheet.
+	 * 
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @return an index of exact values
+	 */
+	public CellIndex indexCells(int sheetNum) {
+		return indexCells(sheetNum, RowRange.all(), false);
+	}
+	
+	/**
+	 * Build an index from the values of the cells of a worksheet to their coordinates, streaming
+	 * the rows only once. Values are the same as {@link CalcRow#getString(int)}. The column
+	 * projection and row filter are not applied, so that every cell can be found.
+	 * 
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param rowRange - the rows to index, such as the first few when looking for headers
+	 * @param ignoreCase - whether to support {@link CellIndex#findIgnoreCase(String)} as well
+	 * @return the index
+	 */
+	public CellIndex indexCells(int sheetNum, RowRange rowRange, boolean ignoreCase) {
+		SheetObservation observation = SheetObservation.start(observer, file, String.valueOf(sheetNum));
+		int count = 0;
+		try {
+			long start = System.nanoTime();
+			CalcStreamingRowReader reader = new CalcStreamingRowReader(file, sheetNum, memoryMapped);
+			SheetObservation.fileOpened(observer, file, start);
+			reader.setStartRow(rowRange.getStartRow());
+			try {
+				CellIndex index = new CellIndex(ignoreCase);
+				CalcRow row;
+				while (count < rowRange.getLimit() && (row = reader.read()) != null && !rowRange.isPastEnd(row.getRowIndex())) {
+					long rowStart = observation == null ? 0 : System.nanoTime();
+					for (int column = 0; column < row.getColumnCount(); column++) {
+						index.add(row.getString(column), row.getRowIndex(), column);
+					}
+					if (observation != null) {
+						observation.rowMapped(rowStart);
+					}
+					count++;
+				}
+				return index;
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			if (observation != null) {
+				observation.finish(count);
+			}
+		}
+	}
+	
+	/**
+	 * Load a whole worksheet into a columnar {@link SheetData}, using the default for skipping the first row.
+	 * 
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @return the cells of the worksheet
+	 */
+	public SheetData loadSheetData(int sheetNum) {
+		return loadSheetData(sheetNum, skipFirstRowDefault, RowRange.all());
+	}
+	
+	/**
+	 * Stream the rows of a worksheet into a columnar {@link SheetData}, which holds numbers in
+	 * primitive arrays and text in per-column dictionaries rather than keeping a DOM or row objects
+	 * around. Float, percentage and currency cells are numeric, everything else is the text of
+	 * {@link CalcRow#getString(int)}. The column projection and row filter apply as they do to the
+	 * row callbacks.
+	 * 
+	 * @param sheetNum - integer index into the row of the spreadsheet
+	 * @param skipFirstRow - whether to keep the first row as the {@link ColumnHeaders} of the data instead
+	 * @param rowRange - the rows to load
+	 * @return the cells of the worksheet
+	 */
+	public SheetData loadSheetData(int sheetNum, boolean skipFirstRow, RowRange rowRange) {
+		SheetObservation observation = SheetObservation.start(observer, file, String.valueOf(sheetNum));
+		int count = 0;
+		try {
+			CalcStreamingRowReader reader = openReader(sheetNum, skipFirstRow);
+			reader.setStartRow(rowRange.getStartRow());
+			try {
+				SheetData.Builder builder = new SheetData.Builder();
+				if (skipFirstRow) {
+					CalcRow header = reader.read();
+					if (header != null) {
+						builder.setColumnHeaders(columnHeadersOf(header));
+					}
+				}
+				CalcRow row;
+				while (count < rowRange.getLimit() && (row = reader.read()) != null && !rowRange.isPastEnd(row.getRowIndex())) {
+					long rowStart = observation == null ? 0 : System.nanoTime();
+					builder.startRow(row.getRowIndex());
+					for (int column = 0; column < row.getColumnCount(); column++) {
+						if (row.hasNumber(column)) {
+							builder.addNumber(column, row.getDouble(column));
+						} else {
+							builder.addString(column, row.getString(column));
+						}
+					}
+					if (observation != null) {
+						observation.rowMapped(rowStart);
+					}
+					count++;
+				}
+				return builder.build();
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			if (observation != null) {
+				observation.finish(count);
+			}
+		}
+	}
+
+	/**
+	 * Write a sheet of items into the file of this template, replacing the file.
+	 * 
+	 * @param sheetName - name of the only sheet of the new file
+	 * @param items - one row each
+	 * @param rowWriterCallback - fills in the cells for each item
+	 * @return the number of rows written
+	 */
+	public <T> int writeRows(String sheetName, Iterable<T> items, RowWriterCallback<T> rowWriterCallback) {
+		return writeRows(sheetName, null, items, rowWriterCallback);
+	}
+
+	/**
+	 * Write a sheet of items into the file of this template, replacing the file. Rows are encoded
+	 * as they are produced, so memory use does not grow with the number of items, which may come
+	 * from a lazy {@link Iterable}. The new file only replaces the old one once it is complete, so
+	 * if an item cannot be written, the old file is left as it was.
+	 * 
+	 * @param sheetName - name of the only sheet of the new file
+	 * @param headers - names to write in the first row, or <code>null</code> for none
+	 * @param items - one row each
+	 * @param rowWriterCallback - fills in the cells for each item
+	 * @return the number of rows written, not counting the headers
+	 */
+	public <T> int writeRows(String sheetName, ColumnHeaders headers, Iterable<T> items, RowWriterCallback<T> rowWriterCallback) {
+		try {
+			int count = new CalcStreamingWriter(file).writeSheet(sheetName, headers, items, rowWriterCallback);
+			if (workbookCache != null) {
+				workbookCache.invalidate(file);
+			}
+			return count;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	private <T> SheetJob<T> newSheetJob(int sheetNum, CalcRowCallback<T> calcCallback) {
+		return new SheetJob<T>(sheetNum, calcCallback);
+	}
+	
+	/**
+	 * The callback, error handler and results of one worksheet, when processing several at once.
+	 */
+	private class SheetJob<T> {
+		
+		private CalcRowCallback<T> calcCallback;
+		
+		private final CalcTemplateErrorHandler<T> errorHandler = new DefaultCalcTemplateErrorHandler<T>();
+		
+		private final List<T> results = resultListFactory.newResultList();
+		
+		private final SheetObservation observation;
+		
+		public SheetJob(int sheetNum, CalcRowCallback<T> calcCallback) {
+			this.calcCallback = calcCallback;
+			this.observation = SheetObservation.start(observer, file, String.valueOf(sheetNum));
+		}
+		
+		public void header(Sheet sheet) {
+			calcCallback = announceHeaders(calcCallback, sheet);
+		}
+		
+		public void process(Sheet sheet, int row) {
+			processRow(calcCallback, results, sheet, row, errorHandler, observation);
+		}
+		
+		public void finish(boolean completed) {
+			if (observation != null) {
+				observation.finish(results.size());
+			}
+			if (!completed) {
+				ResultLists.discard(results);
+			}
 		}
+		
+	}
+	
+	/**
+	 * Load the document, or fetch it from the workbook cache. A cached document may be shared by
+	 * several reads, so it must be held while it is used, as jOpenDocument is not thread safe.
+	 * 
+	 * @return the document
+	 * @throws IOException
+	 */
+	private SpreadSheet loadSpreadSheet() throws IOException {
+		long start = System.nanoTime();
+		SpreadSheet spreadsheet;
+		if (workbookCache == null) {
+			spreadsheet = SpreadSheet.createFromFile(file);
+		} else {
+			spreadsheet = workbookCache.get(file, SpreadSheet.class, new WorkbookCache.Loader<SpreadSheet>() {
+				public SpreadSheet load(File file) throws IOException {
+					return SpreadSheet.createFromFile(file);
+				}
+			});
+		}
+		SheetObservation.fileOpened(observer, file, start);
+		return spreadsheet;
+	}
+	
+	private CalcStreamingRowReader openReader(int sheetNum, boolean skipFirstRow) throws IOException {
+		return openReader(Collections.singleton(sheetNum), skipFirstRow);
+	}
+	
+	/**
+	 * Open a streaming reader on some worksheets, applying the column projection and row filter.
+	 * 
+	 * @param sheetNums - indexes of the worksheets to read
+	 * @param skipFirstRow - whether the first row will be skipped, and so is exempt from the row filter
+	 * @return a reader positioned before the first row
+	 * @throws IOException
+	 */
+	private CalcStreamingRowReader openReader(Set<Integer> sheetNums, boolean skipFirstRow) throws IOException {
+		long start = System.nanoTime();
+		CalcStreamingRowReader reader = new CalcStreamingRowReader(file, sheetNums, memoryMapped);
+		reader.setColumnProjection(columnProjection);
+		reader.setRowFilter(rowFilter, skipFirstRow);
+		SheetObservation.fileOpened(observer, file, start);
+		return reader;
+	}
+	
+	/**
+	 * Hand the column headers of a streamed header row to the callback, if it asks for them.
+	 * 
+	 * @param callback - any of the callbacks
+	 * @param header - the header row, or <code>null</code> if the worksheet is empty
+	 * @return the callback to map the rest of the worksheet with
+	 */
+	static <C> C announceHeaders(C callback, CalcRow header) {
+		if (header != null && (callback instanceof ColumnHeadersAware || callback instanceof ColumnHeadersBinding)) {
+			return columnHeadersOf(header).announceTo(callback);
+		}
+		return callback;
+	}
+	
+	/**
+	 * Hand the column headers in the first row of a loaded worksheet to the callback, if it asks for them.
+	 * 
+	 * @return the callback to map the rest of the worksheet with
+	 */
+	static <C> C announceHeaders(C callback, Sheet sheet) {
+		if ((callback instanceof ColumnHeadersAware || callback instanceof ColumnHeadersBinding) && sheet.getRowCount() > 0) {
+			String[] names = new String[sheet.getColumnCount()];
+			for (int column = 0; column < names.length; column++) {
+				try {
+					names[column] = CalcUtil.getAttr(sheet, column, 0);
+				} catch (RuntimeException e) {
+					// a cell without any value has no name
+				}
+			}
+			return ColumnHeaders.of(names).announceTo(callback);
+		}
+		return callback;
+	}
+	
+	static ColumnHeaders columnHeadersOf(CalcRow header) {
+		String[] names = new String[header.getColumnCount()];
+		for (int column = 0; column < names.length; column++) {
+			names[column] = header.getString(column);
+		}
+		return ColumnHeaders.of(header.getRowIndex(), names);
 	}
 	
 	/**
@@ -142,19 +1099,90 @@ public class CalcTemplate {
 	 * @param sheet - worksheet that is being processed
 	 * @param row - index into spreadsheet row
 	 * @param errorHandler - error handler callback
+	 * @param observation - times the callback, or <code>null</code> if there is no observer
+	 */
+	private <T> void processRow(CalcRowCallback<T> calcCallback, List<T> results, Sheet sheet, int row, CalcTemplateErrorHandler<T> errorHandler,
+			SheetObservation observation) {
+		T rowResult = mapRow(calcCallback, sheet, row, errorHandler, observation);
+		if (rowResult != null) {
+			results.add(rowResult);
+		}
+	}
+	
+	/**
+	 * Invoke the row-level callback, running any runtime exception through the error handler.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param calcCallback - callback defining how to process a row of data
+	 * @param sheet - worksheet that is being processed
+	 * @param row - index into spreadsheet row
+	 * @param errorHandler - error handler callback
+	 * @param observation - times the callback, or <code>null</code> if there is no observer
+	 * @return the mapped row, possibly <code>null</code>
 	 */
-	private <T> void processRow(CalcRowCallback<T> calcCallback, List<T> results, Sheet sheet, int row, CalcTemplateErrorHandler<T> errorHandler) {
-		T rowResult = null;
+	private <T> T mapRow(CalcRowCallback<T> calcCallback, Sheet sheet, int row, CalcTemplateErrorHandler<T> errorHandler, SheetObservation observation) {
+		long start = observation == null ? 0 : System.nanoTime();
 		try {
-			rowResult = calcCallback.mapRow(sheet, row);
+			return calcCallback.mapRow(sheet, row);
 		} catch (RuntimeException e) {
-			rowResult = errorHandler.handleException(sheet, row, e);
+			if (observation != null) {
+				observation.rowFailed(e);
+			}
+			return errorHandler.handleException(sheet, row, e);
+		} finally {
+			if (observation != null) {
+				observation.rowMapped(start);
+			}
 		}
+	}
+	
+	/**
+	 * This utility method is used to invoke the streaming row-level callback. It also traps any
+	 * runtime exceptions, and runs them through the error handler.
+	 * <p>
+	 * If the callback returns <code>null</code>, the row is NOT added to the list.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param calcCallback - callback defining how to process a streamed row of data
+	 * @param results - list that is being built up by iteration
+	 * @param row - the row being processed
+	 * @param errorHandler - error handler callback
+	 * @param observation - times the callback, or <code>null</code> if there is no observer
+	 */
+	private <T> void processRow(CalcStreamingRowCallback<T> calcCallback, List<T> results, CalcRow row, CalcStreamingErrorHandler<T> errorHandler,
+			SheetObservation observation) {
+		T rowResult = mapRow(calcCallback, row, errorHandler, observation);
 		if (rowResult != null) {
 			results.add(rowResult);
 		}
 	}
 	
+	/**
+	 * Invoke the streaming row-level callback, running any runtime exception through the error handler.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param calcCallback - callback defining how to process a streamed row of data
+	 * @param row - the row being processed
+	 * @param errorHandler - error handler callback
+	 * @param observation - times the callback, or <code>null</code> if there is no observer
+	 * @return the mapped row, possibly <code>null</code>
+	 */
+	private <T> T mapRow(CalcStreamingRowCallback<T> calcCallback, CalcRow row, CalcStreamingErrorHandler<T> errorHandler, SheetObservation observation) {
+		long start = observation == null ? 0 : System.nanoTime();
+		try {
+			return calcCallback.mapRow(row);
+		} catch (RuntimeException e) {
+			if (observation != null) {
+				observation.rowFailed(e);
+			}
+			return errorHandler.handleException(row, e);
+		} finally {
+			if (observation != null) {
+				observation.rowMapped(start);
+			}
+		}
+	}
+	
 	public boolean isSkipFirstRowDefault() {
 		return skipFirstRowDefault;
 	}
@@ -163,4 +1191,96 @@ public class CalcTemplate {
 		this.skipFirstRowDefault = skipFirstRowDefault;
 	}
 
+	public boolean isMemoryMapped() {
+		return memoryMapped;
+	}
+
+	/**
+	 * When streaming, find content.xml through the central directory of a memory mapping of the
+	 * file, and inflate it straight out of the mapping. Repeated reads of the same file are then
+	 * served from the page cache. It has no effect on {@link CalcRowCallback}s, which load the
+	 * document through jOpenDocument.
+	 */
+	public void setMemoryMapped(boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+	}
+
+	public ColumnProjection getColumnProjection() {
+		return columnProjection;
+	}
+
+	/**
+	 * When streaming, only decode the cells of some columns. The cells of the other columns are
+	 * skipped as content.xml is parsed, and read as empty. It has no effect on
+	 * {@link CalcRowCallback}s, which look cells up in the loaded document themselves.
+	 */
+	public void setColumnProjection(ColumnProjection columnProjection) {
+		this.columnProjection = columnProjection;
+	}
+
+	public RowFilter getRowFilter() {
+		return rowFilter;
+	}
+
+	/**
+	 * When streaming, only map the rows whose key column passes a filter. The filter is applied
+	 * as content.xml is parsed, and the remaining cells of a rejected row are skipped unread. It
+	 * has no effect on {@link CalcRowCallback}s, which look cells up in the loaded document themselves.
+	 */
+	public void setRowFilter(RowFilter rowFilter) {
+		this.rowFilter = rowFilter;
+	}
+
+	public TaskExecutor getTaskExecutor() {
+		return taskExecutor;
+	}
+
+	/**
+	 * Set the executor that streams the worksheets of {@link #onEachSheet(int[], CalcStreamingRowCallback)}.
+	 * An asynchronous executor streams the worksheets in parallel. Worksheets of a loaded document
+	 * are always mapped one at a time.
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	public ResultListFactory getResultListFactory() {
+		return resultListFactory;
+	}
+
+	/**
+	 * Set how the lists of mapped rows are created, such as an {@link OffHeapResultListFactory}
+	 * to keep very large results out of the heap.
+	 */
+	public void setResultListFactory(ResultListFactory resultListFactory) {
+		this.resultListFactory = resultListFactory;
+	}
+
+	public WorkbookCache getWorkbookCache() {
+		return workbookCache;
+	}
+
+	/**
+	 * Share loaded documents between reads, and between templates using the same cache. Only
+	 * {@link CalcRowCallback}s use the loaded document, so streaming callbacks are unaffected.
+	 * Reads of the same cached document take turns, since jOpenDocument is not thread safe.
+	 */
+	public void setWorkbookCache(WorkbookCache workbookCache) {
+		this.workbookCache = workbookCache;
+	}
+
+	public TemplateObserver getObserver() {
+		return observer;
+	}
+
+	/**
+	 * Report the time taken to open the file and to map each row, failed rows and result sizes,
+	 * such as to a {@link TemplateStatistics}. Worksheets are tagged by their index. Row chunks
+	 * are handed out without being mapped, so {@link #onEachChunk(int, int, CalcRowChunkCallback)}
+	 * only reports opening the file.
+	 */
+	public void setObserver(TemplateObserver observer) {
+		this.observer = observer;
+	}
+
 }
@@ -16,7 +16,14 @@
 
 package org.springframework.batch.spreadsheet;
 
+import java.math.BigDecimal;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
 import org.jdom.Attribute;
+import org.jdom.Element;
+import org.jdom.Namespace;
 import org.jopendocument.dom.spreadsheet.MutableCell;
 import org.jopendocument.dom.spreadsheet.Sheet;
 import org.jopendocument.dom.spreadsheet.SpreadSheet;
@@ -30,6 +37,14 @@ import org.jopendocument.dom.spreadsheet.SpreadSheet;
  */
 public class CalcUtil {
 
+	private static final Namespace OFFICE = Namespace.getNamespace("office", CalcStreamingRowReader.OFFICE_NS);
+
+	private static final ThreadLocal<ColumnTypes> columnTypes = new ThreadLocal<ColumnTypes>() {
+		protected ColumnTypes initialValue() {
+			return new ColumnTypes();
+		}
+	};
+
 	/**
 	 * Fetches the value of a cell found at (row, column).
 	 * 
@@ -47,4 +62,226 @@ public class CalcUtil {
 		return results.equals("") ? null : results;
 	}
 
+	/**
+	 * Fetches the office:value-type of a cell, read straight from its element.
+	 * 
+	 * @param sheet - worksheet where the cell is located
+	 * @param column
+	 * @param row
+	 * @return the value type (e.g. <code>float</code>, <code>string</code>), or <code>null</code> if the cell has none
+	 */
+	public static String getValueType(Sheet sheet, int column, int row) {
+		String valueType = elementAt(sheet, column, row).getAttributeValue("value-type", OFFICE);
+		return valueType == null ? null : columnTypes.get().lookup(column, valueType).type;
+	}
+
+	/**
+	 * @param sheet - worksheet where the cell is located
+	 * @param column
+	 * @param row
+	 * @return whether the cell has neither a value nor any text
+	 */
+	public static boolean isEmpty(Sheet sheet, int column, int row) {
+		return getString(sheet, column, row) == null;
+	}
+
+	/**
+	 * Fetches the value of a cell as text. String cells give their text, and other cells give
+	 * their raw office value, e.g. <code>1234.5</code>, <code>2009-11-02</code> or <code>true</code>.
+	 * 
+	 * @param sheet - worksheet where the cell is located
+	 * @param column
+	 * @param row
+	 * @return the value of the cell, or <code>null</code> if it is empty
+	 */
+	public static String getString(Sheet sheet, int column, int row) {
+		Element cell = elementAt(sheet, column, row);
+		String value = typedValue(sheet, column, cell);
+		if (value == null) {
+			value = textOf(cell);
+		}
+		return (value == null || value.length() == 0) ? null : value;
+	}
+
+	/**
+	 * Fetches the value of a numeric cell, parsed straight from its office:value attribute.
+	 * 
+	 * @param sheet - worksheet where the cell is located
+	 * @param column
+	 * @param row
+	 * @return the value of the cell, or 0 if it is empty
+	 * @throws NumberFormatException if the cell does not hold a number
+	 */
+	public static double getDouble(Sheet sheet, int column, int row) {
+		String value = numericValue(sheet, column, row);
+		return value == null ? 0 : Double.parseDouble(value);
+	}
+
+	/**
+	 * Fetches the value of a numeric cell holding a whole number.
+	 * 
+	 * @param sheet - worksheet where the cell is located
+	 * @param column
+	 * @param row
+	 * @return the value of the cell, or 0 if it is empty
+	 * @throws NumberFormatException if the cell does not hold a whole number
+	 */
+	public static long getLong(Sheet sheet, int column, int row) {
+		String value = numericValue(sheet, column, row);
+		return value == null ? 0 : parseLong(value);
+	}
+
+	/**
+	 * Fetches the value of a date cell, parsed straight from its office:date-value attribute.
+	 * 
+	 * @param sheet - worksheet where the cell is located
+	 * @param column
+	 * @param row
+	 * @return the value of the cell, or <code>null</code> if it is empty
+	 * @throws IllegalArgumentException if the cell does not hold a date
+	 */
+	public static Date getDate(Sheet sheet, int column, int row) {
+		Element cell = elementAt(sheet, column, row);
+		String value = cell.getAttributeValue("date-value", OFFICE);
+		if (value == null) {
+			value = getString(sheet, column, row);
+		}
+		return value == null ? null : parseDate(value);
+	}
+
+	/**
+	 * Fetches the value of a boolean cell.
+	 * 
+	 * @param sheet - worksheet where the cell is located
+	 * @param column
+	 * @param row
+	 * @return the value of the cell, or <code>false</code> if it is empty
+	 */
+	public static boolean getBoolean(Sheet sheet, int column, int row) {
+		return Boolean.parseBoolean(getString(sheet, column, row));
+	}
+
+	private static Element elementAt(Sheet sheet, int column, int row) {
+		// the immutable cell leaves repeated cells alone, where getCellAt() would split them up
+		return sheet.getImmutableCellAt(column, row).getElement();
+	}
+
+	private static String numericValue(Sheet sheet, int column, int row) {
+		String value = elementAt(sheet, column, row).getAttributeValue("value", OFFICE);
+		return value != null ? value : getString(sheet, column, row);
+	}
+
+	/**
+	 * @return the attribute holding the value of a typed cell, or <code>null</code> for string or untyped cells
+	 */
+	private static String typedValue(Sheet sheet, int column, Element cell) {
+		String valueType = cell.getAttributeValue("value-type", OFFICE);
+		if (valueType == null) {
+			return null;
+		}
+		String attribute = columnTypes.get().lookup(column, valueType).attribute;
+		return attribute == null ? null : cell.getAttributeValue(attribute, OFFICE);
+	}
+
+	/**
+	 * @return the text of the paragraphs of a cell, one line per paragraph
+	 */
+	private static String textOf(Element cell) {
+		String text = null;
+		for (Object child : cell.getChildren()) {
+			Element paragraph = (Element) child;
+			if ("p".equals(paragraph.getName())) {
+				text = (text == null) ? paragraph.getValue() : text + '\n' + paragraph.getValue();
+			}
+		}
+		return text;
+	}
+
+	/**
+	 * The value types last seen in each column on one thread. Columns rarely change type from one
+	 * row to the next, so a cell whose type matches the cached one of its column is read without
+	 * looking its type up again.
+	 */
+	private static final class ColumnTypes {
+
+		private ColumnType[] columns = new ColumnType[16];
+
+		ColumnType lookup(int column, String valueType) {
+			if (column >= columns.length) {
+				ColumnType[] grown = new ColumnType[Math.max(column + 1, columns.length * 2)];
+				System.arraycopy(columns, 0, grown, 0, columns.length);
+				columns = grown;
+			}
+			ColumnType cached = columns[column];
+			if (cached == null || !cached.type.equals(valueType)) {
+				cached = ColumnType.of(valueType);
+				columns[column] = cached;
+			}
+			return cached;
+		}
+
+	}
+
+	/**
+	 * A value type, with the attribute holding the values of cells of that type.
+	 */
+	private static final class ColumnType {
+
+		private static final ColumnType[] KNOWN = { new ColumnType("float", "value"), new ColumnType("string", null),
+				new ColumnType("date", "date-value"), new ColumnType("time", "time-value"), new ColumnType("boolean", "boolean-value"),
+				new ColumnType("percentage", "value"), new ColumnType("currency", "value") };
+
+		private final String type;
+
+		/**
+		 * <code>null</code> for strings, which are read from the text of the cell
+		 */
+		private final String attribute;
+
+		private ColumnType(String type, String attribute) {
+			this.type = type;
+			this.attribute = attribute;
+		}
+
+		static ColumnType of(String valueType) {
+			for (ColumnType known : KNOWN) {
+				if (known.type.equals(valueType)) {
+					return known;
+				}
+			}
+			return new ColumnType(valueType, "value");
+		}
+
+	}
+
+	/**
+	 * Parse a raw office:value holding a whole number, such as <code>42</code> or <code>4.2E1</code>.
+	 */
+	static long parseLong(String value) {
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			try {
+				return new BigDecimal(value).longValueExact();
+			} catch (ArithmeticException notWhole) {
+				throw new NumberFormatException("'" + value + "' is not a whole number");
+			}
+		}
+	}
+
+	/**
+	 * Parse a raw office:date-value, e.g. <code>2009-11-02</code> or <code>2009-11-02T10:15:00</code>,
+	 * in the default time zone. Fractions of a second are dropped.
+	 */
+	static Date parseDate(String value) {
+		int fraction = value.indexOf('.');
+		String date = (fraction < 0) ? value : value.substring(0, fraction);
+		String pattern = (date.indexOf('T') < 0) ? "yyyy-MM-dd" : "yyyy-MM-dd'T'HH:mm:ss";
+		try {
+			return new SimpleDateFormat(pattern).parse(date);
+		} catch (ParseException e) {
+			throw new IllegalArgumentException("Could not parse '" + value + "' as a date", e);
+		}
+	}
+
 }
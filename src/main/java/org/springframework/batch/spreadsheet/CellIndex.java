@@ -0,0 +1,169 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An index from cell values to the cells holding them, built in a single pass over a worksheet.
+ * Once built, looking up a value, such as the header of a column or a "Total" label, is a hash
+ * lookup however large the worksheet is, and every cell holding the value is found, not just
+ * the first one.
+ * <p>
+ * Cells are located by a {@link Point}, with <code>x</code> the zero-based column and
+ * <code>y</code> the zero-based row. Matches are listed in the order the worksheet is read: row
+ * by row, and from left to right within a row.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelTemplate#indexCells(String)
+ * @see CalcTemplate#indexCells(int)
+ */
+public final class CellIndex {
+
+	private final Map<String, List<Point>> cells = new HashMap<String, List<Point>>();
+
+	/**
+	 * Same cells, keyed by their normalized value, or <code>null</code> if not asked for.
+	 */
+	private final Map<String, List<Point>> normalizedCells;
+
+	private int size;
+
+	CellIndex(boolean ignoreCase) {
+		this.normalizedCells = ignoreCase ? new HashMap<String, List<Point>>() : null;
+	}
+
+	/**
+	 * Record the value of one cell. Cells must be added in worksheet order.
+	 */
+	void add(String value, int row, int column) {
+		if (value == null || value.length() == 0) {
+			return;
+		}
+		Point cell = new Point(column, row);
+		add(cells, value, cell);
+		if (normalizedCells != null) {
+			add(normalizedCells, normalize(value), cell);
+		}
+		size++;
+	}
+
+	private static void add(Map<String, List<Point>> index, String key, Point cell) {
+		List<Point> matches = index.get(key);
+		if (matches == null) {
+			matches = new ArrayList<Point>(1);
+			index.put(key, matches);
+		}
+		matches.add(cell);
+	}
+
+	/**
+	 * Find every cell holding exactly a value.
+	 * 
+	 * @param value - the text of the cell, as the row callbacks would see it
+	 * @return the cells holding the value, possibly none
+	 */
+	public List<Point> find(String value) {
+		return matches(cells, value);
+	}
+
+	/**
+	 * Find the first cell holding exactly a value.
+	 * 
+	 * @param value - the text of the cell, as the row callbacks would see it
+	 * @return the first cell holding the value, or <code>null</code> if there is none
+	 */
+	public Point findFirst(String value) {
+		List<Point> matches = cells.get(value);
+		return matches == null ? null : new Point(matches.get(0));
+	}
+
+	/**
+	 * Find every cell holding a value, ignoring case and surrounding or repeated whitespace.
+	 * 
+	 * @param value - the text to look for
+	 * @return the cells holding the value, possibly none
+	 * @throws IllegalStateException if the index was not built to ignore case
+	 */
+	public List<Point> findIgnoreCase(String value) {
+		if (normalizedCells == null) {
+			throw new IllegalStateException("This index was not built to ignore case");
+		}
+		return matches(normalizedCells, normalize(value));
+	}
+
+	private static List<Point> matches(Map<String, List<Point>> index, String key) {
+		List<Point> matches = index.get(key);
+		if (matches == null) {
+			return Collections.emptyList();
+		}
+		// Points are mutable, so the index hands out copies
+		List<Point> copies = new ArrayList<Point>(matches.size());
+		for (Point cell : matches) {
+			copies.add(new Point(cell));
+		}
+		return copies;
+	}
+
+	/**
+	 * @return whether lookups that ignore case are supported
+	 */
+	public boolean isIgnoreCase() {
+		return normalizedCells != null;
+	}
+
+	/**
+	 * @return the number of cells with a value in the index
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Trim the value, collapse runs of whitespace into a single space, and convert it to lower case.
+	 */
+	static String normalize(String value) {
+		StringBuilder normalized = new StringBuilder(value.length());
+		boolean space = false;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (Character.isWhitespace(c)) {
+				space = normalized.length() > 0;
+			} else {
+				if (space) {
+					normalized.append(' ');
+					space = false;
+				}
+				normalized.append(c);
+			}
+		}
+		return normalized.toString().toLowerCase(Locale.ENGLISH);
+	}
+
+	public String toString() {
+		return "CellIndex of " + size + " cells";
+	}
+
+}
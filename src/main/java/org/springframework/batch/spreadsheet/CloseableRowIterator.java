@@ -0,0 +1,38 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * An iterator over the mapped rows of a worksheet, which holds the file open until it is either
+ * exhausted or closed. Callers that may stop early should close it in a <code>finally</code> block.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelTemplate#rowIterator(String, ExcelRowCallback)
+ * @see CalcTemplate#rowIterator(int, CalcStreamingRowCallback)
+ */
+public interface CloseableRowIterator<T> extends Iterator<T>, Closeable {
+
+	/**
+	 * Release the underlying file. Closing more than once has no effect.
+	 */
+	public void close();
+
+}
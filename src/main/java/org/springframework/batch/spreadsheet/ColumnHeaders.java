@@ -0,0 +1,150 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The names of the columns of a worksheet, taken from its header row. It is built once per
+ * worksheet and never changes, so callbacks can resolve the columns they need by name once, and
+ * then access every row by index.
+ * <p>
+ * Names are trimmed. Empty header cells have no name, and when a name is repeated, the first
+ * column with that name is the one it resolves to.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see ColumnHeadersAware
+ */
+public final class ColumnHeaders {
+
+	private final String[] names;
+
+	private final Map<String, Integer> indexes;
+
+	private final int rowNum;
+
+	private ColumnHeaders(String[] names, int rowNum) {
+		this.names = new String[names.length];
+		this.indexes = new HashMap<String, Integer>(names.length * 2);
+		for (int i = 0; i < names.length; i++) {
+			String name = (names[i] == null) ? null : names[i].trim();
+			if (name != null && name.length() > 0) {
+				this.names[i] = name;
+				if (!indexes.containsKey(name)) {
+					indexes.put(name, i);
+				}
+			}
+		}
+		this.rowNum = rowNum;
+	}
+
+	/**
+	 * @param names - the header values, indexed by column, with <code>null</code> for empty cells
+	 * @return the column headers of a header row at the top of a worksheet
+	 */
+	public static ColumnHeaders of(String... names) {
+		return new ColumnHeaders(names, 0);
+	}
+
+	/**
+	 * @param rowNum - number of the header row
+	 * @param names - the header values, indexed by column, with <code>null</code> for empty cells
+	 * @return the column headers of a header row anywhere in a worksheet
+	 */
+	static ColumnHeaders of(int rowNum, String[] names) {
+		return new ColumnHeaders(names, rowNum);
+	}
+
+	/**
+	 * @param name - a header name
+	 * @return the zero-based index of the column
+	 * @throws IllegalArgumentException if no column has that name
+	 */
+	public int indexOf(String name) {
+		Integer index = indexes.get(name.trim());
+		if (index == null) {
+			throw new IllegalArgumentException("Could not find column '" + name + "' in the header row " + Arrays.asList(names));
+		}
+		return index.intValue();
+	}
+
+	/**
+	 * @param name - a header name
+	 * @return whether a column has that name
+	 */
+	public boolean contains(String name) {
+		return indexes.containsKey(name.trim());
+	}
+
+	/**
+	 * @param column - zero-based index of a column
+	 * @return the name of the column, or <code>null</code> if its header is empty
+	 */
+	public String getName(int column) {
+		return column < names.length ? names[column] : null;
+	}
+
+	/**
+	 * @return the names of the columns, indexed by column, with <code>null</code> for empty headers
+	 */
+	public List<String> getNames() {
+		return Collections.unmodifiableList(new ArrayList<String>(Arrays.asList(names)));
+	}
+
+	/**
+	 * @return one more than the index of the last column of the header row
+	 */
+	public int getColumnCount() {
+		return names.length;
+	}
+
+	/**
+	 * @return the number of the header row
+	 */
+	public int getRowNum() {
+		return rowNum;
+	}
+
+	/**
+	 * Hand these headers to a callback that asks for them.
+	 * 
+	 * @param callback - any of the callbacks
+	 * @return the callback to map the rows of the read with, bound to these headers if it supports that
+	 */
+	@SuppressWarnings("unchecked")
+	<C> C announceTo(C callback) {
+		if (callback instanceof ColumnHeadersBinding) {
+			return ((ColumnHeadersBinding<C>) callback).withColumnHeaders(this);
+		}
+		if (callback instanceof ColumnHeadersAware) {
+			((ColumnHeadersAware) callback).setColumnHeaders(this);
+		}
+		return callback;
+	}
+
+	public String toString() {
+		return "ColumnHeaders " + Arrays.asList(names);
+	}
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+/**
+ * Callbacks that implement this interface are handed the column headers of the worksheet before
+ * the first row, whenever the first row is skipped as a header. The same callback receives the
+ * headers of each worksheet it processes.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see ColumnHeaders
+ */
+public interface ColumnHeadersAware {
+
+	public void setColumnHeaders(ColumnHeaders columnHeaders);
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+/**
+ * Callbacks that implement this interface are bound to the column headers of each read, instead
+ * of being handed them through {@link ColumnHeadersAware}. The templates and item readers map
+ * the rows of the read with the callback that comes back, so that reads of several worksheets at
+ * once never see each other's headers.
+ * 
+ * @param <C> - type of the callback
+ * @since 10/16/2026
+ * @author agent
+ */
+interface ColumnHeadersBinding<C> {
+
+	/**
+	 * @param columnHeaders - the headers of the worksheet being read
+	 * @return a callback bound to the headers, sharing whatever else it can with this one
+	 */
+	C withColumnHeaders(ColumnHeaders columnHeaders);
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.util.Arrays;
+
+/**
+ * Restricts the columns that the streaming readers decode. Cells outside the projection are
+ * skipped as the file is parsed, so no strings or cell objects are created for them, and they
+ * read as missing cells.
+ * <p>
+ * Columns can be picked by their zero-based index, or by the names in the header row. Names are
+ * looked up in the first row of the worksheet with any content, which itself is decoded in full.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelTemplate#setColumnProjection(ColumnProjection)
+ * @see CalcTemplate#setColumnProjection(ColumnProjection)
+ */
+public final class ColumnProjection {
+
+	private final int[] indexes;
+
+	private final String[] names;
+
+	private ColumnProjection(int[] indexes, String[] names) {
+		this.indexes = indexes;
+		this.names = names;
+	}
+
+	/**
+	 * @param indexes - zero-based indexes of the columns to decode
+	 * @return a projection onto those columns
+	 */
+	public static ColumnProjection ofIndexes(int... indexes) {
+		for (int index : indexes) {
+			if (index < 0) {
+				throw new IllegalArgumentException("Column indexes cannot be negative, but got " + index);
+			}
+		}
+		return new ColumnProjection(indexes.clone(), null);
+	}
+
+	/**
+	 * @param names - header names of the columns to decode
+	 * @return a projection onto those columns, resolved against the header row
+	 */
+	public static ColumnProjection ofNames(String... names) {
+		return new ColumnProjection(null, names.clone());
+	}
+
+	/**
+	 * @return whether the header row is needed to know which columns to decode
+	 */
+	public boolean isByName() {
+		return names != null;
+	}
+
+	/**
+	 * Work out which columns to decode.
+	 * 
+	 * @param header - the values of the header row, only used when projecting by name
+	 * @return flags, indexed by column, of the columns to decode
+	 */
+	boolean[] toMask(String[] header) {
+		int[] columns = indexes;
+		if (isByName()) {
+			columns = new int[names.length];
+			for (int i = 0; i < names.length; i++) {
+				columns[i] = indexOf(header, names[i]);
+			}
+		}
+		int width = 0;
+		for (int column : columns) {
+			width = Math.max(width, column + 1);
+		}
+		boolean[] mask = new boolean[width];
+		for (int column : columns) {
+			mask[column] = true;
+		}
+		return mask;
+	}
+
+	private static int indexOf(String[] header, String name) {
+		for (int i = 0; i < header.length; i++) {
+			if (header[i] != null && header[i].trim().equals(name.trim())) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Could not find column '" + name + "' in the header row " + Arrays.asList(header));
+	}
+
+	public String toString() {
+		return isByName() ? "columns " + Arrays.asList(names) : "columns " + Arrays.toString(indexes);
+	}
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This simple policy keeps the results in an {@link ArrayList} on the heap.
+ *
+ * @since 10/16/2026
+ * @author agent
+ */
+public class DefaultResultListFactory implements ResultListFactory {
+
+	public <T> List<T> newResultList() {
+		return new ArrayList<T>();
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.springframework.util.Assert;
+
+/**
+ * Restartable {@link org.springframework.batch.item.ItemReader} over one worksheet of a Microsoft
+ * Office Excel file. Rows are pulled lazily and mapped through an {@link ExcelRowCallback}, the
+ * same way {@link ExcelTemplate#onEachRow(String, ExcelRowCallback)} does, except that nothing is
+ * collected into a list. As with the template, rows mapped to <code>null</code> are passed over.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelTemplate
+ */
+public class ExcelItemReader<T> extends AbstractSpreadsheetItemReader<T, Row> {
+
+	private String worksheetName;
+
+	private ExcelRowCallback<T> rowCallback;
+
+	/**
+	 * The row callback, as bound to the headers of the worksheet being read.
+	 */
+	private ExcelRowCallback<T> boundCallback;
+
+	private ExcelTemplateErrorHandler<T> errorHandler = new DefaultExcelTemplateErrorHandler<T>();
+
+	private boolean streaming;
+
+	private ColumnProjection columnProjection;
+
+	private RowFilter rowFilter;
+
+	private ExcelRowReader reader;
+
+	public void afterPropertiesSet() throws Exception {
+		super.afterPropertiesSet();
+		Assert.notNull(worksheetName, "A worksheet name is required");
+		Assert.notNull(rowCallback, "A row callback is required");
+	}
+
+	protected void openWorksheet() throws Exception {
+		ExcelTemplate template = new ExcelTemplate(getResource().getFile());
+		template.setStreaming(streaming);
+		template.setColumnProjection(columnProjection);
+		template.setRowFilter(rowFilter);
+		reader = template.openReader(worksheetName, isSkipFirstRow());
+		boundCallback = rowCallback;
+	}
+
+	/**
+	 * The reader passes over the rows before <code>rowNum</code> without decoding their cells.
+	 */
+	protected void skipToRow(int rowNum) throws Exception {
+		reader.setStartRow(rowNum);
+		super.skipToRow(rowNum);
+	}
+
+	protected Row readRow() throws Exception {
+		return reader.read();
+	}
+
+	protected void readHeader(Row header) {
+		boundCallback = ExcelTemplate.announceHeaders(rowCallback, header);
+	}
+
+	protected int getRowNum(Row row) {
+		return row.getRowNum();
+	}
+
+	protected T mapRow(Row row) {
+		try {
+			return boundCallback.mapRow(row);
+		} catch (RuntimeException e) {
+			return errorHandler.handleException(row, e);
+		}
+	}
+
+	protected void closeWorksheet() {
+		if (reader != null) {
+			reader.close();
+			reader = null;
+		}
+	}
+
+	public String getWorksheetName() {
+		return worksheetName;
+	}
+
+	public void setWorksheetName(String worksheetName) {
+		this.worksheetName = worksheetName;
+	}
+
+	public ExcelRowCallback<T> getRowCallback() {
+		return rowCallback;
+	}
+
+	public void setRowCallback(ExcelRowCallback<T> rowCallback) {
+		this.rowCallback = rowCallback;
+	}
+
+	public ExcelTemplateErrorHandler<T> getErrorHandler() {
+		return errorHandler;
+	}
+
+	public void setErrorHandler(ExcelTemplateErrorHandler<T> errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	/**
+	 * Decode the worksheet record by record instead of building an HSSFWorkbook first.
+	 * 
+	 * @see ExcelTemplate#setStreaming(boolean)
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	public ColumnProjection getColumnProjection() {
+		return columnProjection;
+	}
+
+	/**
+	 * In streaming mode, only decode the cells of some columns.
+	 * 
+	 * @see ExcelTemplate#setColumnProjection(ColumnProjection)
+	 */
+	public void setColumnProjection(ColumnProjection columnProjection) {
+		this.columnProjection = columnProjection;
+	}
+
+	public RowFilter getRowFilter() {
+		return rowFilter;
+	}
+
+	/**
+	 * Only map the rows whose key column passes a filter.
+	 * 
+	 * @see ExcelTemplate#setRowFilter(RowFilter)
+	 */
+	public void setRowFilter(RowFilter rowFilter) {
+		this.rowFilter = rowFilter;
+	}
+
+}
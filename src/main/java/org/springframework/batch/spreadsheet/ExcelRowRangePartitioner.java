@@ -0,0 +1,52 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.IOException;
+
+import org.springframework.util.Assert;
+
+/**
+ * Splits a worksheet of a Microsoft Office Excel file into row ranges. The row count comes from
+ * the worksheet's DIMENSIONS record, so no cells are decoded, and no HSSFWorkbook is built.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelItemReader
+ */
+public class ExcelRowRangePartitioner extends AbstractRowRangePartitioner {
+
+	private String worksheetName;
+
+	public void afterPropertiesSet() throws Exception {
+		super.afterPropertiesSet();
+		Assert.notNull(worksheetName, "A worksheet name is required");
+	}
+
+	protected int countRows() throws IOException {
+		return ExcelStreamingRowReader.countRows(getResource().getFile(), worksheetName);
+	}
+
+	public String getWorksheetName() {
+		return worksheetName;
+	}
+
+	public void setWorksheetName(String worksheetName) {
+		this.worksheetName = worksheetName;
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.IOException;
+
+import org.apache.poi.ss.usermodel.Row;
+
+/**
+ * This interface defines a source of rows pulled, one at a time, from a single Excel worksheet.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelTemplate
+ */
+interface ExcelRowReader {
+
+	/**
+	 * Fetches the next physical row of the worksheet.
+	 *
+	 * @return the next row, or <code>null</code> when the worksheet is exhausted
+	 * @throws IOException
+	 */
+	public Row read() throws IOException;
+
+	/**
+	 * Only hand out the rows that pass a filter. Must be set before the first row is read.
+	 *
+	 * @param rowFilter - the filter, or <code>null</code> to hand out every row
+	 * @param exemptFirstRow - whether the first row is handed out regardless, such as a header
+	 */
+	public void setRowFilter(RowFilter rowFilter, boolean exemptFirstRow);
+
+	/**
+	 * Pass over the rows numbered before <code>startRow</code> without handing them out. The
+	 * first row, when exempt from the row filter, is still handed out as the header. May be
+	 * called again between reads to move further down the worksheet.
+	 *
+	 * @param startRow - number of the first row to hand out
+	 */
+	public void setStartRow(int startRow);
+
+	/**
+	 * Releases the underlying file. Safe to call more than once.
+	 */
+	public void close();
+
+}
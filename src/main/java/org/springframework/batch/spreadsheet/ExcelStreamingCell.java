@@ -0,0 +1,331 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+
+import org.apache.poi.hssf.record.formula.eval.ErrorEval;
+import org.apache.poi.hssf.usermodel.HSSFDateUtil;
+import org.apache.poi.hssf.usermodel.HSSFRichTextString;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Comment;
+import org.apache.poi.ss.usermodel.Hyperlink;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * A read-only {@link Cell} decoded straight from a cell record. The getters follow the same
+ * rules as {@link org.apache.poi.hssf.usermodel.HSSFCell}, so callbacks written against the
+ * in-memory workbook behave the same way against a stream. Comments, hyperlinks and formula
+ * text need the whole workbook, and are not available, and of the cell style only the number
+ * format is.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelStreamingRowReader
+ */
+class ExcelStreamingCell implements Cell {
+
+	private final ExcelStreamingRow row;
+
+	private final int column;
+
+	private final int cellType;
+
+	/**
+	 * For formula cells, the type of the value cached in the file.
+	 */
+	private final int cachedType;
+
+	private final double numericValue;
+
+	private final boolean booleanValue;
+
+	private final byte errorValue;
+
+	private final ExcelStreamingCellStyle style;
+
+	private String stringValue;
+
+	private ExcelStreamingCell(ExcelStreamingRow row, int column, int cellType, int cachedType, double numericValue,
+			String stringValue, boolean booleanValue, byte errorValue, ExcelStreamingCellStyle style) {
+		this.row = row;
+		this.column = column;
+		this.cellType = cellType;
+		this.cachedType = cachedType;
+		this.numericValue = numericValue;
+		this.stringValue = stringValue;
+		this.booleanValue = booleanValue;
+		this.errorValue = errorValue;
+		this.style = style;
+	}
+
+	static ExcelStreamingCell numeric(ExcelStreamingRow row, int column, double value, ExcelStreamingCellStyle style) {
+		return new ExcelStreamingCell(row, column, CELL_TYPE_NUMERIC, CELL_TYPE_NUMERIC, value, null, false, (byte) 0, style);
+	}
+
+	static ExcelStreamingCell string(ExcelStreamingRow row, int column, String value, ExcelStreamingCellStyle style) {
+		return new ExcelStreamingCell(row, column, CELL_TYPE_STRING, CELL_TYPE_STRING, 0.0, value, false, (byte) 0, style);
+	}
+
+	static ExcelStreamingCell bool(ExcelStreamingRow row, int column, boolean value, ExcelStreamingCellStyle style) {
+		return new ExcelStreamingCell(row, column, CELL_TYPE_BOOLEAN, CELL_TYPE_BOOLEAN, 0.0, null, value, (byte) 0, style);
+	}
+
+	static ExcelStreamingCell error(ExcelStreamingRow row, int column, byte value, ExcelStreamingCellStyle style) {
+		return new ExcelStreamingCell(row, column, CELL_TYPE_ERROR, CELL_TYPE_ERROR, 0.0, null, false, value, style);
+	}
+
+	static ExcelStreamingCell blank(ExcelStreamingRow row, int column, ExcelStreamingCellStyle style) {
+		return new ExcelStreamingCell(row, column, CELL_TYPE_BLANK, CELL_TYPE_BLANK, 0.0, null, false, (byte) 0, style);
+	}
+
+	static ExcelStreamingCell formula(ExcelStreamingRow row, int column, int cachedType, double numericValue,
+			boolean booleanValue, byte errorValue, ExcelStreamingCellStyle style) {
+		return new ExcelStreamingCell(row, column, CELL_TYPE_FORMULA, cachedType, numericValue, "", booleanValue, errorValue, style);
+	}
+
+	/**
+	 * The cached result of a string formula arrives in the record following the formula itself.
+	 */
+	void setCachedString(String value) {
+		this.stringValue = value;
+	}
+
+	/**
+	 * @return whether the cell holds a number, or a formula with a numeric result, formatted as a date
+	 */
+	boolean isDateFormatted() {
+		return cachedType == CELL_TYPE_NUMERIC && style.isDateFormat();
+	}
+
+	public int getColumnIndex() {
+		return column;
+	}
+
+	public int getRowIndex() {
+		return row.getRowNum();
+	}
+
+	public Row getRow() {
+		return row;
+	}
+
+	public Sheet getSheet() {
+		return null;
+	}
+
+	public int getCellType() {
+		return cellType;
+	}
+
+	public int getCachedFormulaResultType() {
+		if (cellType != CELL_TYPE_FORMULA) {
+			throw new IllegalStateException("Only formula cells have cached results");
+		}
+		return cachedType;
+	}
+
+	public double getNumericCellValue() {
+		switch (cellType) {
+			case CELL_TYPE_BLANK:
+				return 0.0;
+			case CELL_TYPE_NUMERIC:
+				return numericValue;
+			case CELL_TYPE_FORMULA:
+				checkCachedType(CELL_TYPE_NUMERIC);
+				return numericValue;
+			default:
+				throw typeMismatch(CELL_TYPE_NUMERIC, cellType, false);
+		}
+	}
+
+	public Date getDateCellValue() {
+		if (cellType == CELL_TYPE_BLANK) {
+			return null;
+		}
+		return HSSFDateUtil.getJavaDate(getNumericCellValue(), row.isDate1904());
+	}
+
+	public String getStringCellValue() {
+		switch (cellType) {
+			case CELL_TYPE_BLANK:
+				return "";
+			case CELL_TYPE_STRING:
+				return stringValue;
+			case CELL_TYPE_FORMULA:
+				checkCachedType(CELL_TYPE_STRING);
+				return stringValue;
+			default:
+				throw typeMismatch(CELL_TYPE_STRING, cellType, false);
+		}
+	}
+
+	public RichTextString getRichStringCellValue() {
+		return new HSSFRichTextString(getStringCellValue());
+	}
+
+	public boolean getBooleanCellValue() {
+		switch (cellType) {
+			case CELL_TYPE_BLANK:
+				return false;
+			case CELL_TYPE_BOOLEAN:
+				return booleanValue;
+			case CELL_TYPE_FORMULA:
+				checkCachedType(CELL_TYPE_BOOLEAN);
+				return booleanValue;
+			default:
+				throw typeMismatch(CELL_TYPE_BOOLEAN, cellType, false);
+		}
+	}
+
+	public byte getErrorCellValue() {
+		switch (cellType) {
+			case CELL_TYPE_ERROR:
+				return errorValue;
+			case CELL_TYPE_FORMULA:
+				checkCachedType(CELL_TYPE_ERROR);
+				return errorValue;
+			default:
+				throw typeMismatch(CELL_TYPE_ERROR, cellType, false);
+		}
+	}
+
+	public String getCellFormula() {
+		throw new UnsupportedOperationException("Formula text is not available when streaming; use the cached result instead");
+	}
+
+	/**
+	 * @return a read-only style, which only knows the number format of the cell
+	 */
+	public CellStyle getCellStyle() {
+		return style;
+	}
+
+	public Comment getCellComment() {
+		return null;
+	}
+
+	public Hyperlink getHyperlink() {
+		return null;
+	}
+
+	/**
+	 * Unlike {@link org.apache.poi.hssf.usermodel.HSSFCell}, a formula cell renders as its cached
+	 * result, since the formula text is not available.
+	 */
+	public String toString() {
+		int type = (cellType == CELL_TYPE_FORMULA) ? cachedType : cellType;
+		switch (type) {
+			case CELL_TYPE_BLANK:
+				return "";
+			case CELL_TYPE_BOOLEAN:
+				return booleanValue ? "TRUE" : "FALSE";
+			case CELL_TYPE_ERROR:
+				return ErrorEval.getText(errorValue);
+			case CELL_TYPE_NUMERIC:
+				if (style.isDateFormat()) {
+					return new SimpleDateFormat("dd-MMM-yyyy").format(getDateCellValue());
+				}
+				return String.valueOf(numericValue);
+			case CELL_TYPE_STRING:
+				return stringValue;
+			default:
+				return "Unknown Cell Type: " + type;
+		}
+	}
+
+	private void checkCachedType(int expectedType) {
+		if (cachedType != expectedType) {
+			throw typeMismatch(expectedType, cachedType, true);
+		}
+	}
+
+	private static RuntimeException typeMismatch(int expectedType, int actualType, boolean isFormulaCell) {
+		return new IllegalStateException("Cannot get a " + getCellTypeName(expectedType) + " value from a "
+				+ getCellTypeName(actualType) + " " + (isFormulaCell ? "formula " : "") + "cell");
+	}
+
+	private static String getCellTypeName(int cellType) {
+		switch (cellType) {
+			case CELL_TYPE_BLANK: return "blank";
+			case CELL_TYPE_STRING: return "text";
+			case CELL_TYPE_BOOLEAN: return "boolean";
+			case CELL_TYPE_ERROR: return "error";
+			case CELL_TYPE_NUMERIC: return "numeric";
+			case CELL_TYPE_FORMULA: return "formula";
+		}
+		return "#unknown cell type (" + cellType + ")#";
+	}
+
+	public void setCellType(int cellType) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setCellValue(double value) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setCellValue(Date value) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setCellValue(Calendar value) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setCellValue(RichTextString value) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setCellValue(String value) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setCellValue(boolean value) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setCellFormula(String formula) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setCellErrorValue(byte value) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setCellStyle(CellStyle style) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setAsActiveCell() {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setCellComment(Comment comment) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setHyperlink(Hyperlink link) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import org.apache.poi.hssf.usermodel.HSSFDataFormat;
+import org.apache.poi.hssf.usermodel.HSSFDateUtil;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+
+/**
+ * The read-only style of a streamed cell, which only knows the number format of its extended
+ * format (XF) record. That is enough for {@link HSSFDateUtil#isCellDateFormatted(org.apache.poi.ss.usermodel.Cell)}
+ * and {@link org.apache.poi.ss.usermodel.DataFormatter}, while fonts, borders, fills and the rest
+ * of the style need the whole workbook, and are not available.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelStreamingCell#getCellStyle()
+ */
+class ExcelStreamingCellStyle implements CellStyle {
+
+	/**
+	 * The style of a cell that is missing from the file, as HSSF gives a cell it creates.
+	 */
+	static final ExcelStreamingCellStyle DEFAULT = new ExcelStreamingCellStyle((short) 0x0F, (short) 0, "General");
+
+	private final short index;
+
+	private final short dataFormat;
+
+	private final String dataFormatString;
+
+	private final boolean dateFormat;
+
+	/**
+	 * @param index - index of the XF record
+	 * @param dataFormat - index of its number format
+	 * @param dataFormatString - the number format, or <code>null</code> for a built-in format
+	 */
+	ExcelStreamingCellStyle(short index, short dataFormat, String dataFormatString) {
+		this.index = index;
+		this.dataFormat = dataFormat;
+		this.dataFormatString = dataFormatString == null ? HSSFDataFormat.getBuiltinFormat(dataFormat) : dataFormatString;
+		this.dateFormat = HSSFDateUtil.isADateFormat(dataFormat, this.dataFormatString);
+	}
+
+	/**
+	 * @return whether the number format is a date format, worked out once for every cell of the style
+	 */
+	boolean isDateFormat() {
+		return dateFormat;
+	}
+
+	public short getIndex() {
+		return index;
+	}
+
+	public short getDataFormat() {
+		return dataFormat;
+	}
+
+	public String getDataFormatString() {
+		return dataFormatString;
+	}
+
+	public short getFontIndex() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public short getAlignment() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public short getVerticalAlignment() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public short getRotation() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public short getIndention() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public short getBorderLeft() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public short getBorderRight() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public short getBorderTop() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public short getBorderBottom() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public short getLeftBorderColor() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public short getRightBorderColor() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public short getTopBorderColor() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public short getBottomBorderColor() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public short getFillPattern() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public short getFillBackgroundColor() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public short getFillForegroundColor() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public boolean getHidden() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public boolean getLocked() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public boolean getWrapText() {
+		throw new UnsupportedOperationException("Only the number format of a style is available when streaming");
+	}
+
+	public void setDataFormat(short fmt) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setFont(Font font) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setHidden(boolean hidden) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setLocked(boolean locked) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setAlignment(short align) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setWrapText(boolean wrapped) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setVerticalAlignment(short align) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setRotation(short rotation) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setIndention(short indent) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setBorderLeft(short border) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setBorderRight(short border) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setBorderTop(short border) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setBorderBottom(short border) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setLeftBorderColor(short color) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setRightBorderColor(short color) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setTopBorderColor(short color) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setBottomBorderColor(short color) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setFillPattern(short fp) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setFillBackgroundColor(short bg) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void setFillForegroundColor(short bg) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+	public void cloneStyleFrom(CellStyle source) {
+		throw new UnsupportedOperationException("Streamed cells are read-only");
+	}
+
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * A read-only {@link Row} assembled from the cell records of a worksheet, without any backing
+ * {@link org.apache.poi.hssf.usermodel.HSSFWorkbook}. {@link #getSheet()} returns <code>null</code>,
+ * and every method that would modify the row throws {@link UnsupportedOperationException}.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelStreamingRowReader
+ */
+class ExcelStreamingRow implements Row {
+
+	/**
+	 * Height used by Excel for rows that have no ROW record of their own.
+	 */
+	private static final short DEFAULT_HEIGHT = 0xFF;
+
+	private final int rowNum;
+
+	private final short height;
+
+	private final boolean zeroHeight;
+
+	private final boolean date1904;
+
+	private Cell[] cells = new Cell[0];
+
+	private int physicalCells;
+
+	public ExcelStreamingRow(int rowNum, short height, boolean zeroHeight, boolean date1904) {
+		this.rowNum = rowNum;
+		this.height = height;
+		this.zeroHeight = zeroHeight;
+		this.date1904 = date1904;
+	}
+
+	public ExcelStreamingRow(int rowNum, boolean date1904) {
+		this(rowNum, DEFAULT_HEIGHT, false, date1904);
+	}
+
+	void addCell(Cell cell) {
+		int column = cell.getColumnIndex();
+		if (column >= cells.length) {
+			Cell[] grown = new Cell[Math.max(column + 1, cells.length * 2)];
+			System.arraycopy(cells, 0, grown, 0, cells.length);
+			cells = grown;
+		}
+		if (cells[column] == null) {
+			physicalCells++;
+		}
+		cells[column] = cell;
+	}
+
+	boolean isDate1904() {
+		return date1904;
+	}
+
+	public int getRowNum() {
+		return rowNum;
+	}
+
+	public Cell getCell(int cellnum) {
+		return cellnum < cells.length ? cells[cellnum] : null;
+	}
+
+	public Cell getCell(int cellnum, MissingCellPolicy policy) {
+		Cell cell = getCell(cellnum);
+		if (policy == RETURN_NULL_AND_BLANK) {
+			return cell;
+		}
+		if (policy == RETURN_BLANK_AS_NULL) {
+			return (cell == null || cell.getCellType() == Cell.CELL_TYPE_BLANK) ? null : cell;
+		}
+		if (policy == CREATE_NULL_AS_BLANK) {
+			return cell == null ? ExcelStreamingCell.blank(this, cellnum, ExcelStreamingCellStyle.DEFAULT) : cell;
+		}
+		throw new IllegalArgumentException("Illegal policy " + policy);
+	}
+
+	public short getFirstCellNum() {
+		for (int i = 0; i < cells.length; i++) {
+			if (cells[i] != null) {
+				return (short) i;
+			}
+		}
+		return -1;
+	}
+
+	public short getLastCellNum() {
+		for (int i = cells.length - 1; i >= 0; i--) {
+			if (cells[i] != null) {
+				return (short) (i + 1);
+			}
+		}
+		return -1;
+	}
+
+	public int getPhysicalNumberOfCells() {
+		return physicalCells;
+	}
+
+	public short getHeight() {
+		return height;
+	}
+
+	public float getHeightInPoints() {
+		return ((float) height) / 20;
+	}
+
+	public boolean getZeroHeight() {
+		return zeroHeight;
+	}
+
+	public Iterator<Cell> cellIterator() {
+		return new Iterator<Cell>() {
+			private int next = advance(0);
+
+			private int advance(int from) {
+				while (from < cells.length && cells[from] == null) {
+					from++;
+				}
+				return from;
+			}
+
+			public boolean hasNext() {
+				return next < cells.length;
+			}
+
+			public Cell next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				Cell cell = cells[next];
+				next = advance(next + 1);
+				return cell;
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException("Streamed rows are read-only");
+			}
+		};
+	}
+
+	public Iterator<Cell> iterator() {
+		return cellIterator();
+	}
+
+	public Sheet getSheet() {
+		return null;
+	}
+
+	public Cell createCell(int column) {
+		throw new UnsupportedOperationException("Streamed rows are read-only");
+	}
+
+	public Cell createCell(int column, int type) {
+		throw new UnsupportedOperationException("Streamed rows are read-only");
+	}
+
+	public void removeCell(Cell cell) {
+		throw new UnsupportedOperationException("Streamed rows are read-only");
+	}
+
+	public void setRowNum(int rowNum) {
+		throw new UnsupportedOperationException("Streamed rows are read-only");
+	}
+
+	public void setHeight(short height) {
+		throw new UnsupportedOperationException("Streamed rows are read-only");
+	}
+
+	public void setZeroHeight(boolean zHeight) {
+		throw new UnsupportedOperationException("Streamed rows are read-only");
+	}
+
+	public void setHeightInPoints(float height) {
+		throw new UnsupportedOperationException("Streamed rows are read-only");
+	}
+
+	public String toString() {
+		return "Row " + rowNum + " (" + physicalCells + " cells)";
+	}
+
+}
@@ -0,0 +1,622 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.record.DimensionsRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.ExtendedFormatRecord;
+import org.apache.poi.hssf.record.FormatRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RecordFactoryInputStream;
+import org.apache.poi.hssf.record.RowRecord;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.util.LittleEndianInputStream;
+
+/**
+ * This reader decodes an Excel workbook record by record, using {@link RecordFactoryInputStream},
+ * and assembles the rows of one or more worksheets as their cell records go by. No
+ * {@link org.apache.poi.hssf.usermodel.HSSFWorkbook} is ever built, so the heap only has to hold the
+ * shared string table and the rows of a single cell block, however large the worksheet is. The
+ * Workbook stream itself is read straight out of a mapping of the file by {@link MappedOle2File},
+ * so the file is never copied onto the heap either.
+ * <p>
+ * Rows are handed out in the same order, and with the same cells, as iterating over the
+ * equivalent {@link org.apache.poi.hssf.usermodel.HSSFSheet}. When several worksheets are read
+ * in the same pass, their rows come out one worksheet after the other, in workbook order, and
+ * {@link #getWorksheetName()} tells them apart.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelTemplate#setStreaming(boolean)
+ */
+class ExcelStreamingRowReader implements ExcelRowReader {
+
+	private final InputStream inp;
+
+	private final RecordFactoryInputStream records;
+
+	private final Collection<String> worksheetNames;
+
+	private SSTRecord sst;
+
+	private boolean date1904;
+
+	/**
+	 * Number format strings, keyed by format index, and the format index of every extended format (XF).
+	 */
+	private final Map<Integer, String> formats = new HashMap<Integer, String>();
+
+	private final List<Integer> xfFormats = new ArrayList<Integer>();
+
+	/**
+	 * The style of every extended format that cells have used so far, shared by all of its cells.
+	 */
+	private final Map<Integer, ExcelStreamingCellStyle> styles = new HashMap<Integer, ExcelStreamingCellStyle>();
+
+	/**
+	 * Nesting depth of BOF/EOF pairs. Embedded charts open a nested sub-stream inside a worksheet.
+	 */
+	private int depth;
+
+	private int sheetCount;
+
+	private int sheetIndex = -1;
+
+	/**
+	 * Requested worksheet names, keyed by their position in the workbook.
+	 */
+	private final Map<Integer, String> targets = new HashMap<Integer, String>();
+
+	private String currentWorksheet;
+
+	private int sheetsDone;
+
+	private boolean inTarget;
+
+	private boolean finished;
+
+	/**
+	 * ROW records of the current cell block that have not been handed out yet.
+	 */
+	private final SortedMap<Integer, RowRecord> pendingRows = new TreeMap<Integer, RowRecord>();
+
+	private ExcelStreamingRow current;
+
+	private ExcelStreamingCell pendingFormula;
+
+	private final LinkedList<Row> ready = new LinkedList<Row>();
+
+	private ColumnProjection projection;
+
+	/**
+	 * Flags of the columns to decode in the current worksheet, or <code>null</code> to decode them all.
+	 */
+	private boolean[] columns;
+
+	private RowFilter rowFilter;
+
+	private boolean exemptFirstRow;
+
+	/**
+	 * Number of the first row to hand out, apart from an exempt header.
+	 */
+	private int startRow;
+
+	/**
+	 * Number of rows of the current worksheet handed out so far.
+	 */
+	private int sheetRows;
+
+	/**
+	 * Filter state of the row being assembled.
+	 */
+	private boolean currentExempt;
+
+	private boolean currentKeySeen;
+
+	private boolean currentRejected;
+
+	/**
+	 * A key cell holding a formula, whose string result is in the next record.
+	 */
+	private ExcelStreamingCell pendingKey;
+
+	public ExcelStreamingRowReader(File file, String worksheetName) throws IOException {
+		this(file, Collections.singleton(worksheetName));
+	}
+
+	/**
+	 * @param file
+	 * @param worksheetNames - names of the worksheets to read
+	 * @throws IOException
+	 */
+	public ExcelStreamingRowReader(File file, Collection<String> worksheetNames) throws IOException {
+		this.inp = openWorkbook(file);
+		this.worksheetNames = worksheetNames;
+		this.records = new RecordFactoryInputStream(inp, false);
+	}
+
+	/**
+	 * Open the Workbook stream of an .xls file, straight out of a mapping of the file. Unlike
+	 * POIFSFileSystem, which reads the whole container into memory, only the sectors of the stream
+	 * are touched, as it is read.
+	 * 
+	 * @param file
+	 * @return the content of the Workbook stream
+	 * @throws IOException
+	 */
+	static InputStream openWorkbook(File file) throws IOException {
+		return new MappedOle2File(file).openDocument("Workbook");
+	}
+
+	/**
+	 * List the worksheets of a workbook, in workbook order. Only the workbook globals are read.
+	 * 
+	 * @param file
+	 * @return the names of the worksheets
+	 * @throws IOException
+	 */
+	static List<String> readWorksheetNames(File file) throws IOException {
+		InputStream inp = openWorkbook(file);
+		try {
+			RecordFactoryInputStream records = new RecordFactoryInputStream(inp, false);
+			List<String> names = new ArrayList<String>();
+			Record record;
+			// the globals end with the first EOF record
+			while ((record = records.nextRecord()) != null && !(record instanceof EOFRecord)) {
+				if (record instanceof BoundSheetRecord) {
+					names.add(((BoundSheetRecord) record).getSheetname());
+				}
+			}
+			return names;
+		} finally {
+			inp.close();
+		}
+	}
+
+	/**
+	 * Find out how many rows a worksheet spans from its DIMENSIONS record, which comes before any
+	 * of its cells. Records are only walked by their headers: the BOUNDSHEET records of the
+	 * globals give the offset of the worksheet, everything up to it is skipped, and nothing after
+	 * its DIMENSIONS record is read.
+	 * 
+	 * @param file
+	 * @param worksheetName
+	 * @return one more than the number of the last row in use, or 0 for an empty worksheet
+	 * @throws IOException
+	 */
+	static int countRows(File file, String worksheetName) throws IOException {
+		LittleEndianInputStream records = new LittleEndianInputStream(openWorkbook(file));
+		try {
+			long position = 0;
+			long sheetStart = -1;
+			int sid;
+			// the globals end with the first EOF record
+			do {
+				sid = records.readUShort();
+				int length = records.readUShort();
+				position += 4 + length;
+				if (sid == BoundSheetRecord.sid && sheetStart < 0) {
+					int offset = records.readInt();
+					records.readUShort();
+					int nameLength = records.readUByte();
+					boolean unicode = (records.readUByte() & 0x01) != 0;
+					byte[] name = new byte[unicode ? nameLength * 2 : nameLength];
+					records.readFully(name);
+					if (new String(name, unicode ? "UTF-16LE" : "ISO-8859-1").equalsIgnoreCase(worksheetName)) {
+						sheetStart = offset;
+					}
+					skipFully(records, length - 8 - name.length);
+				} else {
+					skipFully(records, length);
+				}
+			} while (sid != EOFRecord.sid);
+			if (sheetStart < 0) {
+				throw new IllegalArgumentException("Could not find worksheet '" + worksheetName + "'");
+			}
+
+			skipFully(records, sheetStart - position);
+			while (true) {
+				sid = records.readUShort();
+				int length = records.readUShort();
+				if (sid == DimensionsRecord.sid) {
+					records.readInt();
+					return records.readInt();
+				}
+				if (sid == EOFRecord.sid) {
+					return 0;
+				}
+				skipFully(records, length);
+			}
+		} finally {
+			records.close();
+		}
+	}
+
+	private static void skipFully(InputStream inp, long count) throws IOException {
+		while (count > 0) {
+			long skipped = inp.skip(count);
+			if (skipped <= 0) {
+				throw new EOFException("Unexpected end of the Workbook stream");
+			}
+			count -= skipped;
+		}
+	}
+
+	public Row read() throws IOException {
+		while (ready.isEmpty() && !finished) {
+			Record record = records.nextRecord();
+			if (record == null) {
+				finishSheet();
+				finished = true;
+			} else {
+				processRecord(record);
+			}
+		}
+		return ready.poll();
+	}
+
+	/**
+	 * Only decode the cells of some columns. Must be set before the first row is read.
+	 * 
+	 * @param projection - the columns to decode, or <code>null</code> for all of them
+	 */
+	void setColumnProjection(ColumnProjection projection) {
+		this.projection = projection;
+	}
+
+	public void setRowFilter(RowFilter rowFilter, boolean exemptFirstRow) {
+		this.rowFilter = rowFilter;
+		this.exemptFirstRow = exemptFirstRow;
+	}
+
+	public void setStartRow(int startRow) {
+		this.startRow = startRow;
+	}
+
+	/**
+	 * @return the name (as requested) of the worksheet the last row returned belongs to
+	 */
+	public String getWorksheetName() {
+		return currentWorksheet;
+	}
+
+	public void close() {
+		try {
+			inp.close();
+		} catch (IOException e) {
+			// nothing left to release
+		}
+	}
+
+	private void processRecord(Record record) {
+		if (record instanceof BOFRecord) {
+			depth++;
+			if (depth == 1 && ((BOFRecord) record).getType() != BOFRecord.TYPE_WORKBOOK) {
+				sheetIndex++;
+				currentWorksheet = targets.get(sheetIndex);
+				inTarget = (currentWorksheet != null);
+				columns = (projection == null || projection.isByName()) ? null : projection.toMask(null);
+				sheetRows = 0;
+			}
+			return;
+		}
+		if (record instanceof EOFRecord) {
+			depth--;
+			if (depth == 0) {
+				if (inTarget) {
+					finishSheet();
+				} else if (sheetIndex < 0) {
+					checkAllWorksheetsFound();
+				}
+			}
+			return;
+		}
+		if (sheetIndex < 0) {
+			processGlobalRecord(record);
+		} else if (inTarget && depth == 1) {
+			processSheetRecord(record);
+		}
+	}
+
+	private void processGlobalRecord(Record record) {
+		if (record instanceof BoundSheetRecord) {
+			String sheetName = ((BoundSheetRecord) record).getSheetname();
+			for (String worksheetName : worksheetNames) {
+				// Same matching rule as HSSFWorkbook.getSheet(String)
+				if (sheetName.equalsIgnoreCase(worksheetName) && !targets.containsValue(worksheetName)) {
+					targets.put(sheetCount, worksheetName);
+				}
+			}
+			sheetCount++;
+		} else if (record instanceof SSTRecord) {
+			sst = (SSTRecord) record;
+		} else if (record instanceof DateWindow1904Record) {
+			date1904 = ((DateWindow1904Record) record).getWindowing() == 1;
+		} else if (record instanceof FormatRecord) {
+			FormatRecord format = (FormatRecord) record;
+			formats.put(format.getIndexCode(), format.getFormatString());
+		} else if (record instanceof ExtendedFormatRecord) {
+			xfFormats.add((int) ((ExtendedFormatRecord) record).getFormatIndex());
+		}
+	}
+
+	private void checkAllWorksheetsFound() {
+		for (String worksheetName : worksheetNames) {
+			if (!targets.containsValue(worksheetName)) {
+				throw new IllegalArgumentException("Could not find worksheet '" + worksheetName + "'");
+			}
+		}
+	}
+
+	private void processSheetRecord(Record record) {
+		if (record instanceof RowRecord) {
+			RowRecord rowRecord = (RowRecord) record;
+			if (rowRecord.getRowNumber() >= startRow || (exemptFirstRow && sheetRows == 0)) {
+				pendingRows.put(rowRecord.getRowNumber(), rowRecord);
+			}
+			return;
+		}
+		if (record instanceof StringRecord) {
+			if (pendingFormula != null) {
+				pendingFormula.setCachedString(((StringRecord) record).getString());
+				if (pendingFormula == pendingKey) {
+					currentRejected = !rowFilter.accept(pendingKey.toString());
+					pendingKey = null;
+				}
+				pendingFormula = null;
+			}
+			return;
+		}
+		if (record instanceof MulBlankRecord) {
+			MulBlankRecord blanks = (MulBlankRecord) record;
+			if (isBeforeStart(blanks.getRow())) {
+				return;
+			}
+			ExcelStreamingRow row = rowFor(blanks.getRow());
+			for (int i = 0; i < blanks.getNumColumns() && !currentRejected; i++) {
+				int column = blanks.getFirstColumn() + i;
+				if (isProjected(column) || isKeyColumn(column)) {
+					addCell(row, ExcelStreamingCell.blank(row, column, styleOf(blanks.getXFAt(i))));
+				}
+			}
+			return;
+		}
+		if (record instanceof CellValueRecordInterface) {
+			CellValueRecordInterface cellRecord = (CellValueRecordInterface) record;
+			if (isBeforeStart(cellRecord.getRow())) {
+				if (record instanceof FormulaRecord) {
+					pendingFormula = null;
+				}
+				return;
+			}
+			ExcelStreamingRow row = rowFor(cellRecord.getRow());
+			int column = cellRecord.getColumn();
+			if (currentRejected || !(isProjected(column) || isKeyColumn(column))) {
+				if (record instanceof FormulaRecord) {
+					// a STRING record may follow, and it belongs to this formula, not an earlier one
+					pendingFormula = null;
+				}
+				return;
+			}
+			ExcelStreamingCell cell = decode(row, cellRecord);
+			if (cell != null) {
+				addCell(row, cell);
+			}
+		}
+	}
+
+	private ExcelStreamingCell decode(ExcelStreamingRow row, CellValueRecordInterface record) {
+		int column = record.getColumn();
+		if (record instanceof LabelSSTRecord) {
+			return ExcelStreamingCell.string(row, column, sst.getString(((LabelSSTRecord) record).getSSTIndex()).getString(),
+					styleOf(record.getXFIndex()));
+		}
+		if (record instanceof NumberRecord) {
+			return ExcelStreamingCell.numeric(row, column, ((NumberRecord) record).getValue(), styleOf(record.getXFIndex()));
+		}
+		if (record instanceof LabelRecord) {
+			return ExcelStreamingCell.string(row, column, ((LabelRecord) record).getValue(), styleOf(record.getXFIndex()));
+		}
+		if (record instanceof BoolErrRecord) {
+			BoolErrRecord boolErr = (BoolErrRecord) record;
+			return boolErr.isBoolean() ? ExcelStreamingCell.bool(row, column, boolErr.getBooleanValue(), styleOf(record.getXFIndex()))
+					: ExcelStreamingCell.error(row, column, boolErr.getErrorValue(), styleOf(record.getXFIndex()));
+		}
+		if (record instanceof BlankRecord) {
+			return ExcelStreamingCell.blank(row, column, styleOf(record.getXFIndex()));
+		}
+		if (record instanceof FormulaRecord) {
+			FormulaRecord formula = (FormulaRecord) record;
+			int cachedType = formula.getCachedResultType();
+			ExcelStreamingCell cell = ExcelStreamingCell.formula(row, column, cachedType, formula.getValue(),
+					cachedType == Cell.CELL_TYPE_BOOLEAN && formula.getCachedBooleanValue(),
+					cachedType == Cell.CELL_TYPE_ERROR ? (byte) formula.getCachedErrorValue() : 0,
+					styleOf(record.getXFIndex()));
+			if (formula.hasCachedResultString()) {
+				pendingFormula = cell;
+			}
+			return cell;
+		}
+		return null;
+	}
+
+	/**
+	 * Run the key cell past the row filter, and keep the cell if it is projected.
+	 */
+	private void addCell(ExcelStreamingRow row, ExcelStreamingCell cell) {
+		int column = cell.getColumnIndex();
+		if (isKeyColumn(column)) {
+			currentKeySeen = true;
+			if (cell == pendingFormula) {
+				pendingKey = cell;
+			} else if (!rowFilter.accept(cell.toString())) {
+				currentRejected = true;
+				return;
+			}
+		}
+		if (isProjected(column)) {
+			row.addCell(cell);
+		}
+	}
+
+	/**
+	 * Rows before the start row are passed over record by record, without decoding their cells,
+	 * unless they may turn out to be the exempt header.
+	 */
+	private boolean isBeforeStart(int rowNum) {
+		if (rowNum >= startRow) {
+			return false;
+		}
+		if (current != null) {
+			return current.getRowNum() != rowNum || !currentExempt;
+		}
+		return !(exemptFirstRow && sheetRows == 0);
+	}
+
+	private boolean isKeyColumn(int column) {
+		return rowFilter != null && !currentExempt && column == rowFilter.getKeyColumn();
+	}
+
+	private boolean isProjected(int column) {
+		return columns == null || (column < columns.length && columns[column]);
+	}
+
+	/**
+	 * Once the header row is complete, the names of a projection can be looked up in it.
+	 */
+	private void resolveProjection(ExcelStreamingRow header) {
+		if (projection != null && columns == null && header.getPhysicalNumberOfCells() > 0) {
+			String[] names = new String[header.getLastCellNum()];
+			for (Iterator<Cell> cells = header.cellIterator(); cells.hasNext();) {
+				Cell cell = cells.next();
+				names[cell.getColumnIndex()] = cell.toString();
+			}
+			columns = projection.toMask(names);
+		}
+	}
+
+	private ExcelStreamingCellStyle styleOf(int xfIndex) {
+		ExcelStreamingCellStyle style = styles.get(xfIndex);
+		if (style == null) {
+			int formatIndex = xfIndex < xfFormats.size() ? xfFormats.get(xfIndex) : 0;
+			style = new ExcelStreamingCellStyle((short) xfIndex, (short) formatIndex, formats.get(formatIndex));
+			styles.put(xfIndex, style);
+		}
+		return style;
+	}
+
+	/**
+	 * Cell records arrive in row order, so the first cell of a new row completes the previous one.
+	 */
+	private ExcelStreamingRow rowFor(int rowNum) {
+		if (current != null && current.getRowNum() == rowNum) {
+			return current;
+		}
+		completeRow();
+		releaseEmptyRowsBefore(rowNum);
+		RowRecord rowRecord = pendingRows.remove(rowNum);
+		current = (rowRecord == null) ? new ExcelStreamingRow(rowNum, date1904)
+				: new ExcelStreamingRow(rowNum, rowRecord.getHeight(), rowRecord.getZeroHeight(), date1904);
+		currentExempt = exemptFirstRow && sheetRows == 0;
+		currentKeySeen = false;
+		currentRejected = false;
+		pendingKey = null;
+		return current;
+	}
+
+	/**
+	 * Hand out the row being assembled, unless the row filter turned it down.
+	 */
+	private void completeRow() {
+		if (current == null) {
+			return;
+		}
+		if (pendingKey != null) {
+			currentRejected = !rowFilter.accept(pendingKey.toString());
+			pendingKey = null;
+		} else if (rowFilter != null && !currentExempt && !currentKeySeen) {
+			currentRejected = !rowFilter.accept(null);
+		}
+		if (!currentExempt && current.getRowNum() < startRow) {
+			// it was decoded as a possible header, but an earlier empty row took that place
+			currentRejected = true;
+		}
+		if (!currentRejected) {
+			ready.add(current);
+			sheetRows++;
+			resolveProjection(current);
+		}
+		current = null;
+	}
+
+	/**
+	 * Rows with a ROW record but no cells still show up when iterating over an HSSFSheet.
+	 */
+	private void releaseEmptyRowsBefore(int rowNum) {
+		Iterator<RowRecord> emptyRows = pendingRows.headMap(rowNum).values().iterator();
+		while (emptyRows.hasNext()) {
+			RowRecord rowRecord = emptyRows.next();
+			boolean exempt = exemptFirstRow && sheetRows == 0;
+			if (exempt || (rowRecord.getRowNumber() >= startRow && (rowFilter == null || rowFilter.accept(null)))) {
+				ready.add(new ExcelStreamingRow(rowRecord.getRowNumber(), rowRecord.getHeight(), rowRecord.getZeroHeight(), date1904));
+				sheetRows++;
+			}
+			emptyRows.remove();
+		}
+	}
+
+	private void finishSheet() {
+		completeRow();
+		releaseEmptyRowsBefore(Integer.MAX_VALUE);
+		pendingFormula = null;
+		if (inTarget) {
+			inTarget = false;
+			finished = (++sheetsDone == targets.size());
+		}
+	}
+
+}
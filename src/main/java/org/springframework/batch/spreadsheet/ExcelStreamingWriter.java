@@ -0,0 +1,1113 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.hssf.model.Sheet;
+import org.apache.poi.hssf.model.Workbook;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.DimensionsRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RecordBase;
+import org.apache.poi.hssf.record.RecordFactoryInputStream;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.aggregates.RowRecordsAggregate;
+import org.apache.poi.hssf.usermodel.HSSFDateUtil;
+
+/**
+ * Writes an .xls file one row at a time, straight into BIFF8 records, so that memory use does not
+ * depend on the number of rows. The workbook globals and the records around the cells of each
+ * worksheet come from POI's own defaults, as HSSFWorkbook would write them, while the rows and
+ * cells are encoded here, in blocks of 32 rows with a DBCELL record each, and an INDEX record
+ * listing the blocks of every worksheet.
+ * <p>
+ * Strings go into the shared string table, as Excel writes them, through LABELSST records. Since
+ * the table comes before the worksheets in the file, the rows and the strings are written to two
+ * <code>.part</code> files next to the target first, and the Workbook stream and the OLE2
+ * container around it are put together on close. Recently written strings are looked up before
+ * they are added again, but the table is allowed to hold the same string more than once, so that
+ * memory use stays bounded.
+ * <p>
+ * A writer resumed from a {@link #checkpoint()} cuts the <code>.part</code> files back and
+ * appends to them. If the file was already put together in between, the rows and the strings are
+ * first copied back out of it.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelTemplate#writeRows(String, Iterable, RowWriterCallback)
+ */
+class ExcelStreamingWriter extends AbstractSpreadsheetWriter {
+
+	static final int MAX_ROWS = 65536;
+
+	static final int MAX_COLUMNS = 256;
+
+	static final int MAX_STRING_LENGTH = 32767;
+
+	private static final short BOF = 0x0809;
+
+	private static final short DIMENSIONS = 0x0200;
+
+	private static final short INDEX = 0x020b;
+
+	private static final short ROW = 0x0208;
+
+	private static final short LABEL_SST = 0x00fd;
+
+	private static final short NUMBER = 0x0203;
+
+	private static final short BOOLERR = 0x0205;
+
+	private static final short DBCELL = 0x00d7;
+
+	private static final short SST = 0x00fc;
+
+	private static final short EXTSST = 0x00ff;
+
+	private static final short CONTINUE = 0x003c;
+
+	private static final short WORKSHEET = 0x0010;
+
+	/**
+	 * The most data a record holds, beyond which it goes on in CONTINUE records.
+	 */
+	private static final int MAX_RECORD_DATA = 8224;
+
+	private static final int ROW_RECORD_SIZE = 20;
+
+	private static final int ROWS_PER_BLOCK = 32;
+
+	/**
+	 * The size of a NUMBER record, the largest cell written.
+	 */
+	private static final int MAX_CELL_RECORD_SIZE = 18;
+
+	/**
+	 * How many of the most recently used strings are looked up before adding a string to the table.
+	 */
+	private static final int STRING_CACHE_SIZE = 8192;
+
+	/**
+	 * Excel only reads the first 128 entries of EXTSST.
+	 */
+	private static final int MAX_BUCKETS = 128;
+
+	/**
+	 * The default cell format of a new workbook.
+	 */
+	private static final short CELL_XF = 0x0f;
+
+	private static final short DATE_FORMAT = 0x0e;
+
+	private static final short DATE_TIME_FORMAT = 0x16;
+
+	private static final int SECTOR_SIZE = 512;
+
+	private static final int MINI_SECTOR_SIZE = 64;
+
+	private static final int MINI_STREAM_CUTOFF = 4096;
+
+	private static final int HEADER_FAT_ENTRIES = 109;
+
+	private static final int FREE = -1;
+
+	private static final int END_OF_CHAIN = -2;
+
+	private static final int FAT_SECTOR = -3;
+
+	private static final int DIFAT_SECTOR = -4;
+
+	private final File file;
+
+	private final File assemblyFile;
+
+	private final File rowsFile;
+
+	private final File stringsFile;
+
+	private final RandomAccessFile rowsOut;
+
+	private final RandomAccessFile stringsOut;
+
+	/**
+	 * Where {@link #buffer} goes: the rows file, and the target file while closing.
+	 */
+	private FileChannel channel;
+
+	private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+	private final ByteBuffer stringsBuffer = ByteBuffer.allocate(128 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+	private final ByteBuffer rowRecords = ByteBuffer.allocate(ROWS_PER_BLOCK * ROW_RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+	private final ByteBuffer cellRecords = ByteBuffer.allocate(ROWS_PER_BLOCK * MAX_COLUMNS * MAX_CELL_RECORD_SIZE).order(
+			ByteOrder.LITTLE_ENDIAN);
+
+	/**
+	 * Bytes of cell records of each row of the current block.
+	 */
+	private final int[] rowCellSizes = new int[ROWS_PER_BLOCK];
+
+	private int blockRows;
+
+	private final Workbook workbook;
+
+	private final List<String> sheetNames;
+
+	/**
+	 * Where the rows of each worksheet start in the rows file.
+	 */
+	private final long[] rowsStarts;
+
+	private final int[] firstRows;
+
+	private final int[] lastRows;
+
+	private final int[] lastColumns;
+
+	/**
+	 * Where the DBCELL records of each worksheet are, counted from the start of its rows.
+	 */
+	private final int[][] dbcells;
+
+	private final int[] dbcellCounts;
+
+	private final Map<String, Integer> stringIndexes = new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+		protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+			return size() > STRING_CACHE_SIZE;
+		}
+	};
+
+	private final int dateXf;
+
+	private final int dateTimeXf;
+
+	/**
+	 * Bytes written to the rows file so far, and to the Workbook stream while closing.
+	 */
+	private long position;
+
+	private long stringsPosition;
+
+	private int stringCount;
+
+	private int labelCount;
+
+	private int sheetIndex = -1;
+
+	private int rowNum;
+
+	private boolean closed;
+
+	/**
+	 * @param file - the file to write, which is replaced if it exists
+	 * @param sheetNames - names of the worksheets, in the order they will be written
+	 * @throws IOException
+	 */
+	public ExcelStreamingWriter(File file, List<String> sheetNames) throws IOException {
+		this(file, sheetNames, null);
+	}
+
+	/**
+	 * @param file - the file to write
+	 * @param sheetNames - names of the worksheets, in the order they will be written
+	 * @param checkpoint - where an earlier writer of the file got to, or <code>null</code> to
+	 *        replace the file
+	 * @throws IOException if the rows or strings written before the checkpoint cannot be found
+	 * @see #checkpoint()
+	 */
+	public ExcelStreamingWriter(File file, List<String> sheetNames, long[] checkpoint) throws IOException {
+		if (sheetNames.isEmpty()) {
+			throw new IllegalArgumentException("A workbook needs at least one worksheet");
+		}
+		this.file = file;
+		this.assemblyFile = assemblyFileOf(file);
+		this.rowsFile = new File(file.getPath() + ".part");
+		this.stringsFile = new File(file.getPath() + ".strings.part");
+		this.sheetNames = new ArrayList<String>(sheetNames);
+		this.rowsStarts = new long[sheetNames.size()];
+		this.firstRows = new int[sheetNames.size()];
+		this.lastRows = new int[sheetNames.size()];
+		this.lastColumns = new int[sheetNames.size()];
+		this.dbcells = new int[sheetNames.size()][];
+		this.dbcellCounts = new int[sheetNames.size()];
+		this.workbook = Workbook.createWorkbook();
+		for (int i = 0; i < sheetNames.size(); i++) {
+			workbook.setSheetName(i, sheetNames.get(i));
+		}
+		workbook.createCellXF().setFormatIndex(DATE_FORMAT);
+		this.dateXf = workbook.getNumExFormats() - 1;
+		workbook.createCellXF().setFormatIndex(DATE_TIME_FORMAT);
+		this.dateTimeXf = workbook.getNumExFormats() - 1;
+		boolean recover = checkpoint != null && !rowsFile.exists() && file.exists();
+		this.rowsOut = new RandomAccessFile(rowsFile, "rw");
+		this.stringsOut = new RandomAccessFile(stringsFile, "rw");
+		this.channel = rowsOut.getChannel();
+		boolean opened = false;
+		try {
+			if (checkpoint == null) {
+				rowsOut.setLength(0);
+				stringsOut.setLength(0);
+			} else {
+				restore(checkpoint, recover);
+			}
+			opened = true;
+		} finally {
+			if (!opened) {
+				abort();
+			}
+		}
+	}
+
+	/**
+	 * Start the next worksheet. Worksheets must be started in the order they were named in, and
+	 * any that are never started are left empty.
+	 */
+	public void startSheet(String name) throws IOException {
+		if (sheetIndex >= 0) {
+			flushBlock();
+		}
+		if (sheetIndex + 1 >= sheetNames.size() || !sheetNames.get(sheetIndex + 1).equals(name)) {
+			throw new IllegalArgumentException("Expected worksheet "
+					+ (sheetIndex + 1 < sheetNames.size() ? "'" + sheetNames.get(sheetIndex + 1) + "'" : "none") + ", not '" + name + "'");
+		}
+		sheetIndex++;
+		rowsStarts[sheetIndex] = position;
+		firstRows[sheetIndex] = -1;
+		lastRows[sheetIndex] = -1;
+		lastColumns[sheetIndex] = -1;
+		dbcells[sheetIndex] = new int[16];
+		dbcellCounts[sheetIndex] = 0;
+		rowNum = 0;
+	}
+
+	protected void writeRow(RowBuffer cells) throws IOException {
+		if (sheetIndex < 0) {
+			throw new IllegalStateException("No worksheet has been started");
+		}
+		if (rowNum >= MAX_ROWS) {
+			throw new IllegalStateException("A worksheet holds at most " + MAX_ROWS + " rows");
+		}
+		int columnCount = cells.getColumnCount();
+		if (columnCount > MAX_COLUMNS) {
+			throw new IllegalArgumentException("A worksheet holds at most " + MAX_COLUMNS + " columns, not " + columnCount);
+		}
+		if (columnCount > 0) {
+			int firstColumn = 0;
+			while (cells.getType(firstColumn) == RowBuffer.BLANK) {
+				firstColumn++;
+			}
+			int start = cellRecords.position();
+			boolean written = false;
+			try {
+				for (int column = firstColumn; column < columnCount; column++) {
+					writeCell(cells, column);
+				}
+				written = true;
+			} finally {
+				if (!written) {
+					cellRecords.position(start);
+				}
+			}
+			rowCellSizes[blockRows++] = cellRecords.position() - start;
+			rowRecords.putShort(ROW).putShort((short) (ROW_RECORD_SIZE - 4));
+			rowRecords.putShort((short) rowNum).putShort((short) firstColumn).putShort((short) columnCount);
+			// default height, no outline, and the bit that must always be set
+			rowRecords.putShort((short) 0x00ff).putShort((short) 0).putShort((short) 0).putShort((short) 0x0100).putShort(CELL_XF);
+			if (firstRows[sheetIndex] < 0) {
+				firstRows[sheetIndex] = rowNum;
+			}
+			lastRows[sheetIndex] = rowNum;
+			lastColumns[sheetIndex] = Math.max(lastColumns[sheetIndex], columnCount - 1);
+			if (blockRows == ROWS_PER_BLOCK) {
+				flushBlock();
+			}
+		}
+		rowNum++;
+	}
+
+	private void writeCell(RowBuffer cells, int column) throws IOException {
+		switch (cells.getType(column)) {
+			case RowBuffer.STRING:
+				int index = indexOf(cells.getString(column));
+				cellRecords.putShort(LABEL_SST).putShort((short) 10);
+				cellRecords.putShort((short) rowNum).putShort((short) column).putShort(CELL_XF).putInt(index);
+				labelCount++;
+				break;
+			case RowBuffer.NUMBER:
+				writeNumber(column, CELL_XF, cells.getNumber(column));
+				break;
+			case RowBuffer.BOOLEAN:
+				cellRecords.putShort(BOOLERR).putShort((short) 8);
+				cellRecords.putShort((short) rowNum).putShort((short) column).putShort(CELL_XF);
+				cellRecords.put((byte) (cells.getBoolean(column) ? 1 : 0)).put((byte) 0);
+				break;
+			case RowBuffer.DATE:
+				double value = HSSFDateUtil.getExcelDate(cells.getDate(column));
+				if (value < 0) {
+					throw new IllegalArgumentException("Dates before 1900 cannot be written, not " + cells.getDate(column));
+				}
+				writeNumber(column, value == Math.floor(value) ? dateXf : dateTimeXf, value);
+				break;
+			default:
+				// blank cells are simply left out
+		}
+	}
+
+	private void writeNumber(int column, int xf, double value) {
+		cellRecords.putShort(NUMBER).putShort((short) 14);
+		cellRecords.putShort((short) rowNum).putShort((short) column).putShort((short) xf).putDouble(value);
+	}
+
+	/**
+	 * Find a string in the shared string table, adding it unless it was used recently.
+	 */
+	private int indexOf(String value) throws IOException {
+		Integer index = stringIndexes.get(value);
+		if (index == null) {
+			if (value.length() > MAX_STRING_LENGTH) {
+				throw new IllegalArgumentException("A string cell holds at most " + MAX_STRING_LENGTH + " characters, not "
+						+ value.length());
+			}
+			index = stringCount;
+			writeString(value);
+			stringCount++;
+			stringIndexes.put(value, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Append a string to the strings file, the way it is stored in the shared string table but
+	 * never split.
+	 */
+	private void writeString(String value) throws IOException {
+		int length = value.length();
+		boolean compressed = true;
+		for (int i = 0; i < length && compressed; i++) {
+			compressed = value.charAt(i) < 0x100;
+		}
+		int size = 3 + (compressed ? length : length * 2);
+		if (stringsBuffer.remaining() < size) {
+			flushStrings();
+		}
+		stringsBuffer.putShort((short) length).put((byte) (compressed ? 0 : 1));
+		for (int i = 0; i < length; i++) {
+			if (compressed) {
+				stringsBuffer.put((byte) value.charAt(i));
+			} else {
+				stringsBuffer.putChar(value.charAt(i));
+			}
+		}
+		stringsPosition += size;
+	}
+
+	/**
+	 * Write the ROW records of the current block, then their cells, then the DBCELL record
+	 * pointing back at them.
+	 */
+	private void flushBlock() throws IOException {
+		if (blockRows == 0) {
+			return;
+		}
+		int rowBytes = rowRecords.position();
+		int cellBytes = cellRecords.position();
+		write(rowRecords);
+		write(cellRecords);
+		addDbcell(sheetIndex, (int) (position - rowsStarts[sheetIndex]));
+		putHeader(DBCELL, 4 + blockRows * 2);
+		buffer.putInt(rowBytes + cellBytes);
+		// the first cells are found from the second ROW record, the others from the cells before them
+		buffer.putShort((short) (rowBytes - ROW_RECORD_SIZE));
+		for (int i = 0; i < blockRows - 1; i++) {
+			buffer.putShort((short) rowCellSizes[i]);
+		}
+		blockRows = 0;
+	}
+
+	private void addDbcell(int sheet, int offset) {
+		int[] offsets = dbcells[sheet];
+		if (dbcellCounts[sheet] == offsets.length) {
+			offsets = new int[offsets.length * 2];
+			System.arraycopy(dbcells[sheet], 0, offsets, 0, dbcellCounts[sheet]);
+			dbcells[sheet] = offsets;
+		}
+		offsets[dbcellCounts[sheet]++] = offset;
+	}
+
+	/**
+	 * Start a record, making sure the whole of it fits in the buffer.
+	 */
+	private void putHeader(short sid, int length) {
+		ensure(4 + length);
+		buffer.putShort(sid).putShort((short) length);
+		position += 4 + length;
+	}
+
+	private void putRecord(RecordBase record) {
+		byte[] bytes = new byte[record.getRecordSize()];
+		record.serialize(0, bytes);
+		put(bytes, 0, bytes.length);
+	}
+
+	private void put(byte[] bytes, int offset, int length) {
+		int end = offset + length;
+		while (offset < end) {
+			ensure(1);
+			int chunk = Math.min(buffer.remaining(), end - offset);
+			buffer.put(bytes, offset, chunk);
+			offset += chunk;
+		}
+		position += length;
+	}
+
+	/**
+	 * Write out a buffer filled elsewhere, and empty it.
+	 */
+	private void write(ByteBuffer bytes) throws IOException {
+		flush();
+		bytes.flip();
+		position += bytes.remaining();
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+		bytes.clear();
+	}
+
+	private void ensure(int length) {
+		if (buffer.remaining() < length) {
+			flush();
+		}
+	}
+
+	private void flush() {
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		buffer.clear();
+	}
+
+	private void flushStrings() throws IOException {
+		stringsBuffer.flip();
+		FileChannel strings = stringsOut.getChannel();
+		while (stringsBuffer.hasRemaining()) {
+			strings.write(stringsBuffer);
+		}
+		stringsBuffer.clear();
+	}
+
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		while (sheetIndex + 1 < sheetNames.size()) {
+			startSheet(sheetNames.get(sheetIndex + 1));
+		}
+		flushBlock();
+		flush();
+		flushStrings();
+		long rowsEnd = position;
+		RandomAccessFile out = new RandomAccessFile(assemblyFile, "rw");
+		boolean assembled = false;
+		try {
+			out.setLength(0);
+			channel = out.getChannel();
+			channel.position(SECTOR_SIZE);
+			position = 0;
+			writeWorkbook(rowsEnd);
+			flush();
+			assembled = true;
+		} finally {
+			out.close();
+			if (!assembled) {
+				assemblyFile.delete();
+			}
+		}
+		replace(assemblyFile, file);
+		closed = true;
+		rowsOut.close();
+		stringsOut.close();
+		rowsFile.delete();
+		stringsFile.delete();
+	}
+
+	/**
+	 * Put the Workbook stream together from the globals, the shared strings and the rows of each
+	 * worksheet, and lay out the container around it.
+	 * 
+	 * @param rowsEnd - size of the rows file
+	 */
+	private void writeWorkbook(long rowsEnd) throws IOException {
+		byte[] globals = serializeGlobals();
+		int sstStart = findRecord(globals, SST);
+		int sstEnd = sstStart + recordSize(globals, sstStart);
+		int extSstStart = findRecord(globals, EXTSST);
+		int extSstEnd = extSstStart + recordSize(globals, extSstStart);
+		int bucketSize = Math.min(Math.max(8, (stringCount + MAX_BUCKETS - 1) / MAX_BUCKETS), 0xffff);
+		int[] bucketPositions = new int[Math.min((stringCount + bucketSize - 1) / bucketSize, MAX_BUCKETS)];
+		int[] bucketOffsets = new int[bucketPositions.length];
+		// only measured here, to find out where the worksheets start
+		long sstSize = writeSharedStrings(sstStart, false, bucketSize, bucketPositions, bucketOffsets) - sstStart;
+		long offset = globals.length - (sstEnd - sstStart) - (extSstEnd - extSstStart) + sstSize + 6 + bucketPositions.length * 8;
+		for (int i = 0; i < sheetNames.size(); i++) {
+			if (offset > Integer.MAX_VALUE - MINI_STREAM_CUTOFF) {
+				throw new IOException("Workbook stream of " + file + " is too large");
+			}
+			workbook.setSheetBof(i, (int) offset);
+			List<RecordBase> records = createSheetRecords(i);
+			for (RecordBase record : records) {
+				if (!(record instanceof RowRecordsAggregate)) {
+					offset += record.getRecordSize();
+				}
+			}
+			offset += indexSize(i) + rowsLength(i, rowsEnd);
+		}
+		if (offset > Integer.MAX_VALUE - MINI_STREAM_CUTOFF) {
+			throw new IOException("Workbook stream of " + file + " is too large");
+		}
+
+		globals = serializeGlobals();
+		put(globals, 0, sstStart);
+		writeSharedStrings(sstStart, true, bucketSize, bucketPositions, bucketOffsets);
+		put(globals, sstEnd, extSstStart - sstEnd);
+		putHeader(EXTSST, 2 + bucketPositions.length * 8);
+		buffer.putShort((short) bucketSize);
+		for (int i = 0; i < bucketPositions.length; i++) {
+			buffer.putInt(bucketPositions[i]).putShort((short) bucketOffsets[i]).putShort((short) 0);
+		}
+		put(globals, extSstEnd, globals.length - extSstEnd);
+		for (int i = 0; i < sheetNames.size(); i++) {
+			writeSheet(i, rowsEnd);
+		}
+		writeContainer((int) position);
+	}
+
+	private byte[] serializeGlobals() {
+		byte[] globals = new byte[workbook.getSize()];
+		workbook.serialize(0, globals);
+		return globals;
+	}
+
+	/**
+	 * @return where the first record with the given id starts
+	 */
+	private static int findRecord(byte[] records, short sid) {
+		ByteBuffer walk = ByteBuffer.wrap(records).order(ByteOrder.LITTLE_ENDIAN);
+		for (int offset = 0; offset < records.length; offset += recordSize(records, offset)) {
+			if (walk.getShort(offset) == sid) {
+				return offset;
+			}
+		}
+		throw new IllegalStateException("No record 0x" + Integer.toHexString(sid) + " found in the workbook globals");
+	}
+
+	private static int recordSize(byte[] records, int offset) {
+		return 4 + ((records[offset + 2] & 0xff) | (records[offset + 3] & 0xff) << 8);
+	}
+
+	/**
+	 * Write the SST record and its CONTINUE records from the strings file. A string may be split
+	 * over a record boundary, but its length and options always go with its first character, and
+	 * the part in the next record starts with the options again.
+	 * 
+	 * @param start - position of the SST record in the Workbook stream
+	 * @param write - whether to write the records, or only to measure them
+	 * @param bucketSize - how many strings each entry of EXTSST covers
+	 * @param bucketPositions - filled in with where each bucket starts in the Workbook stream
+	 * @param bucketOffsets - filled in with where each bucket starts in its record
+	 * @return where the last record ends
+	 */
+	private long writeSharedStrings(long start, boolean write, int bucketSize, int[] bucketPositions, int[] bucketOffsets)
+			throws IOException {
+		ByteBuffer record = ByteBuffer.allocate(MAX_RECORD_DATA).order(ByteOrder.LITTLE_ENDIAN);
+		short sid = SST;
+		long recordStart = start;
+		record.putInt(labelCount).putInt(stringCount);
+		byte[] chars = new byte[MAX_STRING_LENGTH * 2];
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(stringsFile), 64 * 1024));
+		try {
+			for (int i = 0; i < stringCount; i++) {
+				int length = in.readUnsignedByte() | in.readUnsignedByte() << 8;
+				byte options = in.readByte();
+				int charSize = options == 0 ? 1 : 2;
+				int size = length * charSize;
+				in.readFully(chars, 0, size);
+				if (record.remaining() < 3 + Math.min(length, 1) * charSize) {
+					recordStart = endRecord(sid, record, recordStart, write);
+					sid = CONTINUE;
+				}
+				if (i % bucketSize == 0 && i / bucketSize < bucketPositions.length) {
+					bucketPositions[i / bucketSize] = (int) (recordStart + 4 + record.position());
+					bucketOffsets[i / bucketSize] = 4 + record.position();
+				}
+				record.putShort((short) length).put(options);
+				int offset = 0;
+				while (true) {
+					int chunk = Math.min(size - offset, record.remaining() / charSize * charSize);
+					record.put(chars, offset, chunk);
+					offset += chunk;
+					if (offset == size) {
+						break;
+					}
+					recordStart = endRecord(sid, record, recordStart, write);
+					sid = CONTINUE;
+					record.put(options);
+				}
+			}
+		} finally {
+			in.close();
+		}
+		return endRecord(sid, record, recordStart, write);
+	}
+
+	/**
+	 * @return where the next record starts
+	 */
+	private long endRecord(short sid, ByteBuffer record, long recordStart, boolean write) {
+		int length = record.position();
+		if (write) {
+			putHeader(sid, length);
+			buffer.put(record.array(), 0, length);
+		}
+		record.clear();
+		return recordStart + 4 + length;
+	}
+
+	/**
+	 * The records of a new worksheet, as POI would write them around the rows.
+	 */
+	private List<RecordBase> createSheetRecords(int index) {
+		Sheet sheet = Sheet.createSheet();
+		sheet.getWindowTwo().setSelected(index == 0);
+		sheet.getWindowTwo().setActive(index == 0);
+		return sheet.getRecords();
+	}
+
+	private int indexSize(int index) {
+		return 4 + 16 + dbcellCounts[index] * 4;
+	}
+
+	private long rowsLength(int index, long rowsEnd) {
+		return (index + 1 < sheetNames.size() ? rowsStarts[index + 1] : rowsEnd) - rowsStarts[index];
+	}
+
+	/**
+	 * Write a worksheet: its BOF record, the INDEX record locating its blocks, the rest of POI's
+	 * records up to the rows, the rows themselves out of the rows file, and the records after them.
+	 */
+	private void writeSheet(int index, long rowsEnd) throws IOException {
+		List<RecordBase> records = createSheetRecords(index);
+		long rowsStart = position + indexSize(index);
+		for (RecordBase record : records) {
+			if (record instanceof RowRecordsAggregate) {
+				break;
+			}
+			rowsStart += record.getRecordSize();
+		}
+		for (RecordBase record : records) {
+			if (record instanceof RowRecordsAggregate) {
+				copyRows(index, rowsEnd);
+				continue;
+			}
+			if (record instanceof DimensionsRecord) {
+				DimensionsRecord dimensions = (DimensionsRecord) record;
+				boolean empty = firstRows[index] < 0;
+				dimensions.setFirstRow(empty ? 0 : firstRows[index]);
+				dimensions.setLastRow(empty ? 0 : lastRows[index] + 1);
+				dimensions.setFirstCol((short) 0);
+				dimensions.setLastCol((short) (empty ? 0 : lastColumns[index] + 1));
+			}
+			putRecord(record);
+			if (record instanceof BOFRecord) {
+				putHeader(INDEX, indexSize(index) - 4);
+				buffer.putInt(0);
+				buffer.putInt(firstRows[index] < 0 ? 0 : firstRows[index]);
+				buffer.putInt(firstRows[index] < 0 ? 0 : lastRows[index] + 1);
+				buffer.putInt(0);
+				for (int i = 0; i < dbcellCounts[index]; i++) {
+					buffer.putInt((int) (rowsStart + dbcells[index][i]));
+				}
+			}
+		}
+	}
+
+	private void copyRows(int index, long rowsEnd) throws IOException {
+		flush();
+		FileChannel rows = rowsOut.getChannel();
+		long from = rowsStarts[index];
+		long length = rowsLength(index, rowsEnd);
+		long copied = 0;
+		while (copied < length) {
+			copied += rows.transferTo(from + copied, length - copied, channel);
+		}
+		position += length;
+	}
+
+	/**
+	 * Lay out the OLE2 container: the stream sectors are already in place after the header, so
+	 * the directory, the allocation tables and, for very large files, the extra sectors listing the
+	 * allocation table follow them. A stream below the cutoff is kept in the mini stream instead,
+	 * which then takes up the same sectors.
+	 * 
+	 * @param streamSize - size of the Workbook stream
+	 */
+	private void writeContainer(int streamSize) throws IOException {
+		boolean mini = streamSize < MINI_STREAM_CUTOFF;
+		int streamSectors = (streamSize + SECTOR_SIZE - 1) / SECTOR_SIZE;
+		int miniSectors = (streamSize + MINI_SECTOR_SIZE - 1) / MINI_SECTOR_SIZE;
+		// only the container is padded, the stream keeps its size
+		while (position < (long) streamSectors * SECTOR_SIZE) {
+			ensure(1);
+			buffer.put((byte) 0);
+			position++;
+		}
+		int entriesPerSector = SECTOR_SIZE / 4;
+		int directorySector = streamSectors;
+		int miniFatSector = directorySector + 1;
+		int firstFatSector = mini ? miniFatSector + 1 : directorySector + 1;
+		int fatSectors = 0;
+		int difatSectors = 0;
+		while (true) {
+			int sectors = firstFatSector + fatSectors + difatSectors;
+			int neededFat = (sectors + entriesPerSector - 1) / entriesPerSector;
+			int neededDifat = neededFat > HEADER_FAT_ENTRIES ? (neededFat - HEADER_FAT_ENTRIES + entriesPerSector - 2) / (entriesPerSector - 1) : 0;
+			if (neededFat == fatSectors && neededDifat == difatSectors) {
+				break;
+			}
+			fatSectors = neededFat;
+			difatSectors = neededDifat;
+		}
+		int firstDifatSector = firstFatSector + fatSectors;
+
+		if (mini) {
+			writeDirectoryEntry("Root Entry", 5, 1, 0, miniSectors * MINI_SECTOR_SIZE);
+		} else {
+			writeDirectoryEntry("Root Entry", 5, 1, END_OF_CHAIN, 0);
+		}
+		writeDirectoryEntry("Workbook", 2, FREE, 0, streamSize);
+		writeDirectoryEntry(null, 0, FREE, 0, 0);
+		writeDirectoryEntry(null, 0, FREE, 0, 0);
+
+		if (mini) {
+			for (int sector = 0; sector < entriesPerSector; sector++) {
+				ensure(4);
+				buffer.putInt(sector < miniSectors - 1 ? sector + 1 : sector == miniSectors - 1 ? END_OF_CHAIN : FREE);
+			}
+		}
+		for (int sector = 0; sector < fatSectors * entriesPerSector; sector++) {
+			int next;
+			if (sector < streamSectors - 1) {
+				next = sector + 1;
+			} else if (sector < firstFatSector) {
+				next = END_OF_CHAIN;
+			} else if (sector < firstDifatSector) {
+				next = FAT_SECTOR;
+			} else if (sector < firstDifatSector + difatSectors) {
+				next = DIFAT_SECTOR;
+			} else {
+				next = FREE;
+			}
+			ensure(4);
+			buffer.putInt(next);
+		}
+		for (int i = 0; i < difatSectors; i++) {
+			for (int entry = 0; entry < entriesPerSector - 1; entry++) {
+				int fat = HEADER_FAT_ENTRIES + i * (entriesPerSector - 1) + entry;
+				ensure(4);
+				buffer.putInt(fat < fatSectors ? firstFatSector + fat : FREE);
+			}
+			ensure(4);
+			buffer.putInt(i + 1 < difatSectors ? firstDifatSector + i + 1 : END_OF_CHAIN);
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(SECTOR_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.putLong(0xe11ab1a1e011cfd0L);
+		header.position(24);
+		header.putShort((short) 0x3e).putShort((short) 3).putShort((short) 0xfffe);
+		header.putShort((short) 9).putShort((short) 6);
+		header.position(44);
+		header.putInt(fatSectors).putInt(directorySector).putInt(0).putInt(MINI_STREAM_CUTOFF);
+		header.putInt(mini ? miniFatSector : END_OF_CHAIN).putInt(mini ? 1 : 0);
+		header.putInt(difatSectors > 0 ? firstDifatSector : END_OF_CHAIN).putInt(difatSectors);
+		for (int i = 0; i < HEADER_FAT_ENTRIES; i++) {
+			header.putInt(i < fatSectors ? firstFatSector + i : FREE);
+		}
+		header.flip();
+		flush();
+		long filePosition = 0;
+		while (header.hasRemaining()) {
+			filePosition += channel.write(header, filePosition);
+		}
+	}
+
+	/**
+	 * @param name - name of the entry, or <code>null</code> for an unused one
+	 * @param type - 5 for the root, 2 for a stream, 0 for unused
+	 * @param child - the only child of the entry
+	 * @param start - first sector of the stream
+	 * @param size - size of the stream
+	 */
+	private void writeDirectoryEntry(String name, int type, int child, int start, int size) {
+		ensure(128);
+		for (int i = 0; i < 32; i++) {
+			buffer.putChar(name != null && i < name.length() ? name.charAt(i) : 0);
+		}
+		buffer.putShort((short) (name == null ? 0 : (name.length() + 1) * 2));
+		buffer.put((byte) type).put((byte) (name == null ? 0 : 1));
+		buffer.putInt(FREE).putInt(FREE).putInt(child);
+		// class id, state bits and timestamps are left empty
+		for (int i = 0; i < 36; i++) {
+			buffer.put((byte) 0);
+		}
+		buffer.putInt(start).putInt(size).putInt(0);
+	}
+
+	/**
+	 * Ends the block of rows being written, so that a resumed writer starts a new one.
+	 */
+	public long[] checkpoint() throws IOException {
+		if (closed) {
+			throw new IllegalStateException("The writer of " + file + " is closed");
+		}
+		if (sheetIndex >= 0) {
+			flushBlock();
+		}
+		flush();
+		flushStrings();
+		long[] checkpoint = new long[6 + (sheetIndex + 1) * 4];
+		checkpoint[0] = position;
+		checkpoint[1] = stringsPosition;
+		checkpoint[2] = stringCount;
+		checkpoint[3] = labelCount;
+		checkpoint[4] = sheetIndex;
+		checkpoint[5] = rowNum;
+		for (int i = 0; i <= sheetIndex; i++) {
+			checkpoint[6 + i * 4] = rowsStarts[i];
+			checkpoint[7 + i * 4] = firstRows[i];
+			checkpoint[8 + i * 4] = lastRows[i];
+			checkpoint[9 + i * 4] = lastColumns[i];
+		}
+		return checkpoint;
+	}
+
+	/**
+	 * Cut the <code>.part</code> files back to a checkpoint, and pick up the worksheet being
+	 * written at the time.
+	 * 
+	 * @param recover - whether to copy the rows and strings out of the finished file first
+	 */
+	private void restore(long[] checkpoint, boolean recover) throws IOException {
+		int index = readSheets(checkpoint);
+		for (int i = 0; i <= index; i++) {
+			dbcells[i] = new int[16];
+			dbcellCounts[i] = 0;
+		}
+		if (recover) {
+			recoverStrings((int) checkpoint[2]);
+			recoverRows(checkpoint[0]);
+		}
+		truncate(checkpoint);
+		findDbcells(checkpoint[0]);
+	}
+
+	public void rewind(long[] checkpoint) throws IOException {
+		if (closed) {
+			throw new IllegalStateException("The writer of " + file + " is closed");
+		}
+		int index = readSheets(checkpoint);
+		flush();
+		flushStrings();
+		rowRecords.clear();
+		cellRecords.clear();
+		blockRows = 0;
+		truncate(checkpoint);
+		// the DBCELL records before the checkpoint are still where they were
+		long rowsLength = checkpoint[0] - rowsStarts[index];
+		while (dbcellCounts[index] > 0 && dbcells[index][dbcellCounts[index] - 1] >= rowsLength) {
+			dbcellCounts[index]--;
+		}
+		for (Iterator<Integer> indexes = stringIndexes.values().iterator(); indexes.hasNext();) {
+			if (indexes.next() >= stringCount) {
+				indexes.remove();
+			}
+		}
+	}
+
+	/**
+	 * Pick up where the rows of each worksheet started at a checkpoint, and how far they reached.
+	 * 
+	 * @return the worksheet being written at the time
+	 */
+	private int readSheets(long[] checkpoint) {
+		int index = (int) checkpoint[4];
+		if (index >= sheetNames.size() || checkpoint.length != 6 + (index + 1) * 4) {
+			throw new IllegalArgumentException("Checkpoint does not match the worksheets of " + file);
+		}
+		for (int i = 0; i <= index; i++) {
+			rowsStarts[i] = checkpoint[6 + i * 4];
+			firstRows[i] = (int) checkpoint[7 + i * 4];
+			lastRows[i] = (int) checkpoint[8 + i * 4];
+			lastColumns[i] = (int) checkpoint[9 + i * 4];
+		}
+		sheetIndex = index;
+		return index;
+	}
+
+	/**
+	 * Cut the <code>.part</code> files back to a checkpoint.
+	 */
+	private void truncate(long[] checkpoint) throws IOException {
+		long rowsEnd = checkpoint[0];
+		long stringsEnd = checkpoint[1];
+		if (rowsOut.length() < rowsEnd || stringsOut.length() < stringsEnd) {
+			throw new IOException("The rows of " + file + " are shorter than they were at the checkpoint");
+		}
+		rowsOut.setLength(rowsEnd);
+		stringsOut.setLength(stringsEnd);
+		channel.position(rowsEnd);
+		stringsOut.getChannel().position(stringsEnd);
+		position = rowsEnd;
+		stringsPosition = stringsEnd;
+		stringCount = (int) checkpoint[2];
+		labelCount = (int) checkpoint[3];
+		rowNum = (int) checkpoint[5];
+	}
+
+	/**
+	 * Copy the shared strings of a finished file back into the strings file.
+	 */
+	private void recoverStrings(int count) throws IOException {
+		InputStream inp = ExcelStreamingRowReader.openWorkbook(file);
+		try {
+			RecordFactoryInputStream records = new RecordFactoryInputStream(inp, false);
+			Record record;
+			while ((record = records.nextRecord()) != null && !(record instanceof SSTRecord)) {
+				// the shared strings are part of the globals
+			}
+			if (record == null || ((SSTRecord) record).getNumUniqueStrings() < count) {
+				throw new IOException("The strings of " + file + " are shorter than they were at the checkpoint");
+			}
+			for (int i = 0; i < count; i++) {
+				writeString(((SSTRecord) record).getString(i).getString());
+			}
+			flushStrings();
+		} finally {
+			inp.close();
+		}
+	}
+
+	/**
+	 * Copy the rows of a finished file back into the rows file. They are the records that follow
+	 * the DIMENSIONS record of each worksheet.
+	 */
+	private void recoverRows(long rowsEnd) throws IOException {
+		DataInputStream in = new DataInputStream(ExcelStreamingRowReader.openWorkbook(file));
+		try {
+			byte[] data = new byte[0xffff];
+			boolean inRows = false;
+			while (position < rowsEnd) {
+				int sid;
+				int length;
+				try {
+					sid = in.readUnsignedByte() | in.readUnsignedByte() << 8;
+					length = in.readUnsignedByte() | in.readUnsignedByte() << 8;
+				} catch (EOFException e) {
+					throw new IOException("The rows of " + file + " are shorter than they were at the checkpoint");
+				}
+				in.readFully(data, 0, length);
+				if (sid == DIMENSIONS) {
+					inRows = true;
+				} else if (inRows && (sid == ROW || sid == LABEL_SST || sid == NUMBER || sid == BOOLERR || sid == DBCELL)) {
+					putHeader((short) sid, length);
+					buffer.put(data, 0, length);
+				} else {
+					inRows = false;
+				}
+			}
+			flush();
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Find the DBCELL records in the rows file, to list them again in the INDEX records.
+	 */
+	private void findDbcells(long rowsEnd) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(rowsFile), 64 * 1024));
+		try {
+			int sheet = 0;
+			for (long offset = 0; offset < rowsEnd;) {
+				int sid = in.readUnsignedByte() | in.readUnsignedByte() << 8;
+				int length = in.readUnsignedByte() | in.readUnsignedByte() << 8;
+				if (sid == DBCELL) {
+					while (sheet < sheetIndex && rowsStarts[sheet + 1] <= offset) {
+						sheet++;
+					}
+					addDbcell(sheet, (int) (offset - rowsStarts[sheet]));
+				}
+				in.skipBytes(length);
+				offset += 4 + length;
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Release and delete the <code>.part</code> files, such as after an item could not be written.
+	 * The target is left as it was.
+	 */
+	public void abort() {
+		closed = true;
+		try {
+			rowsOut.close();
+		} catch (IOException e) {
+			// the files are deleted anyway
+		}
+		try {
+			stringsOut.close();
+		} catch (IOException e) {
+			// as above
+		}
+		rowsFile.delete();
+		stringsFile.delete();
+		assemblyFile.delete();
+	}
+
+}
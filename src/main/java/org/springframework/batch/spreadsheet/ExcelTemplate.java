@@ -16,20 +16,22 @@
 
 package org.springframework.batch.spreadsheet;
 
-import java.awt.Point;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
-import org.apache.poi.hssf.usermodel.HSSFCell;
-import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 
 /**
  * This utility class provides easy access to processing Microsoft Office Excel worksheets. Code using this
@@ -51,6 +53,46 @@ public class ExcelTemplate {
 	 */
 	private boolean skipFirstRowDefault;
 
+	/**
+	 * Option to decode the workbook record by record instead of building an HSSFWorkbook first.
+	 */
+	private boolean streaming;
+
+	/**
+	 * Option to read the file through a memory mapping instead of a stream.
+	 */
+	private boolean memoryMapped;
+
+	/**
+	 * Columns to decode in streaming mode. Standard policy is all of them.
+	 */
+	private ColumnProjection columnProjection;
+
+	/**
+	 * Test that rows must pass before they are mapped. Standard policy is to map every row.
+	 */
+	private RowFilter rowFilter;
+
+	/**
+	 * Strategy for processing several worksheets at once. Standard policy is one after the other.
+	 */
+	private TaskExecutor taskExecutor = new SyncTaskExecutor();
+
+	/**
+	 * Parsed workbooks to share between reads. Standard policy is to parse the file every time.
+	 */
+	private WorkbookCache workbookCache;
+
+	/**
+	 * Strategy for collecting mapped rows. Standard policy is an ArrayList on the heap.
+	 */
+	private ResultListFactory resultListFactory = new DefaultResultListFactory();
+
+	/**
+	 * Receives timings and counts of each read. Standard policy is to observe nothing.
+	 */
+	private TemplateObserver observer;
+
 	/**
 	 * Standard policy is to NOT skip the first row of a worksheet.
 	 */
@@ -91,52 +133,694 @@ public class ExcelTemplate {
 		return onEachRow(worksheetName, excelCallback, skipFirstRowDefault, errorHandler);
 	}
 
+	/**
+	 * Process each row of the worksheet.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param worksheetName - name of the worksheet to process
+	 * @param excelCallback - callback defining how to process a row of data
+	 * @param skipFirstRow
+	 * @param errorHandler
+	 * @return list of T objects
+	 */
+	public <T> List<T> onEachRow(String worksheetName, ExcelRowCallback<T> excelCallback, boolean skipFirstRow, ExcelTemplateErrorHandler<T> errorHandler) {
+		return onEachRow(worksheetName, excelCallback, skipFirstRow, errorHandler, RowRange.all());
+	}
+
+	/**
+	 * Process a range of rows of the worksheet using the default error handler.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param worksheetName - name of the worksheet to process
+	 * @param excelCallback - callback defining how to process a row of data
+	 * @param rowRange - the rows to process
+	 * @return list of T objects
+	 */
+	public <T> List<T> onEachRow(String worksheetName, ExcelRowCallback<T> excelCallback, RowRange rowRange) {
+		return onEachRow(worksheetName, excelCallback, skipFirstRowDefault, new DefaultExcelTemplateErrorHandler<T>(), rowRange);
+	}
+
 	/**
 	 * This is the work horse for row-level worksheet processing.
 	 * <p>
-	 * 1) Read data from file.<br/>
+	 * 1) Open a reader on the specific worksheet, positioned at the start of the range.<br/>
 	 * 3) Create an empty List.<br/>
-	 * 4) Iterate over the specific worksheet, building up the list.<br/>
+	 * 4) Pull rows from the reader, building up the list, until the range runs out.<br/>
 	 * 5) Return the list.
+	 * <p>
+	 * In streaming mode, the rows before the range are passed over without decoding their cells,
+	 * and the rest of the file is never read once the range runs out.
 	 * 
 	 * @param <T> - type of the object to be returned
 	 * @param worksheetName - name of the worksheet to process
 	 * @param excelCallback - callback defining how to process a row of data
 	 * @param skipFirstRow
 	 * @param errorHandler
+	 * @param rowRange - the rows to process
 	 * @return list of T objects
 	 */
-	public <T> List<T> onEachRow(String worksheetName, ExcelRowCallback<T> excelCallback, boolean skipFirstRow, ExcelTemplateErrorHandler<T> errorHandler) {
+	public <T> List<T> onEachRow(String worksheetName, ExcelRowCallback<T> excelCallback, boolean skipFirstRow, ExcelTemplateErrorHandler<T> errorHandler,
+			RowRange rowRange) {
+		SheetObservation observation = SheetObservation.start(observer, file, worksheetName);
+		List<T> results = resultListFactory.newResultList();
+		boolean completed = false;
 		try {
-			InputStream inp = new FileInputStream(file);
-			HSSFWorkbook wb = new HSSFWorkbook(new POIFSFileSystem(inp));
+			ExcelRowReader reader = openReader(worksheetName, skipFirstRow);
+			reader.setStartRow(rowRange.getStartRow());
+			try {
+				if (skipFirstRow) {
+					excelCallback = announceHeaders(excelCallback, reader.read());
+				}
+				int count = 0;
+				Row row;
+				while (count < rowRange.getLimit() && (row = reader.read()) != null && !rowRange.isPastEnd(row.getRowNum())) {
+					processRow(excelCallback, errorHandler, results, row, observation);
+					count++;
+				}
 
-			List<T> results = new ArrayList<T>();
+				completed = true;
+				return results;
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			if (observation != null) {
+				observation.finish(results.size());
+			}
+			if (!completed) {
+				ResultLists.discard(results);
+			}
+		}
+	}
+
+	/**
+	 * Hand the rows of the worksheet to a callback in chunks.
+	 * 
+	 * @param worksheetName - name of the worksheet to process
+	 * @param chunkSize - maximum number of rows per chunk
+	 * @param chunkCallback - callback defining how to process a chunk of rows
+	 * @return the number of rows processed
+	 */
+	public int onEachChunk(String worksheetName, int chunkSize, ExcelRowChunkCallback chunkCallback) {
+		return onEachChunk(worksheetName, chunkSize, chunkCallback, skipFirstRowDefault);
+	}
 
+	/**
+	 * Hand the rows of the worksheet to a callback in chunks of <code>chunkSize</code> rows, the
+	 * last one possibly smaller. Each chunk is delivered as soon as it fills, so no more than one
+	 * chunk of rows is held at a time. Exceptions thrown by the callback are not handled, since
+	 * they concern a whole chunk rather than a row.
+	 * 
+	 * @param worksheetName - name of the worksheet to process
+	 * @param chunkSize - maximum number of rows per chunk
+	 * @param chunkCallback - callback defining how to process a chunk of rows
+	 * @param skipFirstRow
+	 * @return the number of rows processed
+	 */
+	public int onEachChunk(String worksheetName, int chunkSize, ExcelRowChunkCallback chunkCallback, boolean skipFirstRow) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be at least 1, but was " + chunkSize);
+		}
+		try {
+			ExcelRowReader reader = openReader(worksheetName, skipFirstRow);
+			try {
+				List<Row> chunk = new ArrayList<Row>(chunkSize);
+				int count = 0;
+
+				if (skipFirstRow) {
+					announceHeaders(chunkCallback, reader.read());
+				}
+				Row row;
+				while ((row = reader.read()) != null) {
+					chunk.add(row);
+					count++;
+					if (chunk.size() == chunkSize) {
+						chunkCallback.processChunk(chunk);
+						chunk.clear();
+					}
+				}
+				if (!chunk.isEmpty()) {
+					chunkCallback.processChunk(chunk);
+				}
+
+				return count;
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Lazily map each row of the worksheet using the default error handler.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param worksheetName - name of the worksheet to process
+	 * @param excelCallback - callback defining how to process a row of data
+	 * @return iterator over the T objects, which must be closed if not read to the end
+	 */
+	public <T> CloseableRowIterator<T> rowIterator(String worksheetName, ExcelRowCallback<T> excelCallback) {
+		return rowIterator(worksheetName, excelCallback, skipFirstRowDefault, new DefaultExcelTemplateErrorHandler<T>());
+	}
+
+	/**
+	 * Lazily map each row of the worksheet. Nothing is collected into a list: each call to
+	 * <code>next()</code> pulls one more row from the worksheet and runs it through the callback,
+	 * and rows mapped to <code>null</code> are passed over. The file stays open until the
+	 * iterator is exhausted or closed.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param worksheetName - name of the worksheet to process
+	 * @param excelCallback - callback defining how to process a row of data
+	 * @param skipFirstRow
+	 * @param errorHandler
+	 * @return iterator over the T objects, which must be closed if not read to the end
+	 */
+	public <T> CloseableRowIterator<T> rowIterator(String worksheetName, final ExcelRowCallback<T> excelCallback, boolean skipFirstRow,
+			final ExcelTemplateErrorHandler<T> errorHandler) {
+		final SheetObservation observation = SheetObservation.start(observer, file, worksheetName);
+		boolean opened = false;
+		try {
+			final ExcelRowReader reader = openReader(worksheetName, skipFirstRow);
+			ExcelRowCallback<T> callback = excelCallback;
 			if (skipFirstRow) {
-				boolean firstRow = true;
-				for (Row row : wb.getSheet(worksheetName)) {
-					if (firstRow) {
-						firstRow = false;
-						continue;
+				try {
+					callback = announceHeaders(excelCallback, reader.read());
+				} catch (IOException e) {
+					reader.close();
+					throw e;
+				}
+			}
+			final ExcelRowCallback<T> rowCallback = callback;
+			CloseableRowIterator<T> iterator = new AbstractRowIterator<T>() {
+				private int results;
+				protected T readNext() throws IOException {
+					Row row;
+					while ((row = reader.read()) != null) {
+						T rowResult = mapRow(rowCallback, errorHandler, row, observation);
+						if (rowResult != null) {
+							results++;
+							return rowResult;
+						}
+					}
+					return null;
+				}
+				protected void release() {
+					reader.close();
+					if (observation != null) {
+						observation.finish(results);
 					}
+				}
+			};
+			opened = true;
+			return iterator;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			// once the iterator is handed out, closing it finishes the observation
+			if (!opened && observation != null) {
+				observation.finish(0);
+			}
+		}
+	}
+
+	/**
+	 * Process each row of the worksheet using the default error handler, mapping rows in parallel.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param worksheetName - name of the worksheet to process
+	 * @param excelCallback - callback defining how to process a row of data
+	 * @param executor - runs the callback, such as a thread pool
+	 * @return list of T objects, in row order
+	 */
+	public <T> List<T> onEachRow(String worksheetName, ExcelRowCallback<T> excelCallback, Executor executor) {
+		return onEachRow(worksheetName, excelCallback, skipFirstRowDefault, new DefaultExcelTemplateErrorHandler<T>(), executor);
+	}
+
+	/**
+	 * Process each row of the worksheet, handing the callback to an executor. The worksheet is
+	 * still read on the calling thread, but the rows are mapped concurrently, so the callback
+	 * (and error handler) must be thread safe. A bounded number of rows are in flight at once,
+	 * and the results come back in row order, as with the sequential variant.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param worksheetName - name of the worksheet to process
+	 * @param excelCallback - callback defining how to process a row of data
+	 * @param skipFirstRow
+	 * @param errorHandler - invoked on the worker thread, with the row that failed
+	 * @param executor - runs the callback, such as a thread pool
+	 * @return list of T objects, in row order
+	 */
+	public <T> List<T> onEachRow(String worksheetName, final ExcelRowCallback<T> excelCallback, boolean skipFirstRow,
+			final ExcelTemplateErrorHandler<T> errorHandler, Executor executor) {
+		final SheetObservation observation = SheetObservation.start(observer, file, worksheetName);
+		List<T> results = resultListFactory.newResultList();
+		boolean completed = false;
+		try {
+			ExcelRowReader reader = openReader(worksheetName, skipFirstRow);
+			TaskSupport.OrderedWindow<T> window = new TaskSupport.OrderedWindow<T>(executor, results);
+			try {
+				final ExcelRowCallback<T> rowCallback = skipFirstRow ? announceHeaders(excelCallback, reader.read()) : excelCallback;
+				Row row;
+				while ((row = reader.read()) != null) {
+					final Row current = row;
+					window.submit(new Callable<T>() {
+						public T call() {
+							return mapRow(rowCallback, errorHandler, current, observation);
+						}
+					});
+				}
+				window.finish();
+				completed = true;
+				return results;
+			} finally {
+				window.cancel();
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			if (observation != null) {
+				observation.finish(results.size());
+			}
+			if (!completed) {
+				ResultLists.discard(results);
+			}
+		}
+	}
 
-					processRow(excelCallback, errorHandler, results, row);
+	/**
+	 * Process each row of several worksheets, reading the file only once, using the default
+	 * error handler.
+	 * 
+	 * @param excelCallbacks - callback defining how to process a row of data, keyed by worksheet name
+	 * @return list of objects for each worksheet, keyed by worksheet name
+	 */
+	public Map<String, List<?>> onEachSheet(Map<String, ? extends ExcelRowCallback<?>> excelCallbacks) {
+		return onEachSheet(excelCallbacks, skipFirstRowDefault);
+	}
+
+	/**
+	 * This is the work horse for processing several worksheets of the same file.
+	 * <p>
+	 * In the default mode, the HSSFWorkbook is built once, and then each worksheet is handed to
+	 * the task executor, so with an asynchronous executor the worksheets are mapped in parallel.
+	 * In streaming mode, all the worksheets are decoded in a single pass over the record stream,
+	 * and their rows are mapped as they go by.
+	 * 
+	 * @param excelCallbacks - callback defining how to process a row of data, keyed by worksheet name
+	 * @param skipFirstRow - whether or not to skip the first row of every worksheet
+	 * @return list of objects for each worksheet, keyed by worksheet name
+	 */
+	public Map<String, List<?>> onEachSheet(Map<String, ? extends ExcelRowCallback<?>> excelCallbacks, final boolean skipFirstRow) {
+		final Map<String, SheetJob<?>> jobs = new LinkedHashMap<String, SheetJob<?>>();
+		for (Map.Entry<String, ? extends ExcelRowCallback<?>> entry : excelCallbacks.entrySet()) {
+			jobs.put(entry.getKey(), newSheetJob(entry.getKey(), entry.getValue()));
+		}
+
+		boolean completed = false;
+		try {
+			if (streaming) {
+				long start = System.nanoTime();
+				ExcelStreamingRowReader reader = new ExcelStreamingRowReader(file, jobs.keySet());
+				SheetObservation.fileOpened(observer, file, start);
+				reader.setColumnProjection(columnProjection);
+				reader.setRowFilter(rowFilter, skipFirstRow);
+				try {
+					String previousWorksheet = null;
+					Row row;
+					while ((row = reader.read()) != null) {
+						String worksheetName = reader.getWorksheetName();
+						boolean firstRow = !worksheetName.equals(previousWorksheet);
+						previousWorksheet = worksheetName;
+						if (firstRow && skipFirstRow) {
+							jobs.get(worksheetName).header(row);
+						} else {
+							jobs.get(worksheetName).process(row);
+						}
+					}
+				} finally {
+					reader.close();
 				}
 			} else {
-				for (Row row : wb.getSheet(worksheetName)) {
-					processRow(excelCallback, errorHandler, results, row);
+				long start = System.nanoTime();
+				final HSSFWorkbook wb = loadWorkbook();
+				SheetObservation.fileOpened(observer, file, start);
+				List<Runnable> tasks = new ArrayList<Runnable>();
+				for (final Map.Entry<String, SheetJob<?>> entry : jobs.entrySet()) {
+					final ExcelWorkbookRowReader reader = new ExcelWorkbookRowReader(wb, entry.getKey());
+					reader.setRowFilter(rowFilter, skipFirstRow);
+					tasks.add(new Runnable() {
+						public void run() {
+							if (skipFirstRow) {
+								entry.getValue().header(reader.read());
+							}
+							Row row;
+							while ((row = reader.read()) != null) {
+								entry.getValue().process(row);
+							}
+						}
+					});
 				}
+				TaskSupport.runAll(taskExecutor, tasks);
 			}
+			completed = true;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			for (SheetJob<?> job : jobs.values()) {
+				job.finish(completed);
+			}
+		}
+
+		Map<String, List<?>> results = new LinkedHashMap<String, List<?>>();
+		for (Map.Entry<String, SheetJob<?>> entry : jobs.entrySet()) {
+			results.put(entry.getKey(), entry.getValue().results);
+		}
+		return results;
+	}
+
+	private <T> SheetJob<T> newSheetJob(String worksheetName, ExcelRowCallback<T> excelCallback) {
+		return new SheetJob<T>(worksheetName, excelCallback);
+	}
 
-			return results;
-		} catch (FileNotFoundException e) {
+	/**
+	 * The callback, error handler and results of one worksheet, when processing several at once.
+	 */
+	private class SheetJob<T> {
+
+		private ExcelRowCallback<T> excelCallback;
+
+		private final ExcelTemplateErrorHandler<T> errorHandler = new DefaultExcelTemplateErrorHandler<T>();
+
+		private final List<T> results = resultListFactory.newResultList();
+
+		private final SheetObservation observation;
+
+		public SheetJob(String worksheetName, ExcelRowCallback<T> excelCallback) {
+			this.excelCallback = excelCallback;
+			this.observation = SheetObservation.start(observer, file, worksheetName);
+		}
+
+		public void header(Row row) {
+			excelCallback = announceHeaders(excelCallback, row);
+		}
+
+		public void process(Row row) {
+			processRow(excelCallback, errorHandler, results, row, observation);
+		}
+
+		public void finish(boolean completed) {
+			if (observation != null) {
+				observation.finish(results.size());
+			}
+			if (!completed) {
+				ResultLists.discard(results);
+			}
+		}
+
+	}
+
+	/**
+	 * Read the column headers from the first row of the worksheet.
+	 * 
+	 * @param worksheetName - name of the worksheet
+	 * @return the column headers, empty if the worksheet has no rows
+	 */
+	public ColumnHeaders readColumnHeaders(String worksheetName) {
+		return findColumnHeaders(worksheetName, null);
+	}
+
+	/**
+	 * Find the header row of a worksheet that does not start with it, such as one with a title
+	 * above the table, by looking for a known column name. Rows are read only as far as the
+	 * header row.
+	 * 
+	 * @param worksheetName - name of the worksheet
+	 * @param headerName - name of one of the columns, or <code>null</code> to take the first row
+	 * @return the column headers
+	 * @throws IllegalArgumentException if no row holds the column name
+	 */
+	public ColumnHeaders findColumnHeaders(String worksheetName, String headerName) {
+		try {
+			ExcelRowReader reader = streaming ? new ExcelStreamingRowReader(file, worksheetName)
+					: new ExcelWorkbookRowReader(loadWorkbook(), worksheetName);
+			try {
+				Row row;
+				while ((row = reader.read()) != null) {
+					ColumnHeaders headers = columnHeadersOf(row);
+					if (headerName == null || headers.contains(headerName)) {
+						return headers;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		if (headerName == null) {
+			return ColumnHeaders.of();
+		}
+		throw new IllegalArgumentException("Could not find a header row with column '" + headerName + "' in worksheet '" + worksheetName + "'");
+	}
+
+	/**
+	 * Hand the column headers to the callback, if it asks for them.
+	 * 
+	 * @param callback - any of the callbacks
+	 * @param header - the header row, or <code>null</code> if the worksheet is empty
+	 * @return the callback to map the rest of the worksheet with
+	 */
+	static <C> C announceHeaders(C callback, Row header) {
+		if (header != null && (callback instanceof ColumnHeadersAware || callback instanceof ColumnHeadersBinding)) {
+			return columnHeadersOf(header).announceTo(callback);
+		}
+		return callback;
+	}
+
+	static ColumnHeaders columnHeadersOf(Row header) {
+		String[] names = new String[Math.max(header.getLastCellNum(), 0)];
+		for (Iterator<Cell> cells = header.cellIterator(); cells.hasNext();) {
+			Cell cell = cells.next();
+			names[cell.getColumnIndex()] = ExcelWorkbookRowReader.valueOf(cell);
+		}
+		return ColumnHeaders.of(header.getRowNum(), names);
+	}
+
+	/**
+	 * Index the values of every cell of the worksheet.
+	 * 
+	 * @param worksheetName - name of the worksheet to index
+	 * @return an index of exact values
+	 */
+	public CellIndex indexCells(String worksheetName) {
+		return indexCells(worksheetName, RowRange.all(), false);
+	}
+
+	/**
+	 * Build an index from the values of the cells of a worksheet to their coordinates, reading the
+	 * rows only once. Values are the text of the cells, with the cached result for formulas. The
+	 * column projection and row filter are not applied, so that every cell can be found.
+	 * 
+	 * @param worksheetName - name of the worksheet to index
+	 * @param rowRange - the rows to index, such as the first few when looking for headers
+	 * @param ignoreCase - whether to support {@link CellIndex#findIgnoreCase(String)} as well
+	 * @return the index
+	 */
+	public CellIndex indexCells(String worksheetName, RowRange rowRange, boolean ignoreCase) {
+		SheetObservation observation = SheetObservation.start(observer, file, worksheetName);
+		int count = 0;
+		try {
+			long start = System.nanoTime();
+			ExcelRowReader reader = streaming ? new ExcelStreamingRowReader(file, worksheetName)
+					: new ExcelWorkbookRowReader(loadWorkbook(), worksheetName);
+			SheetObservation.fileOpened(observer, file, start);
+			reader.setStartRow(rowRange.getStartRow());
+			try {
+				CellIndex index = new CellIndex(ignoreCase);
+				Row row;
+				while (count < rowRange.getLimit() && (row = reader.read()) != null && !rowRange.isPastEnd(row.getRowNum())) {
+					long rowStart = observation == null ? 0 : System.nanoTime();
+					for (Iterator<Cell> cells = row.cellIterator(); cells.hasNext();) {
+						Cell cell = cells.next();
+						index.add(ExcelWorkbookRowReader.valueOf(cell), row.getRowNum(), cell.getColumnIndex());
+					}
+					if (observation != null) {
+						observation.rowMapped(rowStart);
+					}
+					count++;
+				}
+				return index;
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
 			throw new RuntimeException(e);
+		} finally {
+			if (observation != null) {
+				observation.finish(count);
+			}
+		}
+	}
+
+	/**
+	 * Load a whole worksheet into a columnar {@link SheetData}, using the default for skipping the first row.
+	 * 
+	 * @param worksheetName - name of the worksheet to load
+	 * @return the cells of the worksheet
+	 */
+	public SheetData loadSheetData(String worksheetName) {
+		return loadSheetData(worksheetName, skipFirstRowDefault, RowRange.all());
+	}
+
+	/**
+	 * Load the rows of a worksheet into a columnar {@link SheetData}, which holds numbers in
+	 * primitive arrays and text in per-column dictionaries rather than keeping row and cell objects
+	 * around. The column projection and row filter apply as they do to the row callbacks.
+	 * 
+	 * @param worksheetName - name of the worksheet to load
+	 * @param skipFirstRow - whether to keep the first row as the {@link ColumnHeaders} of the data instead
+	 * @param rowRange - the rows to load
+	 * @return the cells of the worksheet
+	 */
+	public SheetData loadSheetData(String worksheetName, boolean skipFirstRow, RowRange rowRange) {
+		SheetObservation observation = SheetObservation.start(observer, file, worksheetName);
+		int count = 0;
+		try {
+			ExcelRowReader reader = openReader(worksheetName, skipFirstRow);
+			reader.setStartRow(rowRange.getStartRow());
+			try {
+				SheetData.Builder builder = new SheetData.Builder();
+				if (skipFirstRow) {
+					Row header = reader.read();
+					if (header != null) {
+						builder.setColumnHeaders(columnHeadersOf(header));
+					}
+				}
+				Row row;
+				while (count < rowRange.getLimit() && (row = reader.read()) != null && !rowRange.isPastEnd(row.getRowNum())) {
+					long rowStart = observation == null ? 0 : System.nanoTime();
+					builder.startRow(row.getRowNum());
+					for (Iterator<Cell> cells = row.cellIterator(); cells.hasNext();) {
+						addCell(builder, cells.next());
+					}
+					if (observation != null) {
+						observation.rowMapped(rowStart);
+					}
+					count++;
+				}
+				return builder.build();
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			if (observation != null) {
+				observation.finish(count);
+			}
+		}
+	}
+
+	/**
+	 * Write a worksheet of items into the file of this template, replacing the file.
+	 * 
+	 * @param worksheetName - name of the only worksheet of the new file
+	 * @param items - one row each
+	 * @param rowWriterCallback - fills in the cells for each item
+	 * @return the number of rows written
+	 */
+	public <T> int writeRows(String worksheetName, Iterable<T> items, RowWriterCallback<T> rowWriterCallback) {
+		return writeRows(worksheetName, null, items, rowWriterCallback);
+	}
+
+	/**
+	 * Write a worksheet of items into the file of this template, replacing the file. Rows are
+	 * encoded as they are produced, so memory use does not grow with the number of items, which
+	 * may come from a lazy {@link Iterable}. A string cell holds at most 32767 characters, and a
+	 * worksheet at most 65536 rows. The new file only replaces the old one once it is complete, so
+	 * if an item cannot be written, the old file is left as it was.
+	 * 
+	 * @param worksheetName - name of the only worksheet of the new file
+	 * @param headers - names to write in the first row, or <code>null</code> for none
+	 * @param items - one row each
+	 * @param rowWriterCallback - fills in the cells for each item
+	 * @return the number of rows written, not counting the headers
+	 */
+	public <T> int writeRows(String worksheetName, ColumnHeaders headers, Iterable<T> items, RowWriterCallback<T> rowWriterCallback) {
+		try {
+			int count = new ExcelStreamingWriter(file, Collections.singletonList(worksheetName)).writeSheet(worksheetName, headers, items,
+					rowWriterCallback);
+			if (workbookCache != null) {
+				workbookCache.invalidate(file);
+			}
+			return count;
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
+	/**
+	 * Numbers, including dates and the cached results of numeric formulas, go into the numeric
+	 * column. Anything else is kept as the text {@link #indexCells(String)} would see.
+	 */
+	private static void addCell(SheetData.Builder builder, Cell cell) {
+		int type = cell.getCellType();
+		if (type == Cell.CELL_TYPE_FORMULA) {
+			type = cell.getCachedFormulaResultType();
+		}
+		if (type == Cell.CELL_TYPE_NUMERIC) {
+			builder.addNumber(cell.getColumnIndex(), cell.getNumericCellValue());
+		} else if (type != Cell.CELL_TYPE_BLANK) {
+			builder.addString(cell.getColumnIndex(), ExcelWorkbookRowReader.valueOf(cell));
+		}
+	}
+
+	/**
+	 * Build the HSSFWorkbook of the file, or fetch it from the workbook cache.
+	 * 
+	 * @return the workbook
+	 * @throws IOException
+	 */
+	private HSSFWorkbook loadWorkbook() throws IOException {
+		if (workbookCache == null) {
+			return ExcelWorkbookRowReader.load(file, memoryMapped);
+		}
+		return workbookCache.get(file, HSSFWorkbook.class, new WorkbookCache.Loader<HSSFWorkbook>() {
+			public HSSFWorkbook load(File file) throws IOException {
+				return ExcelWorkbookRowReader.load(file, memoryMapped);
+			}
+		});
+	}
+
+	/**
+	 * Open a reader on one worksheet, either from a complete HSSFWorkbook, or straight from the
+	 * record stream when in streaming mode.
+	 * 
+	 * @param worksheetName - name of the worksheet to process
+	 * @param skipFirstRow - whether the first row will be skipped, and so is exempt from the row filter
+	 * @return a reader positioned before the first row of the worksheet
+	 * @throws IOException
+	 */
+	ExcelRowReader openReader(String worksheetName, boolean skipFirstRow) throws IOException {
+		long start = System.nanoTime();
+		ExcelRowReader reader;
+		if (streaming) {
+			ExcelStreamingRowReader streamingReader = new ExcelStreamingRowReader(file, worksheetName);
+			streamingReader.setColumnProjection(columnProjection);
+			reader = streamingReader;
+		} else {
+			reader = new ExcelWorkbookRowReader(loadWorkbook(), worksheetName);
+		}
+		reader.setRowFilter(rowFilter, skipFirstRow);
+		SheetObservation.fileOpened(observer, file, start);
+		return reader;
+	}
+
 	/**
 	 * This utility method is used to invoke the row-level callback. It also traps any
 	 * runtime exceptions, and runs them through the error handler.
@@ -148,20 +832,42 @@ public class ExcelTemplate {
 	 * @param errorHandler
 	 * @param results
 	 * @param row
+	 * @param observation - times the callback, or <code>null</code> if there is no observer
 	 */
 	private <T> void processRow(ExcelRowCallback<T> excelCallback,
-			ExcelTemplateErrorHandler<T> errorHandler, List<T> results, Row row) {
-		T rowResult = null;
-		try {
-			rowResult = excelCallback.mapRow(row);
-		} catch (RuntimeException e) {
-			rowResult = errorHandler.handleException(row, e);
-		}
+			ExcelTemplateErrorHandler<T> errorHandler, List<T> results, Row row, SheetObservation observation) {
+		T rowResult = mapRow(excelCallback, errorHandler, row, observation);
 		if (rowResult != null) {
 			results.add(rowResult);
 		}
 	}
 
+	/**
+	 * Invoke the row-level callback, running any runtime exception through the error handler.
+	 * 
+	 * @param <T> - type of the object to be returned
+	 * @param excelCallback - callback defining how to process a row of data
+	 * @param errorHandler
+	 * @param row
+	 * @param observation - times the callback, or <code>null</code> if there is no observer
+	 * @return the mapped row, possibly <code>null</code>
+	 */
+	private <T> T mapRow(ExcelRowCallback<T> excelCallback, ExcelTemplateErrorHandler<T> errorHandler, Row row, SheetObservation observation) {
+		long start = observation == null ? 0 : System.nanoTime();
+		try {
+			return excelCallback.mapRow(row);
+		} catch (RuntimeException e) {
+			if (observation != null) {
+				observation.rowFailed(e);
+			}
+			return errorHandler.handleException(row, e);
+		} finally {
+			if (observation != null) {
+				observation.rowMapped(start);
+			}
+		}
+	}
+
 	public boolean isSkipFirstRowDefault() {
 		return skipFirstRowDefault;
 	}
@@ -169,85 +875,112 @@ public class ExcelTemplate {
 	public void setSkipFirstRowDefault(boolean skipFirstRowDefault) {
 		this.skipFirstRowDefault = skipFirstRowDefault;
 	}
-	
+
+	public boolean isStreaming() {
+		return streaming;
+	}
+
 	/**
-	 * The following block includes a search algorithm, where you can scan a worksheet for certain expression, and harvest
-	 * the cell its found in.
-	 * TODO: Write some tests for this!
+	 * In streaming mode, rows are decoded straight from the workbook's record stream and handed to
+	 * the callback as they go by, so memory use does not grow with the size of the worksheet. The
+	 * rows are read-only, and {@link Row#getSheet()} returns <code>null</code>. Formula text is not
+	 * available, but cached formula results are, and cell styles only carry their number format, so
+	 * that {@link org.apache.poi.hssf.usermodel.HSSFDateUtil#isCellDateFormatted(Cell)} still works.
 	 */
-	private enum Direction {
-		GOING_UP,
-		GOING_DOWN,
-		TRANSITION_DOWN,
-		TRANSITION_ACROSS;
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	public boolean isMemoryMapped() {
+		return memoryMapped;
 	}
 
 	/**
-	 * This function uses a search algorithm to find a cell, and return the coordinates of
-	 * that cell. It uses a 2-dimensional search algorithm, scanning (0,0), (1,0), (0,1),
-	 * (0,2), (1,1), (2,0), (3,0), (2,1), (1,2), (0,3)...
-	 * 
-	 *  It is limited by a finite number of steps so it won't run forever. There is
-	 *  a default, and user can increase the default, but there is still a limit.
-	 *  
-	 *  TODO: Test this.
-	 *  
-	 * @param sheet
-	 * @param keyPhrase
-	 * @return Point(x=column, y=row)
+	 * Build the HSSFWorkbook from a memory mapping of the file, which saves reading it through a
+	 * stream, and lets repeated reads of the same file be served from the page cache. Streaming
+	 * mode always reads the sectors of the Workbook stream straight out of a mapping, with no copy
+	 * of the file on the heap, so this setting does not apply to it.
 	 */
-	private Point searchForCell(HSSFSheet sheet, String keyPhrase) {
-		return searchForCell(sheet, keyPhrase, 1000);
+	public void setMemoryMapped(boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+	}
+
+	public ColumnProjection getColumnProjection() {
+		return columnProjection;
 	}
 
 	/**
-	 * This is the core method, and used when the user needs to override the number of steps
-	 * to take in searching for the cell.
-	 * 
-	 * TODO: Test this.
-	 * 
-	 * @param sheet
-	 * @param keyPhrase
-	 * @param maxSteps
-	 * @return
+	 * In streaming mode, only decode the cells of some columns. The cells of the other columns
+	 * are skipped as the records go by, and read as missing. It has no effect outside streaming
+	 * mode, where the HSSFWorkbook has decoded every cell by the time a row is handed out.
 	 */
-	private Point searchForCell(HSSFSheet sheet, String keyPhrase, int maxSteps) {
-		int row = 0;
-		int column = 0;
-		Direction parseDirection = Direction.TRANSITION_DOWN;
-		int steps = 0;
-		while (steps < maxSteps) {
-			HSSFCell cell = sheet.getRow(row).getCell(column);
-			if (cell != null) {
-				if (cell.toString().equals(keyPhrase)) {
-					return new Point(column, row);
-				}
-			}
-			switch (parseDirection) {
-				case GOING_DOWN:
-					row++; column--;
-					steps++;
-					if (column == 0) parseDirection = Direction.TRANSITION_DOWN;
-					break;
-				case GOING_UP:
-					row--; column++;
-					steps++;
-					if (row == 0) parseDirection = Direction.TRANSITION_ACROSS;
-					break;
-				case TRANSITION_DOWN:
-					row++;
-					steps++;
-					parseDirection = Direction.GOING_UP;
-					break;
-				case TRANSITION_ACROSS:
-					column++;
-					steps++;
-					parseDirection = Direction.GOING_DOWN;
-					break;
-			}
-		}
-		throw new RuntimeException("Could not find '" + keyPhrase + "' in less than " + maxSteps + " steps.");
+	public void setColumnProjection(ColumnProjection columnProjection) {
+		this.columnProjection = columnProjection;
+	}
+
+	public RowFilter getRowFilter() {
+		return rowFilter;
+	}
+
+	/**
+	 * Only map the rows whose key column passes a filter. In streaming mode, the filter is
+	 * applied as the records go by, and the remaining cells of a rejected row are never decoded.
+	 * Otherwise, it is applied before the callback is invoked.
+	 */
+	public void setRowFilter(RowFilter rowFilter) {
+		this.rowFilter = rowFilter;
 	}
 
+	public TaskExecutor getTaskExecutor() {
+		return taskExecutor;
+	}
+
+	/**
+	 * Set the executor that processes the worksheets of {@link #onEachSheet(Map)}. An asynchronous
+	 * executor maps the worksheets in parallel. It has no effect in streaming mode, where the
+	 * worksheets are decoded in a single pass.
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	public ResultListFactory getResultListFactory() {
+		return resultListFactory;
+	}
+
+	/**
+	 * Set how the lists of mapped rows are created, such as an {@link OffHeapResultListFactory}
+	 * to keep very large results out of the heap.
+	 */
+	public void setResultListFactory(ResultListFactory resultListFactory) {
+		this.resultListFactory = resultListFactory;
+	}
+
+	public WorkbookCache getWorkbookCache() {
+		return workbookCache;
+	}
+
+	/**
+	 * Share parsed workbooks between reads, and between templates using the same cache. Only
+	 * the HSSFWorkbook is cached, so it has no effect in streaming mode. Worksheets of a cached
+	 * workbook may be read by several threads at once, so callbacks must not modify the rows.
+	 */
+	public void setWorkbookCache(WorkbookCache workbookCache) {
+		this.workbookCache = workbookCache;
+	}
+
+	public TemplateObserver getObserver() {
+		return observer;
+	}
+
+	/**
+	 * Report the time taken to open the file and to map each row, failed rows and result sizes,
+	 * such as to a {@link TemplateStatistics}. Worksheets are tagged by name. Row chunks are
+	 * handed out without being mapped, so {@link #onEachChunk(String, int, ExcelRowChunkCallback)}
+	 * only reports opening the file.
+	 */
+	public void setObserver(TemplateObserver observer) {
+		this.observer = observer;
+	}
 
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+/**
+ * Converts a Microsoft Office Excel file into an OpenOffice Calc file, row by row. The worksheets
+ * are decoded record by record, as in the streaming mode of {@link ExcelTemplate}, and each row
+ * goes straight to the writer behind {@link CalcTemplate#writeRows(String, Iterable, RowWriterCallback)},
+ * so besides the shared string table of the workbook, memory use does not depend on the size of
+ * the file.
+ * <p>
+ * Numbers, dates, booleans and strings keep their types, formulas are replaced by their cached
+ * results, and errors become their text, e.g. <code>#DIV/0!</code>. Rows missing from the
+ * worksheet stay empty, so every cell keeps its place.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelTemplate
+ * @see CalcTemplate
+ */
+public class ExcelToCalcConverter {
+
+	private static final RowWriterCallback<Row> COPY_CELLS = new RowWriterCallback<Row>() {
+		public void writeRow(Row item, RowWriter row) {
+			for (Iterator<Cell> cells = item.cellIterator(); cells.hasNext();) {
+				copyCell(cells.next(), row);
+			}
+		}
+	};
+
+	private final File source;
+
+	private final File target;
+
+	private TaskExecutor taskExecutor = new SyncTaskExecutor();
+
+	/**
+	 * @param source - the .xls file to convert
+	 * @param target - the .ods file to write, which is replaced if it exists
+	 */
+	public ExcelToCalcConverter(File source, File target) {
+		this.source = source;
+		this.target = target;
+	}
+
+	/**
+	 * Convert every worksheet, keeping their order.
+	 * 
+	 * @return the number of rows converted, keyed by worksheet name
+	 */
+	public Map<String, Integer> convert() {
+		try {
+			return convert(ExcelStreamingRowReader.readWorksheetNames(source));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Convert some of the worksheets. The sheets of the new file come in the order they are listed
+	 * in, whatever their order in the workbook. If anything goes wrong, no file is left behind.
+	 * 
+	 * @param worksheetNames - names of the worksheets to convert
+	 * @return the number of rows converted, keyed by worksheet name
+	 */
+	public Map<String, Integer> convert(List<String> worksheetNames) {
+		if (worksheetNames.isEmpty()) {
+			throw new IllegalArgumentException("At least one worksheet is needed");
+		}
+		final Map<String, SheetConversion> conversions = new LinkedHashMap<String, SheetConversion>();
+		List<CalcStreamingWriter> writers = new ArrayList<CalcStreamingWriter>();
+		boolean converted = false;
+		try {
+			for (String worksheetName : worksheetNames) {
+				CalcStreamingWriter writer = new CalcStreamingWriter(target, new File(target.getPath() + "." + writers.size() + ".part"));
+				writers.add(writer);
+				writer.startSheet(worksheetName);
+				conversions.put(worksheetName, new SheetConversion(writer));
+			}
+
+			if (taskExecutor instanceof SyncTaskExecutor || worksheetNames.size() == 1) {
+				// a single pass over the workbook, handing each row to the sheet it belongs to
+				ExcelStreamingRowReader reader = new ExcelStreamingRowReader(source, worksheetNames);
+				try {
+					Row row;
+					while ((row = reader.read()) != null) {
+						conversions.get(reader.getWorksheetName()).convert(row);
+					}
+				} finally {
+					reader.close();
+				}
+			} else {
+				List<Runnable> tasks = new ArrayList<Runnable>();
+				for (final Map.Entry<String, SheetConversion> entry : conversions.entrySet()) {
+					tasks.add(new Runnable() {
+						public void run() {
+							try {
+								ExcelStreamingRowReader reader = new ExcelStreamingRowReader(source, entry.getKey());
+								try {
+									Row row;
+									while ((row = reader.read()) != null) {
+										entry.getValue().convert(row);
+									}
+								} finally {
+									reader.close();
+								}
+							} catch (IOException e) {
+								throw new RuntimeException(e);
+							}
+						}
+					});
+				}
+				TaskSupport.runAll(taskExecutor, tasks);
+			}
+
+			for (CalcStreamingWriter writer : writers) {
+				writer.finish();
+			}
+			CalcStreamingWriter.writeArchive(target, writers);
+			converted = true;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			for (CalcStreamingWriter writer : writers) {
+				if (converted) {
+					writer.deleteRows();
+				} else {
+					writer.abort();
+				}
+			}
+		}
+
+		Map<String, Integer> rowCounts = new LinkedHashMap<String, Integer>();
+		for (Map.Entry<String, SheetConversion> entry : conversions.entrySet()) {
+			rowCounts.put(entry.getKey(), entry.getValue().rowCount);
+		}
+		return rowCounts;
+	}
+
+	/**
+	 * Formula cells are copied as their cached result.
+	 */
+	private static void copyCell(Cell cell, RowWriter row) {
+		int column = cell.getColumnIndex();
+		int type = cell.getCellType();
+		if (type == Cell.CELL_TYPE_FORMULA) {
+			type = cell.getCachedFormulaResultType();
+		}
+		switch (type) {
+			case Cell.CELL_TYPE_NUMERIC:
+				if (ExcelBeanRowCallback.isDateFormatted(cell)) {
+					row.setDate(column, cell.getDateCellValue());
+				} else {
+					row.setNumber(column, cell.getNumericCellValue());
+				}
+				break;
+			case Cell.CELL_TYPE_BOOLEAN:
+				row.setBoolean(column, cell.getBooleanCellValue());
+				break;
+			case Cell.CELL_TYPE_BLANK:
+				break;
+			default:
+				row.setString(column, ExcelWorkbookRowReader.valueOf(cell));
+		}
+	}
+
+	/**
+	 * The progress of one worksheet.
+	 */
+	private static class SheetConversion {
+
+		private final CalcStreamingWriter writer;
+
+		private int nextRow;
+
+		private int rowCount;
+
+		public SheetConversion(CalcStreamingWriter writer) {
+			this.writer = writer;
+		}
+
+		public void convert(Row row) throws IOException {
+			writer.writeBlankRows(row.getRowNum() - nextRow);
+			writer.write(row, COPY_CELLS);
+			nextRow = row.getRowNum() + 1;
+			rowCount++;
+		}
+
+	}
+
+	public TaskExecutor getTaskExecutor() {
+		return taskExecutor;
+	}
+
+	/**
+	 * Set the executor that converts the worksheets. An asynchronous executor converts them in
+	 * parallel, each worksheet reading the file on its own. Otherwise, all of them are converted
+	 * in a single pass over the file.
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.SimpleDateFormat;
+import java.util.Iterator;
+
+import org.apache.poi.hssf.record.formula.eval.ErrorEval;
+import org.apache.poi.hssf.usermodel.HSSFDateUtil;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+
+/**
+ * This reader builds the complete {@link HSSFWorkbook} in memory, and then walks the rows of one
+ * of its worksheets. The file itself is closed as soon as the workbook has been loaded.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelTemplate
+ */
+class ExcelWorkbookRowReader implements ExcelRowReader {
+
+	private Iterator<Row> rows;
+
+	private RowFilter rowFilter;
+
+	private boolean exemptFirstRow;
+
+	private boolean firstRow = true;
+
+	private int startRow;
+
+	public ExcelWorkbookRowReader(File file, String worksheetName) throws IOException {
+		this(load(file), worksheetName);
+	}
+
+	/**
+	 * Walk a worksheet of a workbook that is already in memory, such as when several worksheets
+	 * of the same file are processed.
+	 */
+	public ExcelWorkbookRowReader(HSSFWorkbook wb, String worksheetName) {
+		HSSFSheet sheet = wb.getSheet(worksheetName);
+		if (sheet == null) {
+			throw new IllegalArgumentException("Could not find worksheet '" + worksheetName + "'");
+		}
+		this.rows = sheet.rowIterator();
+	}
+
+	/**
+	 * Read the whole workbook into memory, closing the file afterwards.
+	 * 
+	 * @param file
+	 * @return the workbook
+	 * @throws IOException
+	 */
+	static HSSFWorkbook load(File file) throws IOException {
+		return load(file, false);
+	}
+
+	/**
+	 * Read the whole workbook into memory, either through a stream of the file or out of a mapping
+	 * of it. POIFSFileSystem copies the container into byte arrays either way, but a mapped file
+	 * that was read recently is served from the page cache.
+	 * 
+	 * @param file
+	 * @param memoryMapped - whether to read the file through a mapping
+	 * @return the workbook
+	 * @throws IOException
+	 */
+	static HSSFWorkbook load(File file, boolean memoryMapped) throws IOException {
+		InputStream inp = memoryMapped ? new ByteBufferInputStream(MappedFiles.map(file)) : new FileInputStream(file);
+		try {
+			return new HSSFWorkbook(new POIFSFileSystem(inp));
+		} finally {
+			inp.close();
+		}
+	}
+
+	public void setRowFilter(RowFilter rowFilter, boolean exemptFirstRow) {
+		this.rowFilter = rowFilter;
+		this.exemptFirstRow = exemptFirstRow;
+	}
+
+	public void setStartRow(int startRow) {
+		this.startRow = startRow;
+	}
+
+	public Row read() {
+		while (rows.hasNext()) {
+			Row row = rows.next();
+			boolean exempt = firstRow && exemptFirstRow;
+			firstRow = false;
+			if (exempt || (row.getRowNum() >= startRow && (rowFilter == null || accept(row)))) {
+				return row;
+			}
+		}
+		return null;
+	}
+
+	private boolean accept(Row row) {
+		Cell key = row.getCell(rowFilter.getKeyColumn());
+		return rowFilter.accept(key == null ? null : valueOf(key));
+	}
+
+	/**
+	 * The same text as {@link Cell#toString()}, except that formulas give their cached result
+	 * rather than their formula text, which is all the streaming reader can offer.
+	 */
+	static String valueOf(Cell cell) {
+		if (cell.getCellType() != Cell.CELL_TYPE_FORMULA) {
+			return cell.toString();
+		}
+		switch (cell.getCachedFormulaResultType()) {
+			case Cell.CELL_TYPE_NUMERIC:
+				if (HSSFDateUtil.isCellDateFormatted(cell)) {
+					return new SimpleDateFormat("dd-MMM-yyyy").format(cell.getDateCellValue());
+				}
+				return String.valueOf(cell.getNumericCellValue());
+			case Cell.CELL_TYPE_STRING:
+				return cell.getRichStringCellValue().getString();
+			case Cell.CELL_TYPE_BOOLEAN:
+				return cell.getBooleanCellValue() ? "TRUE" : "FALSE";
+			case Cell.CELL_TYPE_ERROR:
+				return ErrorEval.getText(cell.getErrorCellValue());
+			default:
+				return cell.toString();
+		}
+	}
+
+	public void close() {
+		// the file was closed as soon as the workbook was loaded
+	}
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Turns mapped rows into bytes and back, so that results can be kept outside the heap.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see OffHeapResultListFactory
+ */
+public interface ItemSerializer<T> {
+
+	/**
+	 * @param item - a mapped row, never <code>null</code>
+	 * @param out - where to write it
+	 * @throws IOException
+	 */
+	void serialize(T item, DataOutput out) throws IOException;
+
+	/**
+	 * Read back an item written by {@link #serialize(Object, DataOutput)}.
+	 * 
+	 * @param in - positioned at the start of the item
+	 * @return the item
+	 * @throws IOException
+	 */
+	T deserialize(DataInput in) throws IOException;
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * This serializer handles any {@link Serializable} item with standard Java serialization. It
+ * needs no setup, but each item carries its own class descriptor, so a serializer written for
+ * the item type is both smaller and faster.
+ *
+ * @since 10/16/2026
+ * @author agent
+ */
+public class JavaItemSerializer<T> implements ItemSerializer<T> {
+
+	public void serialize(T item, DataOutput out) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream objects = new ObjectOutputStream(bytes);
+		objects.writeObject(item);
+		objects.close();
+		out.writeInt(bytes.size());
+		out.write(bytes.toByteArray());
+	}
+
+	@SuppressWarnings("unchecked")
+	public T deserialize(DataInput in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes));
+		try {
+			return (T) objects.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException("Could not load the class of a serialized result", e);
+		} finally {
+			objects.close();
+		}
+	}
+
+}
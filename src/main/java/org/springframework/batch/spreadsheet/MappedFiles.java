@@ -0,0 +1,59 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Maps files into memory read-only. The channel is closed straight away, and the mapping lives
+ * on until the buffer is garbage collected. Pages are only read as they are touched, and repeated
+ * reads of the same file come out of the page cache.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see MappedOle2File
+ * @see MappedZipFile
+ */
+final class MappedFiles {
+
+	private MappedFiles() {
+	}
+
+	/**
+	 * @param file
+	 * @return the whole file, in little-endian order as both OLE2 and zip containers use
+	 * @throws IOException
+	 */
+	static MappedByteBuffer map(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			return buffer;
+		} finally {
+			raf.close();
+		}
+	}
+
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.LinkedList;
+
+/**
+ * Reads the streams of an OLE2 compound document, such as the Workbook stream of an .xls file,
+ * straight out of a memory-mapped file. Unlike POIFSFileSystem, which copies every sector into
+ * byte arrays up front, only the sector chain of the requested stream is resolved, and its bytes
+ * are read from the mapping as the stream is consumed.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelStreamingRowReader
+ */
+class MappedOle2File {
+
+	private static final long SIGNATURE = 0xE11AB1A1E011CFD0L;
+
+	private static final int END_OF_CHAIN = -2;
+
+	private static final int NO_STREAM = -1;
+
+	private static final int DIRECTORY_ENTRY_SIZE = 128;
+
+	private static final int TYPE_STREAM = 2;
+
+	private final ByteBuffer buffer;
+
+	private final int sectorSize;
+
+	private final int miniSectorSize;
+
+	private final int miniStreamCutoff;
+
+	/**
+	 * Sectors holding the file allocation table, in order.
+	 */
+	private final int[] fatSectors;
+
+	public MappedOle2File(File file) throws IOException {
+		this.buffer = MappedFiles.map(file);
+		if (buffer.capacity() < 512 || buffer.getLong(0) != SIGNATURE) {
+			throw new IOException(file + " is not an OLE2 compound document");
+		}
+		this.sectorSize = 1 << buffer.getShort(0x1E);
+		this.miniSectorSize = 1 << buffer.getShort(0x20);
+		this.miniStreamCutoff = buffer.getInt(0x38);
+		this.fatSectors = readFatSectors(buffer.getInt(0x2C), buffer.getInt(0x44));
+	}
+
+	/**
+	 * The first 109 FAT sectors are listed in the header, and any more in a chain of DIFAT sectors,
+	 * the last entry of each pointing to the next.
+	 */
+	private int[] readFatSectors(int fatCount, int difatSector) {
+		int[] sectors = new int[fatCount];
+		int count = 0;
+		for (int i = 0; i < 109 && count < fatCount; i++) {
+			sectors[count++] = buffer.getInt(0x4C + i * 4);
+		}
+		int perDifat = sectorSize / 4 - 1;
+		while (count < fatCount && difatSector >= 0) {
+			int base = offsetOf(difatSector);
+			for (int i = 0; i < perDifat && count < fatCount; i++) {
+				sectors[count++] = buffer.getInt(base + i * 4);
+			}
+			difatSector = buffer.getInt(base + perDifat * 4);
+		}
+		return sectors;
+	}
+
+	/**
+	 * Open a stream stored directly in the root storage.
+	 * 
+	 * @param name - name of the stream, compared ignoring case as POI does
+	 * @return the content of the stream
+	 * @throws FileNotFoundException if there is no such stream
+	 */
+	public InputStream openDocument(String name) throws IOException {
+		int[] directory = chain(buffer.getInt(0x30));
+		int entriesPerSector = sectorSize / DIRECTORY_ENTRY_SIZE;
+		int rootEntry = offsetOf(directory[0]);
+
+		// the entries of a storage form a tree of siblings, hanging off the child of the storage
+		LinkedList<Integer> pending = new LinkedList<Integer>();
+		pending.add(buffer.getInt(rootEntry + 0x4C));
+		while (!pending.isEmpty()) {
+			int id = pending.removeFirst();
+			if (id == NO_STREAM) {
+				continue;
+			}
+			int entry = offsetOf(directory[id / entriesPerSector]) + (id % entriesPerSector) * DIRECTORY_ENTRY_SIZE;
+			pending.add(buffer.getInt(entry + 0x44));
+			pending.add(buffer.getInt(entry + 0x48));
+			if (buffer.get(entry + 0x42) == TYPE_STREAM && name.equalsIgnoreCase(nameOf(entry))) {
+				return open(rootEntry, buffer.getInt(entry + 0x74), buffer.getInt(entry + 0x78));
+			}
+		}
+		throw new FileNotFoundException("No document named '" + name + "' found");
+	}
+
+	private String nameOf(int entry) {
+		int length = Math.max(0, buffer.getShort(entry + 0x40) / 2 - 1);
+		char[] name = new char[Math.min(length, 31)];
+		for (int i = 0; i < name.length; i++) {
+			name[i] = buffer.getChar(entry + i * 2);
+		}
+		return new String(name);
+	}
+
+	/**
+	 * Streams below the cutoff live in the mini stream, which is itself stored in the sectors of
+	 * the root entry, and chained through the mini FAT.
+	 */
+	private InputStream open(int rootEntry, int startSector, int size) {
+		if (size >= miniStreamCutoff) {
+			int[] sectors = chain(startSector);
+			int[] offsets = new int[sectors.length];
+			for (int i = 0; i < sectors.length; i++) {
+				offsets[i] = offsetOf(sectors[i]);
+			}
+			return new ChainInputStream(buffer, offsets, sectorSize, size);
+		}
+		int[] miniStream = chain(buffer.getInt(rootEntry + 0x74));
+		int[] miniFat = chain(buffer.getInt(0x3C));
+		int perSector = sectorSize / 4;
+		LinkedList<Integer> offsets = new LinkedList<Integer>();
+		for (int mini = startSector; mini >= 0 && offsets.size() * miniSectorSize < size;) {
+			int position = mini * miniSectorSize;
+			offsets.add(offsetOf(miniStream[position / sectorSize]) + position % sectorSize);
+			mini = buffer.getInt(offsetOf(miniFat[mini / perSector]) + (mini % perSector) * 4);
+		}
+		int[] chain = new int[offsets.size()];
+		int i = 0;
+		for (Integer offset : offsets) {
+			chain[i++] = offset.intValue();
+		}
+		return new ChainInputStream(buffer, chain, miniSectorSize, size);
+	}
+
+	/**
+	 * Follow a chain of sectors through the FAT.
+	 */
+	private int[] chain(int start) {
+		int perSector = sectorSize / 4;
+		int[] sectors = new int[16];
+		int count = 0;
+		for (int sector = start; sector != END_OF_CHAIN && sector >= 0;) {
+			if (count == sectors.length) {
+				int[] grown = new int[count * 2];
+				System.arraycopy(sectors, 0, grown, 0, count);
+				sectors = grown;
+			}
+			sectors[count++] = sector;
+			sector = buffer.getInt(offsetOf(fatSectors[sector / perSector]) + (sector % perSector) * 4);
+		}
+		int[] result = new int[count];
+		System.arraycopy(sectors, 0, result, 0, count);
+		return result;
+	}
+
+	private int offsetOf(int sector) {
+		return (sector + 1) * sectorSize;
+	}
+
+	/**
+	 * Reads a stream scattered over sectors of the mapping, one sector at a time.
+	 */
+	private static class ChainInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		private final int[] offsets;
+
+		private final int unitSize;
+
+		private int remaining;
+
+		private int unit = -1;
+
+		private ByteBuffer current = ByteBuffer.allocate(0);
+
+		public ChainInputStream(ByteBuffer buffer, int[] offsets, int unitSize, int size) {
+			this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+			this.offsets = offsets;
+			this.unitSize = unitSize;
+			this.remaining = size;
+		}
+
+		private boolean advance() {
+			if (current.hasRemaining()) {
+				return true;
+			}
+			if (remaining <= 0 || unit + 1 >= offsets.length) {
+				return false;
+			}
+			unit++;
+			int length = Math.min(unitSize, remaining);
+			buffer.limit(offsets[unit] + length).position(offsets[unit]);
+			current = buffer.slice();
+			remaining -= length;
+			return true;
+		}
+
+		public int read() {
+			return advance() ? current.get() & 0xff : -1;
+		}
+
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			int count = 0;
+			while (count < len && advance()) {
+				int chunk = Math.min(len - count, current.remaining());
+				current.get(b, off + count, chunk);
+				count += chunk;
+			}
+			return count == 0 ? -1 : count;
+		}
+
+		public long skip(long n) {
+			long count = 0;
+			while (count < n && advance()) {
+				int chunk = (int) Math.min(n - count, current.remaining());
+				current.position(current.position() + chunk);
+				count += chunk;
+			}
+			return count;
+		}
+
+		public int available() {
+			return current.remaining() + remaining;
+		}
+
+	}
+
+}
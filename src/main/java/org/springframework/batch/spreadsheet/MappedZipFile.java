@@ -0,0 +1,140 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads entries of a zip archive, such as the content.xml of an .ods file, straight out of a
+ * memory-mapped file. The entry is located through the central directory at the end of the
+ * archive, and its bytes are inflated from the mapping as the stream is consumed.
+ * <p>
+ * Zip64 archives are not supported, which no spreadsheet comes close to needing.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see CalcStreamingRowReader
+ */
+class MappedZipFile {
+
+	private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+
+	private static final int CENTRAL_DIRECTORY_ENTRY = 0x02014b50;
+
+	private static final int LOCAL_HEADER = 0x04034b50;
+
+	private static final int STORED = 0;
+
+	private static final int DEFLATED = 8;
+
+	private final File file;
+
+	private final ByteBuffer buffer;
+
+	private final int entryCount;
+
+	private final int centralDirectory;
+
+	public MappedZipFile(File file) throws IOException {
+		this.file = file;
+		this.buffer = MappedFiles.map(file);
+		int end = findEndOfCentralDirectory();
+		if (end < 0) {
+			throw new IOException(file + " is not a zip archive");
+		}
+		this.entryCount = buffer.getShort(end + 10) & 0xffff;
+		this.centralDirectory = buffer.getInt(end + 16);
+	}
+
+	/**
+	 * The end record is last, unless the archive has a comment, which is at most 64K.
+	 */
+	private int findEndOfCentralDirectory() {
+		int last = buffer.capacity() - 22;
+		for (int position = last; position >= 0 && position >= last - 0xffff; position--) {
+			if (buffer.getInt(position) == END_OF_CENTRAL_DIRECTORY) {
+				return position;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param name - full name of the entry
+	 * @return the uncompressed content of the entry
+	 * @throws FileNotFoundException if there is no such entry
+	 */
+	public InputStream openEntry(String name) throws IOException {
+		int entry = centralDirectory;
+		for (int i = 0; i < entryCount; i++) {
+			if (buffer.getInt(entry) != CENTRAL_DIRECTORY_ENTRY) {
+				throw new IOException("Corrupt central directory in " + file);
+			}
+			int nameLength = buffer.getShort(entry + 28) & 0xffff;
+			if (name.equals(nameAt(entry + 46, nameLength))) {
+				return open(entry);
+			}
+			entry += 46 + nameLength + (buffer.getShort(entry + 30) & 0xffff) + (buffer.getShort(entry + 32) & 0xffff);
+		}
+		throw new FileNotFoundException("No " + name + " found in " + file);
+	}
+
+	private String nameAt(int position, int length) throws IOException {
+		byte[] name = new byte[length];
+		ByteBuffer view = buffer.duplicate();
+		view.position(position);
+		view.get(name);
+		return new String(name, "UTF-8");
+	}
+
+	private InputStream open(int entry) throws IOException {
+		int method = buffer.getShort(entry + 10) & 0xffff;
+		long compressedSize = buffer.getInt(entry + 20) & 0xffffffffL;
+		int local = buffer.getInt(entry + 42);
+		if (compressedSize == 0xffffffffL || local < 0 || buffer.getInt(local) != LOCAL_HEADER) {
+			throw new IOException("Unsupported or corrupt zip entry in " + file);
+		}
+		int data = local + 30 + (buffer.getShort(local + 26) & 0xffff) + (buffer.getShort(local + 28) & 0xffff);
+		ByteBuffer content = buffer.duplicate();
+		content.limit((int) (data + compressedSize)).position(data);
+		InputStream raw = new ByteBufferInputStream(content.slice());
+		if (method == STORED) {
+			return raw;
+		}
+		if (method != DEFLATED) {
+			throw new IOException("Unsupported compression method " + method + " in " + file);
+		}
+		// a raw inflater may ask for one byte past the end of the data, as ZipFile also allows for
+		final Inflater inflater = new Inflater(true);
+		return new InflaterInputStream(new SequenceInputStream(raw, new ByteArrayInputStream(new byte[1])), inflater, 8192) {
+			public void close() throws IOException {
+				super.close();
+				inflater.end();
+			}
+		};
+	}
+
+}
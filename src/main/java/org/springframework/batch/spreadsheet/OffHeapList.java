@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A list whose items are serialized into direct {@link ByteBuffer}s, outside the heap. The heap
+ * only holds one <code>long</code> per item, locating it in its buffer, so even a multi-gigabyte
+ * result set puts next to nothing in front of the garbage collector. Each {@link #get(int)}
+ * deserializes a fresh copy of the item.
+ * <p>
+ * Items can only be appended. Appending is not thread safe, but once the list is filled any number
+ * of threads can read it at once. Buffers are allocated a segment at a time, and go back to the
+ * operating system when the list is cleared or itself collected.
+ * <p>
+ * Direct buffers count against <code>-XX:MaxDirectMemorySize</code>, which defaults to the
+ * maximum heap size, rather than against the heap. A list that outgrows it fails with an
+ * <code>OutOfMemoryError</code> saying "Direct buffer memory", so raise the limit to fit the
+ * largest result set, or use a {@link SpillingList} for results that may not fit in memory at all.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see OffHeapResultListFactory
+ */
+public class OffHeapList<T> extends AbstractList<T> implements RandomAccess {
+
+	/**
+	 * Size of each direct buffer, unless an item needs more.
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+
+	private static final long NULL_ITEM = -1L;
+
+	private final ItemSerializer<T> serializer;
+
+	private final int segmentSize;
+
+	private final List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+
+	/**
+	 * Segment number in the upper half, offset into the segment in the lower half.
+	 */
+	private long[] positions = new long[64];
+
+	private int size;
+
+	private final SerializedBytes bytes = new SerializedBytes();
+
+	private final DataOutputStream out = new DataOutputStream(bytes);
+
+	public OffHeapList(ItemSerializer<T> serializer) {
+		this(serializer, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * @param serializer - turns the items into bytes and back
+	 * @param segmentSize - size of each direct buffer
+	 */
+	public OffHeapList(ItemSerializer<T> serializer, int segmentSize) {
+		if (segmentSize <= 0) {
+			throw new IllegalArgumentException("Segment size must be positive, not " + segmentSize);
+		}
+		this.serializer = serializer;
+		this.segmentSize = segmentSize;
+	}
+
+	public boolean add(T item) {
+		if (size == positions.length) {
+			long[] grown = new long[size * 2];
+			System.arraycopy(positions, 0, grown, 0, size);
+			positions = grown;
+		}
+		positions[size++] = (item == null) ? NULL_ITEM : write(item);
+		modCount++;
+		return true;
+	}
+
+	private long write(T item) {
+		bytes.reset();
+		try {
+			serializer.serialize(item, out);
+			out.flush();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		int length = bytes.size();
+		ByteBuffer segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+		if (segment == null || segment.remaining() < length + 4) {
+			segment = ByteBuffer.allocateDirect(Math.max(segmentSize, length + 4));
+			segments.add(segment);
+		}
+		long position = ((long) (segments.size() - 1) << 32) | segment.position();
+		segment.putInt(length);
+		segment.put(bytes.buffer(), 0, length);
+		return position;
+	}
+
+	public T get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		long position = positions[index];
+		if (position == NULL_ITEM) {
+			return null;
+		}
+		ByteBuffer item = segments.get((int) (position >>> 32)).duplicate();
+		item.position((int) position);
+		int length = item.getInt();
+		item.limit(item.position() + length);
+		try {
+			return serializer.deserialize(new DataInputStream(new ByteBufferInputStream(item)));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Drop every item, and with them the direct buffers.
+	 */
+	public void clear() {
+		segments.clear();
+		positions = new long[64];
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * @return the number of bytes of direct buffers allocated so far
+	 */
+	public long getAllocatedBytes() {
+		long allocated = 0;
+		for (ByteBuffer segment : segments) {
+			allocated += segment.capacity();
+		}
+		return allocated;
+	}
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.util.List;
+
+/**
+ * This policy collects results into {@link OffHeapList}s, so that very large reads keep their
+ * mapped rows in direct buffers instead of the heap. The serializer must handle the type of
+ * every callback the template is used with.
+ * <p>
+ * The buffers are limited by <code>-XX:MaxDirectMemorySize</code> instead of the heap size, and a
+ * read whose results outgrow it fails with "OutOfMemoryError: Direct buffer memory". Size the
+ * limit for the largest read, or use a {@link SpillingResultListFactory} when results may not fit
+ * in memory.
+ *
+ * @since 10/16/2026
+ * @author agent
+ */
+public class OffHeapResultListFactory implements ResultListFactory {
+
+	private final ItemSerializer<?> serializer;
+
+	private final int segmentSize;
+
+	public OffHeapResultListFactory(ItemSerializer<?> serializer) {
+		this(serializer, OffHeapList.DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * @param serializer - turns the mapped rows into bytes and back
+	 * @param segmentSize - size of each direct buffer
+	 */
+	public OffHeapResultListFactory(ItemSerializer<?> serializer, int segmentSize) {
+		this.serializer = serializer;
+		this.segmentSize = segmentSize;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> List<T> newResultList() {
+		return new OffHeapList<T>((ItemSerializer<T>) serializer, segmentSize);
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Convenience functions for the lists a {@link ResultListFactory} creates.
+ *
+ * @since 10/16/2026
+ * @author agent
+ */
+final class ResultLists {
+
+	private static final Logger logger = Logger.getLogger(ResultLists.class);
+
+	private ResultLists() {
+	}
+
+	/**
+	 * Release a result list that will never reach the caller, because the read failed, such as
+	 * the temp file of a {@link SpillingList}. A failure to release it is only logged, so that it
+	 * does not hide the failure of the read.
+	 *
+	 * @param results - the list, which is closed if it is {@link Closeable}
+	 */
+	static void discard(List<?> results) {
+		if (results instanceof Closeable) {
+			try {
+				((Closeable) results).close();
+			} catch (IOException e) {
+				logger.warn("Could not close the results of a failed read", e);
+			} catch (RuntimeException e) {
+				logger.warn("Could not close the results of a failed read", e);
+			}
+		}
+	}
+
+}
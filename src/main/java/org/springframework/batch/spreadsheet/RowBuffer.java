@@ -0,0 +1,157 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.util.Date;
+
+/**
+ * Holds the cells of the row being written, and is reused from one row to the next, so writing
+ * a sheet allocates nothing per row beyond the values themselves.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ */
+class RowBuffer implements RowWriter {
+
+	static final byte BLANK = 0;
+
+	static final byte STRING = 1;
+
+	static final byte NUMBER = 2;
+
+	static final byte BOOLEAN = 3;
+
+	static final byte DATE = 4;
+
+	private byte[] types = new byte[16];
+
+	private String[] strings = new String[16];
+
+	private double[] numbers = new double[16];
+
+	private Date[] dates = new Date[16];
+
+	private int columnCount;
+
+	public void setString(int column, String value) {
+		if (value == null) {
+			set(column, BLANK);
+		} else {
+			set(column, STRING);
+			strings[column] = value;
+		}
+	}
+
+	public void setNumber(int column, double value) {
+		set(column, NUMBER);
+		numbers[column] = value;
+	}
+
+	public void setBoolean(int column, boolean value) {
+		set(column, BOOLEAN);
+		numbers[column] = value ? 1 : 0;
+	}
+
+	public void setDate(int column, Date value) {
+		if (value == null) {
+			set(column, BLANK);
+		} else {
+			set(column, DATE);
+			dates[column] = value;
+		}
+	}
+
+	private void set(int column, byte type) {
+		if (column < 0) {
+			throw new IllegalArgumentException("Column must not be negative, not " + column);
+		}
+		if (column >= types.length) {
+			int capacity = Math.max(column + 1, types.length * 2);
+			byte[] newTypes = new byte[capacity];
+			System.arraycopy(types, 0, newTypes, 0, types.length);
+			types = newTypes;
+			String[] newStrings = new String[capacity];
+			System.arraycopy(strings, 0, newStrings, 0, strings.length);
+			strings = newStrings;
+			double[] newNumbers = new double[capacity];
+			System.arraycopy(numbers, 0, newNumbers, 0, numbers.length);
+			numbers = newNumbers;
+			Date[] newDates = new Date[capacity];
+			System.arraycopy(dates, 0, newDates, 0, dates.length);
+			dates = newDates;
+		}
+		types[column] = type;
+		strings[column] = null;
+		dates[column] = null;
+		if (type != BLANK) {
+			columnCount = Math.max(columnCount, column + 1);
+		}
+	}
+
+	/**
+	 * Fill the row with the names of some columns.
+	 */
+	void setHeaders(ColumnHeaders headers) {
+		for (int column = 0; column < headers.getColumnCount(); column++) {
+			setString(column, headers.getName(column));
+		}
+	}
+
+	/**
+	 * @return one more than the last column set, not counting columns set back to blank
+	 */
+	int getColumnCount() {
+		while (columnCount > 0 && types[columnCount - 1] == BLANK) {
+			columnCount--;
+		}
+		return columnCount;
+	}
+
+	byte getType(int column) {
+		return column < columnCount ? types[column] : BLANK;
+	}
+
+	String getString(int column) {
+		return strings[column];
+	}
+
+	double getNumber(int column) {
+		return numbers[column];
+	}
+
+	boolean getBoolean(int column) {
+		return numbers[column] != 0;
+	}
+
+	Date getDate(int column) {
+		return dates[column];
+	}
+
+	/**
+	 * Blank every cell, ready for the next row.
+	 */
+	void clear() {
+		for (int column = 0; column < columnCount; column++) {
+			types[column] = BLANK;
+			strings[column] = null;
+			dates[column] = null;
+		}
+		columnCount = 0;
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+/**
+ * This interface defines a cheap test on the value of one key column, which decides whether a
+ * row is handed to the callback at all. The streaming readers apply it while the row is being
+ * decoded, so once a row is rejected, the rest of its cells are skipped and no row object
+ * is ever handed out for it.
+ * <p>
+ * When the first row is skipped as a header, it is exempt from the filter.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelTemplate#setRowFilter(RowFilter)
+ * @see CalcTemplate#setRowFilter(RowFilter)
+ */
+public interface RowFilter {
+
+	/**
+	 * @return zero-based index of the column whose value is tested
+	 */
+	public int getKeyColumn();
+
+	/**
+	 * @param value - value of the key column as text, or <code>null</code> if the row has no such cell
+	 * @return whether or not to process the row
+	 */
+	public boolean accept(String value);
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+/**
+ * A window onto the rows of a worksheet: the rows numbered from <code>startRow</code> (inclusive)
+ * to <code>endRow</code> (exclusive), and no more than <code>limit</code> of them. Row numbers
+ * are the zero-based physical numbers of the worksheet, as returned by
+ * {@link org.apache.poi.ss.usermodel.Row#getRowNum()} and {@link CalcRow#getRowIndex()}.
+ * <p>
+ * The streaming readers skip the rows before the start without decoding them, and stop reading
+ * the file once the end or the limit is reached, so previewing the top of a large worksheet only
+ * costs as much as the rows it shows. When the first row is skipped as a header, it is still
+ * taken from the top of the worksheet, wherever the range starts.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelTemplate#onEachRow(String, ExcelRowCallback, RowRange)
+ * @see CalcTemplate#onEachRow(int, CalcStreamingRowCallback, RowRange)
+ */
+public final class RowRange {
+
+	private static final RowRange ALL = new RowRange(0, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+	private final int startRow;
+
+	private final int endRow;
+
+	private final int limit;
+
+	private RowRange(int startRow, int endRow, int limit) {
+		if (startRow < 0) {
+			throw new IllegalArgumentException("The start row cannot be negative, but got " + startRow);
+		}
+		if (endRow < startRow) {
+			throw new IllegalArgumentException("The end row " + endRow + " is before the start row " + startRow);
+		}
+		if (limit < 0) {
+			throw new IllegalArgumentException("The limit cannot be negative, but got " + limit);
+		}
+		this.startRow = startRow;
+		this.endRow = endRow;
+		this.limit = limit;
+	}
+
+	/**
+	 * @return a range covering every row
+	 */
+	public static RowRange all() {
+		return ALL;
+	}
+
+	/**
+	 * @param startRow - number of the first row to read
+	 * @param endRow - number of the row to stop before
+	 * @return a range covering the rows from <code>startRow</code> up to <code>endRow</code>
+	 */
+	public static RowRange between(int startRow, int endRow) {
+		return new RowRange(startRow, endRow, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param startRow - number of the first row to read
+	 * @return a range covering the rows from <code>startRow</code> to the end of the worksheet
+	 */
+	public static RowRange from(int startRow) {
+		return new RowRange(startRow, Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param limit - maximum number of rows to read
+	 * @return a range covering the first <code>limit</code> rows of the worksheet
+	 */
+	public static RowRange first(int limit) {
+		return new RowRange(0, Integer.MAX_VALUE, limit);
+	}
+
+	/**
+	 * @param limit - maximum number of rows to read
+	 * @return the same range, cut off after <code>limit</code> rows
+	 */
+	public RowRange limit(int limit) {
+		return new RowRange(startRow, endRow, limit);
+	}
+
+	public int getStartRow() {
+		return startRow;
+	}
+
+	public int getEndRow() {
+		return endRow;
+	}
+
+	/**
+	 * @return maximum number of rows handed to the callback, not counting a skipped header row
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @param rowNum - number of a row
+	 * @return whether the row comes after the range, and so do all the rows that follow it
+	 */
+	public boolean isPastEnd(int rowNum) {
+		return rowNum >= endRow;
+	}
+
+	public String toString() {
+		return "rows " + startRow + " to " + (endRow == Integer.MAX_VALUE ? "end" : String.valueOf(endRow))
+				+ (limit == Integer.MAX_VALUE ? "" : ", limit " + limit);
+	}
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.util.Date;
+
+/**
+ * The cells of one row being written. Columns left unset are blank, and setting a column twice
+ * keeps the last value.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see RowWriterCallback
+ */
+public interface RowWriter {
+
+	/**
+	 * @param column - zero-based index of the column
+	 * @param value - the text, or <code>null</code> for a blank cell
+	 */
+	public void setString(int column, String value);
+
+	public void setNumber(int column, double value);
+
+	public void setBoolean(int column, boolean value);
+
+	/**
+	 * @param column - zero-based index of the column
+	 * @param value - the date, or <code>null</code> for a blank cell
+	 */
+	public void setDate(int column, Date value);
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+/**
+ * This simple interface defines a callback for turning one item into a row of a spreadsheet.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelTemplate#writeRows(String, Iterable, RowWriterCallback)
+ * @see CalcTemplate#writeRows(String, Iterable, RowWriterCallback)
+ */
+public interface RowWriterCallback<T> {
+
+	public void writeRow(T item, RowWriter row);
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * A {@link ByteArrayOutputStream} whose bytes can be handed on without copying them first, for
+ * the lists that keep their items serialized.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see OffHeapList
+ * @see SpillingList
+ */
+class SerializedBytes extends ByteArrayOutputStream {
+
+	/**
+	 * @return the internal buffer, of which only the first {@link #size()} bytes are written
+	 */
+	byte[] buffer() {
+		return buf;
+	}
+
+}
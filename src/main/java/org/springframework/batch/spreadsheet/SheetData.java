@@ -0,0 +1,386 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A whole worksheet held in memory column by column, in primitive arrays rather than row and cell
+ * objects. Each column keeps:
+ * <ul>
+ * <li>a <code>double[]</code> of its numeric cells,</li>
+ * <li>an <code>int[]</code> of dictionary codes for its text cells, each distinct text being stored
+ * once per column,</li>
+ * <li>and bit sets telling blank, numeric and text cells apart.</li>
+ * </ul>
+ * A column with no text cells never allocates the codes, and one with no numbers never allocates
+ * the doubles, so a numeric cell costs little more than its 8 bytes. Scanning with a {@link Cursor}
+ * walks the arrays in order.
+ * <p>
+ * Excel numbers, dates (as serial numbers) and numeric formula results are numeric, as are the
+ * float, percentage and currency cells of Calc. Everything else is kept as text.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelTemplate#loadSheetData(String)
+ * @see CalcTemplate#loadSheetData(int)
+ */
+public final class SheetData {
+
+	private final int rowCount;
+
+	private final int[] rowNums;
+
+	private final Column[] columns;
+
+	private final ColumnHeaders columnHeaders;
+
+	private SheetData(int rowCount, int[] rowNums, Column[] columns, ColumnHeaders columnHeaders) {
+		this.rowCount = rowCount;
+		this.rowNums = rowNums;
+		this.columns = columns;
+		this.columnHeaders = columnHeaders;
+	}
+
+	/**
+	 * @return the number of rows, not counting a skipped header row
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * @return one more than the index of the last column with a value
+	 */
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	/**
+	 * @return the headers taken from the skipped first row, or <code>null</code> if it was not skipped
+	 */
+	public ColumnHeaders getColumnHeaders() {
+		return columnHeaders;
+	}
+
+	/**
+	 * @param row - zero-based position of the row in this data
+	 * @return the number of the row in its worksheet
+	 */
+	public int getRowNum(int row) {
+		checkRow(row);
+		return rowNums[row];
+	}
+
+	public boolean isBlank(int row, int column) {
+		checkRow(row);
+		return column >= columns.length || !columns[column].present.get(row);
+	}
+
+	public boolean isNumber(int row, int column) {
+		checkRow(row);
+		return column < columns.length && columns[column].numeric.get(row);
+	}
+
+	/**
+	 * @return the value of a numeric cell, or 0 for any other cell
+	 */
+	public double getDouble(int row, int column) {
+		return isNumber(row, column) ? columns[column].numbers[row] : 0;
+	}
+
+	/**
+	 * @return the text of a cell, with whole numbers shown without a fraction, or <code>null</code> if it is blank
+	 */
+	public String getString(int row, int column) {
+		if (isBlank(row, column)) {
+			return null;
+		}
+		Column data = columns[column];
+		return data.numeric.get(row) ? formatNumber(data.numbers[row]) : data.dictionary[data.codes[row]];
+	}
+
+	/**
+	 * @return the dictionary code of a text cell, or -1 for any other cell
+	 */
+	public int getCode(int row, int column) {
+		if (isBlank(row, column) || columns[column].numeric.get(row)) {
+			return -1;
+		}
+		return columns[column].codes[row];
+	}
+
+	/**
+	 * @param column
+	 * @return the distinct texts of the column, indexed by their dictionary code
+	 */
+	public String[] getDictionary(int column) {
+		return column < columns.length ? columns[column].dictionary.clone() : new String[0];
+	}
+
+	/**
+	 * @return a cursor positioned before the first row
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	private void checkRow(int row) {
+		if (row < 0 || row >= rowCount) {
+			throw new IndexOutOfBoundsException("Row " + row + " is out of range, there are " + rowCount + " rows");
+		}
+	}
+
+	private static String formatNumber(double number) {
+		if (number == Math.rint(number) && Math.abs(number) < 1e15) {
+			return String.valueOf((long) number);
+		}
+		return String.valueOf(number);
+	}
+
+	public String toString() {
+		return "SheetData of " + rowCount + " rows and " + columns.length + " columns";
+	}
+
+	/**
+	 * Moves down the rows one at a time. Its accessors take a column and read the current row.
+	 * A cursor is not thread safe, but any number of cursors can scan the same data at once.
+	 */
+	public final class Cursor {
+
+		private int row = -1;
+
+		private Cursor() {
+		}
+
+		/**
+		 * @return <code>false</code> once there are no more rows
+		 */
+		public boolean next() {
+			if (row < rowCount) {
+				row++;
+			}
+			return row < rowCount;
+		}
+
+		/**
+		 * @return the zero-based position of the current row in the data
+		 */
+		public int getRow() {
+			return row;
+		}
+
+		public int getRowNum() {
+			return SheetData.this.getRowNum(row);
+		}
+
+		public boolean isBlank(int column) {
+			return SheetData.this.isBlank(row, column);
+		}
+
+		public boolean isNumber(int column) {
+			return SheetData.this.isNumber(row, column);
+		}
+
+		public double getDouble(int column) {
+			return SheetData.this.getDouble(row, column);
+		}
+
+		public String getString(int column) {
+			return SheetData.this.getString(row, column);
+		}
+
+		public int getCode(int column) {
+			return SheetData.this.getCode(row, column);
+		}
+
+	}
+
+	/**
+	 * The cells of one column.
+	 */
+	private static final class Column {
+
+		private final BitSet present;
+
+		private final BitSet numeric;
+
+		private final double[] numbers;
+
+		private final int[] codes;
+
+		private final String[] dictionary;
+
+		public Column(BitSet present, BitSet numeric, double[] numbers, int[] codes, String[] dictionary) {
+			this.present = present;
+			this.numeric = numeric;
+			this.numbers = numbers;
+			this.codes = codes;
+			this.dictionary = dictionary;
+		}
+
+	}
+
+	/**
+	 * Collects the cells row by row, growing the column arrays as it goes, and trims them once
+	 * the last row is in.
+	 */
+	static final class Builder {
+
+		private static final int INITIAL_CAPACITY = 64;
+
+		private int rowCount;
+
+		private int[] rowNums = new int[INITIAL_CAPACITY];
+
+		private ColumnBuilder[] columns = new ColumnBuilder[0];
+
+		private ColumnHeaders columnHeaders;
+
+		void setColumnHeaders(ColumnHeaders columnHeaders) {
+			this.columnHeaders = columnHeaders;
+		}
+
+		/**
+		 * Start a new row. Its cells follow.
+		 */
+		void startRow(int rowNum) {
+			if (rowCount == rowNums.length) {
+				rowNums = resize(rowNums, rowCount * 2);
+			}
+			rowNums[rowCount++] = rowNum;
+		}
+
+		void addNumber(int column, double value) {
+			columnBuilder(column).addNumber(rowCount - 1, value);
+		}
+
+		void addString(int column, String value) {
+			if (value != null && value.length() > 0) {
+				columnBuilder(column).addString(rowCount - 1, value);
+			}
+		}
+
+		private ColumnBuilder columnBuilder(int column) {
+			if (column >= columns.length) {
+				ColumnBuilder[] resized = new ColumnBuilder[Math.max(column + 1, columns.length * 2)];
+				System.arraycopy(columns, 0, resized, 0, columns.length);
+				columns = resized;
+			}
+			if (columns[column] == null) {
+				columns[column] = new ColumnBuilder();
+			}
+			return columns[column];
+		}
+
+		SheetData build() {
+			int width = columns.length;
+			while (width > 0 && columns[width - 1] == null) {
+				width--;
+			}
+			Column[] built = new Column[width];
+			for (int i = 0; i < width; i++) {
+				built[i] = (columns[i] == null) ? new ColumnBuilder().build(rowCount) : columns[i].build(rowCount);
+			}
+			return new SheetData(rowCount, resize(rowNums, rowCount), built, columnHeaders);
+		}
+
+	}
+
+	private static final class ColumnBuilder {
+
+		private final BitSet present = new BitSet();
+
+		private final BitSet numeric = new BitSet();
+
+		private double[] numbers;
+
+		private int[] codes;
+
+		private final Map<String, Integer> codesByText = new HashMap<String, Integer>();
+
+		private String[] dictionary = new String[0];
+
+		public void addNumber(int row, double value) {
+			numbers = ensureCapacity(numbers, row);
+			numbers[row] = value;
+			present.set(row);
+			numeric.set(row);
+		}
+
+		public void addString(int row, String value) {
+			Integer code = codesByText.get(value);
+			if (code == null) {
+				code = Integer.valueOf(codesByText.size());
+				codesByText.put(value, code);
+				if (code.intValue() == dictionary.length) {
+					dictionary = resize(dictionary, Math.max(4, dictionary.length * 2));
+				}
+				dictionary[code.intValue()] = value;
+			}
+			codes = ensureCapacity(codes, row);
+			codes[row] = code.intValue();
+			present.set(row);
+			numeric.clear(row);
+		}
+
+		private static double[] ensureCapacity(double[] array, int row) {
+			if (array == null) {
+				return new double[Math.max(Builder.INITIAL_CAPACITY, row + 1)];
+			}
+			return row < array.length ? array : resize(array, Math.max(row + 1, array.length * 2));
+		}
+
+		private static int[] ensureCapacity(int[] array, int row) {
+			if (array == null) {
+				return new int[Math.max(Builder.INITIAL_CAPACITY, row + 1)];
+			}
+			return row < array.length ? array : resize(array, Math.max(row + 1, array.length * 2));
+		}
+
+		public Column build(int rowCount) {
+			return new Column(present, numeric, numbers == null ? null : resize(numbers, rowCount),
+					codes == null ? null : resize(codes, rowCount), resize(dictionary, codesByText.size()));
+		}
+
+	}
+
+	/**
+	 * Copy an array into one of another length, as <code>Arrays.copyOf</code> does from Java 6 on.
+	 */
+	private static int[] resize(int[] array, int length) {
+		int[] resized = new int[length];
+		System.arraycopy(array, 0, resized, 0, Math.min(array.length, length));
+		return resized;
+	}
+
+	private static double[] resize(double[] array, int length) {
+		double[] resized = new double[length];
+		System.arraycopy(array, 0, resized, 0, Math.min(array.length, length));
+		return resized;
+	}
+
+	private static String[] resize(String[] array, int length) {
+		String[] resized = new String[length];
+		System.arraycopy(array, 0, resized, 0, Math.min(array.length, length));
+		return resized;
+	}
+
+}
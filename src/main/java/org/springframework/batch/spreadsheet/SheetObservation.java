@@ -0,0 +1,73 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+
+/**
+ * Times one worksheet on behalf of a {@link TemplateObserver}. The templates only create one when
+ * an observer is set, and pass <code>null</code> around otherwise, so that reads without an
+ * observer never look at the clock.
+ *
+ * @since 10/16/2026
+ * @author agent
+ */
+final class SheetObservation {
+
+	private final SheetObserver observer;
+
+	private final long start = System.nanoTime();
+
+	private SheetObservation(SheetObserver observer) {
+		this.observer = observer;
+	}
+
+	/**
+	 * @param observer - may be <code>null</code>
+	 * @param file - the file being read
+	 * @param sheet - the worksheet being read
+	 * @return the observation, or <code>null</code> if there is no observer
+	 */
+	static SheetObservation start(TemplateObserver observer, File file, String sheet) {
+		return observer == null ? null : new SheetObservation(observer.sheetStarted(file, sheet));
+	}
+
+	/**
+	 * @param observer - may be <code>null</code>
+	 * @param file - the file that was opened
+	 * @param start - value of {@link System#nanoTime()} before it was opened
+	 */
+	static void fileOpened(TemplateObserver observer, File file, long start) {
+		if (observer != null) {
+			observer.fileOpened(file, file.length(), System.nanoTime() - start);
+		}
+	}
+
+	void rowMapped(long rowStart) {
+		observer.rowMapped(System.nanoTime() - rowStart);
+	}
+
+	void rowFailed(RuntimeException e) {
+		observer.rowFailed(e);
+	}
+
+	void finish(int results) {
+		observer.sheetFinished(results, System.nanoTime() - start);
+	}
+
+}
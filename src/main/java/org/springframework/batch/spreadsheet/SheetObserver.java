@@ -0,0 +1,56 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+/**
+ * Receives the timings and counts of one read of a worksheet, as handed out by
+ * {@link TemplateObserver#sheetStarted(java.io.File, String)}. Rows may be mapped on several
+ * threads at once, so implementations must be thread safe.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see TemplateObserver
+ */
+public interface SheetObserver {
+
+	/**
+	 * The row callback has been invoked for one row, or the row has been added to a
+	 * {@link SheetData} or {@link CellIndex}.
+	 * 
+	 * @param nanos - time spent in the callback, and in the error handler if the row failed
+	 */
+	void rowMapped(long nanos);
+
+	/**
+	 * The row callback threw an exception, which was handed to the error handler. The default
+	 * error handlers drop such rows without a trace, so this is the only record of them.
+	 * 
+	 * @param e - what the callback threw
+	 */
+	void rowFailed(RuntimeException e);
+
+	/**
+	 * Every row of the worksheet that was asked for has been mapped, or the iterator over it has
+	 * been closed, or the read failed part way through.
+	 * 
+	 * @param results - number of mapped rows handed back, or collected before the read failed
+	 * @param nanos - time taken to go through the worksheet, including opening the file
+	 */
+	void sheetFinished(int results, long nanos);
+
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.AbstractList;
+
+/**
+ * A list that keeps its items on the heap until they pass a budget, and then moves them to a
+ * temp file. The budget is measured in serialized bytes, as the {@link ItemSerializer} writes
+ * them. Each item is serialized once, as it is added, and only its bytes are kept, so the budget
+ * is all the list holds on the heap. The next spill appends them to the file, so the spilled items
+ * always come first, and reading the list merges the two without the caller noticing. Reading an
+ * item always deserializes it, whether it is still on the heap or in the file, so every read hands
+ * out a fresh copy.
+ * <p>
+ * Spilled items are read back through a window of the file, so walking the list in order costs
+ * one read per window rather than per item. Items can only be appended. Appending is not thread
+ * safe, but once the list is filled any number of threads can read it.
+ * <p>
+ * A list that has spilled must be closed once its items are no longer needed, such as the results
+ * of a template using a {@link SpillingResultListFactory}; the templates close the results
+ * themselves when a read fails. The temp file is also registered to be deleted when the JVM exits,
+ * as a last resort for a list that is never closed.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see SpillingResultListFactory
+ */
+public class SpillingList<T> extends AbstractList<T> implements Closeable {
+
+	private static final int WINDOW_SIZE = 64 * 1024;
+
+	private final ItemSerializer<T> serializer;
+
+	private final long heapBudget;
+
+	private final File directory;
+
+	/**
+	 * How many items are held in memory, waiting for the next spill.
+	 */
+	private int memoryCount;
+
+	private long memoryBytes;
+
+	/**
+	 * The items held in memory, serialized and each with its length in front, as they go into the file.
+	 */
+	private final SerializedBytes pending = new SerializedBytes();
+
+	private final DataOutputStream pendingOut = new DataOutputStream(pending);
+
+	/**
+	 * Where each item held in memory starts in {@link #pending}, or -1 for a <code>null</code> item.
+	 */
+	private int[] pendingOffsets = new int[16];
+
+	private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+	private final DataOutputStream out = new DataOutputStream(bytes);
+
+	private File spillFile;
+
+	private RandomAccessFile spill;
+
+	/**
+	 * Where each spilled item starts in the file, or -1 for a <code>null</code> item.
+	 */
+	private long[] offsets = new long[0];
+
+	private int spilledCount;
+
+	private byte[] window = new byte[0];
+
+	private long windowStart;
+
+	private int windowLength;
+
+	/**
+	 * @param serializer - turns the items into bytes and back
+	 * @param heapBudget - number of serialized bytes to hold in memory before spilling
+	 * @param directory - where to create the temp file, or <code>null</code> for the default temp directory
+	 */
+	public SpillingList(ItemSerializer<T> serializer, long heapBudget, File directory) {
+		if (heapBudget < 0) {
+			throw new IllegalArgumentException("Heap budget must not be negative, not " + heapBudget);
+		}
+		this.serializer = serializer;
+		this.heapBudget = heapBudget;
+		this.directory = directory;
+	}
+
+	public boolean add(T item) {
+		if (memoryCount == pendingOffsets.length) {
+			int[] grown = new int[pendingOffsets.length * 2];
+			System.arraycopy(pendingOffsets, 0, grown, 0, memoryCount);
+			pendingOffsets = grown;
+		}
+		if (item == null) {
+			pendingOffsets[memoryCount] = -1;
+		} else {
+			pendingOffsets[memoryCount] = pending.size();
+			bytes.reset();
+			try {
+				serializer.serialize(item, out);
+				out.flush();
+				pendingOut.writeInt(bytes.size());
+				bytes.writeTo(pendingOut);
+				memoryBytes += bytes.size();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		memoryCount++;
+		modCount++;
+		if (memoryBytes > heapBudget) {
+			spill();
+		}
+		return true;
+	}
+
+	/**
+	 * Append the bytes of the items held in memory to the temp file.
+	 */
+	private synchronized void spill() {
+		try {
+			if (spill == null) {
+				spillFile = File.createTempFile("spreadsheet-results", ".spill", directory);
+				spillFile.deleteOnExit();
+				spill = new RandomAccessFile(spillFile, "rw");
+			}
+			if (offsets.length < spilledCount + memoryCount) {
+				long[] grown = new long[Math.max(spilledCount + memoryCount, offsets.length * 2)];
+				System.arraycopy(offsets, 0, grown, 0, spilledCount);
+				offsets = grown;
+			}
+			long position = spill.length();
+			for (int i = 0; i < memoryCount; i++) {
+				offsets[spilledCount++] = pendingOffsets[i] < 0 ? -1 : position + pendingOffsets[i];
+			}
+			pendingOut.flush();
+			spill.seek(position);
+			spill.write(pending.buffer(), 0, pending.size());
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		memoryCount = 0;
+		pending.reset();
+		memoryBytes = 0;
+	}
+
+	public T get(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+		if (index >= spilledCount) {
+			int offset = pendingOffsets[index - spilledCount];
+			return offset < 0 ? null : readPending(offset);
+		}
+		return offsets[index] < 0 ? null : readSpilled(offsets[index]);
+	}
+
+	private T readPending(int offset) {
+		try {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(pending.buffer(), offset, pending.size() - offset));
+			int length = in.readInt();
+			return serializer.deserialize(new DataInputStream(new ByteArrayInputStream(pending.buffer(), offset + 4, length)));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private synchronized T readSpilled(long offset) {
+		try {
+			int length = readWindow(offset, 4).readInt();
+			return serializer.deserialize(readWindow(offset + 4, length));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Serve some bytes of the file from the window, moving the window first if they are not all in it.
+	 */
+	private DataInputStream readWindow(long offset, int length) throws IOException {
+		if (offset < windowStart || offset + length > windowStart + windowLength) {
+			if (window.length < length) {
+				window = new byte[Math.max(length, WINDOW_SIZE)];
+			} else if (window.length < WINDOW_SIZE) {
+				window = new byte[WINDOW_SIZE];
+			}
+			spill.seek(offset);
+			windowStart = offset;
+			windowLength = (int) Math.min(window.length, spill.length() - offset);
+			spill.readFully(window, 0, windowLength);
+		}
+		return new DataInputStream(new ByteArrayInputStream(window, (int) (offset - windowStart), length));
+	}
+
+	public int size() {
+		return spilledCount + memoryCount;
+	}
+
+	/**
+	 * @return how many of the items have been moved to the temp file
+	 */
+	public int getSpilledCount() {
+		return spilledCount;
+	}
+
+	/**
+	 * Drop every item, deleting the temp file.
+	 */
+	public void clear() {
+		close();
+		memoryCount = 0;
+		pending.reset();
+		memoryBytes = 0;
+		offsets = new long[0];
+		spilledCount = 0;
+		modCount++;
+	}
+
+	/**
+	 * Delete the temp file. Spilled items can no longer be read afterwards.
+	 */
+	public synchronized void close() {
+		if (spill == null) {
+			return;
+		}
+		try {
+			spill.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			spillFile.delete();
+			spill = null;
+			spillFile = null;
+			windowLength = 0;
+		}
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * This policy collects results into {@link SpillingList}s, which hold mapped rows on the heap up
+ * to a budget and move them to temp files past it. The serializer must handle the type of every
+ * callback the template is used with. The temp files are not deleted until the lists are closed,
+ * so callers should cast the results to {@link SpillingList} and close them once they are done. The
+ * templates close the lists themselves when a read fails, and never hand them out.
+ *
+ * @since 10/16/2026
+ * @author agent
+ */
+public class SpillingResultListFactory implements ResultListFactory {
+
+	private final ItemSerializer<?> serializer;
+
+	private final long heapBudget;
+
+	private final File directory;
+
+	/**
+	 * Spill to the default temp directory.
+	 */
+	public SpillingResultListFactory(ItemSerializer<?> serializer, long heapBudget) {
+		this(serializer, heapBudget, null);
+	}
+
+	/**
+	 * @param serializer - turns the mapped rows into bytes and back
+	 * @param heapBudget - serialized bytes each result list may hold in memory
+	 * @param directory - where to create the temp files
+	 */
+	public SpillingResultListFactory(ItemSerializer<?> serializer, long heapBudget, File directory) {
+		this.serializer = serializer;
+		this.heapBudget = heapBudget;
+		this.directory = directory;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> List<T> newResultList() {
+		return new SpillingList<T>((ItemSerializer<T>) serializer, heapBudget, directory);
+	}
+
+}
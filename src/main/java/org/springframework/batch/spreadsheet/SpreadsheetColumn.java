@@ -0,0 +1,52 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a bean property to a column, for the bean row callbacks. It goes on the setter, or on the
+ * field of the same name as the property. Without it, a property is bound to the column whose
+ * header matches its name, ignoring case and spaces.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelBeanRowCallback
+ * @see CalcBeanRowCallback
+ * @see CalcStreamingBeanRowCallback
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target( { ElementType.FIELD, ElementType.METHOD })
+public @interface SpreadsheetColumn {
+
+	/**
+	 * Header of the column, which must be found in the header row.
+	 */
+	String name() default "";
+
+	/**
+	 * Zero-based index of the column, which needs no header row at all. Takes precedence over the name.
+	 */
+	int index() default -1;
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Convenience functions for handing work to an {@link Executor} and waiting for it, so that
+ * exceptions thrown on a worker thread surface in the caller as if the work had run there.
+ *
+ * @since 10/16/2026
+ * @author agent
+ */
+final class TaskSupport {
+
+	private TaskSupport() {
+	}
+
+	/**
+	 * Run every task on the executor, and wait for all of them to finish.
+	 *
+	 * @param executor
+	 * @param tasks
+	 */
+	static void runAll(Executor executor, List<Runnable> tasks) {
+		List<Future<Object>> futures = new ArrayList<Future<Object>>(tasks.size());
+		for (Runnable task : tasks) {
+			FutureTask<Object> future = new FutureTask<Object>(task, null);
+			executor.execute(future);
+			futures.add(future);
+		}
+		for (Future<Object> future : futures) {
+			await(future);
+		}
+	}
+
+	/**
+	 * Wait for one piece of work, rethrowing whatever it failed with.
+	 *
+	 * @param future
+	 * @return the result of the work
+	 */
+	static <T> T await(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for worksheet processing", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Hands tasks to an executor while keeping their results in submission order. Only a bounded
+	 * number of tasks are in flight at once, so the caller never races far ahead of the workers.
+	 * <code>null</code> results are dropped, following the convention of the row callbacks.
+	 */
+	static final class OrderedWindow<T> {
+
+		/**
+		 * Maximum number of tasks submitted but not collected yet.
+		 */
+		static final int DEFAULT_SIZE = 256;
+
+		private final Executor executor;
+
+		private final int size;
+
+		private final LinkedList<Future<T>> pending = new LinkedList<Future<T>>();
+
+		private final List<T> results;
+
+		/**
+		 * @param executor - runs the tasks
+		 * @param results - where the results are collected, in order
+		 */
+		OrderedWindow(Executor executor, List<T> results) {
+			this(executor, DEFAULT_SIZE, results);
+		}
+
+		OrderedWindow(Executor executor, int size, List<T> results) {
+			this.executor = executor;
+			this.size = size;
+			this.results = results;
+		}
+
+		void submit(Callable<T> task) {
+			FutureTask<T> future = new FutureTask<T>(task);
+			executor.execute(future);
+			pending.add(future);
+			if (pending.size() >= size) {
+				collect(pending.removeFirst());
+			}
+		}
+
+		/**
+		 * Wait for every task still in flight.
+		 *
+		 * @return the results of all the tasks, in the order they were submitted
+		 */
+		List<T> finish() {
+			while (!pending.isEmpty()) {
+				collect(pending.removeFirst());
+			}
+			return results;
+		}
+
+		private void collect(Future<T> future) {
+			try {
+				T result = await(future);
+				if (result != null) {
+					results.add(result);
+				}
+			} catch (RuntimeException e) {
+				cancel();
+				throw e;
+			} catch (Error e) {
+				cancel();
+				throw e;
+			}
+		}
+
+		/**
+		 * Abandon the tasks still in flight, such as when the caller fails before calling finish().
+		 */
+		void cancel() {
+			for (Future<T> future : pending) {
+				future.cancel(true);
+			}
+			pending.clear();
+		}
+
+	}
+
+}
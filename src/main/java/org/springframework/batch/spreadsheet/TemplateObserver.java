@@ -0,0 +1,59 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+
+/**
+ * Receives timings and counts from the templates as they read a file, such as to feed a metrics
+ * registry. Worksheets are tagged the way each template addresses them: by name for
+ * {@link ExcelTemplate}, and by index for {@link CalcTemplate}.
+ * <p>
+ * Each read of a worksheet asks for a {@link SheetObserver} once, as it starts, and reports its
+ * rows to that alone, so an observer can look up whatever it keeps per worksheet once per read
+ * rather than once per row. Rows may be mapped on several threads at once, so implementations must
+ * be thread safe. With no observer set, the templates map rows without looking at the clock.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelTemplate#setObserver(TemplateObserver)
+ * @see CalcTemplate#setObserver(TemplateObserver)
+ * @see TemplateStatistics
+ */
+public interface TemplateObserver {
+
+	/**
+	 * The file has been opened and parsed far enough to hand out rows. For a cached workbook,
+	 * this is the time to fetch it from the cache.
+	 * 
+	 * @param file - the file being read
+	 * @param fileSize - size of the file on disk, which streaming reads that stop early do not read in full
+	 * @param nanos - time taken to open the file
+	 */
+	void fileOpened(File file, long fileSize, long nanos);
+
+	/**
+	 * A read of one worksheet is starting.
+	 * 
+	 * @param file - the file being read
+	 * @param sheet - the worksheet
+	 * @return where to report the rows of this read
+	 */
+	SheetObserver sheetStarted(File file, String sheet);
+
+}
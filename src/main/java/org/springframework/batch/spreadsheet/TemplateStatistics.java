@@ -0,0 +1,226 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link TemplateObserver} that keeps running totals in memory, for when no metrics library is
+ * at hand. Totals are kept per file, and per worksheet of each file. Callback latencies go into a
+ * histogram with one bucket per power of two nanoseconds.
+ * <p>
+ * The totals of a worksheet are looked up once per read, and its rows are counted without taking
+ * a lock, so threads mapping the rows of the same worksheet only contend on its counters.
+ *
+ * @since 10/16/2026
+ * @author agent
+ */
+public class TemplateStatistics implements TemplateObserver {
+
+	private final Map<String, FileStatistics> files = new LinkedHashMap<String, FileStatistics>();
+
+	private final Map<String, SheetStatistics> sheets = new LinkedHashMap<String, SheetStatistics>();
+
+	public synchronized void fileOpened(File file, long fileSize, long nanos) {
+		FileStatistics statistics = getFileStatistics(file);
+		statistics.opens++;
+		statistics.openNanos += nanos;
+		statistics.fileSize = fileSize;
+	}
+
+	public SheetObserver sheetStarted(File file, String sheet) {
+		return getSheetStatistics(file, sheet);
+	}
+
+	/**
+	 * @param file
+	 * @return the totals for the file, all zero if it was never opened
+	 */
+	public synchronized FileStatistics getFileStatistics(File file) {
+		FileStatistics statistics = files.get(file.getPath());
+		if (statistics == null) {
+			statistics = new FileStatistics();
+			files.put(file.getPath(), statistics);
+		}
+		return statistics;
+	}
+
+	/**
+	 * @param file
+	 * @param sheet - worksheet name for Excel, or sheet index for Calc
+	 * @return the totals for the worksheet, all zero if it was never read
+	 */
+	public synchronized SheetStatistics getSheetStatistics(File file, String sheet) {
+		String key = file.getPath() + "!" + sheet;
+		SheetStatistics statistics = sheets.get(key);
+		if (statistics == null) {
+			statistics = new SheetStatistics();
+			sheets.put(key, statistics);
+		}
+		return statistics;
+	}
+
+	/**
+	 * Forget everything recorded so far. Reads already under way keep counting into the totals
+	 * they started with.
+	 */
+	public synchronized void reset() {
+		files.clear();
+		sheets.clear();
+	}
+
+	/**
+	 * Totals for one file. The figures are read without locking, so read them once the templates
+	 * are done with the file.
+	 */
+	public static class FileStatistics {
+
+		private long opens;
+
+		private long openNanos;
+
+		private long fileSize;
+
+		public long getOpens() {
+			return opens;
+		}
+
+		public long getOpenNanos() {
+			return openNanos;
+		}
+
+		/**
+		 * @return the size of the file on disk when it was last opened, which is more than a
+		 * streaming read that stops early consumes
+		 */
+		public long getFileSize() {
+			return fileSize;
+		}
+
+	}
+
+	/**
+	 * Totals for one worksheet, which count the rows of every read of it as they are reported.
+	 * Rows are counted without locking, so the figures of a worksheet that is still being read may
+	 * be a few rows apart from each other.
+	 */
+	public static class SheetStatistics implements SheetObserver {
+
+		private long reads;
+
+		private final AtomicLong rows = new AtomicLong();
+
+		private final AtomicLong failedRows = new AtomicLong();
+
+		private final AtomicLong callbackNanos = new AtomicLong();
+
+		private final AtomicLong maxCallbackNanos = new AtomicLong();
+
+		private long elapsedNanos;
+
+		private int peakResults;
+
+		private final AtomicLongArray latencies = new AtomicLongArray(64);
+
+		public void rowMapped(long nanos) {
+			rows.incrementAndGet();
+			callbackNanos.addAndGet(nanos);
+			long max = maxCallbackNanos.get();
+			while (nanos > max && !maxCallbackNanos.compareAndSet(max, nanos)) {
+				max = maxCallbackNanos.get();
+			}
+			latencies.incrementAndGet(64 - Long.numberOfLeadingZeros(Math.max(nanos, 1)) - 1);
+		}
+
+		public void rowFailed(RuntimeException e) {
+			failedRows.incrementAndGet();
+		}
+
+		public synchronized void sheetFinished(int results, long nanos) {
+			reads++;
+			elapsedNanos += nanos;
+			peakResults = Math.max(peakResults, results);
+		}
+
+		/**
+		 * @return how many times the worksheet was read to the end, or closed
+		 */
+		public synchronized long getReads() {
+			return reads;
+		}
+
+		/**
+		 * @return how many rows were handed to the callback
+		 */
+		public long getRows() {
+			return rows.get();
+		}
+
+		/**
+		 * @return how many rows the callback threw an exception for
+		 */
+		public long getFailedRows() {
+			return failedRows.get();
+		}
+
+		public long getCallbackNanos() {
+			return callbackNanos.get();
+		}
+
+		public long getMaxCallbackNanos() {
+			return maxCallbackNanos.get();
+		}
+
+		public synchronized long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		/**
+		 * @return the largest number of mapped rows handed back by one read
+		 */
+		public synchronized int getPeakResults() {
+			return peakResults;
+		}
+
+		/**
+		 * @return rows handed to the callback per second of finished reads, or 0 if none finished
+		 */
+		public double getRowsPerSecond() {
+			long elapsed = getElapsedNanos();
+			return elapsed == 0 ? 0 : rows.get() * 1e9 / elapsed;
+		}
+
+		/**
+		 * @return a copy of the latency histogram, where element <code>i</code> counts the rows that
+		 * took from 2^i up to 2^(i+1) nanoseconds in the callback
+		 */
+		public long[] getLatencyHistogram() {
+			long[] histogram = new long[latencies.length()];
+			for (int i = 0; i < histogram.length; i++) {
+				histogram[i] = latencies.get(i);
+			}
+			return histogram;
+		}
+
+	}
+
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps parsed workbooks around, so that templates reading the same reference spreadsheet over
+ * and over only parse it once. Entries are keyed by the canonical path of the file, and are only
+ * served while the file keeps the size and modification time it had when it was parsed, so a
+ * replaced file is parsed afresh.
+ * <p>
+ * The budget is measured in bytes of the files on disk. A parsed workbook takes a multiple of
+ * its file size on the heap, so the budget should be set with that in mind. Once the files
+ * cached exceed it, the least recently used workbooks are evicted. A file larger than the whole
+ * budget is parsed but never cached.
+ * <p>
+ * A cache can be shared between templates and threads. When several threads miss on the same
+ * file at once, it is only parsed once, and they all get the same workbook.
+ *
+ * @since 10/16/2026
+ * @author agent
+ * @see ExcelTemplate#setWorkbookCache(WorkbookCache)
+ * @see CalcTemplate#setWorkbookCache(WorkbookCache)
+ */
+public class WorkbookCache {
+
+	private final long byteBudget;
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+	private long cachedBytes;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * @param byteBudget - total size of the files whose workbooks may be cached
+	 */
+	public WorkbookCache(long byteBudget) {
+		if (byteBudget < 0) {
+			throw new IllegalArgumentException("Byte budget must not be negative, not " + byteBudget);
+		}
+		this.byteBudget = byteBudget;
+	}
+
+	/**
+	 * Parses a file into a workbook.
+	 */
+	interface Loader<W> {
+
+		W load(File file) throws IOException;
+
+	}
+
+	/**
+	 * Fetch the parsed workbook of a file, parsing it on a miss.
+	 * 
+	 * @param file
+	 * @param type - class of the parsed workbook, as a file could be cached by another kind of template
+	 * @param loader - parses the file
+	 * @return the workbook
+	 * @throws IOException
+	 */
+	<W> W get(final File file, Class<W> type, final Loader<W> loader) throws IOException {
+		String path = file.getCanonicalPath();
+		long length = file.length();
+		long lastModified = file.lastModified();
+		Entry entry;
+		boolean owner = false;
+		synchronized (this) {
+			entry = entries.get(path);
+			if (entry != null && !entry.matches(type, length, lastModified)) {
+				remove(path);
+				entry = null;
+			}
+			if (entry == null) {
+				entry = new Entry(type, length, lastModified, new FutureTask<Object>(new Callable<Object>() {
+					public Object call() throws IOException {
+						return loader.load(file);
+					}
+				}));
+				entries.put(path, entry);
+				cachedBytes += length;
+				owner = true;
+			}
+		}
+		if (!owner) {
+			hits.incrementAndGet();
+			return type.cast(await(path, entry));
+		}
+		misses.incrementAndGet();
+		entry.workbook.run();
+		W workbook = type.cast(await(path, entry));
+		evict(path, entry);
+		return workbook;
+	}
+
+	private Object await(String path, Entry entry) throws IOException {
+		try {
+			return entry.workbook.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a workbook to be parsed", e);
+		} catch (ExecutionException e) {
+			synchronized (this) {
+				if (entries.get(path) == entry) {
+					remove(path);
+				}
+			}
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Drop the least recently used workbooks until the budget is met again, starting with the
+	 * workbook just parsed if it could never fit.
+	 */
+	private synchronized void evict(String path, Entry added) {
+		if (added.length > byteBudget && entries.get(path) == added) {
+			remove(path);
+			evictions.incrementAndGet();
+		}
+		for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); cachedBytes > byteBudget && it.hasNext();) {
+			Map.Entry<String, Entry> eldest = it.next();
+			if (eldest.getValue() != added) {
+				it.remove();
+				cachedBytes -= eldest.getValue().length;
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	private void remove(String path) {
+		Entry removed = entries.remove(path);
+		if (removed != null) {
+			cachedBytes -= removed.length;
+		}
+	}
+
+	/**
+	 * Forget the workbook of one file, such as after rewriting it within the resolution of its
+	 * modification time.
+	 * 
+	 * @param file
+	 * @throws IOException if the path of the file cannot be resolved
+	 */
+	public synchronized void invalidate(File file) throws IOException {
+		remove(file.getCanonicalPath());
+	}
+
+	/**
+	 * Forget every workbook. The statistics are kept.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		cachedBytes = 0;
+	}
+
+	public long getByteBudget() {
+		return byteBudget;
+	}
+
+	/**
+	 * @return the total size of the files whose workbooks are cached
+	 */
+	public synchronized long getCachedBytes() {
+		return cachedBytes;
+	}
+
+	/**
+	 * @return the number of workbooks cached
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return how many requests were served a workbook already parsed, or being parsed
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * @return how many requests had to parse the file
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * @return how many workbooks were dropped to stay within the budget
+	 */
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/**
+	 * @return the share of requests that were hits, or 0 before the first request
+	 */
+	public double getHitRatio() {
+		long hitCount = hits.get();
+		long total = hitCount + misses.get();
+		return total == 0 ? 0 : (double) hitCount / total;
+	}
+
+	public String toString() {
+		return "WorkbookCache [hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount()
+				+ ", cached=" + getCachedBytes() + " of " + byteBudget + " bytes]";
+	}
+
+	/**
+	 * A workbook, parsed or being parsed, and the identity of the file it came from.
+	 */
+	private static class Entry {
+
+		private final Class<?> type;
+
+		private final long length;
+
+		private final long lastModified;
+
+		private final FutureTask<Object> workbook;
+
+		public Entry(Class<?> type, long length, long lastModified, FutureTask<Object> workbook) {
+			this.type = type;
+			this.length = length;
+			this.lastModified = lastModified;
+			this.workbook = workbook;
+		}
+
+		public boolean matches(Class<?> type, long length, long lastModified) {
+			return this.type == type && this.length == length && this.lastModified == lastModified;
+		}
+
+	}
+
+}
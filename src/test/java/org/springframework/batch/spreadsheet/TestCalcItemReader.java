@@ -0,0 +1,123 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+import java.util.Map;
+
+import org.jopendocument.dom.spreadsheet.Sheet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.spreadsheet.support.PhoneBookEntry;
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * @author agent
+ */
+public class TestCalcItemReader {
+
+	private String pathname = "src" + File.separator + "test" + File.separator + "resources";
+	
+	private int mappedRows;
+	
+	private CalcItemReader<PhoneBookEntry> createReader() throws Exception {
+		CalcItemReader<PhoneBookEntry> reader = new CalcItemReader<PhoneBookEntry>();
+		reader.setResource(new FileSystemResource(pathname + File.separator + "phonebook_with_holes.ods"));
+		reader.setSkipFirstRow(true);
+		reader.setRowCallback(new CalcRowCallback<PhoneBookEntry>() {
+			public PhoneBookEntry mapRow(Sheet sheet, int row) {
+				mappedRows++;
+				String name = CalcUtil.getAttr(sheet, 0, row);
+				return name == null ? null : new PhoneBookEntry(name, null, null);
+			}
+		});
+		reader.afterPropertiesSet();
+		return reader;
+	}
+	
+	private CalcStreamingItemReader<PhoneBookEntry> createStreamingReader() throws Exception {
+		CalcStreamingItemReader<PhoneBookEntry> reader = new CalcStreamingItemReader<PhoneBookEntry>();
+		reader.setResource(new FileSystemResource(pathname + File.separator + "phonebook_with_holes.ods"));
+		reader.setSkipFirstRow(true);
+		reader.setRowCallback(new CalcStreamingRowCallback<PhoneBookEntry>() {
+			public PhoneBookEntry mapRow(CalcRow row) {
+				mappedRows++;
+				String name = row.getString(0);
+				return name == null ? null : new PhoneBookEntry(name, null, null);
+			}
+		});
+		reader.afterPropertiesSet();
+		return reader;
+	}
+	
+	@Test
+	public void testRestartingCalcItemReader() throws Exception {
+		assertRestarting(createReader(), createReader());
+	}
+	
+	@Test
+	public void testRestartingCalcStreamingItemReader() throws Exception {
+		assertRestarting(createStreamingReader(), createStreamingReader());
+	}
+	
+	private void assertRestarting(ItemStreamReader<PhoneBookEntry> reader, ItemStreamReader<PhoneBookEntry> restarted) throws Exception {
+		ExecutionContext executionContext = new ExecutionContext();
+		reader.open(executionContext);
+		Assert.assertEquals("Peter Gibbons", reader.read().getName());
+		Assert.assertEquals("Joanna", reader.read().getName());
+		reader.update(executionContext);
+		reader.close();
+		
+		mappedRows = 0;
+		restarted.open(executionContext);
+		try {
+			Assert.assertEquals("Bill Lumbergh", restarted.read().getName());
+			Assert.assertNull(restarted.read());
+			// only the rows after the restart point were mapped
+			Assert.assertEquals(2, mappedRows);
+		} finally {
+			restarted.close();
+		}
+	}
+
+	@Test
+	public void testPartitioningCalcWorksheet() throws Exception {
+		CalcRowRangePartitioner partitioner = new CalcRowRangePartitioner();
+		partitioner.setResource(new FileSystemResource(pathname + File.separator + "phonebook_with_holes.ods"));
+		partitioner.afterPropertiesSet();
+		Map<String, ExecutionContext> partitions = partitioner.partition(2);
+		
+		Assert.assertEquals(2, partitions.size());
+		ExecutionContext second = partitions.get("partition1");
+		Assert.assertEquals(3, second.getInt(AbstractRowRangePartitioner.START_ROW));
+		Assert.assertEquals(5, second.getInt(AbstractRowRangePartitioner.END_ROW));
+		
+		CalcStreamingItemReader<PhoneBookEntry> reader = createStreamingReader();
+		reader.setStartRow(second.getInt(AbstractRowRangePartitioner.START_ROW));
+		reader.setEndRow(second.getInt(AbstractRowRangePartitioner.END_ROW));
+		reader.open(new ExecutionContext());
+		try {
+			Assert.assertEquals("Bill Lumbergh", reader.read().getName());
+			Assert.assertNull(reader.read());
+		} finally {
+			reader.close();
+		}
+	}
+
+}
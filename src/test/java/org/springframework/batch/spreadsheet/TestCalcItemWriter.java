@@ -0,0 +1,130 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.spreadsheet.support.PhoneBookEntry;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * @author agent
+ */
+public class TestCalcItemWriter {
+
+	private CalcItemWriter<PhoneBookEntry> createWriter(File file) throws Exception {
+		CalcItemWriter<PhoneBookEntry> writer = new CalcItemWriter<PhoneBookEntry>();
+		writer.setResource(new FileSystemResource(file));
+		writer.setSheetName("Sheet1");
+		writer.setColumnHeaders(ColumnHeaders.of("name", "address", "phone"));
+		writer.setRowWriterCallback(new RowWriterCallback<PhoneBookEntry>() {
+			public void writeRow(PhoneBookEntry item, RowWriter row) {
+				row.setString(0, item.getName());
+				row.setString(1, item.getAddress());
+				row.setString(2, item.getPhone());
+			}
+		});
+		writer.afterPropertiesSet();
+		return writer;
+	}
+	
+	@Test
+	public void testRestartingCalcItemWriter() throws Exception {
+		File file = File.createTempFile("phonebook", ".ods");
+		file.deleteOnExit();
+		ExecutionContext executionContext = new ExecutionContext();
+		
+		CalcItemWriter<PhoneBookEntry> writer = createWriter(file);
+		writer.open(executionContext);
+		writer.write(Arrays.asList(new PhoneBookEntry("Peter Gibbons", "Initech", "555-821-2123"),
+				new PhoneBookEntry("Joanna", null, "555-124-3512")));
+		writer.update(executionContext);
+		// this chunk is never committed, as if the step failed
+		writer.write(Arrays.asList(new PhoneBookEntry("Milton", "the basement", "555-321-9502")));
+		writer.close();
+		
+		writer = createWriter(file);
+		writer.open(executionContext);
+		Assert.assertEquals(2, writer.getWrittenCount());
+		writer.write(Arrays.asList(new PhoneBookEntry("Bill Lumbergh", "his office", "555-232-9877")));
+		writer.update(executionContext);
+		writer.close();
+		Assert.assertEquals(3, executionContext.getInt("CalcItemWriter.written"));
+		
+		List<PhoneBookEntry> entries = new CalcTemplate(file, true).onEachRow(0, new CalcStreamingBeanRowCallback<PhoneBookEntry>(PhoneBookEntry.class));
+		Assert.assertEquals(3, entries.size());
+		Assert.assertEquals("Peter Gibbons", entries.get(0).getName());
+		Assert.assertNull(entries.get(1).getAddress());
+		Assert.assertEquals("Bill Lumbergh", entries.get(2).getName());
+		Assert.assertEquals("555-232-9877", entries.get(2).getPhone());
+		
+		file.delete();
+	}
+	
+	@Test
+	public void testRollingBackCalcItemWriterChunk() throws Exception {
+		File file = File.createTempFile("phonebook", ".ods");
+		file.deleteOnExit();
+		CalcItemWriter<PhoneBookEntry> writer = createWriter(file);
+		writer.open(new ExecutionContext());
+		writeChunk(writer, false, new PhoneBookEntry("Peter Gibbons", "Initech", "555-821-2123"),
+				new PhoneBookEntry("Joanna", null, "555-124-3512"));
+		writeChunk(writer, true, new PhoneBookEntry("Milton", "the basement", "555-321-9502"));
+		Assert.assertEquals(2, writer.getWrittenCount());
+		// the chunk is tried again, and its rows must only be there once
+		writeChunk(writer, false, new PhoneBookEntry("Milton", "the basement", "555-321-9502"),
+				new PhoneBookEntry("Bill Lumbergh", "his office", "555-232-9877"));
+		Assert.assertEquals(4, writer.getWrittenCount());
+		writer.close();
+		
+		List<PhoneBookEntry> entries = new CalcTemplate(file, true).onEachRow(0, new CalcStreamingBeanRowCallback<PhoneBookEntry>(PhoneBookEntry.class));
+		Assert.assertEquals(4, entries.size());
+		Assert.assertEquals("Joanna", entries.get(1).getName());
+		Assert.assertEquals("Milton", entries.get(2).getName());
+		Assert.assertEquals("the basement", entries.get(2).getAddress());
+		Assert.assertEquals("Bill Lumbergh", entries.get(3).getName());
+		
+		file.delete();
+	}
+	
+	private void writeChunk(final CalcItemWriter<PhoneBookEntry> writer, final boolean rollback, final PhoneBookEntry... items) {
+		new TransactionTemplate(new ResourcelessTransactionManager()).execute(new TransactionCallback<Object>() {
+			public Object doInTransaction(TransactionStatus status) {
+				try {
+					writer.write(Arrays.asList(items));
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+				if (rollback) {
+					status.setRollbackOnly();
+				}
+				return null;
+			}
+		});
+	}
+
+}
@@ -16,10 +16,20 @@
 
 package org.springframework.batch.spreadsheet;
 
+import java.awt.Point;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableModel;
@@ -31,8 +41,11 @@ import org.jopendocument.dom.spreadsheet.SpreadSheet;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.batch.spreadsheet.support.ContactCard;
 import org.springframework.batch.spreadsheet.support.EmptyPhoneBookEntry;
 import org.springframework.batch.spreadsheet.support.PhoneBookEntry;
+import org.springframework.batch.spreadsheet.support.PhoneBookEntrySerializer;
 
 
 /**
@@ -237,4 +250,705 @@ public class TestCalcTemplate {
 		Assert.assertEquals(EmptyPhoneBookEntry.PHONE, results.get(3).getPhone());
 	}
 
+	@Test
+	public void testStreamingSimpleCalcSpreadsheet() {
+		File file = new File(pathname + File.separator + "phonebook.ods");		
+		CalcTemplate ct = new CalcTemplate(file);
+		
+		List<PhoneBookEntry> results = 
+			ct.onEachRow(0, new CalcStreamingRowCallback<PhoneBookEntry>() {
+				public PhoneBookEntry mapRow(CalcRow row) {
+					return new PhoneBookEntry(row.getString(0), row.getString(1), row.getString(2));
+				}
+			});
+		
+		Assert.assertEquals(2, results.size());
+		
+		Assert.assertEquals("Name", results.get(0).getName());
+		Assert.assertEquals("Address", results.get(0).getAddress());
+		Assert.assertEquals("Phone", results.get(0).getPhone());
+		
+		Assert.assertEquals("Peter Gibbons", results.get(1).getName());
+		Assert.assertEquals("123 ABC Drive", results.get(1).getAddress());
+		Assert.assertEquals("555-821-2123", results.get(1).getPhone());
+	}
+	
+	@Test
+	public void testStreamingCalcSpreadsheetWithHoles() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");		
+		CalcTemplate ct = new CalcTemplate(file, true);
+		
+		List<PhoneBookEntry> results = 
+			ct.onEachRow(0, new CalcStreamingRowCallback<PhoneBookEntry>() {
+				public PhoneBookEntry mapRow(CalcRow row) {
+					return new PhoneBookEntry(row.getString(0), row.getString(1), row.getString(2));
+				}
+			});
+		
+		Assert.assertEquals(4, results.size());
+		
+		Assert.assertEquals("Peter Gibbons", results.get(0).getName());
+		Assert.assertEquals("123 ABC Drive", results.get(0).getAddress());
+		Assert.assertEquals("555-821-2123", results.get(0).getPhone());
+		
+		Assert.assertEquals("Joanna", results.get(1).getName());
+		Assert.assertNull(results.get(1).getAddress());
+		Assert.assertEquals("555-915-9900", results.get(1).getPhone());
+		
+		Assert.assertNull(results.get(2).getName());
+		Assert.assertEquals("Corp HQ", results.get(2).getAddress());
+		Assert.assertEquals("555-321-9502", results.get(2).getPhone());
+
+		Assert.assertEquals("Bill Lumbergh", results.get(3).getName());
+		Assert.assertEquals("his cubicle", results.get(3).getAddress());
+		Assert.assertNull(results.get(3).getPhone());
+	}
+	
+	@Test
+	public void testObservingStreamedCalcRows() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");		
+		CalcTemplate ct = new CalcTemplate(file, true);
+		TemplateStatistics statistics = new TemplateStatistics();
+		ct.setObserver(statistics);
+		
+		CloseableRowIterator<String> addresses = ct.rowIterator(0, new CalcStreamingRowCallback<String>() {
+			public String mapRow(CalcRow row) {
+				return row.getString(1).toUpperCase();
+			}
+		});
+		try {
+			Assert.assertEquals("123 ABC DRIVE", addresses.next());
+		} finally {
+			addresses.close();
+		}
+		List<String> names = ct.onEachRow(0, new CalcStreamingRowCallback<String>() {
+			public String mapRow(CalcRow row) {
+				return row.getString(0).toUpperCase();
+			}
+		});
+		
+		Assert.assertEquals(3, names.size());
+		Assert.assertEquals(2, statistics.getFileStatistics(file).getOpens());
+		TemplateStatistics.SheetStatistics sheet = statistics.getSheetStatistics(file, "0");
+		Assert.assertEquals(2, sheet.getReads());
+		Assert.assertEquals(5, sheet.getRows());
+		Assert.assertEquals(1, sheet.getFailedRows());
+		Assert.assertEquals(3, sheet.getPeakResults());
+	}
+	
+	@Test
+	public void testObservingFailedAndIndexedCalcSheets() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");
+		CalcTemplate ct = new CalcTemplate(file, true);
+		TemplateStatistics statistics = new TemplateStatistics();
+		ct.setObserver(statistics);
+		try {
+			ct.onEachRow(0, new CalcStreamingRowCallback<String>() {
+				public String mapRow(CalcRow row) {
+					return row.getString(1).toUpperCase();
+				}
+			}, new CalcStreamingErrorHandler<String>() {
+				public String handleException(CalcRow row, RuntimeException e) {
+					throw e;
+				}
+			});
+			Assert.fail("Expected the error handler to stop the read");
+		} catch (NullPointerException e) {
+			// expected
+		}
+		
+		TemplateStatistics.SheetStatistics sheet = statistics.getSheetStatistics(file, "0");
+		Assert.assertEquals(1, sheet.getReads());
+		Assert.assertEquals(1, sheet.getFailedRows());
+		long rows = sheet.getRows();
+		
+		ct.indexCells(0);
+		Assert.assertEquals(2, sheet.getReads());
+		Assert.assertTrue(sheet.getRows() > rows);
+	}
+	
+	@Test
+	public void testStreamingCalcRowsOffHeap() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");
+		CalcTemplate ct = new CalcTemplate(file, true);
+		ct.setResultListFactory(new OffHeapResultListFactory(new PhoneBookEntrySerializer(), 64));
+		
+		List<PhoneBookEntry> results = 
+			ct.onEachRow(0, new CalcStreamingRowCallback<PhoneBookEntry>() {
+				public PhoneBookEntry mapRow(CalcRow row) {
+					return new PhoneBookEntry(row.getString(0), row.getString(1), row.getString(2));
+				}
+			});
+		
+		Assert.assertTrue(results instanceof OffHeapList);
+		Assert.assertEquals(4, results.size());
+		Assert.assertEquals("Peter Gibbons", results.get(0).getName());
+		Assert.assertNull(results.get(1).getAddress());
+		Assert.assertEquals("Corp HQ", results.get(2).getAddress());
+		Assert.assertNull(results.get(3).getPhone());
+		Assert.assertTrue(((OffHeapList<PhoneBookEntry>) results).getAllocatedBytes() >= 64);
+	}
+	
+	@Test
+	public void testStreamingCalcRowsWithSpilling() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");
+		CalcTemplate ct = new CalcTemplate(file, true);
+		ct.setResultListFactory(new SpillingResultListFactory(new PhoneBookEntrySerializer(), 60));
+		
+		List<PhoneBookEntry> results = 
+			ct.onEachRow(0, new CalcStreamingRowCallback<PhoneBookEntry>() {
+				public PhoneBookEntry mapRow(CalcRow row) {
+					return new PhoneBookEntry(row.getString(0), row.getString(1), row.getString(2));
+				}
+			});
+		
+		SpillingList<PhoneBookEntry> spilled = (SpillingList<PhoneBookEntry>) results;
+		try {
+			Assert.assertEquals(4, results.size());
+			Assert.assertTrue(spilled.getSpilledCount() > 0);
+			Assert.assertTrue(spilled.getSpilledCount() < 4);
+			List<String> names = new ArrayList<String>();
+			for (PhoneBookEntry entry : results) {
+				names.add(entry.getName());
+			}
+			Assert.assertEquals(Arrays.asList("Peter Gibbons", "Joanna", null, "Bill Lumbergh"), names);
+			Assert.assertEquals("Corp HQ", results.get(2).getAddress());
+			Assert.assertEquals("555-821-2123", results.get(0).getPhone());
+		} finally {
+			spilled.close();
+		}
+	}
+	
+	@Test
+	public void testStreamingMemoryMappedCalcFile() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");
+		CalcTemplate ct = new CalcTemplate(file, true);
+		ct.setMemoryMapped(true);
+		
+		List<PhoneBookEntry> results = ct.onEachRow(0, new CalcStreamingBeanRowCallback<PhoneBookEntry>(PhoneBookEntry.class));
+		
+		Assert.assertEquals(4, results.size());
+		Assert.assertEquals("Peter Gibbons", results.get(0).getName());
+		Assert.assertNull(results.get(1).getAddress());
+		Assert.assertEquals("555-321-9502", results.get(2).getPhone());
+		Assert.assertEquals("his cubicle", results.get(3).getAddress());
+	}
+	
+	@Test
+	public void testCachingLoadedDocuments() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");
+		WorkbookCache cache = new WorkbookCache(1024 * 1024);
+		CalcTemplate ct = new CalcTemplate(file, true);
+		ct.setWorkbookCache(cache);
+		CalcRowCallback<String> names = new CalcRowCallback<String>() {
+			public String mapRow(Sheet sheet, int row) {
+				return CalcUtil.getAttr(sheet, 0, row);
+			}
+		};
+		
+		Assert.assertEquals(3, ct.onEachRow(0, names).size());
+		CloseableRowIterator<String> iterator = ct.rowIterator(0, names, true, new DefaultCalcTemplateErrorHandler<String>());
+		Assert.assertEquals("Peter Gibbons", iterator.next());
+		iterator.close();
+		Assert.assertEquals(1, cache.getMissCount());
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(0.5, cache.getHitRatio(), 0.0);
+		Assert.assertEquals(file.length(), cache.getCachedBytes());
+	}
+	
+	@Test
+	public void testWritingCalcRows() throws IOException {
+		File file = File.createTempFile("written", ".ods");
+		file.deleteOnExit();
+		List<PhoneBookEntry> entries = Arrays.asList(new PhoneBookEntry("Greg", "Nashville", "555-1234"),
+				new PhoneBookEntry("Mark", null, "555-9876"));
+		
+		CalcTemplate ct = new CalcTemplate(file, true);
+		int written = ct.writeRows("Phonebook", ColumnHeaders.of("name", "address", "phone", "entry", "listed", "since"), entries,
+				new RowWriterCallback<PhoneBookEntry>() {
+					private int entry;
+					
+					public void writeRow(PhoneBookEntry item, RowWriter row) {
+						row.setString(0, item.getName());
+						row.setString(1, item.getAddress());
+						row.setString(2, item.getPhone());
+						row.setNumber(3, ++entry);
+						row.setBoolean(4, item.getAddress() != null);
+						row.setDate(5, new GregorianCalendar(2009, Calendar.NOVEMBER, entry).getTime());
+					}
+				});
+		Assert.assertEquals(2, written);
+		Assert.assertEquals("[name, address, phone, entry, listed, since]", ct.readColumnHeaders(0).getNames().toString());
+		
+		List<String> expected = Arrays.asList("1: Greg, Nashville, 555-1234, 1, true, 2009-11-01", "2: Mark, null, 555-9876, 2, false, 2009-11-02");
+		Assert.assertEquals(expected, ct.onEachRow(0, new CalcStreamingRowCallback<String>() {
+			public String mapRow(CalcRow row) {
+				return row.getRowIndex() + ": " + row.getString(0) + ", " + row.getString(1) + ", " + row.getString(2) + ", "
+						+ row.getLong(3) + ", " + row.getBoolean(4) + ", " + new SimpleDateFormat("yyyy-MM-dd").format(row.getDate(5));
+			}
+		}));
+		Assert.assertEquals(expected, ct.onEachRow(0, new CalcRowCallback<String>() {
+			public String mapRow(Sheet sheet, int row) {
+				return row + ": " + CalcUtil.getString(sheet, 0, row) + ", " + CalcUtil.getString(sheet, 1, row) + ", "
+						+ CalcUtil.getString(sheet, 2, row) + ", " + CalcUtil.getString(sheet, 3, row) + ", "
+						+ CalcUtil.getString(sheet, 4, row) + ", " + CalcUtil.getString(sheet, 5, row);
+			}
+		}));
+		
+		file.delete();
+	}
+	
+	@Test
+	public void testFailedCalcWriteKeepsTheOldFile() throws IOException {
+		File file = File.createTempFile("written", ".ods");
+		file.deleteOnExit();
+		CalcTemplate ct = new CalcTemplate(file, true);
+		ct.writeRows("Values", ColumnHeaders.of("value"), Arrays.asList("old"), new RowWriterCallback<String>() {
+			public void writeRow(String item, RowWriter row) {
+				row.setString(0, item);
+			}
+		});
+		
+		try {
+			ct.writeRows("Values", ColumnHeaders.of("value"), Arrays.asList("new", "broken"), new RowWriterCallback<String>() {
+				public void writeRow(String item, RowWriter row) {
+					if (item.equals("broken")) {
+						throw new IllegalStateException("Cannot write " + item);
+					}
+					row.setString(0, item);
+				}
+			});
+			Assert.fail("Expected the callback to fail");
+		} catch (IllegalStateException e) {
+			Assert.assertEquals("Cannot write broken", e.getMessage());
+		}
+		
+		Assert.assertEquals(Arrays.asList("old"), ct.onEachRow(0, new CalcStreamingRowCallback<String>() {
+			public String mapRow(CalcRow row) {
+				return row.getString(0);
+			}
+		}));
+		Assert.assertFalse(new File(file.getPath() + ".part").exists());
+		Assert.assertFalse(new File(file.getPath() + ".assembly.part").exists());
+		
+		file.delete();
+	}
+	
+	@Test
+	public void testStreamingCalcSpreadsheetUsingSpecialErrorHandling() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");		
+		CalcTemplate ct = new CalcTemplate(file, true);
+		
+		List<PhoneBookEntry> results = 
+			ct.onEachRow(0,
+					new CalcStreamingRowCallback<PhoneBookEntry>() {
+						public PhoneBookEntry mapRow(CalcRow row) {
+							if (row.getString(0) == null || row.getString(1) == null || row.getString(2) == null) {
+								throw new IllegalStateException("Missing value in row " + row.getRowIndex());
+							}
+							return new PhoneBookEntry(row.getString(0), row.getString(1), row.getString(2));
+						}
+					},
+					new CalcStreamingErrorHandler<PhoneBookEntry>() {
+						public PhoneBookEntry handleException(CalcRow row, RuntimeException e) {
+							return new EmptyPhoneBookEntry();
+						}
+					}
+			);
+		
+		Assert.assertEquals(4, results.size());
+		
+		Assert.assertEquals("Peter Gibbons", results.get(0).getName());
+		Assert.assertEquals(EmptyPhoneBookEntry.NAME, results.get(1).getName());
+		Assert.assertEquals(EmptyPhoneBookEntry.NAME, results.get(2).getName());
+		Assert.assertEquals(EmptyPhoneBookEntry.NAME, results.get(3).getName());
+	}
+
+	@Test
+	public void testReadingSeveralCalcSheetsAtOnce() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");
+		CalcTemplate ct = new CalcTemplate(file, true);
+		
+		Map<Integer, CalcRowCallback<PhoneBookEntry>> callbacks = new LinkedHashMap<Integer, CalcRowCallback<PhoneBookEntry>>();
+		callbacks.put(0, new CalcRowCallback<PhoneBookEntry>() {
+			public PhoneBookEntry mapRow(Sheet sheet, int row) {
+				return new PhoneBookEntry(
+						CalcUtil.getAttr(sheet, 0, row),
+						CalcUtil.getAttr(sheet, 1, row),
+						CalcUtil.getAttr(sheet, 2, row));
+			}
+		});
+		Map<Integer, List<?>> results = ct.onEachSheet(callbacks);
+		
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals(1, results.get(0).size());
+		Assert.assertEquals("Peter Gibbons", ((PhoneBookEntry) results.get(0).get(0)).getName());
+	}
+	
+	@Test
+	public void testStreamingSeveralCalcSheetsAtOnce() {
+		File file = new File(pathname + File.separator + "phonebook.ods");
+		CalcTemplate ct = new CalcTemplate(file);
+		
+		Map<Integer, List<PhoneBookEntry>> results = 
+			ct.onEachSheet(new int[] {0}, new CalcStreamingRowCallback<PhoneBookEntry>() {
+				public PhoneBookEntry mapRow(CalcRow row) {
+					return new PhoneBookEntry(row.getString(0), row.getString(1), row.getString(2));
+				}
+			});
+		
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals(2, results.get(0).size());
+		Assert.assertEquals("Name", results.get(0).get(0).getName());
+		Assert.assertEquals("Peter Gibbons", results.get(0).get(1).getName());
+	}
+	
+	@Test
+	public void testStreamingSeveralCalcSheetsInParallel() throws IOException {
+		File file = File.createTempFile("phonebook", ".ods");
+		file.deleteOnExit();
+		RowWriterCallback<String> names = new RowWriterCallback<String>() {
+			public void writeRow(String item, RowWriter row) {
+				row.setString(0, item);
+			}
+		};
+		CalcStreamingWriter writer = new CalcStreamingWriter(file);
+		writer.startSheet("Sheet1");
+		writer.write("Peter Gibbons", names);
+		writer.write("Joanna", names);
+		writer.startSheet("Sheet2");
+		writer.write("Milton", names);
+		writer.close();
+		
+		CalcTemplate ct = new CalcTemplate(file);
+		ct.setTaskExecutor(new SimpleAsyncTaskExecutor());
+		Map<Integer, List<String>> results = 
+			ct.onEachSheet(new int[] {0, 1}, new CalcStreamingRowCallback<String>() {
+				public String mapRow(CalcRow row) {
+					return row.getString(0);
+				}
+			});
+		
+		Assert.assertEquals(2, results.size());
+		Assert.assertEquals(Arrays.asList("Peter Gibbons", "Joanna"), results.get(0));
+		Assert.assertEquals(Arrays.asList("Milton"), results.get(1));
+		
+		file.delete();
+	}
+	
+	@Test
+	public void testStreamingSeveralCalcSheetsOfBeansInParallel() throws IOException {
+		File file = File.createTempFile("phonebook", ".ods");
+		file.deleteOnExit();
+		RowWriterCallback<String[]> cells = new RowWriterCallback<String[]>() {
+			public void writeRow(String[] item, RowWriter row) {
+				for (int column = 0; column < item.length; column++) {
+					row.setString(column, item[column]);
+				}
+			}
+		};
+		CalcStreamingWriter writer = new CalcStreamingWriter(file);
+		writer.startSheet("Sheet1");
+		writer.write(new String[] {"Name", "Phone"}, cells);
+		writer.write(new String[] {"Peter Gibbons", "555-123-4567"}, cells);
+		writer.startSheet("Sheet2");
+		writer.write(new String[] {"Phone", "Name"}, cells);
+		writer.write(new String[] {"555-321-9502", "Milton"}, cells);
+		writer.close();
+		
+		CalcTemplate ct = new CalcTemplate(file);
+		ct.setTaskExecutor(new SimpleAsyncTaskExecutor());
+		// the worksheets have their columns in different orders, so each read needs bindings of its own
+		Map<Integer, List<PhoneBookEntry>> results = ct.onEachSheet(new int[] {0, 1},
+				new CalcStreamingBeanRowCallback<PhoneBookEntry>(PhoneBookEntry.class), true,
+				new DefaultCalcStreamingErrorHandler<PhoneBookEntry>());
+		
+		Assert.assertEquals("Peter Gibbons", results.get(0).get(0).getName());
+		Assert.assertEquals("555-123-4567", results.get(0).get(0).getPhone());
+		Assert.assertEquals("Milton", results.get(1).get(0).getName());
+		Assert.assertEquals("555-321-9502", results.get(1).get(0).getPhone());
+		
+		file.delete();
+	}
+
+	@Test
+	public void testMappingStreamedCalcRowsInParallel() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");
+		CalcTemplate ct = new CalcTemplate(file, true);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<PhoneBookEntry> results = 
+				ct.onEachRow(0, new CalcStreamingRowCallback<PhoneBookEntry>() {
+					public PhoneBookEntry mapRow(CalcRow row) {
+						return new PhoneBookEntry(row.getString(0), row.getString(1), row.getString(2));
+					}
+				}, executor);
+			
+			Assert.assertEquals(4, results.size());
+			Assert.assertEquals("Peter Gibbons", results.get(0).getName());
+			Assert.assertEquals("Joanna", results.get(1).getName());
+			Assert.assertEquals("Corp HQ", results.get(2).getAddress());
+			Assert.assertEquals("Bill Lumbergh", results.get(3).getName());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testIteratingOverStreamedCalcRows() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");
+		CalcTemplate ct = new CalcTemplate(file, true);
+		CloseableRowIterator<String> names = ct.rowIterator(0, new CalcStreamingRowCallback<String>() {
+			public String mapRow(CalcRow row) {
+				return row.getString(0);
+			}
+		});
+		try {
+			Assert.assertEquals("Peter Gibbons", names.next());
+			Assert.assertEquals("Joanna", names.next());
+			// stop early, leaving the close to the finally block
+		} finally {
+			names.close();
+		}
+		Assert.assertFalse(names.hasNext());
+	}
+
+	@Test
+	public void testProcessingStreamedCalcRowsInChunks() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");
+		CalcTemplate ct = new CalcTemplate(file);
+		final List<String> names = new ArrayList<String>();
+		final List<Integer> chunkSizes = new ArrayList<Integer>();
+		int count = ct.onEachChunk(0, 2, new CalcRowChunkCallback() {
+			public void processChunk(List<CalcRow> rows) {
+				chunkSizes.add(rows.size());
+				for (CalcRow row : rows) {
+					names.add(row.getString(0));
+				}
+			}
+		});
+		
+		Assert.assertEquals(5, count);
+		Assert.assertEquals(3, chunkSizes.size());
+		Assert.assertEquals(Integer.valueOf(1), chunkSizes.get(2));
+		Assert.assertEquals("Name", names.get(0));
+		Assert.assertEquals("Bill Lumbergh", names.get(4));
+	}
+
+	@Test
+	public void testStreamingProjectedCalcColumns() {
+		File file = new File(pathname + File.separator + "phonebook.ods");
+		CalcTemplate ct = new CalcTemplate(file);
+		ct.setColumnProjection(ColumnProjection.ofIndexes(1));
+		List<PhoneBookEntry> results = 
+			ct.onEachRow(0, new CalcStreamingRowCallback<PhoneBookEntry>() {
+				public PhoneBookEntry mapRow(CalcRow row) {
+					return new PhoneBookEntry(row.getString(0), row.getString(1), row.getString(2));
+				}
+			});
+		
+		Assert.assertEquals(2, results.size());
+		Assert.assertNull(results.get(1).getName());
+		Assert.assertEquals("123 ABC Drive", results.get(1).getAddress());
+		Assert.assertNull(results.get(1).getPhone());
+	}
+
+	@Test
+	public void testFilteringStreamedCalcRows() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");
+		CalcTemplate ct = new CalcTemplate(file, true);
+		ct.setRowFilter(new RowFilter() {
+			public int getKeyColumn() {
+				return 2;
+			}
+			public boolean accept(String value) {
+				return value != null && value.startsWith("555-9");
+			}
+		});
+		List<CalcRow> rows = ct.onEachRow(0, new CalcStreamingRowCallback<CalcRow>() {
+			public CalcRow mapRow(CalcRow row) {
+				return row;
+			}
+		});
+		
+		Assert.assertEquals(1, rows.size());
+		Assert.assertEquals("Joanna", rows.get(0).getString(0));
+		Assert.assertEquals(2, rows.get(0).getRowIndex());
+	}
+
+	@Test
+	public void testReadingRangeOfCalcRows() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");
+		CalcTemplate ct = new CalcTemplate(file, true);
+		CalcRowCallback<Integer> rowNums = new CalcRowCallback<Integer>() {
+			public Integer mapRow(Sheet sheet, int row) {
+				return row;
+			}
+		};
+		
+		Assert.assertEquals(Arrays.asList(2, 3), ct.onEachRow(0, rowNums, RowRange.between(2, 4)));
+		Assert.assertEquals(Arrays.asList(1, 2), ct.onEachRow(0, rowNums, RowRange.first(2)));
+	}
+
+	@Test
+	public void testStreamingRangeOfCalcRows() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");
+		CalcTemplate ct = new CalcTemplate(file, true);
+		CalcStreamingRowCallback<Integer> rowNums = new CalcStreamingRowCallback<Integer>() {
+			public Integer mapRow(CalcRow row) {
+				return row.getRowIndex();
+			}
+		};
+		
+		Assert.assertEquals(Arrays.asList(2, 3), ct.onEachRow(0, rowNums, RowRange.between(2, 4)));
+		Assert.assertEquals(Arrays.asList(3, 4), ct.onEachRow(0, rowNums, RowRange.from(3)));
+		Assert.assertEquals(Arrays.asList(1, 2), ct.onEachRow(0, rowNums, RowRange.first(2)));
+		Assert.assertEquals(Arrays.asList(0, 1), ct.onEachRow(0, rowNums, false, 
+				new DefaultCalcStreamingErrorHandler<Integer>(), RowRange.first(2)));
+	}
+
+	@Test
+	public void testIndexingCalcCells() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");
+		CalcTemplate ct = new CalcTemplate(file);
+		CellIndex index = ct.indexCells(0, RowRange.all(), true);
+		
+		Assert.assertEquals(12, index.size());
+		Assert.assertEquals(Arrays.asList(new Point(2, 0)), index.find("Phone"));
+		Assert.assertEquals(Arrays.asList(new Point(1, 3)), index.findIgnoreCase("corp hq"));
+		Assert.assertTrue(ct.indexCells(0).find("corp hq").isEmpty());
+	}
+
+	@Test
+	public void testResolvingStreamedCalcColumnsByHeader() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");
+		CalcTemplate ct = new CalcTemplate(file, true);
+		PhoneColumnCallback callback = new PhoneColumnCallback();
+		List<String> phones = ct.onEachRow(0, callback);
+		
+		Assert.assertEquals(Arrays.asList("555-821-2123", "555-915-9900", "555-321-9502"), phones);
+		Assert.assertEquals(Arrays.asList("Name", "Address", "Phone"), ct.readColumnHeaders(0).getNames());
+		Assert.assertEquals(1, ct.findColumnHeaders(0, "Address").indexOf("Address"));
+	}
+	
+	@Test
+	public void testMappingCalcRowsToBeans() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");
+		CalcTemplate ct = new CalcTemplate(file, true);
+		List<PhoneBookEntry> entries = ct.onEachRow(0, new CalcBeanRowCallback<PhoneBookEntry>(PhoneBookEntry.class));
+		
+		Assert.assertEquals(4, entries.size());
+		Assert.assertEquals("Peter Gibbons", entries.get(0).getName());
+		Assert.assertEquals("555-915-9900", entries.get(1).getPhone());
+	}
+	
+	@Test
+	public void testMappingStreamedCalcRowsToBeans() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.ods");
+		CalcTemplate ct = new CalcTemplate(file, true);
+		List<PhoneBookEntry> entries = ct.onEachRow(0, new CalcStreamingBeanRowCallback<PhoneBookEntry>(PhoneBookEntry.class));
+		
+		Assert.assertEquals(4, entries.size());
+		Assert.assertEquals("Peter Gibbons", entries.get(0).getName());
+		Assert.assertNull(entries.get(1).getAddress());
+		Assert.assertEquals("Corp HQ", entries.get(2).getAddress());
+		
+		List<ContactCard> cards = ct.onEachRow(0, new CalcStreamingBeanRowCallback<ContactCard>(ContactCard.class));
+		Assert.assertEquals("Bill Lumbergh", cards.get(3).getFullName());
+		Assert.assertEquals("555-321-9502", cards.get(2).getPhoneNumber());
+	}
+	
+	@Test
+	public void testReadingTypedCalcCells() throws Exception {
+		File file = new File(pathname + File.separator + "inventory.ods");
+		Sheet sheet = SpreadSheet.createFromFile(file).getSheet(0);
+		
+		Assert.assertEquals("Widget", CalcUtil.getString(sheet, 0, 1));
+		Assert.assertEquals("float", CalcUtil.getValueType(sheet, 1, 1));
+		Assert.assertEquals(12L, CalcUtil.getLong(sheet, 1, 1));
+		Assert.assertEquals(1234.5, CalcUtil.getDouble(sheet, 2, 2), 0.0);
+		Assert.assertEquals("2.5", CalcUtil.getString(sheet, 2, 1));
+		Assert.assertEquals(new SimpleDateFormat("yyyy-MM-dd").parse("2009-11-02"), CalcUtil.getDate(sheet, 3, 1));
+		Assert.assertTrue(CalcUtil.getBoolean(sheet, 4, 1));
+		Assert.assertFalse(CalcUtil.getBoolean(sheet, 4, 2));
+		Assert.assertTrue(CalcUtil.isEmpty(sheet, 1, 3));
+		Assert.assertEquals(0.0, CalcUtil.getDouble(sheet, 2, 3), 0.0);
+		Assert.assertNull(CalcUtil.getDate(sheet, 3, 3));
+	}
+
+	@Test
+	public void testStreamingTypedCalcCells() throws Exception {
+		File file = new File(pathname + File.separator + "inventory.ods");
+		CalcTemplate ct = new CalcTemplate(file, true);
+		List<CalcRow> rows = ct.onEachRow(0, new CalcStreamingRowCallback<CalcRow>() {
+			public CalcRow mapRow(CalcRow row) {
+				return row;
+			}
+		});
+		
+		Assert.assertEquals(3, rows.size());
+		Assert.assertEquals(12L, rows.get(0).getLong(1));
+		Assert.assertEquals(2.5, rows.get(0).getDouble(2), 0.0);
+		Assert.assertEquals("1234.5", rows.get(1).getString(2));
+		Assert.assertEquals(new SimpleDateFormat("yyyy-MM-dd HH:mm").parse("2010-01-15 10:30"), rows.get(1).getDate(3));
+		Assert.assertTrue(rows.get(0).getBoolean(4));
+		Assert.assertTrue(rows.get(2).isEmpty(1));
+		Assert.assertEquals(0L, rows.get(2).getLong(1));
+		
+		// numeric cells are parsed as they are read, and only those
+		Assert.assertTrue(rows.get(0).hasNumber(1));
+		Assert.assertTrue(rows.get(1).hasNumber(2));
+		Assert.assertFalse(rows.get(0).hasNumber(0));
+		Assert.assertFalse(rows.get(1).hasNumber(3));
+		Assert.assertFalse(rows.get(2).hasNumber(1));
+		try {
+			rows.get(0).getLong(2);
+			Assert.fail("2.5 is not a whole number");
+		} catch (NumberFormatException e) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testLoadingCalcSheetData() throws Exception {
+		File file = new File(pathname + File.separator + "inventory.ods");
+		CalcTemplate ct = new CalcTemplate(file, true);
+		SheetData data = ct.loadSheetData(0);
+		
+		Assert.assertEquals(3, data.getRowCount());
+		Assert.assertEquals(5, data.getColumnCount());
+		Assert.assertEquals(2, data.getColumnHeaders().indexOf("Price"));
+		
+		double total = 0;
+		SheetData.Cursor cursor = data.cursor();
+		while (cursor.next()) {
+			if (cursor.isNumber(1)) {
+				total += cursor.getDouble(1) * cursor.getDouble(2);
+			}
+		}
+		Assert.assertEquals(12 * 2.5 + 3 * 1234.5, total, 0.0);
+		Assert.assertEquals("12", data.getString(0, 1));
+		Assert.assertEquals("1234.5", data.getString(1, 2));
+		Assert.assertFalse(data.isNumber(0, 3));
+		Assert.assertEquals("2009-11-02", data.getString(0, 3));
+		Assert.assertEquals("true", data.getString(0, 4));
+		Assert.assertTrue(data.isBlank(2, 1));
+		Assert.assertEquals(0.0, data.getDouble(2, 1), 0.0);
+		Assert.assertEquals(3, data.getRowNum(2));
+	}
+	
+	private static class PhoneColumnCallback implements CalcStreamingRowCallback<String>, ColumnHeadersAware {
+		
+		private int phoneColumn = -1;
+		
+		public void setColumnHeaders(ColumnHeaders columnHeaders) {
+			phoneColumn = columnHeaders.indexOf("Phone");
+		}
+		
+		public String mapRow(CalcRow row) {
+			return row.getString(phoneColumn);
+		}
+		
+	}
+
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.spreadsheet.support.PhoneBookEntry;
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * @author agent
+ */
+public class TestExcelItemReader {
+
+	private String pathname = "src" + File.separator + "test" + File.separator + "resources";
+	
+	private int mappedRows;
+	
+	private ExcelItemReader<PhoneBookEntry> createReader(boolean streaming) throws Exception {
+		ExcelItemReader<PhoneBookEntry> reader = new ExcelItemReader<PhoneBookEntry>();
+		reader.setResource(new FileSystemResource(pathname + File.separator + "phonebook_with_holes.xls"));
+		reader.setWorksheetName("Sheet1");
+		reader.setSkipFirstRow(true);
+		reader.setStreaming(streaming);
+		reader.setRowCallback(new ExcelRowCallback<PhoneBookEntry>() {
+			public PhoneBookEntry mapRow(Row row) {
+				mappedRows++;
+				if (row.getCell(0) == null) {
+					return null;
+				}
+				return new PhoneBookEntry(row.getCell(0).getStringCellValue(), null, null);
+			}
+		});
+		reader.afterPropertiesSet();
+		return reader;
+	}
+	
+	@Test
+	public void testReadingExcelItems() throws Exception {
+		assertReadingItems(false);
+	}
+	
+	@Test
+	public void testStreamingExcelItems() throws Exception {
+		assertReadingItems(true);
+	}
+	
+	@Test
+	public void testRestartingExcelItemReader() throws Exception {
+		assertRestarting(false);
+	}
+	
+	@Test
+	public void testRestartingStreamingExcelItemReader() throws Exception {
+		assertRestarting(true);
+	}
+	
+	private void assertReadingItems(boolean streaming) throws Exception {
+		ExcelItemReader<PhoneBookEntry> reader = createReader(streaming);
+		reader.open(new ExecutionContext());
+		try {
+			Assert.assertEquals("Peter Gibbons", reader.read().getName());
+			Assert.assertEquals("Joanna", reader.read().getName());
+			Assert.assertEquals("Bill Lumbergh", reader.read().getName());
+			Assert.assertNull(reader.read());
+		} finally {
+			reader.close();
+		}
+	}
+	
+	private void assertRestarting(boolean streaming) throws Exception {
+		ExecutionContext executionContext = new ExecutionContext();
+		ExcelItemReader<PhoneBookEntry> reader = createReader(streaming);
+		reader.open(executionContext);
+		Assert.assertEquals("Peter Gibbons", reader.read().getName());
+		Assert.assertEquals("Joanna", reader.read().getName());
+		reader.update(executionContext);
+		reader.close();
+		
+		mappedRows = 0;
+		reader = createReader(streaming);
+		reader.open(executionContext);
+		try {
+			Assert.assertEquals("Bill Lumbergh", reader.read().getName());
+			Assert.assertNull(reader.read());
+			// only the rows after the restart point were mapped
+			Assert.assertEquals(2, mappedRows);
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testPartitioningExcelWorksheet() throws Exception {
+		ExcelRowRangePartitioner partitioner = new ExcelRowRangePartitioner();
+		partitioner.setResource(new FileSystemResource(pathname + File.separator + "phonebook_with_holes.xls"));
+		partitioner.setWorksheetName("Sheet1");
+		partitioner.afterPropertiesSet();
+		Map<String, ExecutionContext> partitions = partitioner.partition(2);
+		
+		Assert.assertEquals(2, partitions.size());
+		ExecutionContext first = partitions.get("partition0");
+		ExecutionContext second = partitions.get("partition1");
+		Assert.assertEquals(0, first.getInt(AbstractRowRangePartitioner.START_ROW));
+		Assert.assertEquals(3, first.getInt(AbstractRowRangePartitioner.END_ROW));
+		Assert.assertEquals(3, second.getInt(AbstractRowRangePartitioner.START_ROW));
+		Assert.assertEquals(5, second.getInt(AbstractRowRangePartitioner.END_ROW));
+		
+		ExcelItemReader<PhoneBookEntry> reader = createReader(true);
+		reader.setStartRow(first.getInt(AbstractRowRangePartitioner.START_ROW));
+		reader.setEndRow(first.getInt(AbstractRowRangePartitioner.END_ROW));
+		reader.open(new ExecutionContext());
+		try {
+			Assert.assertEquals("Peter Gibbons", reader.read().getName());
+			Assert.assertEquals("Joanna", reader.read().getName());
+			Assert.assertNull(reader.read());
+		} finally {
+			reader.close();
+		}
+		
+		reader = createReader(false);
+		reader.setStartRow(second.getInt(AbstractRowRangePartitioner.START_ROW));
+		reader.setEndRow(second.getInt(AbstractRowRangePartitioner.END_ROW));
+		reader.open(new ExecutionContext());
+		try {
+			Assert.assertEquals("Bill Lumbergh", reader.read().getName());
+			Assert.assertNull(reader.read());
+		} finally {
+			reader.close();
+		}
+	}
+
+}
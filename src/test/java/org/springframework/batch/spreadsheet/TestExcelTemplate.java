@@ -16,13 +16,33 @@
 
 package org.springframework.batch.spreadsheet;
 
+import java.awt.Point;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import junit.framework.Assert;
 
+import org.apache.poi.hssf.record.DBCellRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.IndexRecord;
+import org.apache.poi.hssf.record.RecordInputStream;
+import org.apache.poi.hssf.usermodel.HSSFDateUtil;
+import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.junit.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.batch.spreadsheet.support.ContactCard;
 import org.springframework.batch.spreadsheet.support.EmptyPhoneBookEntry;
 import org.springframework.batch.spreadsheet.support.PhoneBookEntry;
 
@@ -183,5 +203,838 @@ public class TestExcelTemplate {
 		Assert.assertEquals(EmptyPhoneBookEntry.ADDRESS, results.get(3).getAddress());
 		Assert.assertEquals(EmptyPhoneBookEntry.PHONE, results.get(3).getPhone());
 	}
+
+	@Test
+	public void testStreamingSimpleExcelSpreadsheet() {
+		File file = new File(pathname + File.separator + "phonebook.xls");		
+		ExcelTemplate et = new ExcelTemplate(file);
+		et.setStreaming(true);
+		List<PhoneBookEntry> results = 
+			et.onEachRow("Sheet1", new ExcelRowCallback<PhoneBookEntry>() {
+				public PhoneBookEntry mapRow(Row row) {
+					return new PhoneBookEntry(
+							row.getCell(0).getStringCellValue(),
+							row.getCell(1).getStringCellValue(),
+							row.getCell(2).getStringCellValue()
+							);
+				}
+			});
+		
+		Assert.assertEquals(2, results.size());
+		
+		Assert.assertEquals("Name", results.get(0).getName());
+		Assert.assertEquals("Address", results.get(0).getAddress());
+		Assert.assertEquals("Phone", results.get(0).getPhone());
+		
+		Assert.assertEquals("Peter Gibbons", results.get(1).getName());
+		Assert.assertEquals("123 ABC Drive", results.get(1).getAddress());
+		Assert.assertEquals("555-821-2123", results.get(1).getPhone());
+	}
+	
+	@Test
+	public void testStreamingExcelSpreadsheetWithHoles() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");		
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.setStreaming(true);
+		List<PhoneBookEntry> results = 
+			et.onEachRow("Sheet1", new ExcelRowCallback<PhoneBookEntry>() {
+				public PhoneBookEntry mapRow(Row row) {
+					String name = null;
+					try { name = row.getCell(0).getStringCellValue(); } catch (Exception e) {}
+					
+					String address = null;
+					try { address = row.getCell(1).getStringCellValue(); } catch (Exception e) {}
+					
+					String phone = null;
+					try { phone = row.getCell(2).getStringCellValue(); } catch (Exception e) {}
+					
+					return new PhoneBookEntry(name, address, phone);
+				}
+			});
+		
+		Assert.assertEquals(4, results.size());
+		
+		Assert.assertEquals("Joanna", results.get(1).getName());
+		Assert.assertNull(results.get(1).getAddress());
+		Assert.assertEquals("555-915-9900", results.get(1).getPhone());
+		
+		Assert.assertNull(results.get(2).getName());
+		Assert.assertEquals("Corp HQ", results.get(2).getAddress());
+
+		Assert.assertEquals("Bill Lumbergh", results.get(3).getName());
+		Assert.assertNull(results.get(3).getPhone());
+	}
+	
+	@Test
+	public void testStreamingExcelSpreadsheetWithHolesUsingSpecialErrorHandling() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");		
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.setStreaming(true);
+		
+		List<PhoneBookEntry> results = 
+			et.onEachRow("Sheet1",
+					new ExcelRowCallback<PhoneBookEntry>() {
+						public PhoneBookEntry mapRow(Row row) {
+							return new PhoneBookEntry(
+									row.getCell(0).getStringCellValue(),
+									row.getCell(1).getStringCellValue(),
+									row.getCell(2).getStringCellValue()
+							);
+						}
+					},
+					new ExcelTemplateErrorHandler<PhoneBookEntry>() {
+						public PhoneBookEntry handleException(Row row, RuntimeException e) {
+							return new EmptyPhoneBookEntry();
+						}
+					}
+			);
+		
+		Assert.assertEquals(4, results.size());
+		
+		Assert.assertEquals("Peter Gibbons", results.get(0).getName());
+		Assert.assertEquals(EmptyPhoneBookEntry.NAME, results.get(1).getName());
+		Assert.assertEquals(EmptyPhoneBookEntry.NAME, results.get(2).getName());
+		Assert.assertEquals(EmptyPhoneBookEntry.NAME, results.get(3).getName());
+	}
+	
+	@Test
+	public void testReadingSeveralExcelSheetsAtOnce() {
+		File file = new File(pathname + File.separator + "phonebook.xls");
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.setTaskExecutor(new SimpleAsyncTaskExecutor());
+		assertSeveralSheets(et);
+	}
+	
+	@Test
+	public void testStreamingSeveralExcelSheetsAtOnce() {
+		File file = new File(pathname + File.separator + "phonebook.xls");
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.setStreaming(true);
+		assertSeveralSheets(et);
+	}
+	
+	private void assertSeveralSheets(ExcelTemplate et) {
+		ExcelRowCallback<PhoneBookEntry> callback = new ExcelRowCallback<PhoneBookEntry>() {
+			public PhoneBookEntry mapRow(Row row) {
+				return new PhoneBookEntry(
+						row.getCell(0).getStringCellValue(),
+						row.getCell(1).getStringCellValue(),
+						row.getCell(2).getStringCellValue()
+						);
+			}
+		};
+		Map<String, ExcelRowCallback<PhoneBookEntry>> callbacks = new LinkedHashMap<String, ExcelRowCallback<PhoneBookEntry>>();
+		callbacks.put("Sheet1", callback);
+		callbacks.put("Sheet2", callback);
+		Map<String, List<?>> results = et.onEachSheet(callbacks);
+		
+		Assert.assertEquals(2, results.size());
+		Assert.assertEquals(1, results.get("Sheet1").size());
+		Assert.assertEquals("Peter Gibbons", ((PhoneBookEntry) results.get("Sheet1").get(0)).getName());
+		Assert.assertEquals(0, results.get("Sheet2").size());
+	}
+
+	@Test
+	public void testMappingExcelRowsInParallel() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<PhoneBookEntry> results = 
+				et.onEachRow("Sheet1",
+						new ExcelRowCallback<PhoneBookEntry>() {
+							public PhoneBookEntry mapRow(Row row) {
+								return new PhoneBookEntry(
+										row.getCell(0).getStringCellValue(),
+										row.getCell(1).getStringCellValue(),
+										row.getCell(2).getStringCellValue()
+										);
+							}
+						},
+						true,
+						new ExcelTemplateErrorHandler<PhoneBookEntry>() {
+							public PhoneBookEntry handleException(Row row, RuntimeException e) {
+								return new PhoneBookEntry("row " + row.getRowNum(), null, null);
+							}
+						},
+						executor);
+			
+			Assert.assertEquals(4, results.size());
+			Assert.assertEquals("Peter Gibbons", results.get(0).getName());
+			Assert.assertEquals("row 2", results.get(1).getName());
+			Assert.assertEquals("row 3", results.get(2).getName());
+			Assert.assertEquals("row 4", results.get(3).getName());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testIteratingOverExcelRows() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.setStreaming(true);
+		CloseableRowIterator<String> names = et.rowIterator("Sheet1", new ExcelRowCallback<String>() {
+			public String mapRow(Row row) {
+				return row.getCell(0) == null ? null : row.getCell(0).getStringCellValue();
+			}
+		});
+		try {
+			Assert.assertTrue(names.hasNext());
+			Assert.assertEquals("Peter Gibbons", names.next());
+			Assert.assertEquals("Joanna", names.next());
+			Assert.assertEquals("Bill Lumbergh", names.next());
+			Assert.assertFalse(names.hasNext());
+		} finally {
+			names.close();
+		}
+	}
+
+	@Test
+	public void testProcessingExcelRowsInChunks() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		final List<Integer> chunkSizes = new ArrayList<Integer>();
+		final List<Integer> rowNums = new ArrayList<Integer>();
+		int count = et.onEachChunk("Sheet1", 3, new ExcelRowChunkCallback() {
+			public void processChunk(List<Row> rows) {
+				chunkSizes.add(rows.size());
+				for (Row row : rows) {
+					rowNums.add(row.getRowNum());
+				}
+			}
+		});
+		
+		Assert.assertEquals(4, count);
+		Assert.assertEquals(2, chunkSizes.size());
+		Assert.assertEquals(Integer.valueOf(3), chunkSizes.get(0));
+		Assert.assertEquals(Integer.valueOf(1), chunkSizes.get(1));
+		Assert.assertEquals(Integer.valueOf(1), rowNums.get(0));
+		Assert.assertEquals(Integer.valueOf(4), rowNums.get(3));
+	}
+
+	@Test
+	public void testObservingExcelRows() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		TemplateStatistics statistics = new TemplateStatistics();
+		et.setObserver(statistics);
+		List<PhoneBookEntry> results = 
+			et.onEachRow("Sheet1", new ExcelRowCallback<PhoneBookEntry>() {
+				public PhoneBookEntry mapRow(Row row) {
+					return new PhoneBookEntry(
+							row.getCell(0).getStringCellValue(),
+							row.getCell(1).getStringCellValue(),
+							row.getCell(2).getStringCellValue()
+							);
+				}
+			});
+		
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals(1, statistics.getFileStatistics(file).getOpens());
+		Assert.assertEquals(file.length(), statistics.getFileStatistics(file).getFileSize());
+		TemplateStatistics.SheetStatistics sheet = statistics.getSheetStatistics(file, "Sheet1");
+		Assert.assertEquals(1, sheet.getReads());
+		Assert.assertEquals(4, sheet.getRows());
+		Assert.assertEquals(3, sheet.getFailedRows());
+		Assert.assertEquals(1, sheet.getPeakResults());
+		long histogramRows = 0;
+		for (long count : sheet.getLatencyHistogram()) {
+			histogramRows += count;
+		}
+		Assert.assertEquals(4, histogramRows);
+		Assert.assertTrue(sheet.getRowsPerSecond() > 0);
+	}
+	
+	@Test
+	public void testObservingFailedAndLoadedExcelSheets() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		TemplateStatistics statistics = new TemplateStatistics();
+		et.setObserver(statistics);
+		try {
+			et.onEachRow("Sheet1", new ExcelRowCallback<String>() {
+				public String mapRow(Row row) {
+					return row.getCell(2).getStringCellValue();
+				}
+			}, new ExcelTemplateErrorHandler<String>() {
+				public String handleException(Row row, RuntimeException e) {
+					throw e;
+				}
+			});
+			Assert.fail("Expected the error handler to stop the read");
+		} catch (NullPointerException e) {
+			// expected
+		}
+		
+		TemplateStatistics.SheetStatistics sheet = statistics.getSheetStatistics(file, "Sheet1");
+		Assert.assertEquals(1, sheet.getReads());
+		Assert.assertEquals(1, sheet.getFailedRows());
+		long rows = sheet.getRows();
+		
+		SheetData data = et.loadSheetData("Sheet1");
+		Assert.assertEquals(2, sheet.getReads());
+		Assert.assertEquals(rows + data.getRowCount(), sheet.getRows());
+	}
+
+	@Test
+	public void testStreamingProjectedExcelColumns() {
+		File file = new File(pathname + File.separator + "phonebook.xls");
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.setStreaming(true);
+		et.setColumnProjection(ColumnProjection.ofNames("Phone", "Name"));
+		List<PhoneBookEntry> results = 
+			et.onEachRow("Sheet1", new ExcelRowCallback<PhoneBookEntry>() {
+				public PhoneBookEntry mapRow(Row row) {
+					Assert.assertNull(row.getCell(1));
+					return new PhoneBookEntry(
+							row.getCell(0).getStringCellValue(),
+							null,
+							row.getCell(2).getStringCellValue()
+							);
+				}
+			});
+		
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals("Peter Gibbons", results.get(0).getName());
+		Assert.assertEquals("555-821-2123", results.get(0).getPhone());
+	}
+
+	@Test
+	public void testFilteringExcelRows() {
+		assertFilteredExcelRows(false);
+	}
+	
+	@Test
+	public void testFilteringStreamedExcelRows() {
+		assertFilteredExcelRows(true);
+	}
+	
+	private void assertFilteredExcelRows(boolean streaming) {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.setStreaming(streaming);
+		et.setRowFilter(new RowFilter() {
+			public int getKeyColumn() {
+				return 2;
+			}
+			public boolean accept(String value) {
+				return value != null && value.startsWith("555-9");
+			}
+		});
+		List<String> names = et.onEachRow("Sheet1", new ExcelRowCallback<String>() {
+			public String mapRow(Row row) {
+				return row.getCell(0).getStringCellValue();
+			}
+		});
+		
+		Assert.assertEquals(1, names.size());
+		Assert.assertEquals("Joanna", names.get(0));
+	}
+
+	@Test
+	public void testReadingRangeOfExcelRows() {
+		assertRangeOfExcelRows(false);
+	}
+	
+	@Test
+	public void testStreamingRangeOfExcelRows() {
+		assertRangeOfExcelRows(true);
+	}
+	
+	private void assertRangeOfExcelRows(boolean streaming) {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.setStreaming(streaming);
+		ExcelRowCallback<Integer> rowNums = new ExcelRowCallback<Integer>() {
+			public Integer mapRow(Row row) {
+				return row.getRowNum();
+			}
+		};
+		
+		Assert.assertEquals(Arrays.asList(2, 3), et.onEachRow("Sheet1", rowNums, RowRange.between(2, 4)));
+		Assert.assertEquals(Arrays.asList(3, 4), et.onEachRow("Sheet1", rowNums, RowRange.from(3)));
+		Assert.assertEquals(Arrays.asList(1, 2), et.onEachRow("Sheet1", rowNums, RowRange.first(2)));
+		Assert.assertEquals(Arrays.asList(0, 1), et.onEachRow("Sheet1", rowNums, false, 
+				new DefaultExcelTemplateErrorHandler<Integer>(), RowRange.first(2)));
+		Assert.assertEquals(Arrays.asList(3), et.onEachRow("Sheet1", rowNums, RowRange.between(3, 10).limit(1)));
+	}
+
+	@Test
+	public void testIndexingExcelCells() {
+		assertIndexedExcelCells(false);
+	}
+	
+	@Test
+	public void testIndexingStreamedExcelCells() {
+		assertIndexedExcelCells(true);
+	}
+	
+	private void assertIndexedExcelCells(boolean streaming) {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");
+		ExcelTemplate et = new ExcelTemplate(file);
+		et.setStreaming(streaming);
+		CellIndex index = et.indexCells("Sheet1", RowRange.all(), true);
+		
+		Assert.assertEquals(12, index.size());
+		Assert.assertEquals(Arrays.asList(new Point(2, 0)), index.find("Phone"));
+		Assert.assertEquals(new Point(1, 3), index.findFirst("Corp HQ"));
+		Assert.assertTrue(index.find("corp hq").isEmpty());
+		Assert.assertEquals(Arrays.asList(new Point(1, 3)), index.findIgnoreCase("  corp   HQ "));
+		Assert.assertNull(index.findFirst("Milton"));
+		
+		CellIndex headers = et.indexCells("Sheet1", RowRange.first(1), false);
+		Assert.assertEquals(3, headers.size());
+		Assert.assertTrue(headers.find("Joanna").isEmpty());
+	}
+	
+	@Test
+	public void testLoadingExcelSheetData() {
+		assertExcelSheetData(false);
+	}
+	
+	@Test
+	public void testLoadingStreamedExcelSheetData() {
+		assertExcelSheetData(true);
+	}
+	
+	private void assertExcelSheetData(boolean streaming) {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.setStreaming(streaming);
+		SheetData data = et.loadSheetData("Sheet1");
+		
+		Assert.assertEquals(4, data.getRowCount());
+		Assert.assertEquals(3, data.getColumnCount());
+		Assert.assertEquals(2, data.getColumnHeaders().indexOf("Phone"));
+		
+		SheetData.Cursor cursor = data.cursor();
+		List<String> names = new ArrayList<String>();
+		while (cursor.next()) {
+			names.add(cursor.getString(0));
+		}
+		Assert.assertEquals(Arrays.asList("Peter Gibbons", "Joanna", null, "Bill Lumbergh"), names);
+		Assert.assertEquals(3, data.getRowNum(2));
+		Assert.assertTrue(data.isBlank(1, 1));
+		Assert.assertTrue(data.isBlank(3, 2));
+		Assert.assertEquals("Corp HQ", data.getString(2, 1));
+		Assert.assertEquals(-1, data.getCode(2, 0));
+		Assert.assertEquals("Bill Lumbergh", data.getDictionary(0)[data.getCode(3, 0)]);
+		
+		SheetData window = et.loadSheetData("Sheet1", false, RowRange.between(2, 4));
+		Assert.assertEquals(2, window.getRowCount());
+		Assert.assertNull(window.getColumnHeaders());
+		Assert.assertEquals("555-915-9900", window.getString(0, 2));
+	}
+	
+	@Test
+	public void testCollectingExcelRowsOffHeap() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.setResultListFactory(new OffHeapResultListFactory(new JavaItemSerializer<String>()));
+		
+		List<String> names = et.onEachRow("Sheet1", new ExcelRowCallback<String>() {
+			public String mapRow(Row row) {
+				Cell name = row.getCell(0);
+				return name == null ? null : name.toString();
+			}
+		});
+		
+		Assert.assertTrue(names instanceof OffHeapList);
+		Assert.assertEquals(Arrays.asList("Peter Gibbons", "Joanna", "Bill Lumbergh"), names);
+		
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			List<String> phones = et.onEachRow("Sheet1", new ExcelRowCallback<String>() {
+				public String mapRow(Row row) {
+					Cell phone = row.getCell(2);
+					return phone == null ? null : phone.toString();
+				}
+			}, true, new DefaultExcelTemplateErrorHandler<String>(), executor);
+			
+			Assert.assertTrue(phones instanceof OffHeapList);
+			Assert.assertEquals(Arrays.asList("555-821-2123", "555-915-9900", "555-321-9502"), phones);
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void testCollectingExcelRowsWithSpilling() {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.setResultListFactory(new SpillingResultListFactory(new JavaItemSerializer<String>(), 0));
+		
+		List<String> phones = et.onEachRow("Sheet1", new ExcelRowCallback<String>() {
+			public String mapRow(Row row) {
+				Cell phone = row.getCell(2);
+				return phone == null ? null : phone.toString();
+			}
+		});
+		
+		SpillingList<String> spilled = (SpillingList<String>) phones;
+		try {
+			Assert.assertEquals(3, spilled.getSpilledCount());
+			Assert.assertEquals(Arrays.asList("555-821-2123", "555-915-9900", "555-321-9502"), phones);
+		} finally {
+			spilled.close();
+		}
+	}
 	
+	@Test
+	public void testFailedExcelReadDeletesSpilledRows() throws IOException {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");
+		File directory = File.createTempFile("spill", "");
+		directory.delete();
+		directory.mkdir();
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.setResultListFactory(new SpillingResultListFactory(new JavaItemSerializer<String>(), 0, directory));
+		
+		try {
+			et.onEachRow("Sheet1", new ExcelRowCallback<String>() {
+				public String mapRow(Row row) {
+					Cell phone = row.getCell(2);
+					if (phone != null && phone.toString().equals("555-321-9502")) {
+						throw new IllegalStateException("Unreachable number");
+					}
+					return phone == null ? null : phone.toString();
+				}
+			}, true, new ExcelTemplateErrorHandler<String>() {
+				public String handleException(Row row, RuntimeException e) {
+					throw e;
+				}
+			});
+			Assert.fail("Expected the callback to fail");
+		} catch (IllegalStateException e) {
+			Assert.assertEquals("Unreachable number", e.getMessage());
+		} finally {
+			Assert.assertEquals(0, directory.list().length);
+			directory.delete();
+		}
+	}
+	
+	@Test
+	public void testReadingMemoryMappedExcelFile() {
+		assertMemoryMappedExcelFile(false);
+	}
+	
+	@Test
+	public void testStreamingMemoryMappedExcelFile() {
+		assertMemoryMappedExcelFile(true);
+	}
+	
+	private void assertMemoryMappedExcelFile(boolean streaming) {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.setStreaming(streaming);
+		et.setMemoryMapped(true);
+		
+		List<PhoneBookEntry> results = et.onEachRow("Sheet1", new ExcelBeanRowCallback<PhoneBookEntry>(PhoneBookEntry.class));
+		
+		Assert.assertEquals(4, results.size());
+		Assert.assertEquals("Peter Gibbons", results.get(0).getName());
+		Assert.assertNull(results.get(1).getAddress());
+		Assert.assertEquals("555-321-9502", results.get(2).getPhone());
+		Assert.assertEquals("his cubicle", results.get(3).getAddress());
+	}
+	
+	@Test
+	public void testCachingParsedWorkbooks() throws IOException {
+		File original = new File(pathname + File.separator + "phonebook_with_holes.xls");
+		File file = File.createTempFile("phonebook", ".xls");
+		file.deleteOnExit();
+		FileCopyUtils.copy(original, file);
+		
+		WorkbookCache cache = new WorkbookCache(original.length() * 2);
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.setWorkbookCache(cache);
+		ExcelRowCallback<String> names = new ExcelRowCallback<String>() {
+			public String mapRow(Row row) {
+				return String.valueOf(row.getCell(0));
+			}
+		};
+		
+		Assert.assertEquals(4, et.onEachRow("Sheet1", names).size());
+		Assert.assertEquals(4, et.onEachRow("Sheet1", names).size());
+		Assert.assertEquals(1, cache.getMissCount());
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(1, cache.size());
+		
+		// a changed file is parsed again
+		Assert.assertTrue(file.setLastModified(file.lastModified() - 60000));
+		Assert.assertEquals(4, et.onEachRow("Sheet1", names).size());
+		Assert.assertEquals(2, cache.getMissCount());
+		Assert.assertEquals(1, cache.size());
+		
+		// the least recently used workbook goes once the budget is exceeded
+		ExcelTemplate other = new ExcelTemplate(new File(pathname + File.separator + "phonebook.xls"), true);
+		other.setWorkbookCache(cache);
+		other.onEachRow("Sheet1", names);
+		ExcelTemplate third = new ExcelTemplate(original, true);
+		third.setWorkbookCache(cache);
+		third.onEachRow("Sheet1", names);
+		Assert.assertEquals(1, cache.getEvictionCount());
+		Assert.assertEquals(2, cache.size());
+		Assert.assertTrue(cache.getCachedBytes() <= cache.getByteBudget());
+		
+		file.delete();
+	}
+	
+	@Test
+	public void testWritingExcelRows() throws IOException {
+		File file = File.createTempFile("written", ".xls");
+		file.deleteOnExit();
+		List<PhoneBookEntry> entries = Arrays.asList(new PhoneBookEntry("Greg", "Nashville", "555-1234"),
+				new PhoneBookEntry("Mark", null, "555-9876"));
+		
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		int written = et.writeRows("Sheet1", ColumnHeaders.of("name", "address", "phone", "entry", "listed", "since"), entries,
+				new RowWriterCallback<PhoneBookEntry>() {
+					private int entry;
+					
+					public void writeRow(PhoneBookEntry item, RowWriter row) {
+						row.setString(0, item.getName());
+						row.setString(1, item.getAddress());
+						row.setString(2, item.getPhone());
+						row.setNumber(3, ++entry);
+						row.setBoolean(4, item.getAddress() != null);
+						row.setDate(5, new GregorianCalendar(2009, Calendar.NOVEMBER, entry).getTime());
+					}
+				});
+		Assert.assertEquals(2, written);
+		Assert.assertEquals("[name, address, phone, entry, listed, since]", et.readColumnHeaders("Sheet1").getNames().toString());
+		
+		ExcelRowCallback<String> cells = new ExcelRowCallback<String>() {
+			public String mapRow(Row row) {
+				return row.getRowNum() + ": " + row.getCell(0) + ", " + row.getCell(1) + ", " + row.getCell(2) + ", "
+						+ row.getCell(3) + ", " + row.getCell(4) + ", " + row.getCell(5);
+			}
+		};
+		List<String> expected = Arrays.asList("1: Greg, Nashville, 555-1234, 1.0, TRUE, 01-Nov-2009", "2: Mark, null, 555-9876, 2.0, FALSE, 02-Nov-2009");
+		Assert.assertEquals(expected, et.onEachRow("Sheet1", cells));
+		et.setStreaming(true);
+		Assert.assertEquals(expected, et.onEachRow("Sheet1", cells));
+		
+		file.delete();
+	}
+	
+	@Test
+	public void testFailedExcelWriteKeepsTheOldFile() throws IOException {
+		File file = File.createTempFile("written", ".xls");
+		file.deleteOnExit();
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.writeRows("Sheet1", ColumnHeaders.of("value"), Arrays.asList("old"), new RowWriterCallback<String>() {
+			public void writeRow(String item, RowWriter row) {
+				row.setString(0, item);
+			}
+		});
+		
+		try {
+			et.writeRows("Sheet1", ColumnHeaders.of("value"), Arrays.asList("new", "broken"), new RowWriterCallback<String>() {
+				public void writeRow(String item, RowWriter row) {
+					if (item.equals("broken")) {
+						throw new IllegalStateException("Cannot write " + item);
+					}
+					row.setString(0, item);
+				}
+			});
+			Assert.fail("Expected the callback to fail");
+		} catch (IllegalStateException e) {
+			Assert.assertEquals("Cannot write broken", e.getMessage());
+		}
+		
+		Assert.assertEquals(Arrays.asList("old"), et.onEachRow("Sheet1", new ExcelRowCallback<String>() {
+			public String mapRow(Row row) {
+				return row.getCell(0).getStringCellValue();
+			}
+		}));
+		Assert.assertFalse(new File(file.getPath() + ".part").exists());
+		Assert.assertFalse(new File(file.getPath() + ".assembly.part").exists());
+		
+		file.delete();
+	}
+	
+	@Test
+	public void testStreamingExcelCellStyles() throws IOException {
+		File file = File.createTempFile("written", ".xls");
+		file.deleteOnExit();
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.writeRows("Sheet1", ColumnHeaders.of("entry", "since"), Arrays.asList(1, 2), new RowWriterCallback<Integer>() {
+			public void writeRow(Integer item, RowWriter row) {
+				row.setNumber(0, item);
+				row.setDate(1, new GregorianCalendar(2009, Calendar.NOVEMBER, item).getTime());
+			}
+		});
+		
+		ExcelRowCallback<String> styles = new ExcelRowCallback<String>() {
+			public String mapRow(Row row) {
+				Cell entry = row.getCell(0);
+				Cell since = row.getCell(1);
+				return HSSFDateUtil.isCellDateFormatted(entry) + " " + entry.getCellStyle().getDataFormatString() + ", "
+						+ HSSFDateUtil.isCellDateFormatted(since) + " " + since.getCellStyle().getDataFormatString();
+			}
+		};
+		List<String> expected = et.onEachRow("Sheet1", styles);
+		Assert.assertEquals(2, expected.size());
+		Assert.assertTrue(expected.get(0), expected.get(0).startsWith("false "));
+		Assert.assertTrue(expected.get(0), expected.get(0).contains(", true "));
+		et.setStreaming(true);
+		Assert.assertEquals(expected, et.onEachRow("Sheet1", styles));
+		
+		file.delete();
+	}
+	
+	@Test
+	public void testWritingLongStringsAndManyExcelRows() throws IOException {
+		File file = File.createTempFile("written", ".xls");
+		file.deleteOnExit();
+		StringBuilder latin = new StringBuilder();
+		StringBuilder euros = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			latin.append((char) ('a' + i % 26));
+			euros.append(i % 2 == 0 ? '\u20ac' : 'e');
+		}
+		final List<String> values = new ArrayList<String>();
+		for (int i = 0; i < 100; i++) {
+			values.add(i == 40 ? latin.toString() : i == 41 ? euros.toString() : "row " + (i % 10));
+		}
+		
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		int written = et.writeRows("Sheet1", ColumnHeaders.of("value", "length"), values, new RowWriterCallback<String>() {
+			public void writeRow(String item, RowWriter row) {
+				row.setString(0, item);
+				row.setNumber(1, item.length());
+			}
+		});
+		Assert.assertEquals(100, written);
+		
+		ExcelRowCallback<String> cells = new ExcelRowCallback<String>() {
+			public String mapRow(Row row) {
+				Assert.assertEquals(row.getCell(0).getStringCellValue().length(), (int) row.getCell(1).getNumericCellValue());
+				return row.getCell(0).getStringCellValue();
+			}
+		};
+		Assert.assertEquals(values, et.onEachRow("Sheet1", cells));
+		et.setStreaming(true);
+		Assert.assertEquals(values, et.onEachRow("Sheet1", cells));
+		
+		// one DBCELL record for every 32 rows, each of them found through the INDEX record
+		InputStream inp = ExcelStreamingRowReader.openWorkbook(file);
+		try {
+			RecordInputStream records = new RecordInputStream(inp);
+			List<Integer> dbcells = new ArrayList<Integer>();
+			IndexRecord index = null;
+			int position = 0;
+			short sid = 0;
+			while (records.hasNextRecord()) {
+				records.nextRecord();
+				sid = records.getSid();
+				int length = records.remaining();
+				if (sid == IndexRecord.sid) {
+					index = new IndexRecord(records);
+				} else {
+					if (sid == DBCellRecord.sid) {
+						dbcells.add(position);
+					}
+					records.readRemainder();
+				}
+				position += 4 + length;
+			}
+			Assert.assertEquals(4, dbcells.size());
+			Assert.assertEquals(4, index.getNumDbcells());
+			for (int i = 0; i < dbcells.size(); i++) {
+				Assert.assertEquals(dbcells.get(i).intValue(), index.getDbcellAt(i));
+			}
+			Assert.assertEquals(101, index.getLastRowAdd1());
+			// nothing follows the last EOF record
+			Assert.assertEquals(EOFRecord.sid, sid);
+		} finally {
+			inp.close();
+		}
+		
+		file.delete();
+	}
+
+	@Test
+	public void testResolvingExcelColumnsByHeader() {
+		assertResolvedExcelColumns(false);
+	}
+	
+	@Test
+	public void testResolvingStreamedExcelColumnsByHeader() {
+		assertResolvedExcelColumns(true);
+	}
+	
+	private void assertResolvedExcelColumns(boolean streaming) {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.setStreaming(streaming);
+		PhoneColumnCallback callback = new PhoneColumnCallback();
+		List<String> phones = et.onEachRow("Sheet1", callback);
+		
+		Assert.assertEquals(1, callback.headerCount);
+		Assert.assertEquals(Arrays.asList("555-821-2123", "555-915-9900", "555-321-9502"), phones);
+		Assert.assertEquals(2, et.readColumnHeaders("Sheet1").indexOf("Phone"));
+		Assert.assertEquals(0, et.findColumnHeaders("Sheet1", " Address ").getRowNum());
+		try {
+			et.findColumnHeaders("Sheet1", "Fax");
+			Assert.fail("Expected a missing header row to be reported");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testMappingExcelRowsToBeans() {
+		assertBeanMappedExcelRows(false);
+	}
+	
+	@Test
+	public void testMappingStreamedExcelRowsToBeans() {
+		assertBeanMappedExcelRows(true);
+	}
+	
+	private void assertBeanMappedExcelRows(boolean streaming) {
+		File file = new File(pathname + File.separator + "phonebook_with_holes.xls");
+		ExcelTemplate et = new ExcelTemplate(file, true);
+		et.setStreaming(streaming);
+		List<PhoneBookEntry> entries = et.onEachRow("Sheet1", new ExcelBeanRowCallback<PhoneBookEntry>(PhoneBookEntry.class));
+		
+		Assert.assertEquals(4, entries.size());
+		Assert.assertEquals("Peter Gibbons", entries.get(0).getName());
+		Assert.assertEquals("123 ABC Drive", entries.get(0).getAddress());
+		Assert.assertEquals("555-821-2123", entries.get(0).getPhone());
+		Assert.assertNull(entries.get(1).getAddress());
+		Assert.assertNull(entries.get(3).getPhone());
+		
+		List<ContactCard> cards = et.onEachRow("Sheet1", new ExcelBeanRowCallback<ContactCard>(ContactCard.class));
+		Assert.assertEquals("Joanna", cards.get(1).getFullName());
+		Assert.assertEquals("555-915-9900", cards.get(1).getPhoneNumber());
+		
+		// without a header row, only the column given by index is bound
+		cards = et.onEachRow("Sheet1", new ExcelBeanRowCallback<ContactCard>(ContactCard.class), false, 
+				new DefaultExcelTemplateErrorHandler<ContactCard>());
+		Assert.assertEquals(5, cards.size());
+		Assert.assertNull(cards.get(1).getFullName());
+		Assert.assertEquals("555-821-2123", cards.get(1).getPhoneNumber());
+	}
+	
+	private static class PhoneColumnCallback implements ExcelRowCallback<String>, ColumnHeadersAware {
+		
+		private int headerCount;
+		
+		private int phoneColumn = -1;
+		
+		public void setColumnHeaders(ColumnHeaders columnHeaders) {
+			headerCount++;
+			phoneColumn = columnHeaders.indexOf("Phone");
+		}
+		
+		public String mapRow(Row row) {
+			Cell phone = row.getCell(phoneColumn);
+			return phone == null ? null : phone.getStringCellValue();
+		}
+		
+	}
+
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.batch.spreadsheet.support.PhoneBookEntry;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+/**
+ * @author agent
+ */
+public class TestExcelToCalcConverter {
+
+	private String pathname = "src" + File.separator + "test" + File.separator + "resources";
+	
+	private CalcStreamingRowCallback<String> cells = new CalcStreamingRowCallback<String>() {
+		public String mapRow(CalcRow row) {
+			StringBuilder cells = new StringBuilder().append(row.getRowIndex()).append(":");
+			for (int column = 0; column < row.getColumnCount(); column++) {
+				cells.append(" ").append(row.getValueType(column)).append("=").append(row.getString(column));
+			}
+			return cells.toString();
+		}
+	};
+	
+	@Test
+	public void testConvertingEveryWorksheet() throws IOException {
+		File target = File.createTempFile("phonebook", ".ods");
+		target.deleteOnExit();
+		
+		Map<String, Integer> rowCounts = new ExcelToCalcConverter(new File(pathname + File.separator + "phonebook_with_holes.xls"), target).convert();
+		
+		Assert.assertEquals("{Sheet1=5, Sheet2=0, Sheet3=0}", rowCounts.toString());
+		List<PhoneBookEntry> entries = new CalcTemplate(target, true).onEachRow(0, new CalcStreamingBeanRowCallback<PhoneBookEntry>(PhoneBookEntry.class));
+		Assert.assertEquals(4, entries.size());
+		Assert.assertEquals("Peter Gibbons", entries.get(0).getName());
+		Assert.assertNull(entries.get(1).getAddress());
+		Assert.assertEquals("555-321-9502", entries.get(2).getPhone());
+		
+		target.delete();
+	}
+	
+	@Test
+	public void testConvertingWorksheetsInParallel() throws IOException {
+		File source = File.createTempFile("typed", ".xls");
+		source.deleteOnExit();
+		File target = File.createTempFile("typed", ".ods");
+		target.deleteOnExit();
+		new ExcelTemplate(source).writeRows("Sheet1", Arrays.asList(1, 2, 4), new RowWriterCallback<Integer>() {
+			public void writeRow(Integer item, RowWriter row) {
+				row.setString(0, "row" + item);
+				row.setNumber(1, item * 1.5);
+				row.setBoolean(2, item % 2 == 0);
+				row.setDate(4, new GregorianCalendar(2009, Calendar.NOVEMBER, item).getTime());
+			}
+		});
+		
+		ExcelToCalcConverter converter = new ExcelToCalcConverter(source, target);
+		converter.setTaskExecutor(new SimpleAsyncTaskExecutor());
+		Map<String, Integer> rowCounts = converter.convert(Arrays.asList("Sheet1"));
+		
+		Assert.assertEquals(3, rowCounts.get("Sheet1").intValue());
+		Assert.assertEquals(Arrays.asList(
+				"0: string=row1 float=1.5 boolean=false null=null date=2009-11-01", 
+				"1: string=row2 float=3 boolean=true null=null date=2009-11-02",
+				"2: string=row4 float=6 boolean=true null=null date=2009-11-04"),
+				new CalcTemplate(target).onEachRow(0, cells));
+		
+		source.delete();
+		target.delete();
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.batch.spreadsheet.support;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.springframework.batch.spreadsheet.ItemSerializer;
+
+/**
+ * Writes the three fields of a {@link PhoneBookEntry}, any of which may be missing.
+ * 
+ * @since 10/16/2026
+ * @author agent
+ */
+public class PhoneBookEntrySerializer implements ItemSerializer<PhoneBookEntry> {
+
+	public void serialize(PhoneBookEntry item, DataOutput out) throws IOException {
+		writeString(item.getName(), out);
+		writeString(item.getAddress(), out);
+		writeString(item.getPhone(), out);
+	}
+
+	public PhoneBookEntry deserialize(DataInput in) throws IOException {
+		return new PhoneBookEntry(readString(in), readString(in), readString(in));
+	}
+
+	private void writeString(String value, DataOutput out) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+}